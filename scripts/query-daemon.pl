@@ -0,0 +1,35 @@
+#!/usr/bin/perl
+
+# sends one request to a running Pixy daemon (see "-D" option) and prints the answer;
+# usage: query-daemon.pl port [options] file
+#        query-daemon.pl port STATUS|SHUTDOWN
+
+use Cwd 'abs_path';
+use IO::Socket::INET;
+
+my $port = shift(@ARGV) or die "usage: $0 port [options] file\n";
+
+my $request;
+if (@ARGV == 1 && ($ARGV[0] eq "STATUS" || $ARGV[0] eq "SHUTDOWN")) {
+    $request = $ARGV[0];
+} else {
+    # the daemon resolves relative paths against its own working directory
+    $ARGV[-1] = abs_path($ARGV[-1]);
+    $request = "ANALYZE @ARGV";
+}
+
+my $socket = IO::Socket::INET->new(PeerAddr => "127.0.0.1", PeerPort => $port, Proto => "tcp")
+    or die "Cannot connect to daemon on port $port: $!\n";
+print $socket "$request\n";
+
+my $status = 1;
+while (my $line = <$socket>) {
+    print $line;
+    if ($line =~ /^OK /) {
+        $status = 0;
+        last;
+    }
+    last if ($line =~ /^ERROR /);
+}
+close($socket);
+exit($status);
@@ -21,6 +21,11 @@ public abstract class AbstractVulnerabilityAnalysis {
     protected DependencyAnalysis dependencyAnalysis;
     protected VulnerabilityAnalysisInformation vulnerabilityAnalysisInformation;
 
+    /**
+     * The analysis run to which the analyzed program belongs.
+     */
+    protected AnalysisSession session;
+
     /**
      * Flags returned by getInitialTaintForPlace():
      * - always tainted
@@ -35,6 +40,7 @@ public abstract class AbstractVulnerabilityAnalysis {
 
     protected AbstractVulnerabilityAnalysis(DependencyAnalysis dependencyAnalysis) {
         this.dependencyAnalysis = dependencyAnalysis;
+        this.session = dependencyAnalysis.getSession();
         this.vulnerabilityAnalysisInformation = MyOptions.getVulnerabilityAnalysisInformation(this.getClass().getName());
     }
 
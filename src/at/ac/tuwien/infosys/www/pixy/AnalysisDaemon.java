@@ -0,0 +1,343 @@
+package at.ac.tuwien.infosys.www.pixy;
+
+import at.ac.tuwien.infosys.www.pixy.conversion.ProgramConverter;
+import at.ac.tuwien.infosys.www.pixy.conversion.ProgramDatabase;
+import at.ac.tuwien.infosys.www.pixy.conversion.TacConverter;
+import org.apache.commons.cli.*;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringTokenizer;
+
+/**
+ * Daemon mode: keeps the configuration, the models of builtin functions and the parse trees of analyzed files in
+ * memory and analyzes entry files on request, so that repeated scans (e.g., on every save in an editor) don't pay
+ * the startup costs again.
+ *
+ * The daemon listens on a TCP port of the loopback interface and speaks a line-based protocol. A client sends one
+ * request per line:
+ *
+ * - "ANALYZE [options] file": analyzes the given entry file (an absolute path, or relative to the working directory
+ *   of the daemon); the output of the analysis is streamed back, followed by "OK n" (n = number of detected
+ *   vulnerabilities) or "ERROR message"
+ * - "STATUS": prints some statistics, followed by "OK 0"
+ * - "SHUTDOWN": answers with "OK 0" and terminates the daemon
+ *
+ * The options of a request are a subset of the command line options (see createRequestOptions()). They are added to
+ * the options the daemon was started with, for this request only: a request can switch on an option that the daemon
+ * was started without, but can't switch off one that it was started with (e.g., a daemon started with -A always
+ * performs alias analysis). Only -y replaces the daemon's choice of analyses. Clients that need different settings
+ * should start the daemon with as few options as possible and give the others with each request.
+ *
+ * Several requests can be sent over one connection. Requests are served one after another, since the options of
+ * a request are stored in MyOptions. Before each analysis, the configuration files (including custom sink files)
+ * are checked for modifications and read again if necessary; modified PHP files are parsed again, and the index
+ * of the project's files is refreshed if files were created or deleted.
+ */
+public final class AnalysisDaemon {
+    // parse trees of all files analyzed so far (checked for modifications)
+    private ProgramDatabase programDatabase;
+
+    // configuration file -> modification time when it was read
+    private Map<File, Long> configurationFiles;
+
+    // the option values the daemon was started with; restored before each request
+    private boolean[] defaultFlags;
+    private boolean[] defaultAnalyses;
+
+    // statistics
+    private int numberOfRequests = 0;
+    private int numberOfReloads = 0;
+
+    private boolean shutdown = false;
+
+//  ********************************************************************************
+//  CONSTRUCTOR ********************************************************************
+//  ********************************************************************************
+
+    AnalysisDaemon() {
+        this.programDatabase = new ProgramDatabase(true);
+        this.configurationFiles = new HashMap<>();
+    }
+
+//  ********************************************************************************
+//  SERVING ************************************************************************
+//  ********************************************************************************
+
+    static void serve(int port) {
+        AnalysisDaemon daemon = new AnalysisDaemon();
+        daemon.run(port);
+    }
+
+    void run(int port) {
+        // errors inside an analysis must not terminate the daemon
+        Utils.setExitOnBail(false);
+
+        this.readConfiguration();
+        this.defaultFlags = getFlags();
+        this.defaultAnalyses = getAnalyses();
+
+        ServerSocket serverSocket = null;
+        try {
+            serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        } catch (IOException e) {
+            Utils.setExitOnBail(true);
+            Utils.bail("Can't listen on port " + port + ": " + e.getMessage());
+        }
+        System.out.println("Pixy daemon listening on " + serverSocket.getLocalSocketAddress());
+
+        AnalysisSession.installOutputRouting();
+        try {
+            while (!this.shutdown) {
+                Socket socket = serverSocket.accept();
+                try {
+                    this.handleConnection(socket);
+                } catch (IOException e) {
+                    System.out.println("Warning: Connection aborted: " + e.getMessage());
+                } finally {
+                    socket.close();
+                }
+            }
+            serverSocket.close();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            AnalysisSession.uninstallOutputRouting();
+        }
+    }
+
+    private void handleConnection(Socket socket) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+        OutputStream socketOut = socket.getOutputStream();
+        PrintStream writer = new PrintStream(socketOut, true);
+
+        String line;
+        while (!this.shutdown && (line = reader.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty()) {
+                continue;
+            }
+            StringTokenizer tokenizer = new StringTokenizer(line);
+            String command = tokenizer.nextToken();
+            String[] arguments = new String[tokenizer.countTokens()];
+            for (int i = 0; i < arguments.length; i++) {
+                arguments[i] = tokenizer.nextToken();
+            }
+
+            if (command.equals("ANALYZE")) {
+                this.analyze(arguments, socketOut, writer);
+            } else if (command.equals("STATUS")) {
+                this.printStatus(writer);
+                writer.println("OK 0");
+            } else if (command.equals("SHUTDOWN")) {
+                this.shutdown = true;
+                writer.println("OK 0");
+            } else {
+                writer.println("ERROR unknown command: " + command);
+            }
+        }
+    }
+
+//  ********************************************************************************
+//  REQUESTS ***********************************************************************
+//  ********************************************************************************
+
+    private void analyze(String[] arguments, OutputStream socketOut, PrintStream writer) {
+        this.numberOfRequests++;
+
+        // apply the options of this request
+        setFlags(this.defaultFlags);
+        setAnalyses(this.defaultAnalyses);
+        String fileName;
+        try {
+            CommandLine commandLine = new PosixParser().parse(createRequestOptions(), arguments);
+            if (commandLine.getArgs().length != 1) {
+                writer.println("ERROR please specify exactly one target file");
+                return;
+            }
+            fileName = commandLine.getArgs()[0];
+            applyRequestOptions(commandLine);
+        } catch (ParseException e) {
+            writer.println("ERROR " + describe(e));
+            return;
+        }
+
+        try {
+            if (this.configurationModified()) {
+                writer.println("Configuration modified, reading it again");
+                this.readConfiguration();
+            }
+            // include resolution must notice files that were created or deleted
+            this.programDatabase.refreshFiles();
+
+            Checker checker = new Checker(fileName);
+            AnalysisSession session = checker.getSession();
+            session.redirectOutput(socketOut);
+            try {
+                ProgramConverter programConverter = checker.convert(this.programDatabase);
+                TacConverter tac = programConverter.getTac();
+                checker.analyzeTaint(tac, !MyOptions.optionA);
+                System.out.println("\n*** detecting vulnerabilities ***\n");
+                List<Integer> vulnerabilities = checker.gta.detectVulnerabilities();
+                checker.printDegradation();
+                System.out.flush();
+                writer.println("OK " + vulnerabilities.size());
+            } finally {
+                session.releaseOutput();
+                AnalysisSession.unbind();
+            }
+        } catch (ThreadDeath e) {
+            throw e;
+        } catch (Throwable e) {
+            // also errors such as a StackOverflowError on a deeply nested program
+            // must only fail this request
+            if (e instanceof OutOfMemoryError) {
+                this.programDatabase.releaseParseTrees();
+            }
+            writer.println("ERROR " + describe(e));
+        } finally {
+            setFlags(this.defaultFlags);
+            setAnalyses(this.defaultAnalyses);
+        }
+    }
+
+    // the message of the given exception, or its class if it has none
+    private static String describe(Throwable e) {
+        return (e.getMessage() == null) ? e.getClass().getName() : e.getMessage();
+    }
+
+    private void printStatus(PrintStream writer) {
+        writer.println("requests:                        " + this.numberOfRequests);
+        writer.println("configuration reloads:           " + this.numberOfReloads);
+        writer.println("cached parse trees:              " + this.programDatabase.size());
+        writer.println("parse trees reused:              " + this.programDatabase.getNumberOfReusedFiles());
+        writer.println("outdated parse trees:            " + this.programDatabase.getNumberOfOutdatedFiles());
+        writer.println("include resolutions reused:      " + this.programDatabase.getNumberOfReusedResolutions());
+        writer.println("file index refreshes:            " + this.programDatabase.getNumberOfFileRefreshes());
+    }
+
+    // the command line options that may be given with a request
+    private static Options createRequestOptions() {
+        Options requestOptions = new Options();
+
+        requestOptions.addOption("a", "call-string", false, "call-string analysis (else: functional)");
+        requestOptions.addOption("A", "alias", false, "use alias analysis");
+        requestOptions.addOption("b", "brief", false, "be brief (for regression tests)");
+        requestOptions.addOption("g", "registerGlobals", false, "DISABLE register_globals for analysis");
+        requestOptions.addOption("i", "getisuntaintedsql", false, "make the GET array untainted for SQL analysis");
+        requestOptions.addOption("L", "literal", false, "use literal analysis (usually not necessary)");
+        requestOptions.addOption("O", "optimize", false, "optimize the converted program (copy propagation, removal of dead temporaries)");
+        requestOptions.addOption("r", "notrim", false, "do NOT trim untained stuff (during sanitation analysis)");
+        requestOptions.addOption("v", "verbose", false, "enable verbose output");
+        requestOptions.addOption("V", "verbosegraphs", false, "disable verbose depgraphs");
+        requestOptions.addOption("y", "analysistype", true, "type of taint analysis (" + MyOptions.getAnalysisNames() + ")");
+
+        return requestOptions;
+    }
+
+    // request options can only switch on what the daemon was started without (see the class
+    // comment); there are no request options for switching off a default
+    private static void applyRequestOptions(CommandLine commandLine) throws ParseException {
+        MyOptions.optionA |= commandLine.hasOption("a");
+        MyOptions.option_A |= commandLine.hasOption("A");
+        MyOptions.optionB |= commandLine.hasOption("b");
+        MyOptions.optionG &= !commandLine.hasOption("g");
+        MyOptions.optionI |= commandLine.hasOption("i");
+        MyOptions.option_L |= commandLine.hasOption("L");
+        MyOptions.option_O |= commandLine.hasOption("O");
+        MyOptions.optionR |= commandLine.hasOption("r");
+        MyOptions.optionV |= commandLine.hasOption("v");
+        MyOptions.option_V &= !commandLine.hasOption("V");
+        if (commandLine.hasOption("y")) {
+            setAnalyses(new boolean[MyOptions.getVulnerabilityAnalyses().length]);
+            if (!MyOptions.setAnalyses(commandLine.getOptionValue("y"))) {
+                throw new ParseException("Invalid 'y' argument");
+            }
+        }
+    }
+
+//  ********************************************************************************
+//  OPTIONS ************************************************************************
+//  ********************************************************************************
+
+    private static boolean[] getFlags() {
+        return new boolean[]{
+            MyOptions.optionA, MyOptions.option_A, MyOptions.optionB, MyOptions.optionG, MyOptions.optionI,
+            MyOptions.option_L, MyOptions.option_O, MyOptions.optionR, MyOptions.optionV, MyOptions.option_V
+        };
+    }
+
+    private static void setFlags(boolean[] flags) {
+        MyOptions.optionA = flags[0];
+        MyOptions.option_A = flags[1];
+        MyOptions.optionB = flags[2];
+        MyOptions.optionG = flags[3];
+        MyOptions.optionI = flags[4];
+        MyOptions.option_L = flags[5];
+        MyOptions.option_O = flags[6];
+        MyOptions.optionR = flags[7];
+        MyOptions.optionV = flags[8];
+        MyOptions.option_V = flags[9];
+    }
+
+    private static boolean[] getAnalyses() {
+        VulnerabilityAnalysisInformation[] analyses = MyOptions.getVulnerabilityAnalyses();
+        boolean[] performed = new boolean[analyses.length];
+        for (int i = 0; i < analyses.length; i++) {
+            performed[i] = analyses[i].performMe();
+        }
+        return performed;
+    }
+
+    private static void setAnalyses(boolean[] performed) {
+        VulnerabilityAnalysisInformation[] analyses = MyOptions.getVulnerabilityAnalyses();
+        for (int i = 0; i < analyses.length; i++) {
+            analyses[i].setPerformMe(performed[i]);
+        }
+    }
+
+//  ********************************************************************************
+//  CONFIGURATION ******************************************************************
+//  ********************************************************************************
+
+    // (re)reads the configuration, the sinks and the models of builtin functions,
+    // and remembers the modification times of the files they come from
+    private void readConfiguration() {
+        if (!this.configurationFiles.isEmpty()) {
+            this.numberOfReloads++;
+        }
+        MyOptions.clearConfiguration();
+        Checker.readConfiguration();
+        Checker.readModels();
+
+        this.configurationFiles.clear();
+        for (File file : collectConfigurationFiles()) {
+            this.configurationFiles.put(file, file.lastModified());
+        }
+    }
+
+    private boolean configurationModified() {
+        Map<File, Long> current = new HashMap<>();
+        for (File file : collectConfigurationFiles()) {
+            current.put(file, file.lastModified());
+        }
+        return !current.equals(this.configurationFiles);
+    }
+
+    // all files that are read by readConfiguration()
+    private static List<File> collectConfigurationFiles() {
+        List<File> files = Utils.fileListFromDir(MyOptions.pixyHome + "/" + MyOptions.configurationDirectory);
+        if (MyOptions.optionS != null) {
+            StringTokenizer tokenizer = new StringTokenizer(MyOptions.optionS, ":");
+            while (tokenizer.hasMoreTokens()) {
+                files.add(new File(tokenizer.nextToken()));
+            }
+        }
+        return files;
+    }
+}
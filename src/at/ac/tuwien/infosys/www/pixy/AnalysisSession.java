@@ -0,0 +1,266 @@
+package at.ac.tuwien.infosys.www.pixy;
+
+import at.ac.tuwien.infosys.www.pixy.analysis.GenericRepository;
+import at.ac.tuwien.infosys.www.pixy.analysis.dependency.DependencyLabel;
+import at.ac.tuwien.infosys.www.pixy.analysis.dependency.DependencyLatticeElement;
+import at.ac.tuwien.infosys.www.pixy.analysis.dependency.DependencySet;
+import at.ac.tuwien.infosys.www.pixy.analysis.literal.LiteralLatticeElement;
+import at.ac.tuwien.infosys.www.pixy.analysis.type.Type;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The state of a single analysis run (i.e., of the analysis of one entry file).
+ *
+ * Options, configuration and the models of builtin functions are read once and are only read afterwards, so they stay
+ * in MyOptions. Everything that is modified while an entry file is converted and analyzed lives here instead, so that
+ * several entry files can be analyzed concurrently in one process, each with its own session.
+ *
+ * The session is handed to Checker, ProgramConverter, TacConverter and the taint analyses. In addition, it is bound to
+ * the thread that performs the run, so that the recycling repositories and lattice defaults deep inside the analyses
+ * can find it without threading it through every transfer function (see current()).
+ */
+public class AnalysisSession {
+    // the session bound to the current thread
+    private static final ThreadLocal<AnalysisSession> boundSession = new ThreadLocal<>();
+
+    // used by threads to which no session was bound (e.g., by code that uses
+    // the analyses without going through the Checker)
+    private static final AnalysisSession defaultSession = new AnalysisSession(null);
+
+    // the streams that System.out and System.err pointed to before output routing
+    // was installed; null as long as output routing is not installed
+    private static PrintStream originalOut;
+    private static PrintStream originalErr;
+
+    // the scanned entry file (canonical)
+    private File entryFile;
+
+    // recycling repositories of the dependency analysis
+    private GenericRepository<DependencySet> dependencySetRepository;
+    private GenericRepository<DependencyLabel> dependencyLabelRepository;
+
+    // default lattice elements of the literal and the dependency analysis
+    private LiteralLatticeElement defaultLiteralLatticeElement;
+    private DependencyLatticeElement defaultDependencyLatticeElement;
+
+    // class name -> type (type analysis)
+    private Map<String, Type> classTypes;
+
+    // next free id for automaton states (sanitation analysis)
+    private int nextStateId = 0;
+
+    // where the output printed by the thread of this session goes;
+    // null if it goes to the original System.out
+    private OutputStream output;
+
+    // where the error output printed by the thread of this session goes;
+    // null if it goes to the original System.err
+    private OutputStream errorOutput;
+
+    // the output and the error output collected by captureOutput();
+    // null if the output is not collected
+    private ByteArrayOutputStream capturedOutput;
+    private ByteArrayOutputStream capturedErrorOutput;
+
+//  ********************************************************************************
+//  CONSTRUCTOR ********************************************************************
+//  ********************************************************************************
+
+    public AnalysisSession(File entryFile) {
+        this.entryFile = entryFile;
+
+        this.dependencySetRepository = new GenericRepository<>();
+        this.dependencySetRepository.recycle(DependencySet.UNINIT);
+        this.dependencyLabelRepository = new GenericRepository<>();
+
+        this.classTypes = new HashMap<>();
+    }
+
+//  ********************************************************************************
+//  BINDING ************************************************************************
+//  ********************************************************************************
+
+    // returns the session bound to the current thread, or the default session
+    // if there is none
+    public static AnalysisSession current() {
+        AnalysisSession session = boundSession.get();
+        if (session == null) {
+            return defaultSession;
+        }
+        return session;
+    }
+
+    // binds this session to the current thread
+    public void bind() {
+        boundSession.set(this);
+    }
+
+    // removes the binding of the current thread
+    public static void unbind() {
+        boundSession.remove();
+    }
+
+//  ********************************************************************************
+//  OUTPUT *************************************************************************
+//  ********************************************************************************
+
+    // redirects System.out and System.err such that the output of threads whose
+    // session captures output is written into that session instead of the console
+    static synchronized void installOutputRouting() {
+        if (originalOut != null) {
+            return;
+        }
+        originalOut = System.out;
+        originalErr = System.err;
+        System.setOut(new PrintStream(new RoutingOutputStream(originalOut, false), true));
+        System.setErr(new PrintStream(new RoutingOutputStream(originalErr, true), true));
+    }
+
+    // restores the System.out and System.err that were active before installOutputRouting()
+    static synchronized void uninstallOutputRouting() {
+        if (originalOut == null) {
+            return;
+        }
+        System.out.flush();
+        System.err.flush();
+        System.setOut(originalOut);
+        System.setErr(originalErr);
+        originalOut = null;
+        originalErr = null;
+    }
+
+    // from now on, output and error output printed by the thread of this session
+    // are collected separately (only effective if output routing is installed)
+    void captureOutput() {
+        this.capturedOutput = new ByteArrayOutputStream();
+        this.capturedErrorOutput = new ByteArrayOutputStream();
+        this.output = this.capturedOutput;
+        this.errorOutput = this.capturedErrorOutput;
+    }
+
+    // from now on, output and error output printed by the thread of this session are
+    // written into the given stream (only effective if output routing is installed)
+    void redirectOutput(OutputStream output) {
+        this.capturedOutput = null;
+        this.capturedErrorOutput = null;
+        this.output = output;
+        this.errorOutput = output;
+    }
+
+    // returns the collected error output (if any); has to be called before releaseOutput()
+    String getCapturedErrorOutput() {
+        if (this.capturedErrorOutput == null) {
+            return "";
+        }
+        return this.capturedErrorOutput.toString();
+    }
+
+    // returns the collected output (if any) and stops collecting / redirecting
+    String releaseOutput() {
+        String collected = "";
+        if (this.capturedOutput != null) {
+            collected = this.capturedOutput.toString();
+        }
+        this.capturedOutput = null;
+        this.capturedErrorOutput = null;
+        this.output = null;
+        this.errorOutput = null;
+        return collected;
+    }
+
+//  ********************************************************************************
+//  GET ****************************************************************************
+//  ********************************************************************************
+
+    public File getEntryFile() {
+        return this.entryFile;
+    }
+
+    public GenericRepository<DependencySet> getDependencySetRepository() {
+        return this.dependencySetRepository;
+    }
+
+    public GenericRepository<DependencyLabel> getDependencyLabelRepository() {
+        return this.dependencyLabelRepository;
+    }
+
+    public LiteralLatticeElement getDefaultLiteralLatticeElement() {
+        return this.defaultLiteralLatticeElement;
+    }
+
+    public DependencyLatticeElement getDefaultDependencyLatticeElement() {
+        return this.defaultDependencyLatticeElement;
+    }
+
+    public Map<String, Type> getClassTypes() {
+        return this.classTypes;
+    }
+
+    public int nextStateId() {
+        return this.nextStateId++;
+    }
+
+//  ********************************************************************************
+//  SET ****************************************************************************
+//  ********************************************************************************
+
+    public void setDefaultLiteralLatticeElement(LiteralLatticeElement element) {
+        this.defaultLiteralLatticeElement = element;
+    }
+
+    public void setDefaultDependencyLatticeElement(DependencyLatticeElement element) {
+        this.defaultDependencyLatticeElement = element;
+    }
+
+    public void setClassTypes(Map<String, Type> classTypes) {
+        this.classTypes = classTypes;
+    }
+
+//  ********************************************************************************
+//  ROUTING OUTPUT STREAM **********************************************************
+//  ********************************************************************************
+
+    // writes into the (error) output of the current thread's session, or into
+    // the original stream if that session doesn't redirect its output
+    private static final class RoutingOutputStream extends OutputStream {
+        private final PrintStream original;
+
+        // routes System.err instead of System.out?
+        private final boolean error;
+
+        RoutingOutputStream(PrintStream original, boolean error) {
+            this.original = original;
+            this.error = error;
+        }
+
+        private OutputStream target() {
+            AnalysisSession session = boundSession.get();
+            if (session != null) {
+                OutputStream sessionOutput = this.error ? session.errorOutput : session.output;
+                if (sessionOutput != null) {
+                    return sessionOutput;
+                }
+            }
+            return this.original;
+        }
+
+        public void write(int b) throws IOException {
+            this.target().write(b);
+        }
+
+        public void write(byte[] b, int off, int len) throws IOException {
+            this.target().write(b, off, len);
+        }
+
+        public void flush() throws IOException {
+            this.target().flush();
+        }
+    }
+}
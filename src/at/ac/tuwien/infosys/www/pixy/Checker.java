@@ -10,8 +10,11 @@ import at.ac.tuwien.infosys.www.pixy.analysis.interprocedural.callstring.CallStr
 import at.ac.tuwien.infosys.www.pixy.analysis.interprocedural.functional.FunctionalAnalysis;
 import at.ac.tuwien.infosys.www.pixy.analysis.literal.DummyLiteralAnalysis;
 import at.ac.tuwien.infosys.www.pixy.analysis.literal.LiteralAnalysis;
+import at.ac.tuwien.infosys.www.pixy.conversion.BranchPruner;
 import at.ac.tuwien.infosys.www.pixy.conversion.InternalStrings;
+import at.ac.tuwien.infosys.www.pixy.conversion.ParseTreeCache;
 import at.ac.tuwien.infosys.www.pixy.conversion.ProgramConverter;
+import at.ac.tuwien.infosys.www.pixy.conversion.ProgramDatabase;
 import at.ac.tuwien.infosys.www.pixy.conversion.TacConverter;
 import at.ac.tuwien.infosys.www.pixy.conversion.TacFunction;
 import org.apache.commons.cli.*;
@@ -21,7 +24,9 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.Enumeration;
+import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Properties;
 import java.util.StringTokenizer;
 
@@ -29,6 +34,9 @@ import java.util.StringTokenizer;
  * @author Nenad Jovanovic <enji@seclab.tuwien.ac.at>
  */
 public final class Checker {
+    // the state of this analysis run
+    private AnalysisSession session;
+
     // enable this switch to make the TacConverter recognize hotspots
     // and other special nodes
     private boolean specialNodes = true;
@@ -48,13 +56,19 @@ public final class Checker {
 
     InclusionDominatorAnalysis inclusionDominatorAnalysis;
 
+    // the fallbacks that were taken because an analysis exhausted its budget:
+    // sound ones (the analysis becomes less precise) and unsound ones (vulnerabilities
+    // might be missed)
+    private List<String> degradations = new LinkedList<>();
+    private List<String> unsoundDegradations = new LinkedList<>();
+
 //  ********************************************************************************
 //  MAIN ***************************************************************************
 //  ********************************************************************************
 
     private static void help(Options cliOptions) {
         HelpFormatter helpFormatter = new HelpFormatter();
-        helpFormatter.printHelp("check [options] file", cliOptions);
+        helpFormatter.printHelp("check [options] [file|directory]", cliOptions);
     }
 
     public static void main(String[] args) {
@@ -81,24 +95,28 @@ public final class Checker {
             System.exit(0);
         }
 
+        // the daemon receives its target files with the requests
         String[] trailingArguments = commandLine.getArgs();
-        if (trailingArguments.length != 1) {
-            help(commandLineOptions);
-            Utils.bail("Please specify exactly one target file.");
+        String fileName = null;
+        if (commandLine.hasOption("D")) {
+            if (trailingArguments.length != 0) {
+                help(commandLineOptions);
+                Utils.bail("Please specify no target file in daemon mode.");
+            }
+        } else {
+            if (trailingArguments.length != 1) {
+                help(commandLineOptions);
+                Utils.bail("Please specify exactly one target file.");
+            }
+            fileName = trailingArguments[0];
         }
-        String fileName = trailingArguments[0];
-
-        // **********************
-        // CHECKING
-        // **********************
-
-        Checker checker = new Checker(fileName);
 
         // set boolean options according to command line
         MyOptions.optionA = commandLine.hasOption("a");
         MyOptions.option_A = commandLine.hasOption("A");
         MyOptions.optionB = commandLine.hasOption("b");
         MyOptions.optionC = commandLine.hasOption("c");
+        MyOptions.option_C = commandLine.hasOption("C");
         MyOptions.optionD = commandLine.hasOption("d");
         MyOptions.optionF = commandLine.hasOption("f");
         MyOptions.optionG = !commandLine.hasOption("g");
@@ -106,6 +124,7 @@ public final class Checker {
         MyOptions.optionL = commandLine.hasOption("l");
         MyOptions.option_L = commandLine.hasOption("L");
         MyOptions.optionM = commandLine.hasOption("m");
+        MyOptions.option_O = commandLine.hasOption("O");
         MyOptions.optionP = commandLine.hasOption("p");
         MyOptions.option_P = commandLine.hasOption("P");
         MyOptions.optionQ = commandLine.hasOption("q");
@@ -116,6 +135,28 @@ public final class Checker {
         MyOptions.optionV = commandLine.hasOption("v");
         MyOptions.option_V = !commandLine.hasOption("V");
 
+        if (commandLine.hasOption("B")) {
+            MyOptions.analysisBudget = AnalysisBudget.parse(commandLine.getOptionValue("B"));
+            if (MyOptions.analysisBudget == null) {
+                Utils.bail("Invalid 'B' argument");
+            }
+        }
+
+        if (commandLine.hasOption("E")) {
+            MyOptions.parseTreeCache = new ParseTreeCache(new File(commandLine.getOptionValue("E")));
+        }
+
+        if (commandLine.hasOption("G")) {
+            try {
+                MyOptions.numberOfParserThreads = Integer.parseInt(commandLine.getOptionValue("G"));
+            } catch (NumberFormatException e) {
+                MyOptions.numberOfParserThreads = 0;
+            }
+            if (MyOptions.numberOfParserThreads < 1) {
+                Utils.bail("Invalid 'G' argument");
+            }
+        }
+
         // inform MyOptions about the analyses that are to be performed
         if (!MyOptions.setAnalyses(commandLine.getOptionValue("y"))) {
             Utils.bail("Invalid 'y' argument");
@@ -140,6 +181,70 @@ public final class Checker {
             }
         }
 
+        // **********************
+        // CHECKING
+        // **********************
+
+        if (commandLine.hasOption("D")) {
+            if (MyOptions.optionP || MyOptions.optionC || MyOptions.optionD || MyOptions.optionL || MyOptions.optionM
+                || MyOptions.optionT || MyOptions.optionF) {
+                Utils.bail("Options -p, -c, -d, -l, -m, -t and -f are not supported in daemon mode");
+            }
+            int port = 0;
+            try {
+                port = Integer.parseInt(commandLine.getOptionValue("D"));
+            } catch (NumberFormatException e) {
+                Utils.bail("Invalid 'D' argument");
+            }
+            AnalysisDaemon.serve(port);
+            return;
+        }
+
+        if (commandLine.hasOption("j")) {
+            if (MyOptions.optionP || MyOptions.optionC || MyOptions.optionD) {
+                Utils.bail("Options -p, -c and -d are not supported in project mode");
+            }
+            int numberOfThreads = 1;
+            if (commandLine.hasOption("n")) {
+                try {
+                    numberOfThreads = Integer.parseInt(commandLine.getOptionValue("n"));
+                } catch (NumberFormatException e) {
+                    numberOfThreads = 0;
+                }
+                if (numberOfThreads < 1) {
+                    Utils.bail("Invalid 'n' argument");
+                }
+            }
+            if (commandLine.hasOption("u") && !commandLine.hasOption("x")) {
+                Utils.bail("Option -u requires an include index (option -x)");
+            }
+            if (MyOptions.optionL) {
+                File entryListFile = null;
+                if (commandLine.hasOption("z")) {
+                    entryListFile = new File(commandLine.getOptionValue("z"));
+                }
+                LibraryScanner.check(fileName, numberOfThreads, entryListFile);
+                return;
+            }
+            if (commandLine.hasOption("k")) {
+                int numberOfWorkers = 0;
+                try {
+                    numberOfWorkers = Integer.parseInt(commandLine.getOptionValue("k"));
+                } catch (NumberFormatException e) {
+                    // handled below
+                }
+                if (numberOfWorkers < 1) {
+                    Utils.bail("Invalid 'k' argument");
+                }
+                ScanCoordinator.check(fileName, numberOfWorkers, commandLine);
+                return;
+            }
+            ProjectChecker.check(fileName, numberOfThreads, commandLine);
+            return;
+        }
+
+        Checker checker = new Checker(fileName);
+
         if (!MyOptions.optionW) {
             if (MyOptions.optionB) {
                 System.out.println("File: " + Utils.basename(fileName));
@@ -155,7 +260,11 @@ public final class Checker {
         TacConverter tac = programConverter.getTac();
 
         // params: tac, functional?, desired analyses
-        checker.analyzeTaint(tac, !MyOptions.optionA);
+        try {
+            checker.analyzeTaint(tac, !MyOptions.optionA);
+        } catch (AnalysisBudgetExhaustedException e) {
+            Utils.bail("Analysis budget exhausted in taint analysis: " + e.getMessage());
+        }
 
         if (!MyOptions.optionB) {
             long analysisEndTime = System.currentTimeMillis();
@@ -171,6 +280,9 @@ public final class Checker {
         // detect vulnerabilities
         System.out.println("\n*** detecting vulnerabilities ***\n");
         checker.gta.detectVulnerabilities();
+        if (checker.printDegradation()) {
+            System.out.println();
+        }
 
         if (!MyOptions.optionB) {
             long endTime = System.currentTimeMillis();
@@ -187,26 +299,41 @@ public final class Checker {
         commandLineOptions.addOption("a", "call-string", false, "call-string analysis (else: functional)");
         commandLineOptions.addOption("A", "alias", false, "use alias analysis");
         commandLineOptions.addOption("b", "brief", false, "be brief (for regression tests)");
+        commandLineOptions.addOption("B", "budget", true, "limits for each analysis run (time=<seconds>,steps=<n>,contexts=<n>); cheaper analyses are used if exceeded");
         commandLineOptions.addOption("c", "cfg", false, "dump the function CFGs in dot syntax");
+        commandLineOptions.addOption("C", "checkincremental", false, "check the incremental backpatching and function assignment during include resolution (slow)");
+        commandLineOptions.addOption("D", "daemon", true, "daemon mode: serve analysis requests on the given local port");
         commandLineOptions.addOption("d", "detailcfg", false, "dump the function control flow graphs and the CFGs of their paramters in dot syntax");
+        commandLineOptions.addOption("E", "parsecache", true, "load parse trees from / store them in the given directory");
+        commandLineOptions.addOption("e", "cache", true, "reuse the results of unchanged entry files stored in the given directory (project mode)");
         commandLineOptions.addOption("f", "functions", false, "print function information");
         commandLineOptions.addOption("g", "registerGlobals", false, "DISABLE register_globals for analysis");
+        commandLineOptions.addOption("G", "parsethreads", true, "number of threads for parsing included files (default: number of processors)");
         commandLineOptions.addOption("h", "help", false, "print help");
         commandLineOptions.addOption("i", "getisuntaintedsql", false, "make the GET array untainted for SQL analysis");
+        commandLineOptions.addOption("j", "project", false, "project mode: analyze all entry files in the given directory or list file");
+        commandLineOptions.addOption("k", "workers", true, "number of worker processes the entry files are distributed to (project mode)");
         commandLineOptions.addOption("l", "libdetect", false, "detect libraries (i.e. scripts with empty main function)");
         commandLineOptions.addOption("L", "literal", false, "use literal analysis (usually not necessary)");
         commandLineOptions.addOption("m", "max", false, "print maximum number of temporaries");
+        commandLineOptions.addOption("n", "threads", true, "number of entry files analyzed concurrently (project mode)");
         commandLineOptions.addOption("o", "outputdir", true, "output directory (for graphs etc.)");
+        commandLineOptions.addOption("O", "optimize", false, "optimize the converted program (copy propagation, removal of dead temporaries)");
         commandLineOptions.addOption("p", "parsetree", false, "print the parse tree in dot syntax");
         commandLineOptions.addOption("P", "prefixes", false, "print prefixes and suffixes");
         commandLineOptions.addOption("q", "query", false, "enable interactive queries");
         commandLineOptions.addOption("r", "notrim", false, "do NOT trim untained stuff (during sanitation analysis)");
+        commandLineOptions.addOption("R", "results", true, "append a record for each analyzed entry file to the given file (project mode)");
         commandLineOptions.addOption("s", "sinks", true, "provide config files for custom sinks");
         commandLineOptions.addOption("t", "table", false, "print symbol tables");
+        commandLineOptions.addOption("T", "tiered", false, "tiered mode: analyze with increasing precision as long as vulnerabilities are reported (project mode)");
+        commandLineOptions.addOption("u", "changed", true, "only analyze the entry files affected by the files listed in the given file (project mode, requires -x)");
         commandLineOptions.addOption("w", "web", false, "web interface mode");
         commandLineOptions.addOption("v", "verbose", false, "enable verbose output");
         commandLineOptions.addOption("V", "verbosegraphs", false, "disable verbose depgraphs");
+        commandLineOptions.addOption("x", "index", true, "maintain an include index in the given file (project mode)");
         commandLineOptions.addOption("y", "analysistype", true, "type of taint analysis (" + MyOptions.getAnalysisNames() + ")");
+        commandLineOptions.addOption("z", "entrylist", true, "write the entry points found with -l into the given list file (project mode)");
 
         return commandLineOptions;
     }
@@ -216,21 +343,73 @@ public final class Checker {
 //  ********************************************************************************
 
     // after calling this constructor and before initializing / analyzing,
-    // you can set options by modifying the appropriate member variables
+    // you can set options by modifying the appropriate member variables;
+    // the new session is bound to the current thread, which has to perform the
+    // whole analysis of this entry file
     public Checker(String fileName) {
         // get entry file
+        File entryFile = null;
         try {
-            MyOptions.entryFile = (new File(fileName)).getCanonicalFile();
+            entryFile = (new File(fileName)).getCanonicalFile();
         } catch (IOException e) {
             Utils.bail("File not found: " + fileName);
         }
+
+        this.session = new AnalysisSession(entryFile);
+        this.session.bind();
+    }
+
+//  ********************************************************************************
+//  GET ****************************************************************************
+//  ********************************************************************************
+
+    public AnalysisSession getSession() {
+        return this.session;
+    }
+
+    // the sound fallbacks that were taken because an analysis exhausted its budget
+    // (comma-separated); null if there were none
+    public String getDegradation() {
+        return join(this.degradations);
+    }
+
+    // the unsound fallbacks that were taken because an analysis exhausted its budget
+    // (comma-separated); null if there were none, i.e., if no vulnerabilities were
+    // missed because of a fallback
+    public String getUnsoundDegradation() {
+        return join(this.unsoundDegradations);
+    }
+
+    private static String join(List<String> degradations) {
+        if (degradations.isEmpty()) {
+            return null;
+        }
+        StringBuilder joined = new StringBuilder();
+        for (Iterator<String> iterator = degradations.iterator(); iterator.hasNext(); ) {
+            joined.append(iterator.next());
+            if (iterator.hasNext()) {
+                joined.append(", ");
+            }
+        }
+        return joined.toString();
+    }
+
+    // prints the fallbacks (if any); returns true if something was printed
+    boolean printDegradation() {
+        if (this.getDegradation() != null) {
+            System.out.println("Degraded analysis: " + this.getDegradation());
+        }
+        if (this.getUnsoundDegradation() != null) {
+            System.out.println("Unsound analysis, vulnerabilities may be missing: " + this.getUnsoundDegradation());
+        }
+        return this.getDegradation() != null || this.getUnsoundDegradation() != null;
     }
 
 //  ********************************************************************************
 //  OTHERS *************************************************************************
 //  ********************************************************************************
 
-    private void readConfiguration() {
+    static void readConfiguration() {
         Properties properties = readConfigurationFileIntoProperties();
 
         readPhpIncludePathFromConfigurationFile(properties);
@@ -239,7 +418,7 @@ public final class Checker {
         readHarmlessServerVariables();
     }
 
-    private Properties readConfigurationFileIntoProperties() {
+    private static Properties readConfigurationFileIntoProperties() {
         String configPath = MyOptions.pixyHome + "/" + MyOptions.configurationDirectory + "/config.txt";
         File configFile = new File(configPath);
         Properties properties = new Properties();
@@ -257,7 +436,7 @@ public final class Checker {
         return properties;
     }
 
-    private void readPhpIncludePathFromConfigurationFile(Properties properties) {
+    private static void readPhpIncludePathFromConfigurationFile(Properties properties) {
         MyOptions.includePaths = new LinkedList<>();
         MyOptions.includePaths.add(new File("."));
         String includePath = properties.getProperty(InternalStrings.INCLUDE_PATH);
@@ -275,7 +454,7 @@ public final class Checker {
         }
     }
 
-    private void findPhpBinary(Properties properties) {
+    private static void findPhpBinary(Properties properties) {
         String phpBin = properties.getProperty(InternalStrings.PHP_BIN);
         if (phpBin == null) {
             MyOptions.phpBin = null;
@@ -289,7 +468,7 @@ public final class Checker {
         }
     }
 
-    private void findFsaUtilities(Properties properties) {
+    private static void findFsaUtilities(Properties properties) {
         String fsaUtilitiesHome = properties.getProperty(InternalStrings.FSA_HOME);
         if (fsaUtilitiesHome != null) {
             if (!(new File(fsaUtilitiesHome)).exists()) {
@@ -299,7 +478,7 @@ public final class Checker {
         MyOptions.fsaHome = fsaUtilitiesHome;
     }
 
-    private void readHarmlessServerVariables() {
+    private static void readHarmlessServerVariables() {
         String harmlessServerVariablesPath = MyOptions.pixyHome + "/" + MyOptions.configurationDirectory
             + "/harmless_server_vars.txt";
         File harmlessServerVariablesFile = new File(harmlessServerVariablesPath);
@@ -329,16 +508,34 @@ public final class Checker {
     // taintString: "-y" option, type of taint analysis
     ProgramConverter initialize() {
         readConfiguration();
+        readModels();
 
         return parseAndConvert();
     }
 
-    private ProgramConverter parseAndConvert() {
+    // reads the sinks and the models of builtin functions
+    static void readModels() {
         MyOptions.initializeBuiltinSinks();
         MyOptions.readCustomSinkFiles();
         MyOptions.readBuiltinFunctionModels();
+    }
 
-        ProgramConverter programConverter = new ProgramConverter(this.specialNodes, MyOptions.option_A);
+    private ProgramConverter parseAndConvert() {
+        ProgramConverter programConverter = this.convert(null);
+
+        if (MyOptions.optionL) {
+            this.printLibraryDetection(programConverter.getTac());
+            System.exit(0);
+        }
+
+        return programConverter;
+    }
+
+    // converts the whole program (with file inclusions); files that are already
+    // contained in the given program database (can be null) are not parsed again
+    ProgramConverter convert(ProgramDatabase programDatabase) {
+        ProgramConverter programConverter = new ProgramConverter(
+            this.session, this.specialNodes, MyOptions.option_A, programDatabase);
 
         if (MyOptions.optionP) {
             printParseTreeInDotSyntax(programConverter);
@@ -348,12 +545,7 @@ public final class Checker {
         TacConverter tac = programConverter.getTac();
 
         if (MyOptions.optionL) {
-            if (tac.hasEmptyMain()) {
-                System.out.println(MyOptions.entryFile.getPath() + ": library!");
-            } else {
-                System.out.println(MyOptions.entryFile.getPath() + ": entry point!");
-            }
-            System.exit(0);
+            return programConverter;
         }
 
         if (MyOptions.optionM) {
@@ -372,8 +564,16 @@ public final class Checker {
         return programConverter;
     }
 
+    void printLibraryDetection(TacConverter tac) {
+        if (tac.hasEmptyMain()) {
+            System.out.println(this.session.getEntryFile().getPath() + ": library!");
+        } else {
+            System.out.println(this.session.getEntryFile().getPath() + ": entry point!");
+        }
+    }
+
     private void printParseTreeInDotSyntax(ProgramConverter programConverter) {
-        ParseTree parseTree = programConverter.parse(MyOptions.entryFile.getPath());
+        ParseTree parseTree = programConverter.parse(this.session.getEntryFile().getPath());
         Dumper.dumpDot(parseTree, MyOptions.graphPath, "parseTree");
         System.exit(0);
     }
@@ -421,7 +621,16 @@ public final class Checker {
         System.out.println("\n*** initializing alias analysis ***\n");
         this.aliasAnalysis = new AliasAnalysis(tac, new FunctionalAnalysis());
         System.out.println("\n*** performing alias analysis ***\n");
-        this.aliasAnalysis.analyze();
+        this.aliasAnalysis.setBudget(MyOptions.analysisBudget);
+        try {
+            this.aliasAnalysis.analyze();
+        } catch (AnalysisBudgetExhaustedException e) {
+            // without alias information, taint that flows through references
+            // is lost, so this fallback is not sound
+            this.degradeUnsoundly("alias analysis", e, "no alias analysis");
+            this.aliasAnalysis = new DummyAliasAnalysis();
+            return this.aliasAnalysis;
+        }
         if (cleanup) {
             System.out.println("\n*** cleaning up ***\n");
             this.aliasAnalysis.clean();
@@ -461,7 +670,16 @@ public final class Checker {
             new LiteralAnalysis(tac, this.aliasAnalysis,
                 new CallStringAnalysis(this.connectorComp), this.workList);
         System.out.println("\n*** performing literal analysis ***\n");
-        this.literalAnalysis.analyze();
+        this.literalAnalysis.setBudget(MyOptions.analysisBudget);
+        try {
+            this.literalAnalysis.analyze();
+        } catch (AnalysisBudgetExhaustedException e) {
+            this.degrade("literal analysis", e, "dummy literal analysis");
+            this.literalAnalysis = new DummyLiteralAnalysis();
+            // the aborted analysis left its elements in the shared worklist
+            this.workList = new InterproceduralWorklistBetter(new InterproceduralWorklistOrder(tac, this.connectorComp));
+            return this.literalAnalysis;
+        }
         System.out.println("\n*** cleaning up ***\n");
         this.literalAnalysis.clean();
         System.out.println("\nFinished.");
@@ -469,6 +687,25 @@ public final class Checker {
         return this.literalAnalysis;
     }
 
+//  pruneInfeasibleBranches ********************************************************
+
+    // removes the branches with constant conditions and the nodes that become
+    // unreachable, so that the following analyses don't have to deal with them
+    void pruneInfeasibleBranches(TacConverter tac) {
+        if (this.literalAnalysis instanceof DummyLiteralAnalysis) {
+            // can't evaluate any conditions
+            return;
+        }
+
+        BranchPruner pruner = BranchPruner.prune(tac, this.literalAnalysis);
+        System.out.println("pruned infeasible branches: " + pruner.getNumberOfPrunedBranches() +
+            " (" + pruner.getNumberOfEliminatedNodes() + " cfg nodes eliminated)");
+        if (pruner.getNumberOfPrunedBranches() > 0) {
+            // some calls might have been removed
+            this.connectorComp = null;
+        }
+    }
+
 //  ********************************************************************************
 
     // - "functional": functional or CS analysis?
@@ -477,9 +714,47 @@ public final class Checker {
     //  but can lead to less precise results in if-evaluation and the resolution of
     //  defined constants; can solve easy cases, however (see DummyLiteralAnalysis.java)
     public void analyzeTaint(TacConverter tac, boolean functional) {
+        // without any sinks, the vulnerability analyses can't detect anything;
+        // the taint analysis is only created (without analyzing), so that
+        // the detection reports the empty result as usual
+        if (!SinkPrefilter.hasSinks(tac)) {
+            System.out.println("\n*** no sinks for the selected analyses, skipping taint analysis ***\n");
+            this.aliasAnalysis = new DummyAliasAnalysis();
+            this.literalAnalysis = new DummyLiteralAnalysis();
+            this.workList = new InterproceduralWorklistPoor();
+            this.gta = GenericTaintAnalysis.createAnalysis(
+                tac, new FunctionalAnalysis(), this, this.workList, null);
+            return;
+        }
+
         // perform literal analysis if necessary; also takes care of alias analysis
         this.analyzeLiterals(tac);
 
+        // remove the branches that can't be taken according to literal analysis
+        this.pruneInfeasibleBranches(tac);
+
+        // if the budget is exhausted, retry with the functional approach, and then
+        // without literal analysis; there is no cheaper fallback after that, so
+        // the exception is passed on
+        while (true) {
+            try {
+                this.analyzeTaintOnce(tac, functional);
+                return;
+            } catch (AnalysisBudgetExhaustedException e) {
+                if (!functional) {
+                    this.degrade("call-string taint analysis", e, "functional taint analysis");
+                    functional = true;
+                } else if (!(this.literalAnalysis instanceof DummyLiteralAnalysis)) {
+                    this.degrade("taint analysis", e, "dummy literal analysis");
+                    this.literalAnalysis = new DummyLiteralAnalysis();
+                } else {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private void analyzeTaintOnce(TacConverter tac, boolean functional) {
         // ***********************
         // PERFORM TAINT ANALYSIS
         // ***********************
@@ -506,7 +781,7 @@ public final class Checker {
 
             // write called-by relations to file; can be quite useful
             Utils.writeToFile(this.connectorComp.dump(),
-                MyOptions.graphPath + "/" + "/calledby_" + MyOptions.entryFile.getName() + ".txt");
+                MyOptions.graphPath + "/" + "/calledby_" + this.session.getEntryFile().getName() + ".txt");
 
             callGraph = this.connectorComp.getCallGraph();
             if (this.aliasAnalysis instanceof DummyAliasAnalysis) {
@@ -520,8 +795,24 @@ public final class Checker {
             Utils.bail("Please specify a valid type of taint analysis.");
         }
         System.out.println("\n*** performing taint analysis ***\n");
-        gta.analyze();
+        this.gta.dependencyAnalysis.setBudget(MyOptions.analysisBudget);
+        this.gta.analyze();
 
         System.out.println("\nFinished.");
     }
+
+    // records that the given analysis exhausted its budget and is replaced by the given
+    // fallback, which is less precise, but still sound
+    private void degrade(String analysis, AnalysisBudgetExhaustedException e, String fallback) {
+        System.out.println("Warning: Budget exhausted in " + analysis + " (" + e.getMessage()
+            + "), falling back to " + fallback);
+        this.degradations.add(analysis + " replaced by " + fallback + " (" + e.getMessage() + ")");
+    }
+
+    // like degrade(), but for a fallback that might miss vulnerabilities
+    private void degradeUnsoundly(String analysis, AnalysisBudgetExhaustedException e, String fallback) {
+        System.out.println("Warning: Budget exhausted in " + analysis + " (" + e.getMessage()
+            + "), falling back to " + fallback + "; this is unsound, vulnerabilities may be missing");
+        this.unsoundDegradations.add(analysis + " replaced by " + fallback + " (" + e.getMessage() + ")");
+    }
 }
\ No newline at end of file
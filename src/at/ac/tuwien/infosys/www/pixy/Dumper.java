@@ -28,9 +28,6 @@ import java.util.*;
  * @author Nenad Jovanovic <enji@seclab.tuwien.ac.at>
  */
 public final class Dumper {
-    // auxiliary HashMap: CfgNode -> Integer
-    private static HashMap<AbstractCfgNode, Integer> node2Int;
-    private static int idCounter;
     static final String linesep = System.getProperty("line.separator");
 
 // *********************************************************************************
@@ -162,13 +159,11 @@ public final class Dumper {
     static void dumpDot(ControlFlowGraph controlFlowGraph, String graphName, Writer outWriter) {
 
         try {
-            Dumper.node2Int = new HashMap<>();
-            Dumper.idCounter = 0;
             outWriter.write("digraph controlFlowGraph {\n  label=\"");
             outWriter.write(escapeDot(graphName, 0));
             outWriter.write("\";\n");
             outWriter.write("  labelloc=t;\n");
-            dumpDot(controlFlowGraph.getHead(), outWriter);
+            dumpDot(controlFlowGraph.getHead(), new HashMap<AbstractCfgNode, Integer>(), outWriter);
             outWriter.write("}\n");
         } catch (Exception e) {
             System.out.println(e.getMessage());
@@ -178,13 +173,14 @@ public final class Dumper {
 // dumpDot(CfgNode) ****************************************************************
 
     // recursively dumps the CfgNode in dot syntax
-    // and returns the ID that is assigned to this node
-    static int dumpDot(AbstractCfgNode cfgNode, Writer outWriter)
+    // and returns the ID that is assigned to this node;
+    // node2Int: the IDs of the nodes that have already been visited
+    static int dumpDot(AbstractCfgNode cfgNode, Map<AbstractCfgNode, Integer> node2Int, Writer outWriter)
         throws java.io.IOException {
 
         // mark node as visited and store ID
-        int nodeId = Dumper.idCounter;
-        Dumper.node2Int.put(cfgNode, Dumper.idCounter++);
+        int nodeId = node2Int.size();
+        node2Int.put(cfgNode, nodeId);
 
         // print node
         String name = makeCfgNodeName(cfgNode);
@@ -201,9 +197,9 @@ public final class Dumper {
                 AbstractCfgNode succNode = outEdge.getDestination();
 
                 // print successor
-                Integer succIdInt = Dumper.node2Int.get(succNode);
+                Integer succIdInt = node2Int.get(succNode);
                 if (succIdInt == null) {
-                    succId = dumpDot(succNode, outWriter);
+                    succId = dumpDot(succNode, node2Int, outWriter);
                 } else {
                     succId = succIdInt;
                 }
@@ -643,7 +639,7 @@ public final class Dumper {
 
             if (analysis instanceof LiteralAnalysis) {
                 writer.write(linesep + "Default Lattice Element:" + linesep + linesep);
-                dump(LiteralLatticeElement.DEFAULT, writer);
+                dump(LiteralLatticeElement.getDefault(), writer);
             }
 
             // for each function...
@@ -0,0 +1,171 @@
+package at.ac.tuwien.infosys.www.pixy;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * Persistent project-wide include index: for each entry file, the files of its include closure (i.e., the files of
+ * its IncludeGraph), and in reverse, for each included file, the entry files that include it directly or indirectly.
+ *
+ * The index is updated with the closures of the entry files that were converted in a run and written back at the
+ * end of the run. Given a list of changed files, it selects the entry files that have to be analyzed again: those
+ * whose closure contains a changed file, and those that are not known to the index yet.
+ *
+ * File format (text, UTF-8): one line per entry file, with the entry file and the files of its closure separated
+ * by tabs.
+ */
+public final class IncludeIndex {
+    // the file that the index is read from and written to
+    private File indexFile;
+
+    // entry file -> include closure (including the entry file itself)
+    private Map<File, Set<File>> closures;
+
+    // file -> entry files whose closure contains it
+    private Map<File, Set<File>> includingEntryFiles;
+
+//  ********************************************************************************
+//  CONSTRUCTOR ********************************************************************
+//  ********************************************************************************
+
+    // reads the index from the given file; the index is empty if the file doesn't exist yet
+    public IncludeIndex(File indexFile) {
+        this.indexFile = indexFile;
+        this.closures = new HashMap<>();
+        this.includingEntryFiles = new HashMap<>();
+
+        if (!indexFile.isFile()) {
+            return;
+        }
+        try (BufferedReader reader = new BufferedReader(
+            new InputStreamReader(new FileInputStream(indexFile), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                String[] fields = line.split("\t");
+                Set<File> closure = new HashSet<>();
+                for (String field : fields) {
+                    closure.add(new File(field));
+                }
+                this.update(new File(fields[0]), closure);
+            }
+        } catch (IOException e) {
+            Utils.bail("Can't read include index " + indexFile + ": " + e.getMessage());
+        }
+    }
+
+//  ********************************************************************************
+//  GET ****************************************************************************
+//  ********************************************************************************
+
+    // returns those of the given entry files that are affected by a modification
+    // of the given files (in the order of entryFiles); all files are canonical
+    public List<File> selectAffected(List<File> entryFiles, Collection<File> changedFiles) {
+        Set<File> affected = new HashSet<>();
+        for (File changedFile : changedFiles) {
+            Set<File> entries = this.includingEntryFiles.get(changedFile);
+            if (entries != null) {
+                affected.addAll(entries);
+            }
+        }
+
+        List<File> selected = new LinkedList<>();
+        for (File entryFile : entryFiles) {
+            if (affected.contains(entryFile) || !this.closures.containsKey(entryFile)) {
+                selected.add(entryFile);
+            }
+        }
+        return selected;
+    }
+
+    // the entry files that include the given file (directly or indirectly)
+    public Set<File> getIncludingEntryFiles(File file) {
+        Set<File> entries = this.includingEntryFiles.get(file);
+        if (entries == null) {
+            return Collections.emptySet();
+        }
+        return Collections.unmodifiableSet(entries);
+    }
+
+    public int size() {
+        return this.closures.size();
+    }
+
+//  ********************************************************************************
+//  SET ****************************************************************************
+//  ********************************************************************************
+
+    // replaces the closure of the given entry file
+    public void update(File entryFile, Set<File> closure) {
+        this.remove(entryFile);
+
+        Set<File> newClosure = new HashSet<>(closure);
+        newClosure.add(entryFile);
+        this.closures.put(entryFile, newClosure);
+        for (File file : newClosure) {
+            Set<File> entries = this.includingEntryFiles.get(file);
+            if (entries == null) {
+                entries = new HashSet<>();
+                this.includingEntryFiles.put(file, entries);
+            }
+            entries.add(entryFile);
+        }
+    }
+
+    // forgets the entry files that are not among the given ones (i.e., that were deleted)
+    public void retainEntryFiles(Collection<File> entryFiles) {
+        Set<File> keep = new HashSet<>(entryFiles);
+        for (File entryFile : new ArrayList<>(this.closures.keySet())) {
+            if (!keep.contains(entryFile)) {
+                this.remove(entryFile);
+            }
+        }
+    }
+
+    private void remove(File entryFile) {
+        Set<File> oldClosure = this.closures.remove(entryFile);
+        if (oldClosure == null) {
+            return;
+        }
+        for (File file : oldClosure) {
+            Set<File> entries = this.includingEntryFiles.get(file);
+            entries.remove(entryFile);
+            if (entries.isEmpty()) {
+                this.includingEntryFiles.remove(file);
+            }
+        }
+    }
+
+    // writes the index back into its file (sorted, so that unchanged indices stay unchanged)
+    public void save() {
+        List<File> entryFiles = new ArrayList<>(this.closures.keySet());
+        Collections.sort(entryFiles);
+
+        File directory = this.indexFile.getAbsoluteFile().getParentFile();
+        try {
+            File temporaryFile = File.createTempFile("index", ".tmp", directory);
+            try (PrintWriter writer = new PrintWriter(new BufferedWriter(
+                new OutputStreamWriter(new FileOutputStream(temporaryFile), StandardCharsets.UTF_8)))) {
+                for (File entryFile : entryFiles) {
+                    List<File> files = new ArrayList<>(this.closures.get(entryFile));
+                    files.remove(entryFile);
+                    Collections.sort(files);
+                    StringBuilder line = new StringBuilder(entryFile.getPath());
+                    for (File file : files) {
+                        line.append('\t').append(file.getPath());
+                    }
+                    writer.println(line);
+                }
+            }
+            Files.move(temporaryFile.toPath(), this.indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.out.println("Warning: Can't write include index " + this.indexFile + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package at.ac.tuwien.infosys.www.pixy;
+
+import at.ac.tuwien.infosys.www.phpparser.PhpLexer;
+import at.ac.tuwien.infosys.www.phpparser.PhpSymbols;
+import java_cup.runtime.Symbol;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Fast library detection for a whole tree (project mode with -l): tells libraries (scripts with an empty main
+ * function) apart from entry points by looking at the tokens of each file only, without parsing, resolving includes
+ * or building TAC.
+ *
+ * A file is a library if its top-level code consists of nothing but function and class declarations (and empty
+ * statements and inline HTML, which don't lead to any nodes in the main function either). Any other top-level token
+ * makes the file an entry point; the scan of the file stops there.
+ *
+ * The decision is conservative: a file whose top-level code only includes other libraries has an empty main function
+ * after the includes were resolved (and is therefore a library for Checker -l), but is an entry point here.
+ */
+public final class LibraryScanner {
+    // the PHP files to classify
+    private List<File> files;
+
+    // number of files scanned concurrently
+    private int numberOfThreads;
+
+//  ********************************************************************************
+//  CONSTRUCTOR ********************************************************************
+//  ********************************************************************************
+
+    LibraryScanner(List<File> files, int numberOfThreads) {
+        this.files = files;
+        this.numberOfThreads = numberOfThreads;
+    }
+
+//  ********************************************************************************
+//  OTHERS *************************************************************************
+//  ********************************************************************************
+
+    // classifies the files of the given target (as for ProjectChecker.check()) and prints the result;
+    // if entryListFile is not null, the entry points are written into it (one per line)
+    static void check(String target, int numberOfThreads, File entryListFile) {
+        long startTime = System.currentTimeMillis();
+
+        LibraryScanner scanner = new LibraryScanner(ProjectChecker.collectEntryFiles(target), numberOfThreads);
+        List<File> entryPoints = scanner.run();
+
+        if (entryListFile != null) {
+            try (PrintWriter writer = new PrintWriter(new FileWriter(entryListFile))) {
+                for (File entryPoint : entryPoints) {
+                    writer.println(entryPoint.getPath());
+                }
+            } catch (IOException e) {
+                Utils.bail("Can't write entry list: " + e.getMessage());
+            }
+        }
+
+        System.out.println();
+        System.out.println("files:                           " + scanner.files.size());
+        System.out.println("entry points:                    " + entryPoints.size());
+        System.out.println("libraries:                       " + (scanner.files.size() - entryPoints.size()));
+        if (!MyOptions.optionB) {
+            System.out.println("total time:                      " + (System.currentTimeMillis() - startTime) + " ms");
+        }
+    }
+
+    // prints the classification of each file (in the order of the files)
+    // and returns the entry points
+    List<File> run() {
+        ExecutorService executor = Executors.newFixedThreadPool(this.numberOfThreads);
+        List<File> entryPoints = new ArrayList<>();
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (final File file : this.files) {
+                futures.add(executor.submit(new Callable<Boolean>() {
+                    public Boolean call() throws IOException {
+                        return hasEmptyMain(file);
+                    }
+                }));
+            }
+
+            for (int i = 0; i < this.files.size(); i++) {
+                File file = this.files.get(i);
+                String fileName = MyOptions.optionB ? Utils.basename(file.getPath()) : file.getPath();
+                boolean library;
+                try {
+                    library = futures.get(i).get();
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                } catch (ExecutionException e) {
+                    // same as a successful detection of main code: the file will be analyzed
+                    System.out.println("Warning: Can't scan " + fileName + ": " + e.getCause());
+                    library = false;
+                }
+                if (library) {
+                    System.out.println(fileName + ": library!");
+                } else {
+                    System.out.println(fileName + ": entry point!");
+                    entryPoints.add(file);
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+        return entryPoints;
+    }
+
+    // returns true if the top-level code of the given file consists of function and class
+    // declarations only (such that its main function is empty)
+    static boolean hasEmptyMain(File file) throws IOException {
+        try (Reader reader = new BufferedReader(new FileReader(file))) {
+            PhpLexer lexer = new PhpLexer(reader);
+            lexer.setFileName(file.getPath());
+
+            // nesting depth of curly braces inside the current declaration
+            int depth = 0;
+
+            // inside a function or class declaration?
+            boolean inDeclaration = false;
+
+            // (the lexer returns null at the end of the file)
+            for (Symbol token = lexer.next_token();
+                 token != null && token.sym != PhpSymbols.EOF;
+                 token = lexer.next_token()) {
+                if (inDeclaration) {
+                    switch (token.sym) {
+                        case PhpSymbols.T_OPEN_CURLY_BRACES:
+                        case PhpSymbols.T_CURLY_OPEN:
+                        case PhpSymbols.T_DOLLAR_OPEN_CURLY_BRACES:
+                            depth++;
+                            break;
+                        case PhpSymbols.T_CLOSE_CURLY_BRACES:
+                            depth--;
+                            if (depth == 0) {
+                                inDeclaration = false;
+                            }
+                            break;
+                    }
+                    continue;
+                }
+
+                switch (token.sym) {
+                    case PhpSymbols.T_FUNCTION:
+                    case PhpSymbols.T_CLASS:
+                        inDeclaration = true;
+                        break;
+                    case PhpSymbols.T_SEMICOLON:
+                    case PhpSymbols.T_INLINE_HTML:
+                        break;
+                    default:
+                        return false;
+                }
+            }
+            return !inDeclaration;
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package at.ac.tuwien.infosys.www.pixy;
 
+import at.ac.tuwien.infosys.www.pixy.analysis.interprocedural.AnalysisBudget;
 import at.ac.tuwien.infosys.www.pixy.conversion.BuiltinFunctions;
 import at.ac.tuwien.infosys.www.pixy.conversion.InternalStrings;
+import at.ac.tuwien.infosys.www.pixy.conversion.ParseTreeCache;
 import at.ac.tuwien.infosys.www.pixy.conversion.TacOperators;
 
 import java.io.File;
@@ -21,6 +23,7 @@ public class MyOptions {
     public static boolean option_A = false;
     public static boolean optionB = false;
     public static boolean optionC = false;
+    public static boolean option_C = false;
     public static boolean optionD = false;
     public static boolean optionF = false;
     public static boolean optionG = true;
@@ -28,6 +31,7 @@ public class MyOptions {
     public static boolean optionL = false;
     public static boolean option_L = false;
     public static boolean optionM = false;
+    public static boolean option_O = false;
     public static boolean optionP = false;
     public static boolean option_P = false;
     public static boolean optionQ = false;
@@ -38,12 +42,18 @@ public class MyOptions {
     public static boolean optionV = false;
     public static boolean option_V = true;
 
+    // limits for each run of the alias, literal and taint analyses (-B); null if unbounded
+    public static AnalysisBudget analysisBudget = null;
+
+    // persistent cache of parse trees (-E); null if parse trees are not cached
+    public static ParseTreeCache parseTreeCache = null;
+
+    // number of threads for parsing included files (-G)
+    public static int numberOfParserThreads = Runtime.getRuntime().availableProcessors();
+
     // count paths in depgraphs?
     public static boolean countPaths = false;
 
-    // the scanned entry file (canonical)
-    public static File entryFile;
-
     // pixy's home directory (from environment)
     public static File pixyHome;
 
@@ -90,6 +100,15 @@ public class MyOptions {
         harmlessServerIndices.add(indexName);
     }
 
+    // forgets the harmless server indices and sinks that have been read so far,
+    // such that the configuration can be read again
+    static void clearConfiguration() {
+        harmlessServerIndices.clear();
+        for (VulnerabilityAnalysisInformation dci : analyses) {
+            dci.clearSinks();
+        }
+    }
+
     // builtin function models ****************************************
 
     public static void readBuiltinFunctionModels() {
@@ -334,10 +353,10 @@ public class MyOptions {
     }
 
     private static VulnerabilityAnalysisInformation[] analyses = {
-        new VulnerabilityAnalysisInformation("xss", "at.ac.tuwien.infosys.www.pixy.XssAnalysis"),
+        new VulnerabilityAnalysisInformation("xss", "at.ac.tuwien.infosys.www.pixy.XssAnalysis", true),
         new VulnerabilityAnalysisInformation("sql", "at.ac.tuwien.infosys.www.pixy.SqlAnalysis"),
         new VulnerabilityAnalysisInformation("sqlsanit", "at.ac.tuwien.infosys.www.pixy.sanitation.SQLSanitationAnalysis"),
-        new VulnerabilityAnalysisInformation("xsssanit", "at.ac.tuwien.infosys.www.pixy.sanitation.XSSSanitationAnalysis"),
+        new VulnerabilityAnalysisInformation("xsssanit", "at.ac.tuwien.infosys.www.pixy.sanitation.XSSSanitationAnalysis", true),
         new VulnerabilityAnalysisInformation("file", "at.ac.tuwien.infosys.www.pixy.FileAnalysis")
     };
 
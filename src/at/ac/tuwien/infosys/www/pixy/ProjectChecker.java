@@ -0,0 +1,789 @@
+package at.ac.tuwien.infosys.www.pixy;
+
+import at.ac.tuwien.infosys.www.pixy.conversion.ProgramConverter;
+import at.ac.tuwien.infosys.www.pixy.conversion.ProgramDatabase;
+import at.ac.tuwien.infosys.www.pixy.conversion.TacConverter;
+import org.apache.commons.cli.CommandLine;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Project mode: analyzes every entry file of an application in one JVM.
+ *
+ * The configuration and the models of builtin functions are read only once, and all entry files share one
+ * ProgramDatabase, so that include files that are used by several entry files are parsed only once.
+ * For each entry file, the usual report is printed; a summary with the aggregated timing follows at the end.
+ *
+ * Entry files can be analyzed concurrently by a pool of worker threads. Each entry file gets its own AnalysisSession,
+ * and the output of each worker is collected and printed in the order of the entry files, so that the report does
+ * not depend on the number of threads.
+ *
+ * If a results file is given, a record is appended to it as soon as the analysis of an entry file has finished
+ * (see EntryResult.append()). The ScanCoordinator uses these records to collect the results of its worker processes
+ * and to find out which entry files a crashed worker has not finished.
+ *
+ * If a cache directory is given, the results of entry files are stored in a ResultCache, and entry files whose
+ * include closure has not changed since they were stored are not analyzed again.
+ *
+ * If an include index is given, it is updated with the include closures of the analyzed entry files. Together with
+ * a list of changed files, it is used to analyze only the entry files that are affected by the changes.
+ *
+ * In tiered mode, all entry files are first analyzed with the cheapest configuration (see TIERS). Only the entry
+ * files that report vulnerabilities are analyzed again with the next, more precise configuration, and so on. The
+ * report of an entry file contains the reports of all its tiers and tells for each finding at which tier it was
+ * confirmed or discarded.
+ */
+public final class ProjectChecker {
+    // heap that is reserved for each worker thread; the number of workers is
+    // reduced if the maximum heap of the JVM doesn't suffice
+    private static final long HEAP_PER_WORKER = 256L * 1024 * 1024;
+
+    // the configurations of tiered mode, from the cheapest to the most precise one
+    private static final Tier[] TIERS = {
+        new Tier("functional", false, false, false),
+        new Tier("call-string, literal analysis", true, false, true),
+        new Tier("call-string, literal analysis, alias analysis", true, true, true)
+    };
+
+    // the entry files (canonical), in the order in which they are analyzed
+    private List<File> entryFiles;
+
+    // parse trees shared by all entry files
+    private ProgramDatabase programDatabase;
+
+    // one result per analyzed entry file
+    private List<EntryResult> results;
+
+    // requested number of entry files that are analyzed concurrently
+    private int numberOfThreads;
+
+    // file to which a record is appended for each finished entry file; can be null
+    private File resultsFile;
+
+    // results of previous runs; null if no cache directory was given
+    private File cacheDirectory;
+    private ResultCache resultCache;
+
+    // include index that is kept up to date; can be null
+    private File indexFile;
+
+    // if not null: only the entry files affected by these files are analyzed
+    private List<File> changedFiles;
+
+    // analyze in tiers of increasing precision?
+    private boolean tiered = false;
+
+//  ********************************************************************************
+//  CONSTRUCTOR ********************************************************************
+//  ********************************************************************************
+
+    ProjectChecker(List<File> entryFiles, int numberOfThreads) {
+        this.entryFiles = entryFiles;
+        this.programDatabase = new ProgramDatabase();
+        this.results = new LinkedList<>();
+        this.numberOfThreads = numberOfThreads;
+    }
+
+//  ********************************************************************************
+//  GET ****************************************************************************
+//  ********************************************************************************
+
+    // one result per analyzed entry file, in the order of the entry files
+    List<EntryResult> getResults() {
+        return this.results;
+    }
+
+//  ********************************************************************************
+//  SET ****************************************************************************
+//  ********************************************************************************
+
+    void setResultsFile(File resultsFile) {
+        this.resultsFile = resultsFile;
+    }
+
+    void setCacheDirectory(File cacheDirectory) {
+        this.cacheDirectory = cacheDirectory;
+    }
+
+    void setIncludeIndex(File indexFile, List<File> changedFiles) {
+        this.indexFile = indexFile;
+        this.changedFiles = changedFiles;
+    }
+
+    void setTiered(boolean tiered) {
+        this.tiered = tiered;
+    }
+
+//  ********************************************************************************
+//  OTHERS *************************************************************************
+//  ********************************************************************************
+
+    // target: a directory (all PHP files below it are entry files) or a text
+    // file listing the entry files
+    static void check(String target, int numberOfThreads, CommandLine commandLine) {
+        ProjectChecker projectChecker = new ProjectChecker(collectEntryFiles(target), numberOfThreads);
+        if (commandLine.hasOption("R")) {
+            projectChecker.setResultsFile(new File(commandLine.getOptionValue("R")));
+        }
+        if (commandLine.hasOption("e")) {
+            projectChecker.setCacheDirectory(new File(commandLine.getOptionValue("e")));
+        }
+        if (commandLine.hasOption("x")) {
+            projectChecker.setIncludeIndex(new File(commandLine.getOptionValue("x")), collectChangedFiles(commandLine));
+        }
+        projectChecker.setTiered(commandLine.hasOption("T"));
+        projectChecker.run();
+    }
+
+    // the files listed in the file given with -u; null if there is none
+    static List<File> collectChangedFiles(CommandLine commandLine) {
+        if (!commandLine.hasOption("u")) {
+            return null;
+        }
+        String listFileName = commandLine.getOptionValue("u");
+        if (!new File(listFileName).isFile()) {
+            Utils.bail("List of changed files not found: " + listFileName);
+        }
+        return Utils.fileListFromListFile(listFileName);
+    }
+
+    static List<File> collectEntryFiles(String target) {
+        File targetFile = new File(target);
+        List<File> entryFiles;
+        if (targetFile.isDirectory()) {
+            entryFiles = new LinkedList<>();
+            for (File file : Utils.fileListFromDir(target)) {
+                if (file.getName().endsWith(".php")) {
+                    try {
+                        entryFiles.add(file.getCanonicalFile());
+                    } catch (IOException e) {
+                        Utils.bail(e.getMessage());
+                    }
+                }
+            }
+        } else if (targetFile.isFile()) {
+            entryFiles = Utils.fileListFromListFile(target);
+        } else {
+            Utils.bail("Project not found: " + target);
+            return null;
+        }
+
+        // analyze in a deterministic order
+        Collections.sort(entryFiles);
+        return entryFiles;
+    }
+
+    void run() {
+        long startTime = System.currentTimeMillis();
+
+        // configuration and models are shared by all entry files
+        Checker.readConfiguration();
+        Checker.readModels();
+        IncludeIndex includeIndex = null;
+        List<File> allEntryFiles = this.entryFiles;
+        if (this.indexFile != null) {
+            includeIndex = new IncludeIndex(this.indexFile);
+            if (this.changedFiles != null) {
+                this.entryFiles = includeIndex.selectAffected(allEntryFiles, this.changedFiles);
+                System.out.println(this.entryFiles.size() + " of " + allEntryFiles.size()
+                    + " entry files are affected by " + this.changedFiles.size() + " changed files");
+            }
+        }
+
+        if (this.tiered) {
+            this.analyzeInTiers();
+        } else {
+            if (this.cacheDirectory != null) {
+                this.resultCache = new ResultCache(this.cacheDirectory);
+            }
+            this.results.addAll(this.analyze(this.entryFiles, true));
+        }
+
+        if (includeIndex != null) {
+            for (EntryResult result : this.results) {
+                // failed conversions don't have a (complete) closure
+                if (result.failure == null && !result.files.isEmpty()) {
+                    includeIndex.update(result.entryFile, result.files);
+                }
+            }
+            includeIndex.retainEntryFiles(allEntryFiles);
+            includeIndex.save();
+        }
+
+        this.printSummary(System.currentTimeMillis() - startTime);
+    }
+
+    // analyzes the given entry files with the current options; if printReports is true, the
+    // report of each entry file is printed (and written into the results file) right away
+    private List<EntryResult> analyze(List<File> entryFiles, boolean printReports) {
+        // files might have been created or deleted since the previous tier
+        this.programDatabase.refreshFiles();
+
+        // the report of an entry file has to be collected in order to write it
+        // into the results file or the cache, or to print it later
+        int numberOfWorkers = this.computeNumberOfWorkers(entryFiles.size());
+        if (numberOfWorkers > 1 || !printReports || this.resultsFile != null || this.resultCache != null) {
+            return this.analyzeConcurrently(entryFiles, numberOfWorkers, printReports);
+        }
+
+        // an entry file that can't be parsed must only fail itself, not the whole project
+        List<EntryResult> results = new LinkedList<>();
+        boolean exitOnBail = Utils.isExitOnBail();
+        Utils.setExitOnBail(false);
+        try {
+            for (File entryFile : entryFiles) {
+                results.add(this.checkEntryFileOrFail(new Checker(entryFile.getPath()), entryFile));
+            }
+        } finally {
+            Utils.setExitOnBail(exitOnBail);
+        }
+        return results;
+    }
+
+    // the number of threads that may be used without exceeding the maximum heap
+    private int computeNumberOfWorkers(int numberOfEntryFiles) {
+        int numberOfWorkers = Math.max(1, Math.min(this.numberOfThreads, numberOfEntryFiles));
+        long affordableWorkers = Math.max(1, Runtime.getRuntime().maxMemory() / HEAP_PER_WORKER);
+        if (affordableWorkers < numberOfWorkers) {
+            System.out.println("Warning: heap only suffices for " + affordableWorkers + " threads");
+            numberOfWorkers = (int) affordableWorkers;
+        }
+        return numberOfWorkers;
+    }
+
+    private List<EntryResult> analyzeConcurrently(List<File> entryFiles, int numberOfWorkers, boolean printReports) {
+        List<EntryResult> results = new LinkedList<>();
+
+        // an entry file that can't be parsed must only fail itself, not the whole pool
+        boolean exitOnBail = Utils.isExitOnBail();
+        Utils.setExitOnBail(false);
+        AnalysisSession.installOutputRouting();
+        ExecutorService executor = Executors.newFixedThreadPool(numberOfWorkers);
+        try {
+            List<Future<EntryResult>> futures = new LinkedList<>();
+            for (final File entryFile : entryFiles) {
+                futures.add(executor.submit(new Callable<EntryResult>() {
+                    public EntryResult call() {
+                        return checkEntryFileInWorker(entryFile);
+                    }
+                }));
+            }
+
+            // print the reports in the order of the entry files
+            for (Future<EntryResult> future : futures) {
+                EntryResult result;
+                try {
+                    result = future.get();
+                } catch (InterruptedException | ExecutionException e) {
+                    throw new RuntimeException(e);
+                }
+                results.add(result);
+                if (printReports) {
+                    this.printReport(result);
+                }
+            }
+        } finally {
+            executor.shutdown();
+            AnalysisSession.uninstallOutputRouting();
+            Utils.setExitOnBail(exitOnBail);
+        }
+        return results;
+    }
+
+    private void printReport(EntryResult result) {
+        System.out.print(result.report);
+        if (!result.errors.isEmpty()) {
+            System.out.flush();
+            System.err.print(result.errors);
+            System.err.flush();
+        }
+        if (this.resultsFile != null) {
+            result.append(this.resultsFile);
+        }
+    }
+
+//  ********************************************************************************
+//  TIERS **************************************************************************
+//  ********************************************************************************
+
+    // analyzes the entry files in tiers of increasing precision; an entry file is passed
+    // on to the next tier as long as it reports vulnerabilities
+    private void analyzeInTiers() {
+        boolean[] savedOptions = {MyOptions.optionA, MyOptions.option_A, MyOptions.option_L};
+
+        List<File> pending = this.entryFiles;
+        Map<File, EntryResult> previousResults = new HashMap<>();
+        for (int tierIndex = 0; tierIndex < TIERS.length && !pending.isEmpty(); tierIndex++) {
+            Tier tier = TIERS[tierIndex];
+            tier.apply();
+
+            // the options are part of the fingerprints of the cache
+            if (this.cacheDirectory != null) {
+                this.resultCache = new ResultCache(this.cacheDirectory);
+            }
+
+            System.out.println("*** tier " + (tierIndex + 1) + " (" + tier.name + "): "
+                + pending.size() + " entry files ***");
+            System.out.println();
+
+            List<File> escalated = new LinkedList<>();
+            for (EntryResult result : this.analyze(pending, false)) {
+                EntryResult previous = previousResults.get(result.entryFile);
+                String report = "--- tier " + (tierIndex + 1) + " (" + tier.name + ") ---\n" + result.report;
+
+                if (result.failure != null && previous != null) {
+                    // keep the findings of the previous tier (unconfirmed)
+                    previous.report += report;
+                    previous.errors += result.errors;
+                    previous.tierFailure = result.failure;
+                    result = previous;
+                } else {
+                    if (previous != null) {
+                        result.tierVulnerabilities.addAll(previous.tierVulnerabilities);
+                        report = previous.report + report;
+                        result.errors = previous.errors + result.errors;
+                    }
+                    result.report = report;
+                    result.tierVulnerabilities.add(new TreeSet<>(result.vulnerabilities));
+                    result.tier = tierIndex;
+                    if (result.failure == null && result.numberOfVulnerabilities > 0 && tierIndex < TIERS.length - 1) {
+                        previousResults.put(result.entryFile, result);
+                        escalated.add(result.entryFile);
+                        continue;
+                    }
+                }
+
+                result.report += describeTiers(result);
+                this.printReport(result);
+                this.results.add(result);
+            }
+            pending = escalated;
+        }
+
+        MyOptions.optionA = savedOptions[0];
+        MyOptions.option_A = savedOptions[1];
+        MyOptions.option_L = savedOptions[2];
+
+        // the summary lists the entry files in their usual order
+        Collections.sort(this.results, new Comparator<EntryResult>() {
+            public int compare(EntryResult result1, EntryResult result2) {
+                return result1.entryFile.compareTo(result2.entryFile);
+            }
+        });
+    }
+
+    // tells for each reported line at which tier it was confirmed or discarded
+    private static String describeTiers(EntryResult result) {
+        Set<Integer> lines = new TreeSet<>();
+        for (Set<Integer> tierLines : result.tierVulnerabilities) {
+            lines.addAll(tierLines);
+        }
+        if (lines.isEmpty()) {
+            return "";
+        }
+
+        int lastTier = result.tierVulnerabilities.size() - 1;
+        StringBuilder description = new StringBuilder();
+        description.append("\nTiered analysis:\n");
+        for (Integer line : lines) {
+            int firstTier = -1;
+            int lastReportingTier = -1;
+            for (int tier = 0; tier <= lastTier; tier++) {
+                if (result.tierVulnerabilities.get(tier).contains(line)) {
+                    if (firstTier == -1) {
+                        firstTier = tier;
+                    }
+                    lastReportingTier = tier;
+                }
+            }
+            description.append("- line ").append(line).append(": reported at tier ").append(firstTier + 1);
+            if (lastReportingTier < lastTier) {
+                description.append(", discarded at tier ").append(lastReportingTier + 2)
+                    .append(" (").append(TIERS[lastReportingTier + 1].name).append(")");
+            } else if (result.tierFailure != null) {
+                description.append(", not confirmed (tier ").append(lastTier + 2).append(" failed: ")
+                    .append(result.tierFailure).append(")");
+            } else {
+                description.append(", confirmed at tier ").append(lastTier + 1)
+                    .append(" (").append(TIERS[lastTier].name).append(")");
+            }
+            description.append('\n');
+        }
+        description.append('\n');
+        return description.toString();
+    }
+
+    // analyzes the given entry file in the current worker thread and collects its output;
+    // a failure only affects this entry file
+    private EntryResult checkEntryFileInWorker(File entryFile) {
+        if (this.resultCache != null) {
+            ResultCache.CachedResult cachedResult = this.resultCache.lookup(entryFile);
+            if (cachedResult != null) {
+                EntryResult result = new EntryResult(entryFile);
+                result.cached = true;
+                result.files = cachedResult.files;
+                result.numberOfFiles = result.files.size();
+                result.vulnerabilities = cachedResult.vulnerabilities;
+                result.numberOfVulnerabilities = result.vulnerabilities.size();
+                result.report = cachedResult.report;
+                return result;
+            }
+        }
+
+        Checker checker = new Checker(entryFile.getPath());
+        AnalysisSession session = checker.getSession();
+        session.captureOutput();
+
+        EntryResult result;
+        try {
+            result = this.checkEntryFileOrFail(checker, entryFile);
+        } finally {
+            AnalysisSession.unbind();
+        }
+        result.errors = session.getCapturedErrorOutput();
+        result.report = session.releaseOutput();
+
+        // degraded results depend on the wall time and are not cached
+        if (this.resultCache != null && result.failure == null && result.degradation == null
+            && result.unsoundDegradation == null) {
+            this.resultCache.store(entryFile, result.files, result.vulnerabilities,
+                result.report);
+        }
+
+        return result;
+    }
+
+    // a failure (such as a parse error, or an AnalysisBudgetExhaustedException if there is no
+    // cheaper analysis left) is recorded in the result of the entry file
+    private EntryResult checkEntryFileOrFail(Checker checker, File entryFile) {
+        try {
+            return this.checkEntryFile(checker, entryFile);
+        } catch (RuntimeException e) {
+            EntryResult result = new EntryResult(entryFile);
+            result.failure = e.toString();
+            return result;
+        }
+    }
+
+    private EntryResult checkEntryFile(Checker checker, File entryFile) {
+        EntryResult result = new EntryResult(entryFile);
+
+        if (!MyOptions.optionW) {
+            if (MyOptions.optionB) {
+                System.out.println("File: " + Utils.basename(entryFile.getPath()));
+            } else {
+                System.out.println("File: " + entryFile.getPath());
+            }
+        }
+
+        long startTime = System.currentTimeMillis();
+        ProgramConverter programConverter = checker.convert(this.programDatabase);
+        TacConverter tac = programConverter.getTac();
+        result.files = programConverter.getAllFiles();
+        result.numberOfFiles = result.files.size();
+        long conversionEndTime = System.currentTimeMillis();
+        result.conversionTime = conversionEndTime - startTime;
+
+        if (MyOptions.optionL) {
+            checker.printLibraryDetection(tac);
+            return result;
+        }
+
+        checker.analyzeTaint(tac, !MyOptions.optionA);
+        long analysisEndTime = System.currentTimeMillis();
+        result.analysisTime = analysisEndTime - conversionEndTime;
+        result.degradation = checker.getDegradation();
+        result.unsoundDegradation = checker.getUnsoundDegradation();
+
+        // we don't need these any more:
+        checker.literalAnalysis = null;
+        checker.aliasAnalysis = null;
+
+        System.out.println("\n*** detecting vulnerabilities ***\n");
+        result.vulnerabilities = checker.gta.detectVulnerabilities();
+        result.numberOfVulnerabilities = result.vulnerabilities.size();
+        result.detectionTime = System.currentTimeMillis() - analysisEndTime;
+
+        return result;
+    }
+
+    private void printSummary(long totalTime) {
+        long conversionTime = 0;
+        long analysisTime = 0;
+        long detectionTime = 0;
+        int numberOfVulnerabilities = 0;
+        int numberOfFailures = 0;
+        int numberOfCachedResults = 0;
+        int numberOfDegradedResults = 0;
+        int numberOfIncompleteResults = 0;
+
+        System.out.println();
+        System.out.println("*****************");
+        System.out.println("Project Summary");
+        System.out.println("*****************");
+        System.out.println();
+        for (EntryResult result : this.results) {
+            conversionTime += result.conversionTime;
+            analysisTime += result.analysisTime;
+            detectionTime += result.detectionTime;
+            numberOfVulnerabilities += result.numberOfVulnerabilities;
+
+            if (result.failure != null) {
+                numberOfFailures++;
+            }
+            if (result.cached) {
+                numberOfCachedResults++;
+            }
+            if (result.degradation != null) {
+                numberOfDegradedResults++;
+            }
+            if (result.unsoundDegradation != null) {
+                numberOfIncompleteResults++;
+            }
+            printEntrySummary(result);
+        }
+        System.out.println();
+        System.out.println("entry files:                     " + this.results.size());
+        System.out.println("distinct files parsed:           " + this.programDatabase.getNumberOfParsedFiles());
+        System.out.println("parse trees reused:              " + this.programDatabase.getNumberOfReusedFiles());
+        System.out.println("include resolutions reused:      " + this.programDatabase.getNumberOfReusedResolutions());
+        if (MyOptions.parseTreeCache != null) {
+            System.out.println("parse trees loaded from cache:   " + MyOptions.parseTreeCache.getNumberOfHits());
+        }
+        if (this.resultCache != null) {
+            System.out.println("cached results reused:           " + numberOfCachedResults);
+        }
+        System.out.println("total vulnerabilities:           " + numberOfVulnerabilities);
+        if (numberOfFailures > 0) {
+            System.out.println("failed entry files:              " + numberOfFailures);
+        }
+        if (numberOfDegradedResults > 0) {
+            System.out.println("degraded entry files:            " + numberOfDegradedResults);
+        }
+        if (numberOfIncompleteResults > 0) {
+            System.out.println("possibly incomplete entry files: " + numberOfIncompleteResults);
+        }
+        if (!MyOptions.optionB) {
+            System.out.println("conversion time:                 " + conversionTime + " ms");
+            System.out.println("analysis time:                   " + analysisTime + " ms");
+            System.out.println("detection time:                  " + detectionTime + " ms");
+            System.out.println("total time:                      " + totalTime + " ms");
+        }
+        System.out.println();
+    }
+
+    static void printEntrySummary(EntryResult result) {
+        String fileName = MyOptions.optionB ? Utils.basename(result.entryFile.getPath()) : result.entryFile.getPath();
+        if (result.failure != null) {
+            System.out.println(fileName + ": failed (" + result.failure + ")");
+            return;
+        }
+        String tier = result.tier < 0 ? "" : ", tier " + (result.tier + 1);
+        if (result.degradation != null) {
+            tier += ", degraded";
+        }
+        if (result.unsoundDegradation != null) {
+            tier += ", possibly incomplete";
+        }
+        if (result.cached) {
+            System.out.println(fileName + ": " + result.numberOfVulnerabilities + " vulnerabilities, "
+                + result.numberOfFiles + " files, cached" + tier);
+            return;
+        }
+        System.out.println(fileName + ": " + result.numberOfVulnerabilities + " vulnerabilities, "
+            + result.numberOfFiles + " files, " + result.conversionTime + " ms conversion, "
+            + result.analysisTime + " ms analysis" + tier);
+    }
+
+//  ********************************************************************************
+//  ENTRY RESULT *******************************************************************
+//  ********************************************************************************
+
+    // the outcome of analyzing a single entry file
+    static final class EntryResult {
+        final File entryFile;
+        int numberOfFiles = 0;
+        int numberOfVulnerabilities = 0;
+        long conversionTime = 0;
+        long analysisTime = 0;
+        long detectionTime = 0;
+
+        // the include closure (only known if the entry file was converted)
+        Set<File> files = new HashSet<>();
+
+        // line numbers of the detected vulnerabilities
+        List<Integer> vulnerabilities = new LinkedList<>();
+
+        // taken from the result cache?
+        boolean cached = false;
+
+        // tiered mode: the last tier that analyzed the entry file successfully (-1 if not
+        // in tiered mode), the lines reported by each tier, and the failure of the tier
+        // after the last one (if any)
+        int tier = -1;
+        List<Set<Integer>> tierVulnerabilities = new ArrayList<>();
+        String tierFailure = null;
+
+        // the output and the error output of the analysis (only collected for concurrent analyses)
+        String report = "";
+        String errors = "";
+
+        // description of the exception that aborted the analysis; null if it succeeded
+        String failure = null;
+
+        // the fallbacks taken because an analysis exhausted its budget (see
+        // Checker.getDegradation()); null if the result is not degraded
+        String degradation = null;
+
+        // the unsound fallbacks (see Checker.getUnsoundDegradation()); null if no
+        // vulnerabilities were missed because of a fallback
+        String unsoundDegradation = null;
+
+        EntryResult(File entryFile) {
+            this.entryFile = entryFile;
+        }
+
+        // appends a record for this result to the given results file:
+        // a header line with the tab-separated fields
+        //   ENTRY, entry file, number of files, conversion time, analysis time,
+        //   vulnerability lines (comma-separated, "-" if none), report length (bytes),
+        //   failure (optional, empty if there is a degradation only),
+        //   degradation (optional, empty if there is an unsound degradation only),
+        //   unsound degradation (optional)
+        // followed by the report itself
+        void append(File resultsFile) {
+            byte[] reportBytes = this.report.getBytes(StandardCharsets.UTF_8);
+            StringBuilder header = new StringBuilder();
+            header.append("ENTRY\t").append(this.entryFile.getPath());
+            header.append('\t').append(this.numberOfFiles);
+            header.append('\t').append(this.conversionTime);
+            header.append('\t').append(this.analysisTime);
+            header.append('\t');
+            if (this.vulnerabilities.isEmpty()) {
+                header.append('-');
+            }
+            for (Iterator<Integer> iterator = this.vulnerabilities.iterator(); iterator.hasNext(); ) {
+                header.append(iterator.next());
+                if (iterator.hasNext()) {
+                    header.append(',');
+                }
+            }
+            header.append('\t').append(reportBytes.length);
+            if (this.failure != null || this.degradation != null || this.unsoundDegradation != null) {
+                header.append('\t').append(this.failure == null ? "" : this.failure.replaceAll("\\s+", " "));
+            }
+            if (this.degradation != null || this.unsoundDegradation != null) {
+                header.append('\t').append(this.degradation == null ? "" : this.degradation.replaceAll("\\s+", " "));
+            }
+            if (this.unsoundDegradation != null) {
+                header.append('\t').append(this.unsoundDegradation.replaceAll("\\s+", " "));
+            }
+            header.append('\n');
+
+            // the record is written at once, so that a crash leaves at most
+            // one truncated record at the end of the file
+            ByteArrayOutputStream record = new ByteArrayOutputStream();
+            try {
+                record.write(header.toString().getBytes(StandardCharsets.UTF_8));
+                record.write(reportBytes);
+                try (FileOutputStream out = new FileOutputStream(resultsFile, true)) {
+                    record.writeTo(out);
+                    out.getFD().sync();
+                }
+            } catch (IOException e) {
+                throw new RuntimeException(e.getMessage());
+            }
+        }
+
+        // reads all complete records from the given results file
+        static List<EntryResult> readAll(File resultsFile) {
+            List<EntryResult> results = new ArrayList<>();
+            if (!resultsFile.isFile()) {
+                return results;
+            }
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(resultsFile)))) {
+                String header;
+                while ((header = ResultCache.readLine(in)) != null) {
+                    String[] fields = header.split("\t");
+                    if (fields.length < 7 || !fields[0].equals("ENTRY")) {
+                        break;
+                    }
+                    EntryResult result = new EntryResult(new File(fields[1]));
+                    result.numberOfFiles = Integer.parseInt(fields[2]);
+                    result.conversionTime = Long.parseLong(fields[3]);
+                    result.analysisTime = Long.parseLong(fields[4]);
+                    if (!fields[5].equals("-")) {
+                        for (String line : fields[5].split(",")) {
+                            result.vulnerabilities.add(Integer.valueOf(line));
+                        }
+                    }
+                    result.numberOfVulnerabilities = result.vulnerabilities.size();
+                    byte[] reportBytes = new byte[Integer.parseInt(fields[6])];
+                    if (fields.length > 7 && !fields[7].isEmpty()) {
+                        result.failure = fields[7];
+                    }
+                    if (fields.length > 8 && !fields[8].isEmpty()) {
+                        result.degradation = fields[8];
+                    }
+                    if (fields.length > 9) {
+                        result.unsoundDegradation = fields[9];
+                    }
+                    try {
+                        in.readFully(reportBytes);
+                    } catch (EOFException e) {
+                        // truncated record
+                        break;
+                    }
+                    result.report = new String(reportBytes, StandardCharsets.UTF_8);
+                    results.add(result);
+                }
+            } catch (IOException | NumberFormatException e) {
+                // a damaged record ends the usable part of the file
+            }
+            return results;
+        }
+
+    }
+
+//  ********************************************************************************
+//  TIER ***************************************************************************
+//  ********************************************************************************
+
+    // a configuration of the analyses in tiered mode
+    private static final class Tier {
+        private final String name;
+        private final boolean callString;
+        private final boolean aliasAnalysis;
+        private final boolean literalAnalysis;
+
+        Tier(String name, boolean callString, boolean aliasAnalysis, boolean literalAnalysis) {
+            this.name = name;
+            this.callString = callString;
+            this.aliasAnalysis = aliasAnalysis;
+            this.literalAnalysis = literalAnalysis;
+        }
+
+        void apply() {
+            MyOptions.optionA = this.callString;
+            MyOptions.option_A = this.aliasAnalysis;
+            MyOptions.option_L = this.literalAnalysis;
+        }
+    }
+}
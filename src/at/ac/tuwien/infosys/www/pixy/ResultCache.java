@@ -0,0 +1,261 @@
+package at.ac.tuwien.infosys.www.pixy;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Persistent cache of the results of entry files (project mode), so that entry files whose programs have not changed
+ * are not parsed and analyzed again.
+ *
+ * For each analyzed entry file, the cache stores the report, the detected vulnerabilities and the include closure of
+ * the entry file (i.e., ProgramConverter.getAllFiles()) together with the SHA-256 hash of the content of each file
+ * in the closure. The cache entry is found by the entry file and a fingerprint of the configuration (the files in the
+ * config directory and the custom sink files) and of the options that influence the result. A stored result is
+ * reused if the hashes of all files in its closure still match.
+ *
+ * Note that a program can also change without any modification of the files in its closure: an include that could
+ * not be resolved might be resolved after a file has been created. The cache directory should be cleared when this
+ * might be the case, and after Pixy itself was updated.
+ */
+public final class ResultCache {
+    private static final String MAGIC = "PIXYCACHE 1";
+
+    // the directory with the cache files
+    private File directory;
+
+    // fingerprint of the configuration and the options
+    private String configurationFingerprint;
+
+    // file -> content hash; files are assumed not to change during a run
+    private ConcurrentMap<File, String> contentHashes;
+
+//  ********************************************************************************
+//  CONSTRUCTOR ********************************************************************
+//  ********************************************************************************
+
+    // expects the configuration to be read already
+    public ResultCache(File directory) {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            Utils.bail("Can't create cache directory: " + directory);
+        }
+        this.directory = directory;
+        this.contentHashes = new ConcurrentHashMap<>();
+        this.configurationFingerprint = this.computeConfigurationFingerprint();
+    }
+
+//  ********************************************************************************
+//  LOOKUP AND STORE ***************************************************************
+//  ********************************************************************************
+
+    // returns the stored result for the given entry file if none of the files
+    // in its closure have changed; returns null otherwise
+    public CachedResult lookup(File entryFile) {
+        entryFile = canonical(entryFile);
+        File cacheFile = this.getCacheFile(entryFile);
+        if (!cacheFile.isFile()) {
+            return null;
+        }
+
+        CachedResult cachedResult = new CachedResult();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile)))) {
+            if (!MAGIC.equals(readLine(in)) || !entryFile.getPath().equals(readField(in, "entry"))) {
+                return null;
+            }
+
+            int numberOfFiles = Integer.parseInt(readField(in, "files"));
+            for (int i = 0; i < numberOfFiles; i++) {
+                String line = readLine(in);
+                int tab = line.indexOf('\t');
+                File file = new File(line.substring(tab + 1));
+                if (!line.substring(0, tab).equals(this.getContentHash(file))) {
+                    return null;
+                }
+                cachedResult.files.add(file);
+            }
+
+            String vulnerabilities = readField(in, "vulnerabilities");
+            if (!vulnerabilities.isEmpty()) {
+                for (String line : vulnerabilities.split(",")) {
+                    cachedResult.vulnerabilities.add(Integer.valueOf(line));
+                }
+            }
+
+            byte[] report = new byte[Integer.parseInt(readField(in, "report"))];
+            in.readFully(report);
+            cachedResult.report = new String(report, StandardCharsets.UTF_8);
+        } catch (IOException | RuntimeException e) {
+            // damaged cache file
+            return null;
+        }
+        return cachedResult;
+    }
+
+    // stores the result of the given entry file; files: its include closure
+    public void store(File entryFile, Set<File> files, List<Integer> vulnerabilities, String report) {
+        entryFile = canonical(entryFile);
+        StringBuilder header = new StringBuilder();
+        header.append(MAGIC).append('\n');
+        header.append("entry\t").append(entryFile.getPath()).append('\n');
+        header.append("files\t").append(files.size()).append('\n');
+        for (File file : files) {
+            String contentHash = this.getContentHash(file);
+            if (contentHash == null) {
+                return;
+            }
+            header.append(contentHash).append('\t').append(file.getPath()).append('\n');
+        }
+        header.append("vulnerabilities\t");
+        for (Iterator<Integer> iterator = vulnerabilities.iterator(); iterator.hasNext(); ) {
+            header.append(iterator.next());
+            if (iterator.hasNext()) {
+                header.append(',');
+            }
+        }
+        header.append('\n');
+        byte[] reportBytes = report.getBytes(StandardCharsets.UTF_8);
+        header.append("report\t").append(reportBytes.length).append('\n');
+
+        // write into a temporary file first, so that readers never see a partial cache file
+        File cacheFile = this.getCacheFile(entryFile);
+        try {
+            File temporaryFile = File.createTempFile("entry", ".tmp", this.directory);
+            try (OutputStream out = new BufferedOutputStream(new FileOutputStream(temporaryFile))) {
+                out.write(header.toString().getBytes(StandardCharsets.UTF_8));
+                out.write(reportBytes);
+            }
+            Files.move(temporaryFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.out.println("Warning: Can't write cache file " + cacheFile + ": " + e.getMessage());
+        }
+    }
+
+//  ********************************************************************************
+//  FINGERPRINTS *******************************************************************
+//  ********************************************************************************
+
+    private static File canonical(File file) {
+        try {
+            return file.getCanonicalFile();
+        } catch (IOException e) {
+            return file.getAbsoluteFile();
+        }
+    }
+
+    private File getCacheFile(File entryFile) {
+        return new File(this.directory, sha256(
+            (this.configurationFingerprint + "\n" + entryFile.getPath()).getBytes(StandardCharsets.UTF_8)) + ".cache");
+    }
+
+    // content hash of the given file; null if it can't be read
+    private String getContentHash(File file) {
+        String contentHash = this.contentHashes.get(file);
+        if (contentHash == null) {
+            try {
+                contentHash = sha256(Files.readAllBytes(file.toPath()));
+            } catch (IOException e) {
+                return null;
+            }
+            this.contentHashes.put(file, contentHash);
+        }
+        return contentHash;
+    }
+
+    // hash over the configuration files and the options that influence the result
+    private String computeConfigurationFingerprint() {
+        StringBuilder description = new StringBuilder();
+        boolean[] flags = {
+            MyOptions.optionA, MyOptions.option_A, MyOptions.optionB, MyOptions.optionG, MyOptions.optionI,
+            MyOptions.optionL, MyOptions.option_L, MyOptions.option_O, MyOptions.optionR, MyOptions.optionV, MyOptions.option_V,
+            MyOptions.optionW
+        };
+        for (boolean flag : flags) {
+            description.append(flag ? '1' : '0');
+        }
+        description.append('\n');
+        for (VulnerabilityAnalysisInformation analysis : MyOptions.getVulnerabilityAnalyses()) {
+            description.append(analysis.getName()).append('=').append(analysis.performMe()).append('\n');
+        }
+
+        // relative includes might be resolved against the working directory
+        description.append(new File("").getAbsolutePath()).append('\n');
+
+        List<File> configurationFiles = Utils.fileListFromDir(MyOptions.pixyHome + "/" + MyOptions.configurationDirectory);
+        if (MyOptions.optionS != null) {
+            StringTokenizer tokenizer = new StringTokenizer(MyOptions.optionS, ":");
+            while (tokenizer.hasMoreTokens()) {
+                configurationFiles.add(new File(tokenizer.nextToken()));
+            }
+        }
+        // listFiles() doesn't guarantee any order
+        Collections.sort(configurationFiles);
+        for (File file : configurationFiles) {
+            description.append(file.getPath()).append('=').append(this.getContentHash(file)).append('\n');
+        }
+
+        return sha256(description.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String sha256(byte[] data) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("SNH");
+        }
+        char[] digits = "0123456789abcdef".toCharArray();
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest(data)) {
+            hex.append(digits[(b >> 4) & 0xF]).append(digits[b & 0xF]);
+        }
+        return hex.toString();
+    }
+
+//  ********************************************************************************
+//  READING ************************************************************************
+//  ********************************************************************************
+
+    // reads a "name\tvalue" line and returns the value
+    private static String readField(DataInputStream in, String name) throws IOException {
+        String line = readLine(in);
+        if (line == null || !line.startsWith(name + "\t")) {
+            throw new IOException("expected field " + name);
+        }
+        return line.substring(name.length() + 1);
+    }
+
+    // reads a line terminated by '\n'; returns null if there is no complete line
+    static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != '\n') {
+            if (b == -1) {
+                return null;
+            }
+            line.write(b);
+        }
+        return new String(line.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+//  ********************************************************************************
+//  CACHED RESULT ******************************************************************
+//  ********************************************************************************
+
+    public static final class CachedResult {
+        // the include closure of the entry file
+        Set<File> files = new HashSet<>();
+        List<Integer> vulnerabilities = new LinkedList<>();
+        String report;
+
+        public Set<File> getFiles() {
+            return this.files;
+        }
+    }
+}
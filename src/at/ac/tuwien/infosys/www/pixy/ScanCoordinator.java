@@ -0,0 +1,512 @@
+package at.ac.tuwien.infosys.www.pixy;
+
+import at.ac.tuwien.infosys.www.pixy.conversion.ProgramConverter;
+import at.ac.tuwien.infosys.www.pixy.conversion.ProgramDatabase;
+import org.apache.commons.cli.CommandLine;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Sharded project mode: distributes the entry files of an application over several worker processes, for
+ * applications that are too large to be analyzed in a single JVM.
+ *
+ * The coordinator first converts each entry file once (without analyzing it) to obtain its include closure, i.e.,
+ * the files of the IncludeGraph. The entry files are then partitioned into one shard per worker such that entry
+ * files with many common includes end up in the same shard (and can share the parse trees of that worker), while
+ * the sizes of the shards stay balanced.
+ *
+ * The coordinator releases the parse trees of an entry file as soon as its closure is known, so its heap has to
+ * suffice for converting the largest single entry file (as in the default mode), but not for the whole application.
+ * Entry files whose results are cached take their closure from the result cache and are not converted at all.
+ *
+ * Each worker is a JVM running the project mode (ProjectChecker) on its shard, with the heap given by mem_max in
+ * config/mem.pl. The workers append the result of each finished entry file to a results file. If a worker crashes
+ * (e.g., because it runs out of memory), it is restarted on the entry files that it has not finished; an entry file
+ * that crashes its worker repeatedly is reported as failed.
+ *
+ * Finally, the results of all workers are merged into one report that is sorted by entry file, so that it does not
+ * depend on the number of workers or on the partitioning.
+ */
+public final class ScanCoordinator {
+    // how often a worker may crash on the same entry file before it is skipped
+    private static final int MAX_ATTEMPTS = 2;
+
+    // allowed size of a shard relative to the average shard size
+    private static final double SHARD_SIZE_TOLERANCE = 1.25;
+
+    // the entry files (canonical)
+    private List<File> entryFiles;
+
+    // requested number of worker processes
+    private int numberOfWorkers;
+
+    // command line arguments that are passed on to each worker
+    private List<String> workerArguments;
+
+    // the result cache shared with the workers; can be null
+    private File cacheDirectory;
+
+    // include index that is kept up to date (with the closures computed by the
+    // coordinator); can be null
+    private File indexFile;
+
+    // if not null: only the entry files affected by these files are analyzed
+    private List<File> changedFiles;
+
+    // directory for the entry lists, results files and logs of the workers
+    private File workDirectory;
+
+    // entry file -> result; filled by the threads that supervise the workers
+    private Map<File, ProjectChecker.EntryResult> results;
+
+    // statistics
+    private int numberOfRestarts = 0;
+    private int numberOfCrashes = 0;
+
+//  ********************************************************************************
+//  CONSTRUCTOR ********************************************************************
+//  ********************************************************************************
+
+    ScanCoordinator(List<File> entryFiles, int numberOfWorkers, List<String> workerArguments, File cacheDirectory) {
+        this.entryFiles = entryFiles;
+        this.numberOfWorkers = numberOfWorkers;
+        this.workerArguments = workerArguments;
+        this.cacheDirectory = cacheDirectory;
+        this.results = new HashMap<>();
+    }
+
+//  ********************************************************************************
+//  OTHERS *************************************************************************
+//  ********************************************************************************
+
+    // target: as for ProjectChecker.check()
+    static void check(String target, int numberOfWorkers, CommandLine commandLine) {
+        List<File> entryFiles = ProjectChecker.collectEntryFiles(target);
+        File cacheDirectory = commandLine.hasOption("e") ? new File(commandLine.getOptionValue("e")) : null;
+        ScanCoordinator coordinator =
+            new ScanCoordinator(entryFiles, numberOfWorkers, createWorkerArguments(commandLine), cacheDirectory);
+        if (commandLine.hasOption("x")) {
+            coordinator.indexFile = new File(commandLine.getOptionValue("x"));
+            coordinator.changedFiles = ProjectChecker.collectChangedFiles(commandLine);
+        }
+        coordinator.run();
+    }
+
+    // the options of the coordinator that are relevant for the workers
+    private static List<String> createWorkerArguments(CommandLine commandLine) {
+        List<String> arguments = new LinkedList<>();
+        for (String flag : new String[]{"a", "A", "b", "C", "g", "i", "l", "L", "O", "r", "T", "v", "V", "w"}) {
+            if (commandLine.hasOption(flag)) {
+                arguments.add("-" + flag);
+            }
+        }
+        for (String option : new String[]{"B", "E", "e", "G", "n", "s", "y"}) {
+            if (commandLine.hasOption(option)) {
+                arguments.add("-" + option);
+                arguments.add(commandLine.getOptionValue(option));
+            }
+        }
+
+        // the workers must not empty the output directory
+        arguments.add("-o");
+        arguments.add(MyOptions.graphPath);
+
+        return arguments;
+    }
+
+    void run() {
+        long startTime = System.currentTimeMillis();
+
+        Checker.readConfiguration();
+        Checker.readModels();
+
+        IncludeIndex includeIndex = null;
+        List<File> allEntryFiles = this.entryFiles;
+        if (this.indexFile != null) {
+            includeIndex = new IncludeIndex(this.indexFile);
+            if (this.changedFiles != null) {
+                this.entryFiles = includeIndex.selectAffected(allEntryFiles, this.changedFiles);
+                System.out.println(this.entryFiles.size() + " of " + allEntryFiles.size()
+                    + " entry files are affected by " + this.changedFiles.size() + " changed files");
+            }
+        }
+
+        System.out.println("computing include closures of " + this.entryFiles.size() + " entry files");
+        ResultCache resultCache = null;
+        if (this.cacheDirectory != null) {
+            resultCache = new ResultCache(this.cacheDirectory);
+        }
+        Set<File> unconvertibleEntryFiles = new HashSet<>();
+        Map<File, Set<File>> closures = computeClosures(this.entryFiles, resultCache, unconvertibleEntryFiles);
+        if (includeIndex != null) {
+            for (Map.Entry<File, Set<File>> entry : closures.entrySet()) {
+                if (!unconvertibleEntryFiles.contains(entry.getKey())) {
+                    includeIndex.update(entry.getKey(), entry.getValue());
+                }
+            }
+            includeIndex.retainEntryFiles(allEntryFiles);
+            includeIndex.save();
+        }
+        if (this.entryFiles.isEmpty()) {
+            this.printReport(0, System.currentTimeMillis() - startTime);
+            return;
+        }
+        List<List<File>> shards = partition(closures, this.numberOfWorkers);
+
+        try {
+            this.workDirectory = Files.createTempDirectory("pixy-scan").toFile();
+        } catch (IOException e) {
+            Utils.bail("Can't create work directory: " + e.getMessage());
+        }
+
+        System.out.println("starting " + shards.size() + " worker processes");
+        ExecutorService executor = Executors.newFixedThreadPool(shards.size());
+        try {
+            List<Future<?>> futures = new LinkedList<>();
+            int workerId = 0;
+            for (final List<File> shard : shards) {
+                final int id = workerId++;
+                futures.add(executor.submit(new Callable<Void>() {
+                    public Void call() throws IOException, InterruptedException {
+                        superviseWorker(id, shard);
+                        return null;
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (InterruptedException | ExecutionException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        this.printReport(shards.size(), System.currentTimeMillis() - startTime);
+
+        // keep the logs if something went wrong
+        if (this.numberOfCrashes == 0) {
+            for (File file : this.workDirectory.listFiles()) {
+                file.delete();
+            }
+            this.workDirectory.delete();
+        } else {
+            System.out.println("worker logs:                     " + this.workDirectory.getPath());
+        }
+    }
+
+//  ********************************************************************************
+//  PARTITIONING *******************************************************************
+//  ********************************************************************************
+
+    // entry file -> files of its include closure (including the entry file itself);
+    // the closures of cached results are taken from the cache (which can be null); entry files
+    // that can't be converted are added to unconvertibleEntryFiles and get a closure with only themselves
+    static Map<File, Set<File>> computeClosures(
+        List<File> entryFiles, ResultCache resultCache, Set<File> unconvertibleEntryFiles) {
+        Map<File, Set<File>> closures = new HashMap<>();
+
+        // shared for its file index and resolved include strings only
+        ProgramDatabase programDatabase = new ProgramDatabase();
+
+        // the conversion output is of no interest here, and a file that can't
+        // be converted will fail in its worker as well
+        Utils.setExitOnBail(false);
+        AnalysisSession.installOutputRouting();
+        try {
+            for (File entryFile : entryFiles) {
+                if (resultCache != null) {
+                    ResultCache.CachedResult cachedResult = resultCache.lookup(entryFile);
+                    if (cachedResult != null) {
+                        Set<File> closure = new HashSet<>(cachedResult.getFiles());
+                        closure.add(entryFile);
+                        closures.put(entryFile, closure);
+                        continue;
+                    }
+                }
+                AnalysisSession session = new AnalysisSession(entryFile);
+                session.bind();
+                session.captureOutput();
+                Set<File> closure;
+                try {
+                    ProgramConverter programConverter =
+                        new ProgramConverter(session, true, MyOptions.option_A, programDatabase);
+                    programConverter.convert();
+                    closure = new HashSet<>(programConverter.getAllFiles());
+                } catch (RuntimeException e) {
+                    closure = new HashSet<>();
+                    unconvertibleEntryFiles.add(entryFile);
+                } finally {
+                    session.releaseOutput();
+                    AnalysisSession.unbind();
+
+                    // only the closure is needed; the parse trees of the whole
+                    // application would not fit into the coordinator's heap
+                    programDatabase.releaseParseTrees();
+                }
+                closure.add(entryFile);
+                closures.put(entryFile, closure);
+            }
+        } finally {
+            AnalysisSession.uninstallOutputRouting();
+            Utils.setExitOnBail(true);
+        }
+
+        return closures;
+    }
+
+    // distributes the entry files over at most numberOfShards shards: the entry files are taken
+    // from the largest to the smallest closure, and each is put into the shard that already
+    // contains most of its closure (weighted by file size), as long as that shard doesn't
+    // grow beyond the tolerated size; empty shards are omitted
+    static List<List<File>> partition(Map<File, Set<File>> closures, int numberOfShards) {
+        final Map<File, Long> weights = new HashMap<>();
+        long totalWeight = 0;
+        long maxWeight = 0;
+        for (Map.Entry<File, Set<File>> entry : closures.entrySet()) {
+            long weight = 0;
+            for (File file : entry.getValue()) {
+                weight += Math.max(1, file.length());
+            }
+            weights.put(entry.getKey(), weight);
+            totalWeight += weight;
+            maxWeight = Math.max(maxWeight, weight);
+        }
+        long maxShardWeight = Math.max(maxWeight, (long) (SHARD_SIZE_TOLERANCE * totalWeight / numberOfShards));
+
+        List<File> entryFiles = new ArrayList<>(closures.keySet());
+        Collections.sort(entryFiles, new Comparator<File>() {
+            public int compare(File file1, File file2) {
+                int weightComparison = weights.get(file2).compareTo(weights.get(file1));
+                if (weightComparison != 0) {
+                    return weightComparison;
+                }
+                return file1.compareTo(file2);
+            }
+        });
+
+        List<List<File>> shards = new ArrayList<>();
+        List<Set<File>> shardFiles = new ArrayList<>();
+        long[] shardWeights = new long[numberOfShards];
+        for (int i = 0; i < numberOfShards; i++) {
+            shards.add(new LinkedList<File>());
+            shardFiles.add(new HashSet<File>());
+        }
+
+        for (File entryFile : entryFiles) {
+            Set<File> closure = closures.get(entryFile);
+            long weight = weights.get(entryFile);
+
+            int bestShard = -1;
+            long bestOverlap = -1;
+            int leastLoadedShard = 0;
+            for (int i = 0; i < numberOfShards; i++) {
+                if (shardWeights[i] < shardWeights[leastLoadedShard]) {
+                    leastLoadedShard = i;
+                }
+                if (shardWeights[i] + weight > maxShardWeight) {
+                    continue;
+                }
+                long overlap = 0;
+                for (File file : closure) {
+                    if (shardFiles.get(i).contains(file)) {
+                        overlap += Math.max(1, file.length());
+                    }
+                }
+                if (overlap > bestOverlap || (overlap == bestOverlap && shardWeights[i] < shardWeights[bestShard])) {
+                    bestShard = i;
+                    bestOverlap = overlap;
+                }
+            }
+            if (bestShard == -1) {
+                bestShard = leastLoadedShard;
+            }
+
+            shards.get(bestShard).add(entryFile);
+            shardFiles.get(bestShard).addAll(closure);
+            shardWeights[bestShard] += weight;
+        }
+
+        for (Iterator<List<File>> iterator = shards.iterator(); iterator.hasNext(); ) {
+            List<File> shard = iterator.next();
+            if (shard.isEmpty()) {
+                iterator.remove();
+            } else {
+                Collections.sort(shard);
+            }
+        }
+        return shards;
+    }
+
+//  ********************************************************************************
+//  WORKERS ************************************************************************
+//  ********************************************************************************
+
+    // runs a worker on the given shard, and restarts it on the remaining entry files
+    // until all of them are finished or have failed
+    private void superviseWorker(int workerId, List<File> shard) throws IOException, InterruptedException {
+        List<File> remaining = new LinkedList<>(shard);
+        Map<File, Integer> attempts = new HashMap<>();
+        int run = 0;
+
+        while (!remaining.isEmpty()) {
+            String prefix = "worker" + workerId + "_" + run;
+            File listFile = new File(this.workDirectory, prefix + "_entries.txt");
+            File resultsFile = new File(this.workDirectory, prefix + "_results.txt");
+            File logFile = new File(this.workDirectory, prefix + ".log");
+
+            try (PrintWriter writer = new PrintWriter(new FileWriter(listFile))) {
+                for (File entryFile : remaining) {
+                    writer.println(entryFile.getPath());
+                }
+            }
+
+            Process process = new ProcessBuilder(this.createWorkerCommand(listFile, resultsFile))
+                .redirectErrorStream(true)
+                .redirectOutput(logFile)
+                .start();
+            int exitValue = process.waitFor();
+
+            for (ProjectChecker.EntryResult result : ProjectChecker.EntryResult.readAll(resultsFile)) {
+                if (remaining.remove(result.entryFile)) {
+                    this.addResult(result);
+                }
+            }
+            if (remaining.isEmpty()) {
+                break;
+            }
+
+            // the worker died; entry files are finished in the order of the list,
+            // so the first remaining one is the one that it was working on
+            File culprit = remaining.get(0);
+            int attemptsOnCulprit = attempts.containsKey(culprit) ? attempts.get(culprit) + 1 : 1;
+            attempts.put(culprit, attemptsOnCulprit);
+            synchronized (this) {
+                this.numberOfCrashes++;
+            }
+            System.out.println("worker " + workerId + " terminated with exit value " + exitValue
+                + " while analyzing " + culprit.getPath() + " (see " + logFile.getPath() + ")");
+
+            if (attemptsOnCulprit >= MAX_ATTEMPTS) {
+                remaining.remove(0);
+                ProjectChecker.EntryResult result = new ProjectChecker.EntryResult(culprit);
+                result.failure = "worker process terminated with exit value " + exitValue;
+                this.addResult(result);
+            }
+            if (!remaining.isEmpty()) {
+                synchronized (this) {
+                    this.numberOfRestarts++;
+                }
+            }
+            run++;
+        }
+    }
+
+    private synchronized void addResult(ProjectChecker.EntryResult result) {
+        this.results.put(result.entryFile, result);
+    }
+
+    private List<String> createWorkerCommand(File listFile, File resultsFile) {
+        List<String> command = new LinkedList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        String maxHeap = readMaxHeap();
+        if (maxHeap != null) {
+            command.add("-Xmx" + maxHeap);
+        }
+        command.add("-Dpixy.home=" + MyOptions.pixyHome.getPath());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(Checker.class.getName());
+        command.addAll(this.workerArguments);
+        command.add("-R");
+        command.add(resultsFile.getPath());
+        command.add("-j");
+        command.add(listFile.getPath());
+        return command;
+    }
+
+    // the maximum heap for the workers, as configured in config/mem.pl (same as for
+    // the run scripts); null if it is not configured
+    private static String readMaxHeap() {
+        File memFile = new File(MyOptions.pixyHome, MyOptions.configurationDirectory + "/mem.pl");
+        Pattern pattern = Pattern.compile("\\$mem_max\\s*=\\s*['\"]([^'\"]+)['\"]");
+        try (BufferedReader reader = new BufferedReader(new FileReader(memFile))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                Matcher matcher = pattern.matcher(line);
+                if (matcher.find()) {
+                    return matcher.group(1);
+                }
+            }
+        } catch (IOException e) {
+            // use the default heap of the JVM
+        }
+        return null;
+    }
+
+//  ********************************************************************************
+//  REPORT *************************************************************************
+//  ********************************************************************************
+
+    private void printReport(int numberOfShards, long totalTime) {
+        List<File> entryFiles = new ArrayList<>(this.results.keySet());
+        Collections.sort(entryFiles);
+
+        for (File entryFile : entryFiles) {
+            System.out.print(this.results.get(entryFile).report);
+        }
+
+        int numberOfVulnerabilities = 0;
+        int numberOfFailures = 0;
+        int numberOfDegradedResults = 0;
+        int numberOfIncompleteResults = 0;
+        System.out.println();
+        System.out.println("*****************");
+        System.out.println("Project Summary");
+        System.out.println("*****************");
+        System.out.println();
+        for (File entryFile : entryFiles) {
+            ProjectChecker.EntryResult result = this.results.get(entryFile);
+            numberOfVulnerabilities += result.numberOfVulnerabilities;
+            if (result.failure != null) {
+                numberOfFailures++;
+            }
+            if (result.degradation != null) {
+                numberOfDegradedResults++;
+            }
+            if (result.unsoundDegradation != null) {
+                numberOfIncompleteResults++;
+            }
+            ProjectChecker.printEntrySummary(result);
+        }
+        System.out.println();
+        System.out.println("entry files:                     " + entryFiles.size());
+        System.out.println("total vulnerabilities:           " + numberOfVulnerabilities);
+        if (numberOfFailures > 0) {
+            System.out.println("failed entry files:              " + numberOfFailures);
+        }
+        if (numberOfDegradedResults > 0) {
+            System.out.println("degraded entry files:            " + numberOfDegradedResults);
+        }
+        if (numberOfIncompleteResults > 0) {
+            System.out.println("possibly incomplete entry files: " + numberOfIncompleteResults);
+        }
+        if (!MyOptions.optionB) {
+            System.out.println("worker processes:                " + numberOfShards);
+            System.out.println("worker restarts:                 " + this.numberOfRestarts);
+            System.out.println("total time:                      " + totalTime + " ms");
+        }
+        System.out.println();
+    }
+}
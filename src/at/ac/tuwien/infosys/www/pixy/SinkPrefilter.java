@@ -0,0 +1,63 @@
+package at.ac.tuwien.infosys.www.pixy;
+
+import at.ac.tuwien.infosys.www.pixy.conversion.TacConverter;
+import at.ac.tuwien.infosys.www.pixy.conversion.TacFunction;
+import at.ac.tuwien.infosys.www.pixy.conversion.cfgnodes.AbstractCfgNode;
+import at.ac.tuwien.infosys.www.pixy.conversion.cfgnodes.CallBuiltinFunction;
+import at.ac.tuwien.infosys.www.pixy.conversion.cfgnodes.CallPreparation;
+import at.ac.tuwien.infosys.www.pixy.conversion.cfgnodes.Echo;
+
+/**
+ * Cheap check whether a converted program (i.e., the entry file with its whole include closure) contains any sink of
+ * the selected vulnerability analyses.
+ *
+ * The vulnerability analyses only look for sinks at echo/print nodes (if output is a sink for them) and at calls of
+ * builtin or user-defined functions whose name is listed in their sink files (see checkForSink() of the analyses).
+ * If there is no such node, the analyses can't report anything, and the expensive alias, literal and dependency
+ * analyses can be skipped. Dynamic calls (e.g., "$f($x)") are not considered, since the analyses don't treat them
+ * as sinks either.
+ */
+public final class SinkPrefilter {
+    private SinkPrefilter() {
+    }
+
+    // returns true if the given program contains at least one potential sink
+    // of a vulnerability analysis that is to be performed
+    public static boolean hasSinks(TacConverter tac) {
+        for (TacFunction function : tac.getAllFunctions()) {
+            for (AbstractCfgNode cfgNode : function.getControlFlowGraph().dfPreOrder()) {
+                if (isSink(cfgNode)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean isSink(AbstractCfgNode cfgNode) {
+        String functionName;
+        if (cfgNode instanceof CallBuiltinFunction) {
+            functionName = ((CallBuiltinFunction) cfgNode).getFunctionName();
+        } else if (cfgNode instanceof CallPreparation) {
+            functionName = ((CallPreparation) cfgNode).getFunctionNamePlace().toString();
+        } else if (!(cfgNode instanceof Echo)) {
+            return false;
+        } else {
+            functionName = null;
+        }
+
+        for (VulnerabilityAnalysisInformation analysis : MyOptions.getVulnerabilityAnalyses()) {
+            if (!analysis.performMe()) {
+                continue;
+            }
+            if (functionName == null) {
+                if (analysis.isOutputSink()) {
+                    return true;
+                }
+            } else if (analysis.getSinks().containsKey(functionName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -65,7 +65,7 @@ public class SqlAnalysis extends AbstractVulnerabilityAnalysis {
         System.out.println("--------------------");
         System.out.println();
 
-        String fileName = MyOptions.entryFile.getName();
+        String fileName = this.session.getEntryFile().getName();
 
         dependencyGraphCount = 0;
         vulnerabilityCount = 0;
@@ -8,6 +8,11 @@ import java.util.List;
  * @author Nenad Jovanovic <enji@seclab.tuwien.ac.at>
  */
 public class Utils {
+    // if false, bail() only aborts the current analysis (by throwing a
+    // RuntimeException) instead of terminating the JVM; used by the daemon
+    // and by the worker threads of project mode
+    private static volatile boolean exitOnBail = true;
+
     // same as PHP's basename()
     public static String basename(String s) {
         return (new File(s).getName());
@@ -47,6 +52,28 @@ public class Utils {
         return retMe;
     }
 
+    // - input: the name of a text file that contains one file name per line
+    //   (empty lines and lines starting with "#" are ignored)
+    // - output: a list with these files (canonical)
+    public static List<File> fileListFromListFile(String listFileName) {
+        List<File> retMe = new LinkedList<>();
+        try {
+            BufferedReader reader = new BufferedReader(new FileReader(listFileName));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                retMe.add(new File(line).getCanonicalFile());
+            }
+            reader.close();
+        } catch (IOException e) {
+            throw new RuntimeException(e.getMessage());
+        }
+        return retMe;
+    }
+
     private static void fileListHelper(File dir, List<File> retMe) {
 
         try {
@@ -75,9 +102,20 @@ public class Utils {
         for (String msg : msgs) {
             System.err.println(msg);
         }
+        if (!exitOnBail) {
+            throw new RuntimeException(msgs.length == 0 ? "analysis aborted" : msgs[0]);
+        }
         System.exit(1);
     }
 
+    static void setExitOnBail(boolean exitOnBail) {
+        Utils.exitOnBail = exitOnBail;
+    }
+
+    static boolean isExitOnBail() {
+        return exitOnBail;
+    }
+
     // executes the given command and returns the output;
     // error output is written to a logfile
     public static String exec(String command) {
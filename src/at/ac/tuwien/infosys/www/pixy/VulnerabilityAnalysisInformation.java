@@ -16,15 +16,27 @@ public class VulnerabilityAnalysisInformation {
     private Map<String, Set<Integer>> sinks = new HashMap<>();
     private FunctionModels functionModels;
 
+    // are echo and print sinks for this analysis?
+    private boolean outputIsSink;
+
     VulnerabilityAnalysisInformation(String name, String className) {
+        this(name, className, false);
+    }
+
+    VulnerabilityAnalysisInformation(String name, String className, boolean outputIsSink) {
         this.name = name;
         this.className = className;
+        this.outputIsSink = outputIsSink;
     }
 
     void addSinks(Map<String, Set<Integer>> sinks) {
         this.sinks.putAll(sinks);
     }
 
+    void clearSinks() {
+        this.sinks.clear();
+    }
+
     public FunctionModels getFunctionModels() {
         return this.functionModels;
     }
@@ -45,6 +57,10 @@ public class VulnerabilityAnalysisInformation {
         return this.sinks;
     }
 
+    public boolean isOutputSink() {
+        return this.outputIsSink;
+    }
+
     public void setPerformMe(boolean b) {
         this.performMe = b;
     }
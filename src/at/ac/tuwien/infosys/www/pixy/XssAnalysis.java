@@ -64,7 +64,7 @@ public class XssAnalysis extends AbstractVulnerabilityAnalysis {
         StringBuilder sink2Graph = new StringBuilder();
         StringBuilder quickReport = new StringBuilder();
 
-        String fileName = MyOptions.entryFile.getName();
+        String fileName = this.session.getEntryFile().getName();
 
         dependencyGraphCount = 0;
         vulnerabilityCount = 0;
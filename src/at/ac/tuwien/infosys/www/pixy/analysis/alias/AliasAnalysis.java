@@ -33,7 +33,7 @@ public class AliasAnalysis extends AbstractInterproceduralAnalysis {
 
     public AliasAnalysis(TacConverter tac, AbstractAnalysisType analysisType) {
         this.repos = new GenericRepository<>();
-        this.initGeneral(tac.getAllFunctions(), tac.getMainFunction(),
+        this.initGeneral(tac.getAllFunctions(), tac.getMainFunction(), tac.freeze(),
             analysisType, new InterproceduralWorklistPoor());
     }
 
@@ -1,5 +1,6 @@
 package at.ac.tuwien.infosys.www.pixy.analysis.dependency;
 
+import at.ac.tuwien.infosys.www.pixy.AnalysisSession;
 import at.ac.tuwien.infosys.www.pixy.analysis.*;
 import at.ac.tuwien.infosys.www.pixy.analysis.alias.AliasAnalysis;
 import at.ac.tuwien.infosys.www.pixy.analysis.dependency.graph.DependencyGraph;
@@ -71,7 +72,7 @@ public class DependencyAnalysis extends AbstractInterproceduralAnalysis {
 
         this.finishedDetection = false;
 
-        this.initGeneral(tac.getAllFunctions(), tac.getMainFunction(),
+        this.initGeneral(tac.getAllFunctions(), tac.getMainFunction(), tac.freeze(),
             analysisType, workList);
     }
 
@@ -375,6 +376,15 @@ public class DependencyAnalysis extends AbstractInterproceduralAnalysis {
         return this.literalAnalysis.evalIf(ifNode);
     }
 
+    /**
+     * Returns the analysis run to which the analyzed program belongs.
+     *
+     * @return the session of the analyzed program
+     */
+    public AnalysisSession getSession() {
+        return this.tac.getSession();
+    }
+
     /**
      * Returns the dependency graphs for the given sink.
      *
@@ -1,6 +1,6 @@
 package at.ac.tuwien.infosys.www.pixy.analysis.dependency;
 
-import at.ac.tuwien.infosys.www.pixy.analysis.GenericRepository;
+import at.ac.tuwien.infosys.www.pixy.AnalysisSession;
 import at.ac.tuwien.infosys.www.pixy.analysis.Recyclable;
 import at.ac.tuwien.infosys.www.pixy.conversion.cfgnodes.AbstractCfgNode;
 
@@ -11,9 +11,6 @@ import at.ac.tuwien.infosys.www.pixy.conversion.cfgnodes.AbstractCfgNode;
  * @author Nenad Jovanovic <enji@seclab.tuwien.ac.at>
  */
 public class DependencyLabel implements Recyclable {
-    public static GenericRepository<DependencyLabel> repos =
-        new GenericRepository<>();
-
     // special, parameterized label
     public static final DependencyLabel UNINIT =
         new DependencyLabel(null);
@@ -34,7 +31,7 @@ public class DependencyLabel implements Recyclable {
 
     public static DependencyLabel create(AbstractCfgNode cfgNode) {
         DependencyLabel ret = new DependencyLabel(cfgNode);
-        ret = repos.recycle(ret);
+        ret = AnalysisSession.current().getDependencyLabelRepository().recycle(ret);
         return ret;
     }
 
@@ -1,5 +1,6 @@
 package at.ac.tuwien.infosys.www.pixy.analysis.dependency;
 
+import at.ac.tuwien.infosys.www.pixy.AnalysisSession;
 import at.ac.tuwien.infosys.www.pixy.MyOptions;
 import at.ac.tuwien.infosys.www.pixy.analysis.AbstractLatticeElement;
 import at.ac.tuwien.infosys.www.pixy.conversion.*;
@@ -28,7 +29,6 @@ public class DependencyLatticeElement extends AbstractLatticeElement {
 
     // the default lattice element; IT MUST NOT BE USED DIRECTLY BY THE ANALYSIS!
     // can be seen as "grounding", "fall-back" for normal lattice elements
-    public static DependencyLatticeElement DEFAULT;
 
 //  ********************************************************************************
 //  CONSTRUCTORS *******************************************************************
@@ -215,14 +215,21 @@ public class DependencyLatticeElement extends AbstractLatticeElement {
         List<AbstractTacPlace> places, ConstantsTable constantsTable, List<TacFunction> functions, SymbolTable superSymbolTable,
         Variable memberPlace
     ) {
-        DependencyLatticeElement.DEFAULT
-            = new DependencyLatticeElement(places, constantsTable, functions, superSymbolTable, memberPlace);
+        AnalysisSession.current().setDefaultDependencyLatticeElement(
+            new DependencyLatticeElement(places, constantsTable, functions, superSymbolTable, memberPlace));
     }
 
 //  *********************************************************************************
 //  GET *****************************************************************************
 //  *********************************************************************************
 
+//  getDefault *********************************************************************
+
+    // the default lattice element of the current AnalysisSession
+    public static DependencyLatticeElement getDefault() {
+        return AnalysisSession.current().getDefaultDependencyLatticeElement();
+    }
+
 //  getPlaceToDep *****************************************************************
 
     public Map<AbstractTacPlace, DependencySet> getPlaceToDep() {
@@ -282,7 +289,7 @@ public class DependencyLatticeElement extends AbstractLatticeElement {
         if (place instanceof Literal) {
             throw new RuntimeException("SNH");
         }
-        return DependencyLatticeElement.DEFAULT.getPlaceToDep().get(place);
+        return getDefault().getPlaceToDep().get(place);
     }
 
 //  ********************************************************************************
@@ -325,7 +332,7 @@ public class DependencyLatticeElement extends AbstractLatticeElement {
 //  ********************************************************************************
 
     private DependencySet getDefaultArrayLabel(Variable var) {
-        return DEFAULT.arrayLabels.get(var);
+        return getDefault().arrayLabels.get(var);
     }
 
 //  ********************************************************************************
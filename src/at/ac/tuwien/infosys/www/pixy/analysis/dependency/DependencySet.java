@@ -1,6 +1,6 @@
 package at.ac.tuwien.infosys.www.pixy.analysis.dependency;
 
-import at.ac.tuwien.infosys.www.pixy.analysis.GenericRepository;
+import at.ac.tuwien.infosys.www.pixy.AnalysisSession;
 import at.ac.tuwien.infosys.www.pixy.analysis.Recyclable;
 
 import java.util.HashSet;
@@ -12,15 +12,10 @@ import java.util.Set;
  * @author Nenad Jovanovic <enji@seclab.tuwien.ac.at>
  */
 public class DependencySet implements Recyclable {
-    public static GenericRepository<DependencySet> repos = new GenericRepository<>();
-
-    // no special treatment necessary for the following:
+    // no special treatment necessary for the following
+    // (the repository of each AnalysisSession starts with it):
     static public final DependencySet UNINIT = new DependencySet(DependencyLabel.UNINIT);
 
-    static {
-        repos.recycle(UNINIT);
-    }
-
     // the contained dependency labels
     private Set<DependencyLabel> dependencyLabelSet;
 
@@ -43,7 +38,7 @@ public class DependencySet implements Recyclable {
 
     public static DependencySet create(Set<DependencyLabel> dependencyLabelSet) {
         DependencySet x = new DependencySet(dependencyLabelSet);
-        return repos.recycle(x);
+        return AnalysisSession.current().getDependencySetRepository().recycle(x);
     }
 
 //  ********************************************************************************
@@ -7,13 +7,15 @@ import at.ac.tuwien.infosys.www.pixy.analysis.AbstractAnalysisNode;
 import at.ac.tuwien.infosys.www.pixy.analysis.AbstractLatticeElement;
 import at.ac.tuwien.infosys.www.pixy.analysis.AbstractTransferFunction;
 import at.ac.tuwien.infosys.www.pixy.analysis.interprocedural.callstring.CallStringAnalysis;
+import at.ac.tuwien.infosys.www.pixy.analysis.interprocedural.callstring.CallStringContext;
 import at.ac.tuwien.infosys.www.pixy.conversion.CfgEdge;
 import at.ac.tuwien.infosys.www.pixy.conversion.ControlFlowGraph;
+import at.ac.tuwien.infosys.www.pixy.conversion.FrozenProgram;
 import at.ac.tuwien.infosys.www.pixy.conversion.TacFormalParameter;
 import at.ac.tuwien.infosys.www.pixy.conversion.TacFunction;
 import at.ac.tuwien.infosys.www.pixy.conversion.cfgnodes.*;
 
-import java.util.List;
+import java.util.*;
 
 /**
  * Vase class for interprocedural analyses (Sharir and Pnueli). Can be used for the functional and the call-string
@@ -47,12 +49,28 @@ public abstract class AbstractInterproceduralAnalysis extends AbstractAnalysis {
     // the main function
     protected TacFunction mainFunction;
 
+    // compact representation of the analyzed cfgs, used by analyze()
+    private FrozenProgram frozenProgram;
+
     // context for the main function
     protected AbstractContext mainContext;
 
     // worklist consisting of pairs (ControlFlowGraph node, lattice element)
     InterproceduralWorklist workList;
 
+    // limits for analyze(); null if the analysis is unbounded
+    private AnalysisBudget budget;
+
+    // number of contexts under which each function was entered so far
+    private Map<TacFunction, Integer> numberOfContexts = new HashMap<>();
+
+    // call node -> callee at the time the transfer functions were created
+    // (null for unknown callees)
+    private Map<Call, TacFunction> callees = new HashMap<>();
+
+    // number of analysis nodes whose results were taken over from a previous analysis
+    private int numberOfReusedNodes = 0;
+
 // *********************************************************************************
 // CONSTRUCTORS ********************************************************************
 // *********************************************************************************
@@ -61,13 +79,24 @@ public abstract class AbstractInterproceduralAnalysis extends AbstractAnalysis {
 
     // general initialization work; taken out of the constructor to bypass the
     // restriction that superclass constructors have to be called first;
-    // the "functions" map has to map function name -> TacFunction object
-    protected void initGeneral(List<TacFunction> functions, TacFunction mainFunction,
+    // the "functions" map has to map function name -> TacFunction object;
+    // "frozenProgram" has to contain the cfgs of these functions in their current state
+    protected void initGeneral(List<TacFunction> functions, TacFunction mainFunction, FrozenProgram frozenProgram,
                                AbstractAnalysisType analysisType, InterproceduralWorklist workList) {
+        this.initGeneral(functions, mainFunction, frozenProgram, analysisType, workList, null);
+    }
+
+    // like above; if "previous" is not null, it has to be a finished (and not cleaned) analysis
+    // of an earlier version of the same program, whose results are reused as far as they are
+    // still valid (see reuseResults)
+    protected void initGeneral(List<TacFunction> functions, TacFunction mainFunction, FrozenProgram frozenProgram,
+                               AbstractAnalysisType analysisType, InterproceduralWorklist workList,
+                               AbstractInterproceduralAnalysis previous) {
 
         this.analysisType = analysisType;
         this.analysisType.setAnalysis(this);
         this.functions = functions;
+        this.frozenProgram = frozenProgram;
 
         // determine ControlFlowGraph of main function: start analysis here
         this.mainFunction = mainFunction;
@@ -82,17 +111,30 @@ public abstract class AbstractInterproceduralAnalysis extends AbstractAnalysis {
 
         // initialize worklist
         this.workList = workList;
-        this.workList.add(mainHead, this.mainContext);
 
         // initialize analysis nodes
         this.interproceduralAnalysisInformation = new InterproceduralAnalysisInformation();
         this.genericAnalysisInformation = interproceduralAnalysisInformation;
         // assign transfer functions
         this.initTransferFunctions();
+        this.interproceduralAnalysisInformation.freeze(frozenProgram);
+
+        // remember the callees (resolving a call changes the transfer functions around it)
+        for (AbstractCfgNode cfgNode : this.interproceduralAnalysisInformation.getMap().keySet()) {
+            if (cfgNode instanceof Call) {
+                this.callees.put((Call) cfgNode, ((Call) cfgNode).getCallee());
+            }
+        }
+
+        if (previous == null) {
+            this.workList.add(mainHead, this.mainContext);
 
-        // initialize PHI map for start node
-        AbstractInterproceduralAnalysisNode startAnalysisNode = this.interproceduralAnalysisInformation.getAnalysisNode(mainHead);
-        startAnalysisNode.setPhiValue(this.mainContext, this.startValue);
+            // initialize PHI map for start node
+            AbstractInterproceduralAnalysisNode startAnalysisNode = this.interproceduralAnalysisInformation.getAnalysisNode(mainHead);
+            startAnalysisNode.setPhiValue(this.mainContext, this.startValue);
+        } else {
+            this.reuseResults(previous);
+        }
     }
 
 //  initTransferFunctions ***********************************************************
@@ -125,6 +167,163 @@ public abstract class AbstractInterproceduralAnalysis extends AbstractAnalysis {
         }
     }
 
+//  reuseResults ********************************************************************
+
+    // takes over the results of the given analysis of an earlier version of the program;
+    // the current version may differ from it by new nodes (such as inlined include files
+    // and new functions), removed nodes (such as include nodes) and resolved calls;
+    // the PHI values of all (node, context) pairs that can't be reached from such a change
+    // are copied, and the worklist is seeded with those copied pairs that lead to a changed
+    // one; only works for call-string analyses whose connector computation was extended
+    // without changing the existing contexts (see ConnectorComputation.update)
+    private void reuseResults(AbstractInterproceduralAnalysis previous) {
+
+        if (!(this.analysisType instanceof CallStringAnalysis)) {
+            throw new RuntimeException("SNH");
+        }
+        ConnectorComputation connectorComp = ((CallStringAnalysis) this.analysisType).getConnectorComputation();
+
+        Map<AbstractCfgNode, AbstractAnalysisNode> analysisNodes = this.interproceduralAnalysisInformation.getMap();
+        Map<AbstractCfgNode, AbstractAnalysisNode> previousAnalysisNodes = previous.interproceduralAnalysisInformation.getMap();
+
+        // nodes whose incoming value or transfer function might have changed
+        Set<AbstractCfgNode> changed = new HashSet<>();
+        for (AbstractCfgNode cfgNode : analysisNodes.keySet()) {
+            if (!previousAnalysisNodes.containsKey(cfgNode)) {
+                changed.add(cfgNode);
+            } else if (cfgNode instanceof Call && this.callees.get(cfgNode) != previous.callees.get(cfgNode)) {
+                // resolved call: the transfer functions of the surrounding
+                // call preparation and call return nodes have changed as well
+                CallReturn callRet = (CallReturn) cfgNode.getSuccessor(0);
+                changed.add(callRet.getCallPrepNode());
+            }
+        }
+
+        // the successors of removed nodes might have lost a predecessor; the out-edges
+        // of a removed node are left untouched, so they can still be followed
+        Set<AbstractCfgNode> visited = new HashSet<>();
+        Deque<AbstractCfgNode> removed = new ArrayDeque<>();
+        for (AbstractCfgNode cfgNode : previousAnalysisNodes.keySet()) {
+            if (!analysisNodes.containsKey(cfgNode)) {
+                removed.push(cfgNode);
+            }
+        }
+        while (!removed.isEmpty()) {
+            AbstractCfgNode cfgNode = removed.pop();
+            if (!visited.add(cfgNode)) {
+                continue;
+            }
+            for (AbstractCfgNode succ : cfgNode.getSuccessors()) {
+                if (analysisNodes.containsKey(succ)) {
+                    changed.add(succ);
+                } else if (previousAnalysisNodes.containsKey(succ)) {
+                    removed.push(succ);
+                }
+            }
+        }
+
+        // analysis-specific changes
+        this.addChangedNodes(previous, changed);
+
+        // affected pairs: all pairs that can be reached from a changed node
+        // under one of the contexts of its function
+        Set<InterproceduralWorklistElement> affected = new HashSet<>();
+        Deque<InterproceduralWorklistElement> stack = new ArrayDeque<>();
+        for (AbstractCfgNode cfgNode : changed) {
+            TacFunction function = cfgNode.getEnclosingFunction();
+            if (function == null || !connectorComp.getFunction2ECS().containsKey(function)) {
+                // not reachable
+                continue;
+            }
+            for (int i = 0; i < connectorComp.getNumContexts(function); i++) {
+                stack.push(new InterproceduralWorklistElement(cfgNode, new CallStringContext(i)));
+            }
+        }
+        while (!stack.isEmpty()) {
+            InterproceduralWorklistElement element = stack.pop();
+            if (!affected.add(element)) {
+                continue;
+            }
+            for (InterproceduralWorklistElement succ : this.getSuccessors(element)) {
+                if (!affected.contains(succ)) {
+                    stack.push(succ);
+                }
+            }
+        }
+
+        // copy the results for the unaffected pairs; an unaffected pair that leads
+        // to an affected one has to propagate its value again
+        for (Map.Entry<AbstractCfgNode, AbstractAnalysisNode> entry : analysisNodes.entrySet()) {
+            AbstractCfgNode cfgNode = entry.getKey();
+            AbstractInterproceduralAnalysisNode previousAnalysisNode = previous.getAnalysisNode(cfgNode);
+            if (previousAnalysisNode == null) {
+                continue;
+            }
+            if (previousAnalysisNode.phi == null) {
+                // the previous analysis has already been cleaned
+                throw new RuntimeException("SNH");
+            }
+            AbstractInterproceduralAnalysisNode analysisNode = (AbstractInterproceduralAnalysisNode) entry.getValue();
+            for (Map.Entry<AbstractContext, AbstractLatticeElement> phiEntry : previousAnalysisNode.phi.entrySet()) {
+                InterproceduralWorklistElement element = new InterproceduralWorklistElement(cfgNode, phiEntry.getKey());
+                if (affected.contains(element)) {
+                    continue;
+                }
+                analysisNode.setPhiValue(phiEntry.getKey(), phiEntry.getValue());
+                for (InterproceduralWorklistElement succ : this.getSuccessors(element)) {
+                    if (affected.contains(succ)) {
+                        this.workList.add(cfgNode, phiEntry.getKey());
+                        break;
+                    }
+                }
+            }
+            if (!analysisNode.getPhi().isEmpty()) {
+                this.numberOfReusedNodes++;
+            }
+        }
+
+        AbstractCfgNode mainHead = this.mainFunction.getControlFlowGraph().getHead();
+        if (affected.contains(new InterproceduralWorklistElement(mainHead, this.mainContext))) {
+            this.workList.add(mainHead, this.mainContext);
+            this.interproceduralAnalysisInformation.getAnalysisNode(mainHead).setPhiValue(this.mainContext, this.startValue);
+        }
+    }
+
+//  getSuccessors ******************************************************************
+
+    // returns the pairs to which analyze() can propagate values from the given pair
+    // (a superset, since calls are also connected to their call return nodes directly)
+    private List<InterproceduralWorklistElement> getSuccessors(InterproceduralWorklistElement element) {
+        AbstractCfgNode cfgNode = element.getCfgNode();
+        AbstractContext context = element.getContext();
+
+        List<InterproceduralWorklistElement> successors = new LinkedList<>();
+        for (AbstractCfgNode succ : cfgNode.getSuccessors()) {
+            successors.add(new InterproceduralWorklistElement(succ, context));
+        }
+        if (cfgNode instanceof Call) {
+            TacFunction callee = ((Call) cfgNode).getCallee();
+            if (callee != null) {
+                AbstractContext propagationContext = this.getPropagationContext((Call) cfgNode, context);
+                if (propagationContext != null) {
+                    successors.add(new InterproceduralWorklistElement(
+                        callee.getControlFlowGraph().getHead(), propagationContext));
+                }
+            }
+        } else if (cfgNode instanceof CfgExit && cfgNode.getEnclosingFunction() != this.mainFunction) {
+            for (ReverseTarget reverseTarget : this.getReverseTargets(cfgNode.getEnclosingFunction(), context)) {
+                if (reverseTarget.getContexts() == null) {
+                    continue;
+                }
+                AbstractCfgNode callRet = reverseTarget.getCallNode().getSuccessor(0);
+                for (AbstractContext targetContext : reverseTarget.getContexts()) {
+                    successors.add(new InterproceduralWorklistElement(callRet, targetContext));
+                }
+            }
+        }
+        return successors;
+    }
+
 // *********************************************************************************
 // GET *****************************************************************************
 // *********************************************************************************
@@ -163,6 +362,25 @@ public abstract class AbstractInterproceduralAnalysis extends AbstractAnalysis {
         return this.interproceduralAnalysisInformation.getAnalysisNode(cfgNode);
     }
 
+//  getNumberOfReusedNodes *********************************************************
+
+    // the number of analysis nodes whose results were taken over from a previous analysis
+    public int getNumberOfReusedNodes() {
+        return this.numberOfReusedNodes;
+    }
+
+// *********************************************************************************
+// SET *****************************************************************************
+// *********************************************************************************
+
+//  setBudget **********************************************************************
+
+    // if a budget is set, analyze() throws an AnalysisBudgetExhaustedException
+    // as soon as one of its limits is exceeded
+    public void setBudget(AnalysisBudget budget) {
+        this.budget = budget;
+    }
+
 // *********************************************************************************
 // OTHER ***************************************************************************
 // *********************************************************************************
@@ -180,6 +398,13 @@ public abstract class AbstractInterproceduralAnalysis extends AbstractAnalysis {
     // returns Boolean.TRUE, Boolean.FALSE, or null if it can't be evaluated
     protected abstract Boolean evalIf(If ifNode, AbstractLatticeElement inValue);
 
+//  addChangedNodes ****************************************************************
+
+    // adds the nodes whose transfer functions differ from those of the given previous analysis
+    // for reasons that only the concrete analysis knows about (see reuseResults)
+    protected void addChangedNodes(AbstractInterproceduralAnalysis previous, Set<AbstractCfgNode> changed) {
+    }
+
 //  useSummaries *******************************************************************
 
     // indicates whether to use function summaries during the analysis or not
@@ -192,10 +417,13 @@ public abstract class AbstractInterproceduralAnalysis extends AbstractAnalysis {
 
 //  analyze ************************************************************************
 
-    // this method applies the worklist algorithm
+    // this method applies the worklist algorithm;
+    // the cfgs are traversed with the help of the frozen program
     public void analyze() {
 
+        FrozenProgram frozen = this.frozenProgram;
         int steps = 0;
+        long startTime = System.currentTimeMillis();
 
         // for each element in the worklist...
         // (each worklist element is a pair of CFG node & context lattice element)
@@ -203,6 +431,9 @@ public abstract class AbstractInterproceduralAnalysis extends AbstractAnalysis {
 
             steps++;
             if (steps % 10000 == 0) System.out.println("Steps so far: " + steps);
+            if (this.budget != null) {
+                this.budget.checkStep(steps, startTime);
+            }
 
             // remove the element from the worklist
             InterproceduralWorklistElement element = this.workList.removeNext();
@@ -210,9 +441,14 @@ public abstract class AbstractInterproceduralAnalysis extends AbstractAnalysis {
             // extract information from the element
             AbstractCfgNode node = element.getCfgNode();
             AbstractContext context = element.getContext();
+            int id = frozen.getId(node);
+            if (id < 0) {
+                // the cfgs have been modified after the initialization of this analysis
+                throw new RuntimeException("SNH");
+            }
 
             // get incoming value at node n (you need to understand the PHI table :)
-            AbstractInterproceduralAnalysisNode analysisNode = this.interproceduralAnalysisInformation.getAnalysisNode(node);
+            AbstractInterproceduralAnalysisNode analysisNode = this.interproceduralAnalysisInformation.getAnalysisNode(id);
             AbstractLatticeElement inValue = analysisNode.getPhiValue(context);
             if (inValue == null) {
                 throw new RuntimeException("SNH");
@@ -227,7 +463,7 @@ public abstract class AbstractInterproceduralAnalysis extends AbstractAnalysis {
 
                     // get necessary function information (= called function)
                     TacFunction function = callNode.getCallee();
-                    CallReturn callRet = (CallReturn) node.getOutEdge(0).getDestination();
+                    int callRet = frozen.getSuccessor(id, 0);
 
                     if (function == null) {
                         // callee could not be determined yet;
@@ -266,8 +502,7 @@ public abstract class AbstractInterproceduralAnalysis extends AbstractAnalysis {
                         // case, we simply enter the function; this can lead to
                         // redundant computations, but it is simpler than a
                         // special, more efficient treatment of this rare case
-                        AbstractCfgNode entryNode = functionControlFlowGraph.getHead();
-                        propagate(propagationContext, inValue, entryNode);
+                        enter(function, propagationContext, inValue);
                         continue;
                     }
 
@@ -276,10 +511,8 @@ public abstract class AbstractInterproceduralAnalysis extends AbstractAnalysis {
                     if (this.useSummaries() && exitInValue != null) {
 
                         // previously computed function summary can be used;
-                        // determine successor node (unique) of this call node
-                        CfgEdge[] outEdges = callNode.getOutEdges();
-                        AbstractCfgNode succ = outEdges[0].getDestination();
-                        propagate(context, exitInValue, succ);
+                        // propagate to the successor node (unique) of this call node
+                        propagate(context, exitInValue, callRet);
                     } else {
 
                         // there is no function summary yet (or we don't want to
@@ -293,8 +526,7 @@ public abstract class AbstractInterproceduralAnalysis extends AbstractAnalysis {
 
                         // there is no function summary yet (or we don't want to
                         // use summaries), so compute it now by entering the function
-                        AbstractCfgNode entryNode = functionControlFlowGraph.getHead();
-                        propagate(propagationContext, inValue, entryNode);
+                        enter(function, propagationContext, inValue);
                     }
 
                     // calls to a builtin function are simply treated by invoking
@@ -350,8 +582,7 @@ public abstract class AbstractInterproceduralAnalysis extends AbstractAnalysis {
 
                     If ifNode = (If) node;
 
-                    AbstractLatticeElement outValue = this.interproceduralAnalysisInformation.getAnalysisNode(node).transfer(inValue);
-                    CfgEdge[] outEdges = node.getOutEdges();
+                    AbstractLatticeElement outValue = analysisNode.transfer(inValue);
 
                     // try to evaluate the "if" condition
                     Boolean eval = this.evalIf(ifNode, inValue);
@@ -360,14 +591,14 @@ public abstract class AbstractInterproceduralAnalysis extends AbstractAnalysis {
                         // static evaluation of if condition failed, continue
                         // analysis along both outgoing edges
 
-                        propagate(context, outValue, outEdges[0].getDestination());
-                        propagate(context, outValue, outEdges[1].getDestination());
+                        propagate(context, outValue, frozen.getSuccessor(id, 0));
+                        propagate(context, outValue, frozen.getSuccessor(id, 1));
                     } else if (eval == Boolean.TRUE) {
                         // continue analysis along true edge
-                        propagate(context, outValue, outEdges[1].getDestination());
+                        propagate(context, outValue, frozen.getSuccessor(id, 1));
                     } else {
                         // continue analysis along false edge
-                        propagate(context, outValue, outEdges[0].getDestination());
+                        propagate(context, outValue, frozen.getSuccessor(id, 0));
                     }
                 } else if (node instanceof CallReturn) {
 
@@ -376,42 +607,26 @@ public abstract class AbstractInterproceduralAnalysis extends AbstractAnalysis {
                     // current context
 
                     // apply transfer function to incoming value
-                    AbstractInterproceduralAnalysisNode aNode = this.interproceduralAnalysisInformation.getAnalysisNode(node);
-                    AbstractLatticeElement outValue = aNode.transfer(inValue, context);
-
-                    // for each outgoing edge...
-                    CfgEdge[] outEdges = node.getOutEdges();
-                    for (CfgEdge outEdge : outEdges) {
-                        if (outEdge != null) {
-
-                            // determine the successor
-                            AbstractCfgNode succ = outEdge.getDestination();
+                    AbstractLatticeElement outValue = analysisNode.transfer(inValue, context);
 
-                            // propagate the result of applying the transfer function
-                            // to the successor (under the current context)
-                            propagate(context, outValue, succ);
-                        }
+                    // propagate the result of applying the transfer function
+                    // to the successors (under the current context)
+                    for (int i = 0; i < frozen.getNumberOfSuccessors(id); i++) {
+                        propagate(context, outValue, frozen.getSuccessor(id, i));
                     }
                 } else {
 
                     // apply transfer function to incoming value
-                    AbstractLatticeElement outValue;
-                    outValue = this.interproceduralAnalysisInformation.getAnalysisNode(node).transfer(inValue);
-
-                    // for each outgoing edge...
-                    CfgEdge[] outEdges = node.getOutEdges();
-                    for (CfgEdge outEdge : outEdges) {
-                        if (outEdge != null) {
-
-                            // determine the successor
-                            AbstractCfgNode succ = outEdge.getDestination();
+                    AbstractLatticeElement outValue = analysisNode.transfer(inValue);
 
-                            // propagate the result of applying the transfer function
-                            // to the successor (under the current context)
-                            propagate(context, outValue, succ);
-                        }
+                    // propagate the result of applying the transfer function
+                    // to the successors (under the current context)
+                    for (int i = 0; i < frozen.getNumberOfSuccessors(id); i++) {
+                        propagate(context, outValue, frozen.getSuccessor(id, i));
                     }
                 }
+            } catch (AnalysisBudgetExhaustedException ex) {
+                throw ex;
             } catch (RuntimeException ex) {
                 System.out.println("File:" + node.getFileName() + ", Line: " + node.getOriginalLineNumber());
                 throw ex;
@@ -424,13 +639,42 @@ public abstract class AbstractInterproceduralAnalysis extends AbstractAnalysis {
         // worklist algorithm finished!
     }
 
+// enter ***************************************************************************
+
+    // helper method for analyze();
+    // propagates a value under the given context to the entry node of the given function
+    private void enter(TacFunction function, AbstractContext context, AbstractLatticeElement value) {
+        AbstractCfgNode entryNode = function.getControlFlowGraph().getHead();
+
+        // count the contexts of the function
+        if (this.budget != null && this.interproceduralAnalysisInformation.getAnalysisNode(entryNode).getPhiValue(context) == null) {
+            Integer count = this.numberOfContexts.get(function);
+            count = (count == null) ? 1 : count + 1;
+            this.numberOfContexts.put(function, count);
+            this.budget.checkContexts(function, count);
+        }
+
+        propagate(context, value, entryNode);
+    }
+
 // propagate ***********************************************************************
 
     // helper method for analyze();
     // propagates a value under the given context to the target node
     void propagate(AbstractContext context, AbstractLatticeElement value, AbstractCfgNode target) {
+        int targetId = this.frozenProgram.getId(target);
+        if (targetId < 0) {
+            System.out.println(Dumper.makeCfgNodeName(target));
+            throw new RuntimeException("SNH: " + target.getClass());
+        }
+        this.propagate(context, value, targetId);
+    }
+
+    // like above, for the cfg node with the given id
+    private void propagate(AbstractContext context, AbstractLatticeElement value, int targetId) {
         // analysis information for the target node
-        AbstractInterproceduralAnalysisNode analysisNode = this.interproceduralAnalysisInformation.getAnalysisNode(target);
+        AbstractInterproceduralAnalysisNode analysisNode = this.interproceduralAnalysisInformation.getAnalysisNode(targetId);
+        AbstractCfgNode target = this.frozenProgram.getNode(targetId);
 
         if (analysisNode == null) {
             System.out.println(Dumper.makeCfgNodeName(target));
@@ -0,0 +1,95 @@
+package at.ac.tuwien.infosys.www.pixy.analysis.interprocedural;
+
+import at.ac.tuwien.infosys.www.pixy.conversion.TacFunction;
+
+/**
+ * Limits for a single run of an interprocedural analysis (see AbstractInterproceduralAnalysis.analyze()): the wall
+ * time, the number of worklist steps, and the number of contexts under which a single function is analyzed.
+ * A limit of 0 means "unlimited".
+ *
+ * If a limit is exceeded, the analysis is aborted with an AnalysisBudgetExhaustedException; it is up to the caller to
+ * continue with a cheaper analysis.
+ */
+public final class AnalysisBudget {
+    // the wall time is only checked every this many steps
+    private static final int TIME_CHECK_INTERVAL = 256;
+
+    private final long maxMillis;
+    private final int maxSteps;
+    private final int maxContextsPerFunction;
+
+//  ********************************************************************************
+//  CONSTRUCTOR ********************************************************************
+//  ********************************************************************************
+
+    public AnalysisBudget(long maxMillis, int maxSteps, int maxContextsPerFunction) {
+        this.maxMillis = maxMillis;
+        this.maxSteps = maxSteps;
+        this.maxContextsPerFunction = maxContextsPerFunction;
+    }
+
+    // parses a budget of the form "time=<seconds>,steps=<n>,contexts=<n>" (each part
+    // is optional); returns null if the given string is invalid
+    public static AnalysisBudget parse(String budgetString) {
+        long maxMillis = 0;
+        int maxSteps = 0;
+        int maxContextsPerFunction = 0;
+        for (String part : budgetString.split(",")) {
+            String[] keyValue = part.trim().split("=");
+            if (keyValue.length != 2) {
+                return null;
+            }
+            int value;
+            try {
+                value = Integer.parseInt(keyValue[1].trim());
+            } catch (NumberFormatException e) {
+                return null;
+            }
+            if (value < 0) {
+                return null;
+            }
+            switch (keyValue[0].trim()) {
+                case "time":
+                    maxMillis = value * 1000L;
+                    break;
+                case "steps":
+                    maxSteps = value;
+                    break;
+                case "contexts":
+                    maxContextsPerFunction = value;
+                    break;
+                default:
+                    return null;
+            }
+        }
+        return new AnalysisBudget(maxMillis, maxSteps, maxContextsPerFunction);
+    }
+
+//  ********************************************************************************
+//  OTHERS *************************************************************************
+//  ********************************************************************************
+
+    // called for each worklist step of an analysis that started at the given time
+    void checkStep(int steps, long startTime) {
+        if (this.maxSteps > 0 && steps > this.maxSteps) {
+            throw new AnalysisBudgetExhaustedException("more than " + this.maxSteps + " steps");
+        }
+        if (this.maxMillis > 0 && steps % TIME_CHECK_INTERVAL == 0
+            && System.currentTimeMillis() - startTime > this.maxMillis) {
+            throw new AnalysisBudgetExhaustedException("more than " + (this.maxMillis / 1000) + " seconds");
+        }
+    }
+
+    // called whenever the given function is entered under a new context
+    void checkContexts(TacFunction function, int numberOfContexts) {
+        if (this.maxContextsPerFunction > 0 && numberOfContexts > this.maxContextsPerFunction) {
+            throw new AnalysisBudgetExhaustedException("more than " + this.maxContextsPerFunction
+                + " contexts for function " + function.getName());
+        }
+    }
+
+    public String toString() {
+        return "time=" + (this.maxMillis / 1000) + ",steps=" + this.maxSteps
+            + ",contexts=" + this.maxContextsPerFunction;
+    }
+}
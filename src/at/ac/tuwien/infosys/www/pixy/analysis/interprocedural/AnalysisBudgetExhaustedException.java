@@ -0,0 +1,12 @@
+package at.ac.tuwien.infosys.www.pixy.analysis.interprocedural;
+
+/**
+ * Thrown by an interprocedural analysis that exceeded its AnalysisBudget; the message tells which limit was exceeded.
+ */
+public class AnalysisBudgetExhaustedException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public AnalysisBudgetExhaustedException(String message) {
+        super(message);
+    }
+}
@@ -42,6 +42,10 @@ public class ConnectorComputation {
     // associates every function with a list of contained calls
     Map<TacFunction, List<Call>> containedCalls;
 
+    // call node -> callee for which its connector function was computed
+    // (null if the callee was still unknown)
+    private Map<Call, TacFunction> callees;
+
     private CallGraph callGraph;
 
     private TacFunction mainFunction;
@@ -80,8 +84,10 @@ public class ConnectorComputation {
 
         // initialize connector functions
         this.call2ConnectorFunction = new HashMap<>();
+        this.callees = new HashMap<>();
         for (Call callNode : callNodes) {
             this.call2ConnectorFunction.put(callNode, new ConnectorFunction());
+            this.callees.put(callNode, callNode.getCallee());
         }
     }
 
@@ -167,6 +173,64 @@ public class ConnectorComputation {
         this.makeCallGraph();
     }
 
+    // extends the result of compute() to the given functions, which have to include the
+    // previous ones (such as after the inclusion of files): only the new call nodes and those
+    // whose callee has been resolved in the meantime are processed, so that the existing
+    // positions in the EncodedCallStrings and connector functions remain valid;
+    // returns false (and changes nothing) if this is not possible because the callee of a
+    // call node has been replaced by another one, in which case everything has to be
+    // computed again
+    public boolean update(List<TacFunction> functions) {
+
+        // the new contained calls, and the functions in which something changed
+        Map<TacFunction, List<Call>> newContainedCalls = new HashMap<>();
+        Set<TacFunction> changedFunctions = new HashSet<>();
+        for (TacFunction function : functions) {
+            List<Call> calls = function.getContainedCalls();
+            newContainedCalls.put(function, calls);
+            for (Call callNode : calls) {
+                if (!this.callees.containsKey(callNode)) {
+                    changedFunctions.add(function);
+                } else {
+                    TacFunction callee = this.callees.get(callNode);
+                    if (callee == null) {
+                        if (callNode.getCallee() != null) {
+                            changedFunctions.add(function);
+                        }
+                    } else if (callee != callNode.getCallee()) {
+                        return false;
+                    }
+                }
+            }
+        }
+
+        for (Map.Entry<TacFunction, List<Call>> entry : newContainedCalls.entrySet()) {
+            TacFunction function = entry.getKey();
+            if (!this.function2ECS.containsKey(function)) {
+                this.function2ECS.put(function, new EncodedCallStrings());
+            }
+            for (Call callNode : entry.getValue()) {
+                if (!this.call2ConnectorFunction.containsKey(callNode)) {
+                    this.call2ConnectorFunction.put(callNode, new ConnectorFunction());
+                }
+                this.callees.put(callNode, callNode.getCallee());
+            }
+        }
+        this.containedCalls = newContainedCalls;
+
+        // process the calls of the changed functions again under all contexts
+        // (this doesn't change anything for the old calls)
+        for (TacFunction function : changedFunctions) {
+            EncodedCallStrings encodedCallStrings = this.function2ECS.get(function);
+            for (int i = 0; i < encodedCallStrings.size(); i++) {
+                this.workList.add(new ConnectorWorkListElement(function, encodedCallStrings.getCallString(i)));
+            }
+        }
+        this.compute();
+
+        return true;
+    }
+
     public CallStringContext getTargetContext(Call callNode, int sourcePosition) {
 
         // retrieve connector function for the given call node
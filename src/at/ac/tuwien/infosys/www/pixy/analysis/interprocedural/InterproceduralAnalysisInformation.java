@@ -4,16 +4,34 @@ import at.ac.tuwien.infosys.www.pixy.analysis.AbstractAnalysisInformation;
 import at.ac.tuwien.infosys.www.pixy.analysis.AbstractAnalysisNode;
 import at.ac.tuwien.infosys.www.pixy.analysis.AbstractLatticeElement;
 import at.ac.tuwien.infosys.www.pixy.analysis.AbstractTransferFunction;
+import at.ac.tuwien.infosys.www.pixy.conversion.FrozenProgram;
 import at.ac.tuwien.infosys.www.pixy.conversion.cfgnodes.AbstractCfgNode;
 
 /**
  * @author Nenad Jovanovic <enji@seclab.tuwien.ac.at>
  */
 public class InterproceduralAnalysisInformation extends AbstractAnalysisInformation {
+    // the analyzed program, and its analysis nodes indexed by node id
+    // (null before freeze() has been called)
+    private FrozenProgram frozenProgram;
+    private AbstractInterproceduralAnalysisNode[] analysisNodes;
+
     public InterproceduralAnalysisInformation() {
         super();
     }
 
+    // creates the array view of the analysis nodes that have been added so far
+    void freeze(FrozenProgram frozenProgram) {
+        this.frozenProgram = frozenProgram;
+        this.analysisNodes = new AbstractInterproceduralAnalysisNode[frozenProgram.size()];
+        for (int id = 0; id < frozenProgram.size(); id++) {
+            AbstractCfgNode cfgNode = frozenProgram.getNode(id);
+            if (cfgNode != null) {
+                this.analysisNodes[id] = (AbstractInterproceduralAnalysisNode) this.map.get(cfgNode);
+            }
+        }
+    }
+
     // folds all analysis nodes (using recycling) and clears the phi maps
     // (=> saves memory)
     public void foldRecycledAndClean(AbstractInterproceduralAnalysis analysis) {
@@ -33,9 +51,20 @@ public class InterproceduralAnalysisInformation extends AbstractAnalysisInformat
     // entry node of the function default cfg; use the appropriate "get"
     // method of CfgNode to retrieve these nodes
     public AbstractInterproceduralAnalysisNode getAnalysisNode(AbstractCfgNode cfgNode) {
+        if (this.frozenProgram != null) {
+            int id = this.frozenProgram.getId(cfgNode);
+            if (id >= 0) {
+                return this.analysisNodes[id];
+            }
+        }
         return (AbstractInterproceduralAnalysisNode) this.map.get(cfgNode);
     }
 
+    // the analysis node of the cfg node with the given id (see FrozenProgram)
+    public AbstractInterproceduralAnalysisNode getAnalysisNode(int id) {
+        return this.analysisNodes[id];
+    }
+
     public AbstractTransferFunction getTransferFunction(AbstractCfgNode cfgNode) {
         AbstractAnalysisNode analysisNode = this.getAnalysisNode(cfgNode);
         return analysisNode.getTransferFunction();
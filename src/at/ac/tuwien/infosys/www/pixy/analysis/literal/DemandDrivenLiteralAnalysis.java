@@ -0,0 +1,817 @@
+package at.ac.tuwien.infosys.www.pixy.analysis.literal;
+
+import at.ac.tuwien.infosys.www.pixy.MyOptions;
+import at.ac.tuwien.infosys.www.pixy.analysis.alias.AliasAnalysis;
+import at.ac.tuwien.infosys.www.pixy.conversion.*;
+import at.ac.tuwien.infosys.www.pixy.conversion.cfgnodes.*;
+
+import java.util.*;
+
+/**
+ * Literal analysis that computes the literals of single places at single nodes on demand (such as the literal of an
+ * include expression), instead of analyzing the whole program.
+ *
+ * A query explores the program backwards from the given node, and only along the definitions and call paths that
+ * the literal can depend on; it yields the same result as the LiteralAnalysis with call strings of length 1 and a
+ * DummyAliasAnalysis, as used by ProgramConverter. Every value is a (place, node, context) triple; its context is the
+ * call node through which the enclosing function was entered, or null for all of them (the folded value). The
+ * discovered triples form a system of equations that is solved by fixpoint iteration, and that is shared by the
+ * queries of one instance (which must therefore not outlive changes to the program).
+ *
+ * If a query exceeds the budget (the number of new triples) or meets a construct that is not modeled here (arrays,
+ * references to them, direct recursion, etc.), the whole program is analyzed by the LiteralAnalysis returned by
+ * analyzeCompletely(), which then answers all remaining queries.
+ */
+public abstract class DemandDrivenLiteralAnalysis extends LiteralAnalysis {
+    private TacConverter tac;
+
+    // maximum number of new triples per query
+    private int budget;
+
+    // all include nodes of the program, in the order of LiteralAnalysis.getIncludeNodes()
+    private List<Include> includeNodes;
+
+    // the equations of all triples of finished queries
+    private Map<Key, Equation> equations;
+
+    // the values of all triples of finished queries (no entry: unreachable)
+    private Map<Key, Literal> values;
+
+    // analysis of the whole program; null as long as it is not needed
+    private LiteralAnalysis completeAnalysis;
+
+    // number of queries that were answered on demand, and by the complete analysis
+    private int numberOfAnsweredQueries = 0;
+    private int numberOfFallbacks = 0;
+
+//  ********************************************************************************
+//  CONSTRUCTORS *******************************************************************
+//  ********************************************************************************
+
+    public DemandDrivenLiteralAnalysis(TacConverter tac, int budget) {
+        super();
+        this.tac = tac;
+        this.budget = budget;
+        this.equations = new HashMap<>();
+        this.values = new HashMap<>();
+
+        // the default literals of the places
+        new LiteralLattice(
+            tac.getPlacesList(), tac.getConstantsTable(), tac.getAllFunctions(), tac.getSuperglobalsSymbolTable());
+
+        // traversal order of the LiteralAnalysis (default CFGs first)
+        this.includeNodes = new LinkedList<>();
+        List<TacFunction> functions = tac.getAllFunctions();
+        for (TacFunction function : functions) {
+            for (TacFormalParameter param : function.getParams()) {
+                if (param.hasDefault()) {
+                    this.collectIncludeNodes(param.getDefaultControlFlowGraph());
+                }
+            }
+        }
+        for (TacFunction function : functions) {
+            this.collectIncludeNodes(function.getControlFlowGraph());
+        }
+    }
+
+    private void collectIncludeNodes(ControlFlowGraph controlFlowGraph) {
+        for (AbstractCfgNode cfgNode : controlFlowGraph.dfPreOrder()) {
+            if (cfgNode instanceof Include) {
+                this.includeNodes.add((Include) cfgNode);
+            }
+        }
+    }
+
+    // analyzes the whole program; called at most once, as soon as a query
+    // can't be answered on demand
+    protected abstract LiteralAnalysis analyzeCompletely();
+
+//  ********************************************************************************
+//  GET ****************************************************************************
+//  ********************************************************************************
+
+    // returns the (folded) literal of the given place coming in to the given node;
+    // TOP if the cfgNode is unreachable
+    public Literal getLiteral(AbstractTacPlace place, AbstractCfgNode cfgNode) {
+        if (place instanceof Literal) {
+            return (Literal) place;
+        }
+        if (this.completeAnalysis == null && this.solve(new Key(place, cfgNode, null, false))) {
+            this.numberOfAnsweredQueries++;
+            Literal lit = this.values.get(new Key(place, cfgNode, null, false));
+            return (lit == null) ? Literal.TOP : lit;
+        }
+        this.numberOfFallbacks++;
+        return this.getCompleteAnalysis().getLiteral(place, cfgNode);
+    }
+
+    public Literal getLiteral(String varName, AbstractCfgNode cfgNode) {
+        Variable var = this.tac.getVariable(cfgNode.getEnclosingFunction(), varName);
+        if (var == null) {
+            // you gave me the name of a variable that does not exist
+            return Literal.TOP;
+        }
+        return this.getLiteral(var, cfgNode);
+    }
+
+    public boolean isReachable(AbstractCfgNode cfgNode) {
+        Key key = new Key(null, cfgNode, null, false);
+        if (this.completeAnalysis == null && this.solve(key)) {
+            return this.values.get(key) != null;
+        }
+        return this.getCompleteAnalysis().isReachable(cfgNode);
+    }
+
+    public List<Include> getIncludeNodes() {
+        return this.includeNodes;
+    }
+
+    public Boolean evalIf(If ifNode) {
+        return null;
+    }
+
+    public int getNumberOfAnsweredQueries() {
+        return this.numberOfAnsweredQueries;
+    }
+
+    public int getNumberOfFallbacks() {
+        return this.numberOfFallbacks;
+    }
+
+    private LiteralAnalysis getCompleteAnalysis() {
+        if (this.completeAnalysis == null) {
+            this.completeAnalysis = this.analyzeCompletely();
+            // not needed any more
+            this.equations = null;
+            this.values = null;
+        }
+        return this.completeAnalysis;
+    }
+
+//  ********************************************************************************
+//  SOLVING ************************************************************************
+//  ********************************************************************************
+
+    // computes the value of the given triple along with all triples that it depends on;
+    // returns false if this exceeds the budget or requires an unsupported construct
+    private boolean solve(Key root) {
+        if (this.equations.containsKey(root)) {
+            return true;
+        }
+
+        // collect the equations of the new triples
+        List<Key> newKeys = new ArrayList<>();
+        Map<Key, Equation> newEquations = new HashMap<>();
+        Deque<Key> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            Key key = stack.pop();
+            if (this.equations.containsKey(key) || newEquations.containsKey(key)) {
+                continue;
+            }
+            if (newKeys.size() >= this.budget) {
+                return false;
+            }
+            Equation equation = this.makeEquation(key);
+            if (equation == null) {
+                return false;
+            }
+            newKeys.add(key);
+            newEquations.put(key, equation);
+            for (Key operand : equation.operands) {
+                stack.push(operand);
+            }
+        }
+
+        // the new triples that depend on each new triple
+        Map<Key, List<Key>> dependents = new HashMap<>();
+        for (Key key : newKeys) {
+            for (Key operand : newEquations.get(key).operands) {
+                if (!newEquations.containsKey(operand)) {
+                    // already solved
+                    continue;
+                }
+                List<Key> operandDependents = dependents.get(operand);
+                if (operandDependents == null) {
+                    operandDependents = new LinkedList<>();
+                    dependents.put(operand, operandDependents);
+                }
+                operandDependents.add(key);
+            }
+        }
+
+        // fixpoint iteration, starting with the last discovered triples; values
+        // only grow (by lub), just as the PHI values of the LiteralAnalysis
+        this.equations.putAll(newEquations);
+        Deque<Key> workList = new ArrayDeque<>();
+        Set<Key> inWorkList = new HashSet<>();
+        for (Key key : newKeys) {
+            workList.push(key);
+            inWorkList.add(key);
+        }
+        List<Literal> operandValues = new ArrayList<>();
+        while (!workList.isEmpty()) {
+            Key key = workList.pop();
+            inWorkList.remove(key);
+            Equation equation = newEquations.get(key);
+
+            operandValues.clear();
+            for (Key operand : equation.operands) {
+                operandValues.add(this.values.get(operand));
+            }
+            Literal oldValue = this.values.get(key);
+            Literal newValue = lub(oldValue, equation.evaluate(operandValues));
+            if (newValue == null || newValue.equals(oldValue)) {
+                continue;
+            }
+            this.values.put(key, newValue);
+
+            List<Key> keyDependents = dependents.get(key);
+            if (keyDependents == null) {
+                continue;
+            }
+            for (Key dependent : keyDependents) {
+                if (inWorkList.add(dependent)) {
+                    workList.push(dependent);
+                }
+            }
+        }
+        return true;
+    }
+
+//  ********************************************************************************
+//  EQUATIONS **********************************************************************
+//  ********************************************************************************
+
+    // returns the equation for the given triple; null if it is not supported
+    private Equation makeEquation(Key key) {
+        AbstractTacPlace place = key.place;
+        AbstractCfgNode cfgNode = key.cfgNode;
+        Call context = key.context;
+
+        if (!isSupported(place)) {
+            return null;
+        }
+        if (!cfgNode.hasEnclosingFunction()) {
+            // unreachable
+            return new LubEquation();
+        }
+        TacFunction function = cfgNode.getEnclosingFunction();
+        if (key.outgoing) {
+            return this.makeTransferEquation(key, function);
+        }
+
+        // incoming value at a function's entry: start value for main, otherwise
+        // the values passed by the callers
+        if (cfgNode == function.getControlFlowGraph().getHead()) {
+            if (function.isMain()) {
+                Literal lit = (place == null) ? Literal.TOP : getDefaultLiteral(place);
+                return (lit == null) ? null : new ConstantEquation(lit);
+            }
+            Equation equation = new LubEquation();
+            if (context != null) {
+                equation.operands.add(new Key(place, context, null, false));
+            } else {
+                for (Call callNode : new LinkedHashSet<>(function.getCalledFrom())) {
+                    if (callNode.getCallee() == function) {
+                        equation.operands.add(new Key(place, callNode, null, false));
+                    }
+                }
+            }
+            return equation;
+        }
+
+        // incoming value at other nodes: lub over the predecessors
+        Equation equation = new LubEquation();
+        for (AbstractCfgNode pred : cfgNode.getPredecessors()) {
+            if (pred instanceof Call) {
+                // only call return nodes follow call nodes; their incoming values
+                // are never needed
+                return null;
+            }
+            equation.operands.add(new Key(place, pred, context, !isTransparent(pred, place)));
+        }
+        return equation;
+    }
+
+    // returns the equation for the outgoing value of a node that might change the given place
+    private Equation makeTransferEquation(Key key, TacFunction function) {
+        AbstractTacPlace place = key.place;
+        AbstractCfgNode cfgNode = key.cfgNode;
+        Call context = key.context;
+
+        // incoming value of the place, and reachability of the node
+        Key incoming = new Key(place, cfgNode, context, false);
+        Key reached = new Key(null, cfgNode, context, false);
+
+        if (cfgNode instanceof CallPreparation) {
+            return this.makeCallPrepEquation((CallPreparation) cfgNode, function, place, incoming, reached);
+        } else if (cfgNode instanceof CallReturn) {
+            return this.makeCallRetEquation((CallReturn) cfgNode, function, place, context, reached);
+        } else if (cfgNode instanceof Define) {
+            Define defineNode = (Define) cfgNode;
+            Equation equation = new DefineEquation(defineNode, (Constant) place, this.tac.getConstantsTable());
+            equation.operands.add(incoming);
+            if (!this.addOperands(equation, cfgNode, context,
+                defineNode.getSetMe(), defineNode.getSetTo(), defineNode.getCaseInsensitive())) {
+                return null;
+            }
+            equation.operands.add(reached);
+            return equation;
+        }
+
+        // the node assigns to the (simple) variable "place"
+        Variable var = (Variable) place;
+        if (cfgNode instanceof AssignSimple) {
+            AssignSimple assignNode = (AssignSimple) cfgNode;
+            return this.makeAssignEquation(cfgNode, var, context, reached, assignNode.getRight());
+        } else if (cfgNode instanceof AssignUnary) {
+            AssignUnary assignNode = (AssignUnary) cfgNode;
+            return this.makeAssignEquation(cfgNode, var, context, reached, assignNode.getRight());
+        } else if (cfgNode instanceof AssignBinary) {
+            AssignBinary assignNode = (AssignBinary) cfgNode;
+            return this.makeAssignEquation(cfgNode, var, context, reached,
+                assignNode.getLeftOperand(), assignNode.getRightOperand());
+        } else if (cfgNode instanceof AssignReference) {
+            AbstractTacPlace right = ((AssignReference) cfgNode).getRight();
+            if (!(right instanceof Variable)) {
+                return null;
+            }
+            if (!AliasAnalysis.isSupported(var, (Variable) right, false, -1)) {
+                // ignored by the transfer function
+                return new CopyEquation(incoming);
+            }
+            return new CopyEquation(new Key(right, cfgNode, context, false));
+        } else if (cfgNode instanceof Unset || cfgNode instanceof AssignArray) {
+            return new ConstantEquation(Literal.NULL, reached);
+        } else if (cfgNode instanceof Isset || cfgNode instanceof CallUnknownFunction) {
+            return new ConstantEquation(Literal.TOP, reached);
+        } else if (cfgNode instanceof CallBuiltinFunction) {
+            String functionName = ((CallBuiltinFunction) cfgNode).getFunctionName();
+            if (MyOptions.phpBin != null && (functionName.equals("realpath") || functionName.equals("dirname"))) {
+                // simulated by the php binary
+                return null;
+            }
+            return new ConstantEquation(Literal.TOP, reached);
+        } else if (cfgNode instanceof Global) {
+            // equivalent to a reference to the main function's variable with the same name
+            Variable realGlobal = this.tac.getMainFunction().getSymbolTable().getVariable(var.getName());
+            if (realGlobal == null) {
+                return new ConstantEquation(Literal.TOP, reached);
+            }
+            if (!AliasAnalysis.isSupported(var, realGlobal, false, -1)) {
+                return new CopyEquation(incoming);
+            }
+            return new CopyEquation(new Key(realGlobal, cfgNode, context, false));
+        }
+
+        // tester nodes, basic blocks, shadows
+        return null;
+    }
+
+    // outgoing value of a call preparation node (i.e., the value passed to the callee)
+    private Equation makeCallPrepEquation(
+        CallPreparation prepNode, TacFunction caller, AbstractTacPlace place, Key incoming, Key reached) {
+
+        TacFunction callee = prepNode.getCallee();
+        if (callee == null || place == null) {
+            return new CopyEquation(incoming);
+        }
+        if (callee == caller) {
+            // the caller's reset would also affect the callee's formals
+            return null;
+        }
+
+        Literal defaultLit = getDefaultLiteral(place);
+        if (defaultLit == null) {
+            return null;
+        }
+
+        // formal parameters
+        List<TacActualParameter> actualParams = prepNode.getParamList();
+        List<TacFormalParameter> formalParams = callee.getParams();
+        if (actualParams.size() > formalParams.size()) {
+            return null;
+        }
+        for (int i = 0; i < formalParams.size(); i++) {
+            TacFormalParameter formalParam = formalParams.get(i);
+            if (!formalParam.getVariable().equals(place)) {
+                continue;
+            }
+            if (i < actualParams.size()) {
+                AbstractTacPlace actualPlace = actualParams.get(i).getPlace();
+                if (actualPlace instanceof Literal) {
+                    return new ConstantEquation((Literal) actualPlace, reached);
+                }
+                if (!isSupported(actualPlace)) {
+                    return null;
+                }
+                return new CopyEquation(new Key(actualPlace, prepNode, null, false));
+            }
+            if (formalParam.hasDefault()) {
+                Literal lit = this.evalDefault(formalParam);
+                return (lit == null) ? null : new ConstantEquation(lit, reached);
+            }
+            return new ConstantEquation(defaultLit, reached);
+        }
+
+        if (place instanceof Variable) {
+            Variable var = (Variable) place;
+            if (!caller.isMain() && var.belongsTo(caller.getSymbolTable())) {
+                // reset by the transfer function
+                return new ConstantEquation(defaultLit, reached);
+            }
+            if (var.isLocal() && var.belongsTo(callee.getSymbolTable())) {
+                // the callee's locals never leave the callee
+                return new ConstantEquation(defaultLit, reached);
+            }
+        }
+        return new CopyEquation(incoming);
+    }
+
+    // outgoing value of a call return node
+    private Equation makeCallRetEquation(
+        CallReturn retNode, TacFunction caller, AbstractTacPlace place, Call context, Key reached) {
+
+        CallPreparation prepNode = retNode.getCallPrepNode();
+        TacFunction callee = prepNode.getCallee();
+        if (callee == null) {
+            if (place != null && place.equals(retNode.getTempVar())) {
+                return new ConstantEquation(Literal.TOP, new Key(null, prepNode, context, false));
+            }
+            return new CopyEquation(new Key(place, prepNode, context, false));
+        }
+
+        // the value at the callee's exit (under the context of this call), and at
+        // the call preparation node (under the current context)
+        AbstractCfgNode exitNode = callee.getControlFlowGraph().getTail();
+        Call callNode = retNode.getCallNode();
+        Key exitReached = new Key(null, exitNode, callNode, false);
+        Key prepReached = new Key(null, prepNode, context, false);
+
+        if (place == null) {
+            return new CopyEquation(exitReached, prepReached);
+        }
+        if (place.equals(retNode.getTempVar())) {
+            return new CopyEquation(new Key(retNode.getRetVar(), exitNode, callNode, false), prepReached);
+        }
+        if (place instanceof Variable && !place.equals(retNode.getRetVar())) {
+            Variable var = (Variable) place;
+            if (!caller.isMain() && var.isLocal()) {
+                return new CopyEquation(new Key(var, prepNode, context, false), exitReached);
+            }
+            if (var.isGlobal() || var.isSuperGlobal()) {
+                return new CopyEquation(new Key(var, exitNode, callNode, false), prepReached);
+            }
+        } else if (place instanceof Constant) {
+            return new CopyEquation(new Key(place, exitNode, callNode, false), prepReached);
+        }
+
+        Literal defaultLit = getDefaultLiteral(place);
+        return (defaultLit == null) ? null : new ConstantEquation(defaultLit, exitReached, prepReached);
+    }
+
+    private Equation makeAssignEquation(
+        AbstractCfgNode cfgNode, Variable left, Call context, Key reached, AbstractTacPlace... operandPlaces) {
+
+        Equation equation = new AssignEquation(cfgNode, left);
+        if (!this.addOperands(equation, cfgNode, context, operandPlaces)) {
+            return null;
+        }
+        equation.operands.add(reached);
+        return equation;
+    }
+
+    // adds the values of the given places at the given node to the operands of the equation
+    // (except for literals); returns false if one of the places is not supported
+    private boolean addOperands(Equation equation, AbstractCfgNode cfgNode, Call context, AbstractTacPlace... places) {
+        for (AbstractTacPlace place : places) {
+            if (!isSupported(place)) {
+                return false;
+            }
+            equation.places.add(place);
+            if (!(place instanceof Literal)) {
+                equation.operands.add(new Key(place, cfgNode, context, false));
+            }
+        }
+        return true;
+    }
+
+    // evaluates the default CFG of the given formal parameter (like the transfer function for
+    // call preparation nodes); null if it depends on anything but literals
+    private Literal evalDefault(TacFormalParameter formalParam) {
+        LiteralLatticeElement element = new LiteralLatticeElement();
+        Set<Variable> assigned = new HashSet<>();
+        AbstractCfgNode defaultNode = formalParam.getDefaultControlFlowGraph().getHead();
+        while (defaultNode != null) {
+            Variable left;
+            List<AbstractTacPlace> operandPlaces;
+            if (defaultNode instanceof AssignSimple) {
+                left = ((AssignSimple) defaultNode).getLeft();
+                operandPlaces = Collections.singletonList(((AssignSimple) defaultNode).getRight());
+            } else if (defaultNode instanceof AssignUnary) {
+                left = ((AssignUnary) defaultNode).getLeft();
+                operandPlaces = Collections.singletonList(((AssignUnary) defaultNode).getRight());
+            } else if (defaultNode instanceof AssignBinary) {
+                AssignBinary assignNode = (AssignBinary) defaultNode;
+                left = assignNode.getLeft();
+                operandPlaces = Arrays.asList(assignNode.getLeftOperand(), assignNode.getRightOperand());
+            } else {
+                return null;
+            }
+            for (AbstractTacPlace operandPlace : operandPlaces) {
+                if (!(operandPlace instanceof Literal) && !assigned.contains(operandPlace)) {
+                    return null;
+                }
+            }
+            if (!AliasAnalysis.isSupported(left)) {
+                return null;
+            }
+            transfer(element, defaultNode, left);
+            assigned.add(left);
+            defaultNode = defaultNode.getSuccessor(0);
+        }
+        return element.getLiteral(formalParam.getVariable());
+    }
+
+//  ********************************************************************************
+//  OTHER **************************************************************************
+//  ********************************************************************************
+
+    // places whose literals can be queried: simple variables (no arrays etc.), constants
+    // and literals; null stands for the reachability of a node
+    private static boolean isSupported(AbstractTacPlace place) {
+        if (place instanceof Variable) {
+            return AliasAnalysis.isSupported((Variable) place);
+        }
+        return true;
+    }
+
+    // can the given node change the literal of the given place?
+    private static boolean isTransparent(AbstractCfgNode cfgNode, AbstractTacPlace place) {
+        if (cfgNode instanceof CallReturn) {
+            return false;
+        }
+        if (place == null) {
+            return true;
+        }
+        if (cfgNode instanceof CallPreparation || cfgNode instanceof Tester || cfgNode instanceof BasicBlock) {
+            return false;
+        }
+        if (cfgNode instanceof Define) {
+            return !(place instanceof Constant);
+        }
+        if (cfgNode instanceof CfgEntry) {
+            // shadows are initialized at function entries
+            SymbolTable symbolTable = cfgNode.getEnclosingFunction().getSymbolTable();
+            return !symbolTable.getGlobals2GShadows().containsValue(place)
+                && !symbolTable.getFormals2FShadows().containsValue(place);
+        }
+        Variable left = getAssignedVariable(cfgNode);
+        return left == null || !left.equals(place);
+    }
+
+    // the variable that is assigned by the given node (if it is a simple assignment-like node)
+    private static Variable getAssignedVariable(AbstractCfgNode cfgNode) {
+        if (cfgNode instanceof AssignSimple) {
+            return ((AssignSimple) cfgNode).getLeft();
+        } else if (cfgNode instanceof AssignUnary) {
+            return ((AssignUnary) cfgNode).getLeft();
+        } else if (cfgNode instanceof AssignBinary) {
+            return ((AssignBinary) cfgNode).getLeft();
+        } else if (cfgNode instanceof AssignReference) {
+            return ((AssignReference) cfgNode).getLeft();
+        } else if (cfgNode instanceof AssignArray) {
+            return ((AssignArray) cfgNode).getLeft();
+        } else if (cfgNode instanceof Unset) {
+            return ((Unset) cfgNode).getOperand();
+        } else if (cfgNode instanceof Isset) {
+            return (Variable) ((Isset) cfgNode).getLeft();
+        } else if (cfgNode instanceof Global) {
+            return ((Global) cfgNode).getOperand();
+        } else if (cfgNode instanceof CallBuiltinFunction) {
+            return ((CallBuiltinFunction) cfgNode).getTempVar();
+        } else if (cfgNode instanceof CallUnknownFunction) {
+            return ((CallUnknownFunction) cfgNode).getTempVar();
+        }
+        return null;
+    }
+
+    // applies the transfer function of the given assignment node to the given element
+    // (with the must-aliases and may-aliases of a DummyAliasAnalysis)
+    private static void transfer(LiteralLatticeElement element, AbstractCfgNode cfgNode, Variable left) {
+        Set<Variable> mustAliases = new HashSet<>();
+        mustAliases.add(left);
+        Set<Variable> mayAliases = Collections.emptySet();
+        if (cfgNode instanceof AssignSimple) {
+            element.assignSimple(left, ((AssignSimple) cfgNode).getRight(), mustAliases, mayAliases);
+        } else if (cfgNode instanceof AssignUnary) {
+            AssignUnary assignNode = (AssignUnary) cfgNode;
+            element.assignUnary(left, assignNode.getRight(), assignNode.getOperator(), mustAliases, mayAliases);
+        } else {
+            AssignBinary assignNode = (AssignBinary) cfgNode;
+            element.assignBinary(left, assignNode.getLeftOperand(), assignNode.getRightOperand(),
+                assignNode.getOperator(), mustAliases, mayAliases, cfgNode);
+        }
+    }
+
+    // null if there is no default literal for the given place
+    private static Literal getDefaultLiteral(AbstractTacPlace place) {
+        return LiteralLatticeElement.getDefault().getPlaceToLit().get(place);
+    }
+
+    // lub that treats null as bottom
+    private static Literal lub(Literal lit1, Literal lit2) {
+        if (lit1 == null) {
+            return lit2;
+        }
+        if (lit2 == null) {
+            return lit1;
+        }
+        return LiteralLatticeElement.lub(lit1, lit2);
+    }
+
+//  ********************************************************************************
+//  NESTED CLASSES *****************************************************************
+//  ********************************************************************************
+
+    // the literal of a place coming in to (or going out of) a node under a context
+    private static final class Key {
+        // null: the reachability of the node
+        private final AbstractTacPlace place;
+        private final AbstractCfgNode cfgNode;
+        // null: all contexts
+        private final Call context;
+        // outgoing value instead of incoming one
+        private final boolean outgoing;
+
+        Key(AbstractTacPlace place, AbstractCfgNode cfgNode, Call context, boolean outgoing) {
+            this.place = place;
+            this.cfgNode = cfgNode;
+            this.context = context;
+            this.outgoing = outgoing;
+        }
+
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key comp = (Key) obj;
+            return this.cfgNode == comp.cfgNode && this.context == comp.context && this.outgoing == comp.outgoing
+                && (this.place == null ? comp.place == null : this.place.equals(comp.place));
+        }
+
+        public int hashCode() {
+            int hashCode = System.identityHashCode(this.cfgNode);
+            hashCode = 31 * hashCode + (this.place == null ? 0 : this.place.hashCode());
+            hashCode = 31 * hashCode + System.identityHashCode(this.context);
+            return this.outgoing ? hashCode + 1 : hashCode;
+        }
+    }
+
+    // the value of a triple as a function of the values of other triples
+    // (null stands for "unreachable")
+    private abstract static class Equation {
+        final List<Key> operands = new ArrayList<>();
+
+        // for equations that evaluate places at a node: these places (including literals, which
+        // don't occur among the operands)
+        final List<AbstractTacPlace> places = new ArrayList<>();
+
+        abstract Literal evaluate(List<Literal> operandValues);
+
+        // the literals of the places (in the same order); null if one of them is unreachable
+        Map<AbstractTacPlace, Literal> getPlaceLiterals(List<Literal> operandValues) {
+            Map<AbstractTacPlace, Literal> placeLiterals = new HashMap<>();
+            Iterator<Literal> valueIter = operandValues.iterator();
+            for (AbstractTacPlace place : this.places) {
+                if (place instanceof Literal) {
+                    continue;
+                }
+                Literal lit = valueIter.next();
+                if (lit == null) {
+                    return null;
+                }
+                placeLiterals.put(place, lit);
+            }
+            return placeLiterals;
+        }
+    }
+
+    // lub of the operands
+    private static final class LubEquation extends Equation {
+        Literal evaluate(List<Literal> operandValues) {
+            Literal result = null;
+            for (Literal operandValue : operandValues) {
+                result = lub(result, operandValue);
+            }
+            return result;
+        }
+    }
+
+    // the first operand, if all other operands are reachable
+    private static final class CopyEquation extends Equation {
+        CopyEquation(Key copied, Key... conditions) {
+            this.operands.add(copied);
+            this.operands.addAll(Arrays.asList(conditions));
+        }
+
+        Literal evaluate(List<Literal> operandValues) {
+            return operandValues.contains(null) ? null : operandValues.get(0);
+        }
+    }
+
+    // a fixed literal, if all operands are reachable
+    private static final class ConstantEquation extends Equation {
+        private final Literal lit;
+
+        ConstantEquation(Literal lit, Key... conditions) {
+            this.lit = lit;
+            this.operands.addAll(Arrays.asList(conditions));
+        }
+
+        Literal evaluate(List<Literal> operandValues) {
+            return operandValues.contains(null) ? null : this.lit;
+        }
+    }
+
+    // the left variable after an AssignSimple, AssignUnary or AssignBinary node;
+    // the last operand is the reachability of the node
+    private static final class AssignEquation extends Equation {
+        private final AbstractCfgNode cfgNode;
+        private final Variable left;
+
+        AssignEquation(AbstractCfgNode cfgNode, Variable left) {
+            this.cfgNode = cfgNode;
+            this.left = left;
+        }
+
+        Literal evaluate(List<Literal> operandValues) {
+            Map<AbstractTacPlace, Literal> placeLiterals = this.getPlaceLiterals(operandValues);
+            if (placeLiterals == null || operandValues.get(operandValues.size() - 1) == null) {
+                return null;
+            }
+            LiteralLatticeElement element = new LiteralLatticeElement();
+            for (Map.Entry<AbstractTacPlace, Literal> entry : placeLiterals.entrySet()) {
+                if (entry.getKey() instanceof Constant) {
+                    element.defineConstant((Constant) entry.getKey(), entry.getValue());
+                } else {
+                    element.setLocal((Variable) entry.getKey(), entry.getValue());
+                }
+            }
+            transfer(element, this.cfgNode, this.left);
+            return element.getLiteral(this.left);
+        }
+    }
+
+    // a constant after a Define node (see the transfer function for Define);
+    // the operands are the constant's incoming value, the three places of the node
+    // (except for literals) and the reachability of the node
+    private static final class DefineEquation extends Equation {
+        private final Define cfgNode;
+        private final Constant constant;
+        private final ConstantsTable constantsTable;
+
+        DefineEquation(Define cfgNode, Constant constant, ConstantsTable constantsTable) {
+            this.cfgNode = cfgNode;
+            this.constant = constant;
+            this.constantsTable = constantsTable;
+        }
+
+        Literal evaluate(List<Literal> operandValues) {
+            if (operandValues.contains(null)) {
+                return null;
+            }
+            Literal oldLit = operandValues.get(0);
+            Map<AbstractTacPlace, Literal> placeLiterals = this.getPlaceLiterals(
+                operandValues.subList(1, operandValues.size()));
+            Literal constantLit = getLiteral(this.cfgNode.getSetMe(), placeLiterals);
+            if (constantLit == Literal.TOP) {
+                return oldLit;
+            }
+            Literal valueLit = getLiteral(this.cfgNode.getSetTo(), placeLiterals);
+            Literal caseLit = getLiteral(this.cfgNode.getCaseInsensitive(), placeLiterals).getBoolValueLiteral();
+
+            List<Constant> insensitivityGroup = this.constantsTable.getInsensitiveGroup(constantLit);
+            boolean inGroup = insensitivityGroup != null && insensitivityGroup.contains(this.constant);
+            if (caseLit == Literal.TRUE) {
+                return inGroup ? valueLit : oldLit;
+            }
+            boolean defined = this.constant.equals(this.constantsTable.getConstant(constantLit.toString()));
+            if (caseLit == Literal.FALSE) {
+                return defined ? valueLit : oldLit;
+            } else if (caseLit == Literal.TOP) {
+                if (defined) {
+                    return valueLit;
+                }
+                return inGroup ? LiteralLatticeElement.lub(oldLit, valueLit) : oldLit;
+            } else {
+                throw new RuntimeException("SNH");
+            }
+        }
+
+        private static Literal getLiteral(AbstractTacPlace place, Map<AbstractTacPlace, Literal> placeLiterals) {
+            return (place instanceof Literal) ? (Literal) place : placeLiterals.get(place);
+        }
+    }
+}
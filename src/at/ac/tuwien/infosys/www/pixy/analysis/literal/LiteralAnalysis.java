@@ -7,6 +7,7 @@ import at.ac.tuwien.infosys.www.pixy.analysis.TransferFunctionId;
 import at.ac.tuwien.infosys.www.pixy.analysis.alias.AliasAnalysis;
 import at.ac.tuwien.infosys.www.pixy.analysis.interprocedural.AbstractAnalysisType;
 import at.ac.tuwien.infosys.www.pixy.analysis.interprocedural.AbstractInterproceduralAnalysis;
+import at.ac.tuwien.infosys.www.pixy.analysis.interprocedural.AbstractInterproceduralAnalysisNode;
 import at.ac.tuwien.infosys.www.pixy.analysis.interprocedural.InterproceduralWorklist;
 import at.ac.tuwien.infosys.www.pixy.analysis.literal.transferfunction.AssignArray;
 import at.ac.tuwien.infosys.www.pixy.analysis.literal.transferfunction.AssignBinary;
@@ -24,6 +25,7 @@ import at.ac.tuwien.infosys.www.pixy.analysis.literal.transferfunction.Unset;
 import at.ac.tuwien.infosys.www.pixy.conversion.*;
 import at.ac.tuwien.infosys.www.pixy.conversion.cfgnodes.*;
 
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
@@ -42,6 +44,9 @@ public class LiteralAnalysis extends AbstractInterproceduralAnalysis {
     // list of Include's
     private List<Include> includeNodes;
 
+    // "global" nodes whose operand doesn't occur in the main function (yet)
+    private Set<Global> unresolvedGlobals;
+
 //  ********************************************************************************
 //  CONSTRUCTORS *******************************************************************
 //  ********************************************************************************
@@ -53,13 +58,25 @@ public class LiteralAnalysis extends AbstractInterproceduralAnalysis {
         AliasAnalysis aliasAnalysis, AbstractAnalysisType analysisType,
         InterproceduralWorklist workList) {
 
+        this(tac, aliasAnalysis, analysisType, workList, null);
+    }
+
+    // reuses the results of the given literal analysis of an earlier version of
+    // the program (can be null); used by include resolution, where each iteration
+    // only adds some included files
+    public LiteralAnalysis(
+        TacConverter tac,
+        AliasAnalysis aliasAnalysis, AbstractAnalysisType analysisType,
+        InterproceduralWorklist workList, LiteralAnalysis previous) {
+
         this.tac = tac;
         this.repos = new GenericRepository<>();
         this.aliasAnalysis = aliasAnalysis;
         this.includeNodes = new LinkedList<>();
+        this.unresolvedGlobals = new HashSet<>();
 
-        this.initGeneral(tac.getAllFunctions(), tac.getMainFunction(),
-            analysisType, workList);
+        this.initGeneral(tac.getAllFunctions(), tac.getMainFunction(), tac.freeze(),
+            analysisType, workList, previous);
     }
 
     // dummy constructor
@@ -265,6 +282,7 @@ public class LiteralAnalysis extends AbstractInterproceduralAnalysis {
             Set<Variable> mustAliases = this.aliasAnalysis.getMustAliases(globalOp, cfgNode);
             Set<Variable> mayAliases = this.aliasAnalysis.getMayAliases(globalOp, cfgNode);
 
+            this.unresolvedGlobals.add(cfgNode);
             return new AssignSimple(
                 globalOp,
                 Literal.TOP,
@@ -326,6 +344,12 @@ public class LiteralAnalysis extends AbstractInterproceduralAnalysis {
         return this.getLiteral(var, cfgNode);
     }
 
+    // is the given node reachable under some context?
+    public boolean isReachable(AbstractCfgNode cfgNode) {
+        AbstractInterproceduralAnalysisNode analysisNode = this.getAnalysisNode(cfgNode);
+        return analysisNode != null && !analysisNode.getPhi().isEmpty();
+    }
+
     public List<Include> getIncludeNodes() {
         return this.includeNodes;
     }
@@ -334,6 +358,18 @@ public class LiteralAnalysis extends AbstractInterproceduralAnalysis {
 //  OTHER **************************************************************************
 //  ********************************************************************************
 
+//  addChangedNodes ****************************************************************
+
+    // the transfer function of a "global" node changes as soon as its operand
+    // occurs in the main function (e.g., due to an included file)
+    protected void addChangedNodes(AbstractInterproceduralAnalysis previous, Set<AbstractCfgNode> changed) {
+        for (Global globalNode : ((LiteralAnalysis) previous).unresolvedGlobals) {
+            if (!this.unresolvedGlobals.contains(globalNode) && this.getAnalysisNode(globalNode) != null) {
+                changed.add(globalNode);
+            }
+        }
+    }
+
 //  evalIf *************************************************************************
 
     // NOTE: messages about successful evaluation of an "if" expression which
@@ -346,7 +382,8 @@ public class LiteralAnalysis extends AbstractInterproceduralAnalysis {
     }
 
     // evaluates the given if-condition using the folded incoming values
-    // (don't call this before literal analysis hasn't finished its work)
+    // (don't call this before literal analysis hasn't finished its work);
+    // returns null if the condition can't be evaluated statically
     public Boolean evalIf(If ifNode) {
 
         // incoming value at if node (folded)
@@ -358,7 +395,23 @@ public class LiteralAnalysis extends AbstractInterproceduralAnalysis {
             return null;
         }
 
-        return this.evalIf(ifNode, folded);
+        // the converter only creates conditions of the form "place == TRUE/FALSE"
+        if (ifNode.getOperator() != TacOperators.IS_EQUAL) {
+            return null;
+        }
+        Literal leftLit = folded.getLiteral(ifNode.getLeftOperand());
+        if (leftLit == Literal.TOP) {
+            return null;
+        }
+        Literal rightLit = (ifNode.getRightOperand() == Constant.TRUE) ? Literal.TRUE : Literal.FALSE;
+        Literal result = Literal.isEqualLiteral(leftLit, rightLit);
+        if (result == Literal.TRUE) {
+            return Boolean.TRUE;
+        } else if (result == Literal.FALSE) {
+            return Boolean.FALSE;
+        } else {
+            return null;
+        }
     }
 
 //  recycle ************************************************************************
@@ -1,5 +1,6 @@
 package at.ac.tuwien.infosys.www.pixy.analysis.literal;
 
+import at.ac.tuwien.infosys.www.pixy.AnalysisSession;
 import at.ac.tuwien.infosys.www.pixy.MyOptions;
 import at.ac.tuwien.infosys.www.pixy.analysis.AbstractLatticeElement;
 import at.ac.tuwien.infosys.www.pixy.conversion.*;
@@ -22,7 +23,6 @@ public class LiteralLatticeElement extends AbstractLatticeElement {
 
     // the default lattice element; IT MUST NOT BE USED DIRECTLY BY THE ANALYSIS!
     // can be seen as "grounding", "fall-back" for normal lattice elements
-    public static LiteralLatticeElement DEFAULT;
 
 //  ********************************************************************************
 //  CONSTRUCTORS *******************************************************************
@@ -120,13 +120,21 @@ public class LiteralLatticeElement extends AbstractLatticeElement {
     static void initDefault(
         List<AbstractTacPlace> places, ConstantsTable constantsTable, List<TacFunction> functions, SymbolTable superSymbolTable
     ) {
-        LiteralLatticeElement.DEFAULT = new LiteralLatticeElement(places, constantsTable, functions, superSymbolTable);
+        AnalysisSession.current().setDefaultLiteralLatticeElement(
+            new LiteralLatticeElement(places, constantsTable, functions, superSymbolTable));
     }
 
 //  ********************************************************************************
 //  GET ****************************************************************************
 //  ********************************************************************************
 
+//  getDefault *********************************************************************
+
+    // the default lattice element of the current AnalysisSession
+    public static LiteralLatticeElement getDefault() {
+        return AnalysisSession.current().getDefaultLiteralLatticeElement();
+    }
+
 //  getPlaceToLit ******************************************************************
 
     public Map<AbstractTacPlace, Literal> getPlaceToLit() {
@@ -175,7 +183,7 @@ public class LiteralLatticeElement extends AbstractLatticeElement {
         if (place instanceof Literal) {
             throw new RuntimeException("SNH");
         }
-        return LiteralLatticeElement.DEFAULT.getPlaceToLit().get(place);
+        return getDefault().getPlaceToLit().get(place);
     }
 
 // getNonDefaultLiteral ************************************************************
@@ -1,5 +1,6 @@
 package at.ac.tuwien.infosys.www.pixy.analysis.literal.transferfunction;
 
+import at.ac.tuwien.infosys.www.pixy.AnalysisSession;
 import at.ac.tuwien.infosys.www.pixy.MyOptions;
 import at.ac.tuwien.infosys.www.pixy.analysis.AbstractLatticeElement;
 import at.ac.tuwien.infosys.www.pixy.analysis.AbstractTransferFunction;
@@ -89,7 +90,7 @@ public class CallBuiltinFunction extends AbstractTransferFunction {
 
         // change working directory
         command.append("chdir('");
-        command.append(MyOptions.entryFile.getParent());
+        command.append(AnalysisSession.current().getEntryFile().getParent());
         command.append("');");
 
         // use "var_dump" to retrieve information about the output
@@ -1,5 +1,7 @@
 package at.ac.tuwien.infosys.www.pixy.analysis.type;
 
+import at.ac.tuwien.infosys.www.pixy.AnalysisSession;
+
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
@@ -8,17 +10,17 @@ import java.util.Map;
  * @author Nenad Jovanovic <enji@seclab.tuwien.ac.at>
  */
 public class Type {
-    private static Map<String, Type> classTypes;
-
+    // the class types are kept by the current AnalysisSession
     public static void initTypes(Collection<String> classNames) {
-        classTypes = new HashMap<>();
+        Map<String, Type> classTypes = new HashMap<>();
         for (String className : classNames) {
             classTypes.put(className, new Type(className));
         }
+        AnalysisSession.current().setClassTypes(classTypes);
     }
 
     public static Type getTypeForClass(String className) {
-        Type type = classTypes.get(className);
+        Type type = AnalysisSession.current().getClassTypes().get(className);
         if (type == null) {
             throw new RuntimeException("SNH");
         }
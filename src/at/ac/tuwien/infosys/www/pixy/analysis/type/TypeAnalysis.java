@@ -38,7 +38,7 @@ public class TypeAnalysis extends AbstractInterproceduralAnalysis {
 
         this.repos = new GenericRepository<>();
         this.classNames = tac.getUserClasses().keySet();
-        this.initGeneral(tac.getAllFunctions(), tac.getMainFunction(),
+        this.initGeneral(tac.getAllFunctions(), tac.getMainFunction(), tac.freeze(),
             analysisType, workList);
     }
 
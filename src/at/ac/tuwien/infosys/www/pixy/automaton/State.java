@@ -29,6 +29,8 @@
 
 package at.ac.tuwien.infosys.www.pixy.automaton;
 
+import at.ac.tuwien.infosys.www.pixy.AnalysisSession;
+
 import java.io.Serializable;
 import java.util.Arrays;
 import java.util.HashSet;
@@ -49,14 +51,13 @@ public class State implements Serializable, Comparable<State> {
     int number;
 
     int id;
-    static int next_id;
 
     /**
      * Constructs new state. Initially, the new state is a reject state.
      */
     public State() {
         resetTransitions();
-        id = next_id++;
+        id = AnalysisSession.current().nextStateId();
     }
 
     /**
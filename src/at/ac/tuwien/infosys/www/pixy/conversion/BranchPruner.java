@@ -0,0 +1,107 @@
+package at.ac.tuwien.infosys.www.pixy.conversion;
+
+import at.ac.tuwien.infosys.www.pixy.analysis.literal.LiteralAnalysis;
+import at.ac.tuwien.infosys.www.pixy.conversion.cfgnodes.AbstractCfgNode;
+import at.ac.tuwien.infosys.www.pixy.conversion.cfgnodes.Call;
+import at.ac.tuwien.infosys.www.pixy.conversion.cfgnodes.If;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Removes the branches whose conditions are constant according to a (finished) literal analysis, such as
+ * "if (DEBUG)" or "if (false)", together with the nodes that become unreachable. This is done before the
+ * dependency analysis, which would skip these branches anyway (see AbstractInterproceduralAnalysis.evalIf()), but
+ * still has to create analysis nodes for them and collects the sinks inside them.
+ */
+public final class BranchPruner {
+    private int numberOfPrunedBranches = 0;
+    private int numberOfEliminatedNodes = 0;
+
+//  ********************************************************************************
+//  OTHERS *************************************************************************
+//  ********************************************************************************
+
+    public static BranchPruner prune(TacConverter tac, LiteralAnalysis literalAnalysis) {
+        BranchPruner pruner = new BranchPruner();
+        for (TacFunction function : tac.getAllFunctions()) {
+            pruner.prune(function.getControlFlowGraph(), literalAnalysis);
+        }
+        return pruner;
+    }
+
+    private void prune(ControlFlowGraph controlFlowGraph, LiteralAnalysis literalAnalysis) {
+        List<AbstractCfgNode> nodes = controlFlowGraph.dfPreOrder();
+
+        boolean pruned = false;
+        for (AbstractCfgNode node : nodes) {
+            if (!(node instanceof If)) {
+                continue;
+            }
+            Boolean condition = literalAnalysis.evalIf((If) node);
+            if (condition == null) {
+                continue;
+            }
+
+            // the true edge is the second outgoing edge (see TacConverter.connect())
+            AbstractCfgNode successor = node.getSuccessor(condition ? 1 : 0);
+            if (successor == null || successor == node) {
+                continue;
+            }
+            this.removeIf(node, successor);
+            this.numberOfPrunedBranches++;
+            pruned = true;
+        }
+        if (!pruned) {
+            return;
+        }
+
+        // the nodes that can't be reached from the entry any more
+        Set<AbstractCfgNode> reachable = new HashSet<>(controlFlowGraph.dfPreOrder());
+        for (AbstractCfgNode node : nodes) {
+            if (reachable.contains(node)) {
+                continue;
+            }
+            this.numberOfEliminatedNodes++;
+            for (AbstractCfgNode successor : node.getSuccessors()) {
+                if (reachable.contains(successor)) {
+                    successor.removeInEdge(node);
+                }
+            }
+            if (node instanceof Call) {
+                TacFunction callee = ((Call) node).getCallee();
+                if (callee != null) {
+                    callee.getCalledFrom().removeAll(Collections.singleton(node));
+                }
+            }
+        }
+    }
+
+    // replaces the given "if" node by its given (always taken) successor
+    private void removeIf(AbstractCfgNode ifNode, AbstractCfgNode successor) {
+        for (AbstractCfgNode oldSuccessor : ifNode.getSuccessors()) {
+            oldSuccessor.removeInEdge(ifNode);
+        }
+        for (CfgEdge inEdge : ifNode.getInEdges()) {
+            inEdge.setDestination(successor);
+            successor.addInEdge(inEdge);
+        }
+        ifNode.clearInEdges();
+        ifNode.clearOutEdges();
+    }
+
+//  ********************************************************************************
+//  GET ****************************************************************************
+//  ********************************************************************************
+
+    public int getNumberOfPrunedBranches() {
+        return this.numberOfPrunedBranches;
+    }
+
+    // the pruned "if" nodes are included
+    public int getNumberOfEliminatedNodes() {
+        return this.numberOfEliminatedNodes;
+    }
+}
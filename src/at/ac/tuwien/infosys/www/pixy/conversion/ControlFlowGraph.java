@@ -1,7 +1,9 @@
 package at.ac.tuwien.infosys.www.pixy.conversion;
 
 import at.ac.tuwien.infosys.www.pixy.conversion.cfgnodes.AbstractCfgNode;
+import at.ac.tuwien.infosys.www.pixy.conversion.cfgnodes.BasicBlock;
 import at.ac.tuwien.infosys.www.pixy.conversion.cfgnodes.Call;
+import at.ac.tuwien.infosys.www.pixy.conversion.cfgnodes.CfgEntry;
 
 import java.util.*;
 
@@ -82,6 +84,68 @@ public final class ControlFlowGraph {
         return cfgNode;
     }
 
+    // returns a copy of this cfg for a copy of a converted file (see TacCopy); all nodes
+    // that are connected to this cfg are copied, including those that can't be reached
+    // from the head (such as the nodes after an "exit"), and their edges keep their order
+    ControlFlowGraph copy(TacCopy copy) {
+        // iterative, since the cfg of a long file is deep
+        List<AbstractCfgNode> nodes = new ArrayList<>();
+        Set<AbstractCfgNode> visited = new HashSet<>();
+        LinkedList<AbstractCfgNode> stack = new LinkedList<>();
+        stack.add(this.head);
+        stack.add(this.tail);
+        while (!stack.isEmpty()) {
+            AbstractCfgNode node = stack.removeLast();
+            if (!visited.add(node)) {
+                continue;
+            }
+            nodes.add(node);
+            for (CfgEdge outEdge : node.getOutEdges()) {
+                if (outEdge != null) {
+                    stack.add(outEdge.getDestination());
+                }
+            }
+            for (CfgEdge inEdge : node.getInEdges()) {
+                stack.add(inEdge.getSource());
+            }
+            if (node instanceof BasicBlock) {
+                stack.addAll(((BasicBlock) node).getContainedNodes());
+            }
+        }
+
+        Map<CfgEdge, CfgEdge> edges = new HashMap<>();
+        for (AbstractCfgNode node : nodes) {
+            AbstractCfgNode nodeCopy = copy.copyNode(node);
+            for (int i = 0; i < 2; i++) {
+                if (node.getOutEdge(i) != null) {
+                    nodeCopy.setOutEdge(i, copyEdge(node.getOutEdge(i), edges, copy));
+                }
+            }
+            for (CfgEdge inEdge : node.getInEdges()) {
+                nodeCopy.addInEdge(copyEdge(inEdge, edges, copy));
+            }
+            if (node.getEnclosingBasicBlock() != null) {
+                nodeCopy.setEnclosingBasicBlock((BasicBlock) copy.copyNode(node.getEnclosingBasicBlock()));
+            } else if (node.getDefaultParamEntry() != null) {
+                nodeCopy.setDefaultParamPrep((CfgEntry) copy.copyNode(node.getDefaultParamEntry()));
+            }
+            if (node.hasEnclosingFunction()) {
+                nodeCopy.setEnclosingFunction(copy.copyFunction(node.getEnclosingFunction()));
+            }
+        }
+
+        return new ControlFlowGraph(copy.copyNode(this.head), copy.copyNode(this.tail), this.tailEdgeType);
+    }
+
+    private static CfgEdge copyEdge(CfgEdge edge, Map<CfgEdge, CfgEdge> edges, TacCopy copy) {
+        CfgEdge edgeCopy = edges.get(edge);
+        if (edgeCopy == null) {
+            edgeCopy = new CfgEdge(copy.copyNode(edge.getSource()), copy.copyNode(edge.getDestination()), edge.getType());
+            edges.put(edge, edgeCopy);
+        }
+        return edgeCopy;
+    }
+
     void setHead(AbstractCfgNode head) {
         this.head = head;
     }
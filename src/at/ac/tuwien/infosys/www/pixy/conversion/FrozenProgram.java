@@ -0,0 +1,161 @@
+package at.ac.tuwien.infosys.www.pixy.conversion;
+
+import at.ac.tuwien.infosys.www.pixy.conversion.cfgnodes.AbstractCfgNode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact, read-only representation of the cfgs of a program, as used by the analyses: each cfg node gets a dense
+ * integer id (see AbstractCfgNode.getId()), and the successors of all nodes are stored in flat int arrays
+ * (compressed sparse rows), so that the analyses don't have to follow edge objects and look up their information in
+ * hash maps. The cfg nodes stay available for reporting (see getNode()). There are no predecessor arrays, since the
+ * analyses of the frozen program only propagate forwards.
+ *
+ * The representation doesn't change with the cfgs; it has to be recreated after a modification (see
+ * TacConverter.freeze()). The nodes that still exist keep their ids, so that the analyses of an earlier state of
+ * the program can still be queried; the ids of removed nodes are only reused once they make up more than half of
+ * all ids.
+ */
+public final class FrozenProgram {
+    // id -> cfg node (null for the ids of removed nodes)
+    private final AbstractCfgNode[] nodes;
+
+    // the successors of the node with id i are successors[successorOffsets[i]] up to
+    // successors[successorOffsets[i + 1] - 1], in the order of its outgoing edges
+    // (i.e., the false edge of an "if" node comes first)
+    private final int[] successorOffsets;
+    private final int[] successors;
+
+//  ********************************************************************************
+//  CONSTRUCTORS *******************************************************************
+//  ********************************************************************************
+
+    private FrozenProgram(AbstractCfgNode[] nodes) {
+        this.nodes = nodes;
+        this.successorOffsets = new int[nodes.length + 1];
+
+        int numberOfEdges = 0;
+        for (AbstractCfgNode node : nodes) {
+            if (node != null) {
+                for (CfgEdge outEdge : node.getOutEdges()) {
+                    if (outEdge != null) {
+                        numberOfEdges++;
+                    }
+                }
+            }
+        }
+        this.successors = new int[numberOfEdges];
+
+        int index = 0;
+        for (int id = 0; id < nodes.length; id++) {
+            this.successorOffsets[id] = index;
+            AbstractCfgNode node = nodes[id];
+            if (node == null) {
+                continue;
+            }
+            for (CfgEdge outEdge : node.getOutEdges()) {
+                if (outEdge != null) {
+                    int successor = this.getId(outEdge.getDestination());
+                    if (successor < 0) {
+                        throw new RuntimeException("SNH: " + node.getLoc());
+                    }
+                    this.successors[index++] = successor;
+                }
+            }
+        }
+        this.successorOffsets[nodes.length] = index;
+    }
+
+    // freezes the cfgs (including the default cfgs of parameters) of the given functions;
+    // "previous" is the representation of an earlier state of the same program (or null)
+    static FrozenProgram freeze(List<TacFunction> functions, FrozenProgram previous) {
+        List<AbstractCfgNode> cfgNodes = new ArrayList<>();
+        for (TacFunction function : functions) {
+            for (TacFormalParameter param : function.getParams()) {
+                if (param.hasDefault()) {
+                    cfgNodes.addAll(param.getDefaultControlFlowGraph().dfPreOrder());
+                }
+            }
+            cfgNodes.addAll(function.getControlFlowGraph().dfPreOrder());
+        }
+
+        // keep the previous ids unless most of them would be unused
+        int firstNewId = 0;
+        if (previous != null) {
+            int numberOfNewNodes = 0;
+            for (AbstractCfgNode cfgNode : cfgNodes) {
+                if (previous.getId(cfgNode) < 0) {
+                    numberOfNewNodes++;
+                }
+            }
+            int numberOfIds = previous.size() + numberOfNewNodes;
+            if (2 * (numberOfIds - cfgNodes.size()) <= numberOfIds) {
+                firstNewId = previous.size();
+            } else {
+                previous = null;
+            }
+        }
+
+        List<AbstractCfgNode> newNodes = new ArrayList<>();
+        for (AbstractCfgNode cfgNode : cfgNodes) {
+            if (previous == null || previous.getId(cfgNode) < 0) {
+                newNodes.add(cfgNode);
+            }
+        }
+        AbstractCfgNode[] nodes = new AbstractCfgNode[firstNewId + newNodes.size()];
+        if (previous != null) {
+            for (AbstractCfgNode cfgNode : cfgNodes) {
+                int id = previous.getId(cfgNode);
+                if (id >= 0) {
+                    nodes[id] = cfgNode;
+                }
+            }
+        }
+        int id = firstNewId;
+        for (AbstractCfgNode cfgNode : newNodes) {
+            if (cfgNode.getId() >= firstNewId && cfgNode.getId() < id && nodes[cfgNode.getId()] == cfgNode) {
+                // visited twice
+                continue;
+            }
+            cfgNode.setId(id);
+            nodes[id] = cfgNode;
+            id++;
+        }
+
+        return new FrozenProgram(nodes);
+    }
+
+//  ********************************************************************************
+//  GET ****************************************************************************
+//  ********************************************************************************
+
+    // the number of ids (including those of removed nodes)
+    public int size() {
+        return this.nodes.length;
+    }
+
+    // returns null for the id of a removed node
+    public AbstractCfgNode getNode(int id) {
+        return this.nodes[id];
+    }
+
+    // returns -1 if the given node is not part of this representation (e.g., because it is
+    // contained in a basic block or has been added later)
+    public int getId(AbstractCfgNode node) {
+        int id = node.getId();
+        if (id < 0 || id >= this.nodes.length || this.nodes[id] != node) {
+            return -1;
+        }
+        return id;
+    }
+
+    public int getNumberOfSuccessors(int id) {
+        return this.successorOffsets[id + 1] - this.successorOffsets[id];
+    }
+
+    // index 0: false edge (or normal edge), index 1: true edge
+    public int getSuccessor(int id, int index) {
+        return this.successors[this.successorOffsets[id] + index];
+    }
+}
@@ -2,12 +2,13 @@ package at.ac.tuwien.infosys.www.pixy.conversion;
 
 import at.ac.tuwien.infosys.www.phpparser.ParseNode;
 import at.ac.tuwien.infosys.www.phpparser.PhpSymbols;
-import at.ac.tuwien.infosys.www.pixy.Utils;
 import at.ac.tuwien.infosys.www.pixy.analysis.literal.LiteralAnalysis;
 import at.ac.tuwien.infosys.www.pixy.conversion.cfgnodes.Include;
+import at.ac.tuwien.infosys.www.pixy.conversion.includes.ProjectFileIndex;
 
 import java.io.File;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -18,22 +19,28 @@ import java.util.regex.Pattern;
  * @author Nenad Jovanovic <enji@seclab.tuwien.ac.at>
  */
 public class ParseNodeHeuristics {
-    private static LiteralAnalysis literalAnalysis;
-    private static Include includeNode;
+    // used for resolving the variables inside the include expression
+    // (an instance per query, so that concurrent conversions don't interfere)
+    private final LiteralAnalysis literalAnalysis;
+    private final Include includeNode;
+
+    private ParseNodeHeuristics(LiteralAnalysis literalAnalysis, Include includeNode) {
+        this.literalAnalysis = literalAnalysis;
+        this.includeNode = includeNode;
+    }
 
     // tries to find the name of an included file even if literal analysis
     // computed "top" by matching the known parts of the file name against
-    // the files in the subdirectories; returns:
+    // the files in the subdirectories (as known to the given file index); returns:
     // - null if there is more than one possibility
     // - an empty list if there is no possibility
     // - a one-element list if there is exactly one possibility
     public static List<String> getPossibleIncludeTargets(
         Include includeNode, LiteralAnalysis literalAnalysis,
         Map<Include, String> include2String,
-        String workingDirectory) {
+        File workingDirectory, ProjectFileIndex fileIndex) {
 
-        ParseNodeHeuristics.literalAnalysis = literalAnalysis;
-        ParseNodeHeuristics.includeNode = includeNode;
+        ParseNodeHeuristics heuristics = new ParseNodeHeuristics(literalAnalysis, includeNode);
 
         ParseNode parseNode = includeNode.getParseNode();
 
@@ -60,7 +67,7 @@ public class ParseNodeHeuristics {
 
         // results in a list of strings and null references;
         // null references represent ".*"
-        LinkedList<String> stringList = expr(secondChild);
+        LinkedList<String> stringList = heuristics.expr(secondChild);
 
         // transform the list into a pattern...
 
@@ -100,8 +107,19 @@ public class ParseNodeHeuristics {
 
         Pattern patternObj = Pattern.compile(pattern.toString());
 
+        // the literal part at the end of the pattern: only files ending with it can match
+        StringBuilder suffix = new StringBuilder();
+        for (Iterator<String> iterator = stringList.descendingIterator(); iterator.hasNext(); ) {
+            String s = iterator.next();
+            if (s == null) {
+                break;
+            }
+            suffix.insert(0, s);
+        }
+
         // here is what we do now:
         // - collect all files below the current working directory
+        //   that end with the literal suffix
         // - try to find a match
         // - if we already have ambiguity (more than one match): return null
         // - if we have exactly one match: be happy and return it
@@ -111,7 +129,7 @@ public class ParseNodeHeuristics {
         //   (but don't retry those files that you have tried before,
         //   since this would be a waste of time)
 
-        List<File> candidates1 = Utils.fileListFromDir(workingDirectory);
+        List<File> candidates1 = fileIndex.findBySuffix(workingDirectory, suffix.toString());
         System.out.println("inclusion matching against " + candidates1.size() + " candidates");
         List<String> winners = matchCandidates(patternObj, candidates1);
         if (winners == null) {
@@ -125,7 +143,8 @@ public class ParseNodeHeuristics {
 
         // no match, so try relative to script directory
         // (but don't retry previous candidates)
-        List<File> candidates2 = Utils.fileListFromFile(parseNode.getFileName());
+        List<File> candidates2 = fileIndex.findBySuffix(
+            new File(parseNode.getFileName()).getParentFile(), suffix.toString());
         candidates2.removeAll(candidates1);
         winners = matchCandidates(patternObj, candidates2);
         if (winners == null) {
@@ -160,7 +179,8 @@ public class ParseNodeHeuristics {
                 winners.add(candidatePath);
             }
         }
-        return winners;
+        // the last candidate might have been the second match
+        return (winners.size() > 1) ? null : winners;
     }
 
     private static void normalizePath(StringBuilder pattern) {
@@ -172,7 +192,7 @@ public class ParseNodeHeuristics {
 //  MINI-PARSER ********************************************************************
 //  ********************************************************************************
 
-    private static LinkedList<String> expr(ParseNode node) {
+    private LinkedList<String> expr(ParseNode node) {
 
         LinkedList<String> myList = null;
 
@@ -195,7 +215,7 @@ public class ParseNodeHeuristics {
         return myList;
     }
 
-    private static LinkedList<String> expr_without_variable(ParseNode node) {
+    private LinkedList<String> expr_without_variable(ParseNode node) {
 
         LinkedList<String> myList = null;
 
@@ -244,7 +264,7 @@ public class ParseNodeHeuristics {
         return myList;
     }
 
-    private static LinkedList<String> scalar(ParseNode node) {
+    private LinkedList<String> scalar(ParseNode node) {
         LinkedList<String> myList = null;
 
         ParseNode firstChild = node.getChild(0);
@@ -271,7 +291,7 @@ public class ParseNodeHeuristics {
         return myList;
     }
 
-    private static LinkedList<String> common_scalar(ParseNode node) {
+    private LinkedList<String> common_scalar(ParseNode node) {
         LinkedList<String> myList = null;
 
         ParseNode firstChild = node.getChild(0);
@@ -294,11 +314,11 @@ public class ParseNodeHeuristics {
         return myList;
     }
 
-    private static LinkedList<String> r_cvar(ParseNode node) {
+    private LinkedList<String> r_cvar(ParseNode node) {
         return cvar(node.getChild(0));
     }
 
-    private static LinkedList<String> cvar(ParseNode node) {
+    private LinkedList<String> cvar(ParseNode node) {
         LinkedList<String> myList = null;
 
         if (node.getNumChildren() == 1) {
@@ -313,7 +333,7 @@ public class ParseNodeHeuristics {
         return myList;
     }
 
-    private static LinkedList<String> cvar_without_objects(ParseNode node) {
+    private LinkedList<String> cvar_without_objects(ParseNode node) {
         LinkedList<String> myList = null;
 
         ParseNode firstChild = node.getChild(0);
@@ -340,7 +360,7 @@ public class ParseNodeHeuristics {
         return myList;
     }
 
-    private static LinkedList<String> reference_variable(ParseNode node) {
+    private LinkedList<String> reference_variable(ParseNode node) {
         LinkedList<String> myList = null;
 
         ParseNode firstChild = node.getChild(0);
@@ -367,7 +387,7 @@ public class ParseNodeHeuristics {
         return myList;
     }
 
-    private static LinkedList<String> compound_variable(ParseNode node) {
+    private LinkedList<String> compound_variable(ParseNode node) {
         LinkedList<String> myList = null;
 
         ParseNode firstChild = node.getChild(0);
@@ -378,7 +398,7 @@ public class ParseNodeHeuristics {
                 myList = new LinkedList<>();
 
                 // try to resolve with literal analysis!
-                Literal lit = literalAnalysis.getLiteral(firstChild.getLexeme(), includeNode);
+                Literal lit = this.literalAnalysis.getLiteral(firstChild.getLexeme(), this.includeNode);
                 if (lit == Literal.TOP) {
                     myList.add(null);
                 } else {
@@ -403,7 +423,7 @@ public class ParseNodeHeuristics {
         return myList;
     }
 
-    private static LinkedList<String> encaps_list(ParseNode node) {
+    private LinkedList<String> encaps_list(ParseNode node) {
         LinkedList<String> myList = null;
 
         ParseNode firstChild = node.getChild(0);
@@ -491,13 +511,13 @@ public class ParseNodeHeuristics {
     }
 
     // encaps_list -> encaps_list, <some token>
-    private static LinkedList<String> encapsListHelper(ParseNode node) {
+    private LinkedList<String> encapsListHelper(ParseNode node) {
         LinkedList<String> myList = encaps_list(node.getChild(0));
         myList.add(node.getChild(1).getLexeme());
         return myList;
     }
 
-    private static LinkedList<String> encaps_var(ParseNode node) {
+    private LinkedList<String> encaps_var(ParseNode node) {
         LinkedList<String> myList = null;
 
         if (node.getNumChildren() == 1) {
@@ -506,7 +526,7 @@ public class ParseNodeHeuristics {
             myList = new LinkedList<>();
 
             // try to resolve with literal analysis!
-            Literal lit = literalAnalysis.getLiteral(node.getChild(0).getLexeme(), includeNode);
+            Literal lit = this.literalAnalysis.getLiteral(node.getChild(0).getLexeme(), this.includeNode);
             if (lit == Literal.TOP) {
                 myList.add(null);
             } else {
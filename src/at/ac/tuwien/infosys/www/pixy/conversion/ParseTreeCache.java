@@ -0,0 +1,307 @@
+package at.ac.tuwien.infosys.www.pixy.conversion;
+
+import at.ac.tuwien.infosys.www.phpparser.ParseNode;
+import at.ac.tuwien.infosys.www.phpparser.ParseTree;
+import at.ac.tuwien.infosys.www.phpparser.PhpLexer;
+import at.ac.tuwien.infosys.www.phpparser.PhpParser;
+import at.ac.tuwien.infosys.www.pixy.ResultCache;
+import at.ac.tuwien.infosys.www.pixy.Utils;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Persistent cache of parse trees on disk, shared by all runs (and processes) that use the same cache directory.
+ *
+ * A parse tree is stored under the SHA-256 hash of the parser version (i.e., of the class files of the lexer and the
+ * parser), the canonical file name (which is part of each node) and the content of the file. A modified file thus
+ * simply leads to a new cache file; old cache files are never removed.
+ *
+ * Cache files are written into a temporary file first and then renamed, so that processes sharing the directory
+ * never see a partial cache file. A damaged cache file is treated like a missing one.
+ *
+ * File format (binary): a magic number, followed by the nodes of the tree in preorder. Each node is written as its
+ * symbol (with a token flag), its name and its file name, and for tokens the lexeme and the line number, for other
+ * nodes the number of children. Numbers take 7 bits per byte. Strings are written only once per file; later
+ * occurrences refer to the first one.
+ */
+public final class ParseTreeCache {
+    private static final int MAGIC = 0x50505431;
+
+    // string references for null and for strings that are written in full;
+    // other references are the index of the string plus 2
+    private static final int NULL_STRING = 0;
+    private static final int NEW_STRING = 1;
+
+    // the directory with the cache files
+    private File directory;
+
+    // hash of the class files of the lexer and the parser
+    private String parserVersion;
+
+    // number of parse trees loaded from the cache / parsed and stored
+    private AtomicInteger numberOfHits = new AtomicInteger();
+    private AtomicInteger numberOfMisses = new AtomicInteger();
+
+//  ********************************************************************************
+//  CONSTRUCTOR ********************************************************************
+//  ********************************************************************************
+
+    public ParseTreeCache(File directory) {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            Utils.bail("Can't create parse tree cache directory: " + directory);
+        }
+        this.directory = directory;
+        this.parserVersion = computeParserVersion();
+    }
+
+//  ********************************************************************************
+//  GET ****************************************************************************
+//  ********************************************************************************
+
+    public int getNumberOfHits() {
+        return this.numberOfHits.get();
+    }
+
+    public int getNumberOfMisses() {
+        return this.numberOfMisses.get();
+    }
+
+//  ********************************************************************************
+//  OTHERS *************************************************************************
+//  ********************************************************************************
+
+    // returns the parse tree of the given file (canonical name), either from the cache or
+    // by parsing the file (and storing the tree in the cache)
+    public ParseTree parse(String canonicalFileName) throws Exception {
+        // parse the same content that was hashed, even if the file is modified in the meantime
+        byte[] content = Files.readAllBytes(new File(canonicalFileName).toPath());
+        File cacheFile = this.getCacheFile(canonicalFileName, content);
+
+        ParseTree parseTree = null;
+        try {
+            parseTree = deserialize(Files.readAllBytes(cacheFile.toPath()));
+        } catch (NoSuchFileException e) {
+            // not cached yet
+        } catch (IOException | RuntimeException e) {
+            // damaged cache file; it is replaced below
+        }
+        if (parseTree != null) {
+            this.numberOfHits.incrementAndGet();
+            return parseTree;
+        }
+
+        this.numberOfMisses.incrementAndGet();
+        parseTree = parse(canonicalFileName, content);
+        this.store(cacheFile, parseTree);
+        return parseTree;
+    }
+
+    // parses the given content of the given file without using the cache
+    public static ParseTree parse(String canonicalFileName, byte[] content) throws Exception {
+        PhpLexer lexer = new PhpLexer(new InputStreamReader(new ByteArrayInputStream(content)));
+        lexer.setFileName(canonicalFileName);
+        PhpParser parser = new PhpParser(lexer);
+        ParseNode rootNode = (ParseNode) parser.parse().value;
+        return new ParseTree(rootNode);
+    }
+
+    private File getCacheFile(String canonicalFileName, byte[] content) {
+        byte[] name = canonicalFileName.getBytes(StandardCharsets.UTF_8);
+        byte[] key = new byte[name.length + 1 + content.length];
+        System.arraycopy(name, 0, key, 0, name.length);
+        System.arraycopy(content, 0, key, name.length + 1, content.length);
+        return new File(this.directory, ResultCache.sha256(key) + "-" + this.parserVersion + ".tree");
+    }
+
+    private void store(File cacheFile, ParseTree parseTree) {
+        try {
+            File temporaryFile = File.createTempFile("tree", ".tmp", this.directory);
+            Files.write(temporaryFile.toPath(), serialize(parseTree));
+            Files.move(temporaryFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.out.println("Warning: Can't write parse tree cache file " + cacheFile + ": " + e.getMessage());
+        }
+    }
+
+    // the parser version: hash over the class files of the lexer and the parser
+    private static String computeParserVersion() {
+        ByteArrayOutputStream classFiles = new ByteArrayOutputStream();
+        for (Class<?> parserClass : new Class<?>[]{PhpLexer.class, PhpParser.class, ParseNode.class}) {
+            try (InputStream in = parserClass.getResourceAsStream(parserClass.getSimpleName() + ".class")) {
+                byte[] buffer = new byte[8192];
+                int length;
+                while ((length = in.read(buffer)) != -1) {
+                    classFiles.write(buffer, 0, length);
+                }
+            } catch (IOException | NullPointerException e) {
+                Utils.bail("Can't determine the parser version: " + e);
+            }
+        }
+        return ResultCache.sha256(classFiles.toByteArray()).substring(0, 16);
+    }
+
+//  ********************************************************************************
+//  SERIALIZATION ******************************************************************
+//  ********************************************************************************
+
+    // serializes the given parse tree (iteratively, since parse trees of long
+    // statement lists are very deep)
+    public static byte[] serialize(ParseTree parseTree) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeNumber(MAGIC, out);
+        Map<String, Integer> strings = new HashMap<>();
+        Deque<ParseNode> stack = new ArrayDeque<>();
+        stack.push(parseTree.getRoot());
+        while (!stack.isEmpty()) {
+            ParseNode node = stack.pop();
+            writeNumber(node.getSymbol() * 2 + (node.isToken() ? 1 : 0), out);
+            writeString(node.getName(), strings, out);
+            writeString(node.getFileName(), strings, out);
+            if (node.isToken()) {
+                writeString(node.getLexeme(), strings, out);
+                // line numbers can be negative
+                writeNumber(node.getLineno() + 1, out);
+            } else {
+                List<ParseNode> children = node.getChildren();
+                writeNumber(children.size(), out);
+                for (int i = children.size() - 1; i >= 0; i--) {
+                    stack.push(children.get(i));
+                }
+            }
+        }
+        return out.toByteArray();
+    }
+
+    // reads a parse tree created by serialize(); throws an IOException (or a
+    // RuntimeException) if the data is damaged
+    public static ParseTree deserialize(byte[] data) throws IOException {
+        Reader in = new Reader(data);
+        if (in.readNumber() != MAGIC) {
+            throw new IOException("not a parse tree file");
+        }
+        List<String> strings = new ArrayList<>();
+
+        // the nodes that still expect children, and the number of missing children
+        Deque<ParseNode> parents = new ArrayDeque<>();
+        Deque<Integer> missingChildren = new ArrayDeque<>();
+
+        ParseNode root = null;
+        do {
+            int symbolAndKind = in.readNumber();
+            int symbol = symbolAndKind >>> 1;
+            String name = in.readString(strings);
+            String fileName = in.readString(strings);
+            ParseNode node;
+            int numberOfChildren = 0;
+            if ((symbolAndKind & 1) == 1) {
+                String lexeme = in.readString(strings);
+                node = new ParseNode(symbol, name, fileName, lexeme, in.readNumber() - 1);
+            } else {
+                node = new ParseNode(symbol, name, fileName);
+                numberOfChildren = in.readNumber();
+            }
+
+            if (root == null) {
+                root = node;
+            } else {
+                parents.peek().addChild(node);
+                int missing = missingChildren.pop() - 1;
+                if (missing == 0) {
+                    parents.pop();
+                } else {
+                    missingChildren.push(missing);
+                }
+            }
+            if (numberOfChildren > 0) {
+                parents.push(node);
+                missingChildren.push(numberOfChildren);
+            }
+        } while (!parents.isEmpty());
+
+        if (!in.atEnd()) {
+            throw new IOException("trailing data");
+        }
+        return new ParseTree(root);
+    }
+
+    // writes a non-negative number with 7 bits per byte (the highest bit tells
+    // whether more bytes follow)
+    private static void writeNumber(int number, ByteArrayOutputStream out) {
+        while ((number & ~0x7F) != 0) {
+            out.write((number & 0x7F) | 0x80);
+            number >>>= 7;
+        }
+        out.write(number);
+    }
+
+    private static void writeString(String string, Map<String, Integer> strings, ByteArrayOutputStream out) {
+        if (string == null) {
+            writeNumber(NULL_STRING, out);
+            return;
+        }
+        Integer index = strings.get(string);
+        if (index != null) {
+            writeNumber(index + 2, out);
+            return;
+        }
+        strings.put(string, strings.size());
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        writeNumber(NEW_STRING, out);
+        writeNumber(bytes.length, out);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    // reads numbers and strings written by writeNumber() and writeString()
+    private static final class Reader {
+        private final byte[] data;
+        private int position = 0;
+
+        Reader(byte[] data) {
+            this.data = data;
+        }
+
+        int readNumber() throws IOException {
+            int number = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                if (this.position == this.data.length) {
+                    throw new EOFException();
+                }
+                byte b = this.data[this.position++];
+                number |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return number;
+                }
+            }
+            throw new IOException("invalid number");
+        }
+
+        String readString(List<String> strings) throws IOException {
+            int reference = this.readNumber();
+            if (reference == NULL_STRING) {
+                return null;
+            }
+            if (reference != NEW_STRING) {
+                return strings.get(reference - 2);
+            }
+            int length = this.readNumber();
+            if (length < 0 || length > this.data.length - this.position) {
+                throw new EOFException();
+            }
+            String string = new String(this.data, this.position, length, StandardCharsets.UTF_8);
+            this.position += length;
+            strings.add(string);
+            return string;
+        }
+
+        boolean atEnd() {
+            return this.position == this.data.length;
+        }
+    }
+}
@@ -4,39 +4,83 @@ import at.ac.tuwien.infosys.www.phpparser.ParseNode;
 import at.ac.tuwien.infosys.www.phpparser.ParseTree;
 import at.ac.tuwien.infosys.www.phpparser.PhpLexer;
 import at.ac.tuwien.infosys.www.phpparser.PhpParser;
+import at.ac.tuwien.infosys.www.pixy.AnalysisSession;
 import at.ac.tuwien.infosys.www.pixy.MyOptions;
+import at.ac.tuwien.infosys.www.pixy.ResultCache;
 import at.ac.tuwien.infosys.www.pixy.Utils;
 import at.ac.tuwien.infosys.www.pixy.analysis.alias.AliasAnalysis;
 import at.ac.tuwien.infosys.www.pixy.analysis.alias.DummyAliasAnalysis;
 import at.ac.tuwien.infosys.www.pixy.analysis.interprocedural.*;
 import at.ac.tuwien.infosys.www.pixy.analysis.interprocedural.callstring.CallStringAnalysis;
+import at.ac.tuwien.infosys.www.pixy.analysis.literal.DemandDrivenLiteralAnalysis;
 import at.ac.tuwien.infosys.www.pixy.analysis.literal.LiteralAnalysis;
 import at.ac.tuwien.infosys.www.pixy.analysis.type.TypeAnalysis;
+import at.ac.tuwien.infosys.www.pixy.conversion.cfgnodes.AbstractCfgNode;
 import at.ac.tuwien.infosys.www.pixy.conversion.cfgnodes.Include;
+import at.ac.tuwien.infosys.www.pixy.conversion.cfgnodes.IncludeEnd;
 import at.ac.tuwien.infosys.www.pixy.conversion.includes.IncludeGraph;
+import at.ac.tuwien.infosys.www.pixy.conversion.includes.IncludeResolutionCache;
+import at.ac.tuwien.infosys.www.pixy.conversion.includes.ProjectFileIndex;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.util.*;
+import java.util.concurrent.*;
 
 /**
  * @author Nenad Jovanovic <enji@seclab.tuwien.ac.at>
  */
 public class ProgramConverter {
+    // the state of the current analysis run (contains the entry file)
+    private AnalysisSession session;
+
     // = the directory in which the given entry file is located
     private File workingDirectoryFile;
 
-    // include graph used for detecting recursive include relationships
+    // include graph used for detecting recursive include relationships (kept after the conversion)
     private IncludeGraph includeGraph;
 
+    // files below the working directory (and other searched directories), for resolving
+    // includes without asking the file system; shared via the program database if possible
+    private ProjectFileIndex fileIndex;
+
+    // results of makeFile(); shared like the file index
+    private IncludeResolutionCache resolutionCache;
+
     // the converter for the base file, will also be the resulting converter
     // when we've finished our work
     private TacConverter baseTac;
 
     private int numberOfConvertedFiles = 0;
 
-    // the analysis responsible for resolving and including includes
+    // the analysis responsible for resolving and including includes: answers the
+    // queries of the current iteration on demand (see DemandDrivenLiteralAnalysis)
     private LiteralAnalysis literalAnalysis;
 
+    // the most recent analysis of the whole program (reused by the next one), and
+    // the connector computation for it, which is extended from iteration to iteration
+    private LiteralAnalysis fullLiteralAnalysis;
+    private ConnectorComputation literalConnectorComp;
+
+    // maximum number of values that a single demand-driven literal query may compute
+    // before the whole program is analyzed instead
+    private static final int LITERAL_QUERY_BUDGET = 10000;
+    private int literalQueryBudget = LITERAL_QUERY_BUDGET;
+
+    // number of literal analysis nodes, and of those whose results were
+    // taken over from the previous analysis
+    private int numberOfLiteralNodes = 0;
+    private int numberOfReusedLiteralNodes = 0;
+
+    // number of demand-driven literal queries, and of those that were answered by
+    // an analysis of the whole program
+    private int numberOfLiteralQueries = 0;
+    private int numberOfLiteralFallbacks = 0;
+
+    // the optimizer of the converted program (-O); null if it wasn't optimized
+    private TacOptimizer optimizer;
+
     // recognize hotspot nodes for JUnit tests?
     private boolean specialNodes;
 
@@ -55,25 +99,78 @@ public class ProgramConverter {
 
     private SymbolTable superSymbolTable;
 
-    private enum InclusionStatus {NOT_FOUND, INCLUDED, CYCLIC}
+    private enum InclusionStatus {NOT_FOUND, INCLUDED, CYCLIC, REDUNDANT}
 
     // type analysis (for resolving ambiguous method calls)
     private TypeAnalysis typeAnalysis;
 
+    // parse trees shared with the conversion of other entry files;
+    // null if this converter is used for a single entry file
+    private ProgramDatabase programDatabase;
+
+    // files that are included more than once are only converted once: a copy of the main
+    // function of the first conversion is kept as template (before it is inlined anywhere),
+    // and all further inclusions get copies of the template (see TacConverter.copyMainFunction());
+    // key: canonical file name and hash of the file's content (see getTemplateKey())
+    private Map<String, TacConverter> templates = new HashMap<>();
+
+    // canonical file name -> template key (null if the file can't be read)
+    private Map<String, String> templateKeys = new HashMap<>();
+
+    // number of inclusions that used a copy of a template
+    private int numberOfCopies = 0;
+
+    // parse trees of files that are about to be included (canonical file name -> parse tree);
+    // the files of each round of literal includes are parsed concurrently in advance, while
+    // their conversion and inclusion remains sequential (see prefetchParseTrees())
+    private Map<String, ParseTree> prefetchedParseTrees = new HashMap<>();
+
+    // threads for parsing; created on demand
+    private ExecutorService parserPool = null;
+
+    // ends of the inlined main cfgs of each included file (canonical file name -> IncludeEnds);
+    // an include_once that can only be reached through one of them is redundant
+    private Map<String, List<IncludeEnd>> inlinedFiles = new HashMap<>();
+
+    // size of the main cfg of each included file (canonical file name -> number of nodes)
+    private Map<String, Integer> mainCfgSizes = new HashMap<>();
+
+    // number of redundant include_once / require_once nodes that were removed, and
+    // the number of cfg nodes that were not inlined for them
+    private int numberOfRedundantIncludes = 0;
+    private int numberOfEliminatedNodes = 0;
+
 //  ********************************************************************************
 //  CONSTRUCTOR ********************************************************************
 //  ********************************************************************************
 
-    public ProgramConverter(boolean specialNodes, boolean useAliasAnalysis) {
+    public ProgramConverter(AnalysisSession session, boolean specialNodes, boolean useAliasAnalysis) {
+        this(session, specialNodes, useAliasAnalysis, null);
+    }
+
+    public ProgramConverter(
+        AnalysisSession session, boolean specialNodes, boolean useAliasAnalysis, ProgramDatabase programDatabase
+    ) {
+        this.session = session;
+        this.programDatabase = programDatabase;
+
         // determine working directory (= directory of the entry file)
-        this.workingDirectoryFile = MyOptions.entryFile.getParentFile();
+        this.workingDirectoryFile = session.getEntryFile().getParentFile();
 
-        this.includeGraph = new IncludeGraph(MyOptions.entryFile);
+        if (programDatabase != null) {
+            this.fileIndex = programDatabase.getFileIndex();
+            this.resolutionCache = programDatabase.getResolutionCache();
+        } else {
+            this.fileIndex = new ProjectFileIndex();
+            this.resolutionCache = new IncludeResolutionCache();
+        }
+
+        this.includeGraph = new IncludeGraph(session.getEntryFile());
 
         this.specialNodes = specialNodes;
         this.useAliasAnalysis = useAliasAnalysis;
 
-        this.allFiles.add(MyOptions.entryFile);
+        this.allFiles.add(session.getEntryFile());
 
         initializeSuperglobalsSymbolTable();
     }
@@ -103,6 +200,12 @@ public class ProgramConverter {
 //  GET ****************************************************************************
 //  ********************************************************************************
 
+//  getSession *********************************************************************
+
+    public AnalysisSession getSession() {
+        return this.session;
+    }
+
 //  getTac *************************************************************************
 
     public TacConverter getTac() {
@@ -115,6 +218,55 @@ public class ProgramConverter {
         return this.superSymbolTable;
     }
 
+//  getAllFiles ********************************************************************
+
+    // the entry file and all files that were included into it
+    public Set<File> getAllFiles() {
+        return this.allFiles;
+    }
+
+//  getIncludeGraph ****************************************************************
+
+    public IncludeGraph getIncludeGraph() {
+        return this.includeGraph;
+    }
+
+//  getNumberOfLiteralQueries ******************************************************
+
+    // the number of literal queries for non-literal includes
+    public int getNumberOfLiteralQueries() {
+        return this.numberOfLiteralQueries;
+    }
+
+    // the number of those queries that were answered by an analysis of the whole program
+    public int getNumberOfLiteralFallbacks() {
+        return this.numberOfLiteralFallbacks;
+    }
+
+//  getNumberOfPropagatedCopies ****************************************************
+
+    // the results of the optimization (-O); 0 if the program wasn't optimized
+    public int getNumberOfPropagatedCopies() {
+        return (this.optimizer == null) ? 0 : this.optimizer.getNumberOfPropagatedCopies();
+    }
+
+    public int getNumberOfRemovedAssignments() {
+        return (this.optimizer == null) ? 0 : this.optimizer.getNumberOfRemovedAssignments();
+    }
+
+    public int getNumberOfRemovedTemporaries() {
+        return (this.optimizer == null) ? 0 : this.optimizer.getNumberOfRemovedTemporaries();
+    }
+
+//  ********************************************************************************
+//  SET ****************************************************************************
+//  ********************************************************************************
+
+    // budget 0: every include expression is evaluated by an analysis of the whole program
+    public void setLiteralQueryBudget(int literalQueryBudget) {
+        this.literalQueryBudget = literalQueryBudget;
+    }
+
 //  ********************************************************************************
 //  OTHER **************************************************************************
 //  ********************************************************************************
@@ -122,6 +274,18 @@ public class ProgramConverter {
 //  convert ************************************************************************
 
     public void convert() {
+        try {
+            this.convertProgram();
+        } finally {
+            // the parser threads must not outlive a failed conversion either
+            if (this.parserPool != null) {
+                this.parserPool.shutdown();
+                this.parserPool = null;
+            }
+        }
+    }
+
+    private void convertProgram() {
         convertEntryFile();
 
         List<Include> processUs = baseTac.getIncludeNodes();
@@ -166,7 +330,15 @@ public class ProgramConverter {
             System.out.println("*** resolving literal includes ***");
             System.out.println();
 
+            // function bodies are converted as soon as they become reachable
+            // (through the calls in the files that have been included so far)
+            if (processUs.isEmpty()) {
+                processUs = this.baseTac.convertReachableFunctions();
+            }
+
             while (!processUs.isEmpty()) {
+                this.prefetchParseTrees(processUs);
+
                 // auxiliary list: will be filled with the include nodes
                 // contained in included files
                 weComeAfterwards = new LinkedList<>();
@@ -199,17 +371,26 @@ public class ProgramConverter {
                             this.skipUs.add(includeNode);
                             cyclic++;
                             break;
+                        case REDUNDANT:
+                            // the include node was removed
+                            break;
                         default:
                             throw new RuntimeException("SNH");
                     }
                 }
 
                 processUs = weComeAfterwards;
+                if (processUs.isEmpty()) {
+                    processUs = this.baseTac.convertReachableFunctions();
+                }
             }
             System.out.println();
 
-            // assign functions to cfg nodes
-            this.baseTac.assignFunctionsToControlFlowGraphNodes();
+            // assign functions to the cfg nodes that have been added
+            this.baseTac.assignFunctionsToNewControlFlowGraphNodes();
+            if (MyOptions.option_C) {
+                this.baseTac.checkFunctionAssignment();
+            }
 
             // resolution of non-literal includes **********************************
 
@@ -224,26 +405,29 @@ public class ProgramConverter {
             System.out.println();
 
             // requires literal analysis and hence, preliminary backpatching
+            // (of the calls that have been added since the last iteration)
             this.baseTac.backpatch();
+            if (MyOptions.option_C) {
+                this.baseTac.checkBackpatching();
+            }
 
-            int kSize = 1;
-            ConnectorComputation connectorComp = new ConnectorComputation(
-                baseTac.getAllFunctions(), baseTac.getMainFunction(), kSize);
-            connectorComp.compute();
-            InterproceduralWorklist workList = new InterproceduralWorklistBetter(new InterproceduralWorklistOrder(baseTac, connectorComp));
-            connectorComp.stats(false);
-
-            AliasAnalysis aliasAnalysis = new DummyAliasAnalysis();
-
-            literalAnalysis = new LiteralAnalysis(
-                baseTac, aliasAnalysis, new CallStringAnalysis(connectorComp), workList);
-            literalAnalysis.analyze();
+            // the include expressions are evaluated on demand; only if that is too
+            // expensive, the whole program is analyzed
+            this.literalAnalysis = new DemandDrivenLiteralAnalysis(this.baseTac, this.literalQueryBudget) {
+                protected LiteralAnalysis analyzeCompletely() {
+                    return ProgramConverter.this.analyzeLiterals();
+                }
+            };
+            DemandDrivenLiteralAnalysis queries = (DemandDrivenLiteralAnalysis) this.literalAnalysis;
 
             processUs = literalAnalysis.getIncludeNodes();
             weComeAfterwards = new LinkedList<>();
             notFoundDynamicIncludes = new TreeMap<>();
             topIncludes = new HashSet<>();
 
+            // evaluate all include expressions before including anything, since
+            // inclusion modifies the program
+            Map<Include, String> includedStrings = new LinkedHashMap<>();
             for (Include includeNode : processUs) {
                 if (this.skipUs.contains(includeNode)) {
                     continue;
@@ -257,7 +441,7 @@ public class ProgramConverter {
                     // try heuristics
                     List<String> includeTargets = ParseNodeHeuristics.getPossibleIncludeTargets(
                         includeNode, literalAnalysis, notFoundDynamicIncludes,
-                        this.workingDirectoryFile.getPath());
+                        this.workingDirectoryFile, this.fileIndex);
 
                     if (includeTargets == null) {
                         // more than one possibility
@@ -274,6 +458,14 @@ public class ProgramConverter {
                 } else {
                     includedString = includedLit.toString();
                 }
+                includedStrings.put(includeNode, includedString);
+            }
+            this.numberOfLiteralQueries += queries.getNumberOfAnsweredQueries() + queries.getNumberOfFallbacks();
+            this.numberOfLiteralFallbacks += queries.getNumberOfFallbacks();
+
+            for (Map.Entry<Include, String> entry : includedStrings.entrySet()) {
+                Include includeNode = entry.getKey();
+                String includedString = entry.getValue();
 
                 // include!
                 InclusionStatus status = this.include(includedString, includeNode, includeNode.getIncludeFunction(),
@@ -294,6 +486,11 @@ public class ProgramConverter {
                         // perhaps we will succeed in a later iteration...
                         notFoundDynamicIncludes.put(includeNode, includedString);
                         break;
+                    case REDUNDANT:
+                        // the include node was removed, which might make other
+                        // includes resolvable
+                        goOn = true;
+                        break;
                     default:
                         throw new RuntimeException("SNH");
                 }
@@ -301,14 +498,21 @@ public class ProgramConverter {
 
             System.out.println();
 
-            // assign functions to cfg nodes
-            this.baseTac.assignFunctionsToControlFlowGraphNodes();
+            // assign functions to the cfg nodes that have been added
+            this.baseTac.assignFunctionsToNewControlFlowGraphNodes();
+            if (MyOptions.option_C) {
+                this.baseTac.checkFunctionAssignment();
+            }
 
             processUs = weComeAfterwards;
             processUs.addAll(topIncludes);  // maybe they will become resolvable in the next iteration
             processUs.addAll(notFoundDynamicIncludes.keySet()); // _,,_
         }
 
+        // the bodies of the functions that are called in the final program
+        // (only necessary if includes are not resolved, see option -W)
+        this.baseTac.convertReachableFunctions();
+
         // don't generate warnings for unreachables
         this.removeUnreachables(topIncludes, notFoundDynamicIncludes);
 
@@ -349,6 +553,12 @@ public class ProgramConverter {
             this.baseTac.backpatch(true, true, typeAnalysis, connectorComp.getCallGraph());
         }
 
+        // copy propagation and removal of dead temporaries (-O);
+        // has to be done before the nodes are summarized into basic blocks
+        if (MyOptions.option_O) {
+            this.optimizer = TacOptimizer.optimize(this.baseTac);
+        }
+
         // summarize into basic blocks;
         // leads to a reduced amount of used memory
         if (MyOptions.optionV) {
@@ -367,9 +577,16 @@ public class ProgramConverter {
         if (!MyOptions.optionW) {
             System.out.println();
             System.out.println("inclusion iterations:            " + iteration);
+            System.out.println("demand-driven literal queries:   " + this.numberOfLiteralQueries +
+                " (" + this.numberOfLiteralFallbacks + " answered by full analysis)");
+            System.out.println("reused literal analysis nodes:   " + this.numberOfReusedLiteralNodes +
+                " of " + this.numberOfLiteralNodes);
             System.out.println("resolved literal includes:       " + resolvedLit);
             System.out.println("resolved non-literal includes:   " + resolvedNonLit);
             System.out.println("cyclic includes:                 " + cyclic);
+            System.out.println("copied includes:                 " + this.numberOfCopies);
+            System.out.println("redundant *_once includes:       " + this.numberOfRedundantIncludes +
+                " (" + this.numberOfEliminatedNodes + " cfg nodes not inlined)");
             System.out.println("not found includes:              " +
                 (notFoundLiteralIncludes.size() + notFoundDynamicIncludes.size()));
             for (Map.Entry<Include, String> entry : notFoundLiteralIncludes.entrySet()) {
@@ -380,6 +597,14 @@ public class ProgramConverter {
                 System.out.println("- " + entry.getKey().getLoc());
                 System.out.println("   [" + entry.getValue() + "]");
             }
+            System.out.println("reachable functions:             " + (this.baseTac.getAllFunctions().size() - 1) +
+                " (" + this.baseTac.getNumberOfUnconvertedFunctions() + " unreachable ones not converted)");
+            if (this.optimizer != null) {
+                System.out.println("optimized program:               " + this.getNumberOfPropagatedCopies() +
+                    " copies propagated, " + this.getNumberOfRemovedAssignments() +
+                    " dead assignments removed, " + this.getNumberOfRemovedTemporaries() +
+                    " temporaries removed");
+            }
             System.out.println("unresolved non-literal includes: " + topIncludes.size());
             List<Include> topIncludesList = new LinkedList<>(topIncludes);
             Collections.sort(topIncludesList);
@@ -390,13 +615,37 @@ public class ProgramConverter {
 
             // dump include relationships
             Utils.writeToFile(this.includeGraph.dump(),
-                MyOptions.graphPath + "/includes_" + MyOptions.entryFile.getName() + ".txt");
+                MyOptions.graphPath + "/includes_" + this.session.getEntryFile().getName() + ".txt");
+
+            // dump the reachable (i.e., converted) functions
+            List<String> reachableFunctions = new LinkedList<>();
+            for (TacFunction function : this.baseTac.getAllFunctions()) {
+                if (!function.isMain()) {
+                    String className = function.getClassName().isEmpty() ? "" : function.getClassName() + "::";
+                    reachableFunctions.add(className + function.getName() + " (" + function.getLoc() + ")");
+                }
+            }
+            Collections.sort(reachableFunctions);
+            StringBuilder functionDump = new StringBuilder();
+            for (String reachableFunction : reachableFunctions) {
+                functionDump.append(reachableFunction);
+                functionDump.append("\n");
+            }
+            Utils.writeToFile(functionDump.toString(),
+                MyOptions.graphPath + "/functions_" + this.session.getEntryFile().getName() + ".txt");
         }
 
         // we don't need these any more
+        this.baseTac.releaseConversionData();
         this.literalAnalysis = null;
-        this.includeGraph = null;
+        this.fullLiteralAnalysis = null;
+        this.literalConnectorComp = null;
         this.skipUs = null;
+        this.templates = null;
+        this.templateKeys = null;
+        this.prefetchedParseTrees = null;
+        this.inlinedFiles = null;
+        this.mainCfgSizes = null;
 
         this.baseTac.addSuperGlobalElements();
 
@@ -414,13 +663,42 @@ public class ProgramConverter {
      * Converts the entry file and sets baseTac.
      */
     private void convertEntryFile() {
-        ParseTree parseTree = this.parse(MyOptions.entryFile.getPath());
+        File entryFile = this.session.getEntryFile();
+        ParseTree parseTree = this.parse(entryFile.getPath());
         baseTac = new TacConverter(
-            parseTree, this.specialNodes, this.numberOfConvertedFiles++, MyOptions.entryFile, this
+            parseTree, this.specialNodes, this.numberOfConvertedFiles++, entryFile, this
         );
         baseTac.convert();
     }
 
+    // analyzes the whole program (reusing the previous analysis where possible);
+    // called by the demand-driven literal analysis if a query is too expensive
+    private LiteralAnalysis analyzeLiterals() {
+        // only the parts of the previous literal analysis that are affected by
+        // the files included since then have to be analyzed again
+        LiteralAnalysis previousAnalysis = this.fullLiteralAnalysis;
+        if (this.literalConnectorComp == null || !this.literalConnectorComp.update(baseTac.getAllFunctions())) {
+            int kSize = 1;
+            this.literalConnectorComp = new ConnectorComputation(
+                baseTac.getAllFunctions(), baseTac.getMainFunction(), kSize);
+            this.literalConnectorComp.compute();
+            previousAnalysis = null;
+        }
+        InterproceduralWorklist workList = new InterproceduralWorklistBetter(
+            new InterproceduralWorklistOrder(baseTac, this.literalConnectorComp));
+        this.literalConnectorComp.stats(false);
+
+        AliasAnalysis aliasAnalysis = new DummyAliasAnalysis();
+
+        LiteralAnalysis analysis = new LiteralAnalysis(
+            baseTac, aliasAnalysis, new CallStringAnalysis(this.literalConnectorComp), workList, previousAnalysis);
+        analysis.analyze();
+        this.numberOfLiteralNodes += analysis.getInterproceduralAnalysisInformation().size();
+        this.numberOfReusedLiteralNodes += analysis.getNumberOfReusedNodes();
+        this.fullLiteralAnalysis = analysis;
+        return analysis;
+    }
+
 //  ********************************************************************************
 
     // - input: a set of unresolved or not found includes
@@ -429,8 +707,7 @@ public class ProgramConverter {
     private void removeUnreachables(Set<Include> includeSet, Map<Include, String> includeMap) {
         for (Iterator<Include> iter = includeSet.iterator(); iter.hasNext(); ) {
             Include includeNode = iter.next();
-            AbstractInterproceduralAnalysisNode incAnNode = literalAnalysis.getAnalysisNode(includeNode);
-            if (incAnNode.getPhi().isEmpty()) {
+            if (!literalAnalysis.isReachable(includeNode)) {
                 iter.remove();
             }
         }
@@ -438,8 +715,7 @@ public class ProgramConverter {
         for (Iterator<Map.Entry<Include, String>> iter = includeMap.entrySet().iterator(); iter.hasNext(); ) {
             Map.Entry<Include, String> entry = iter.next();
             Include includeNode = entry.getKey();
-            AbstractInterproceduralAnalysisNode incAnNode = literalAnalysis.getAnalysisNode(includeNode);
-            if (incAnNode.getPhi().isEmpty()) {
+            if (!literalAnalysis.isReachable(includeNode)) {
                 iter.remove();
             }
         }
@@ -449,13 +725,20 @@ public class ProgramConverter {
         String canonicalFileName = createUniqueFileName(fileName);
 
         ParseTree parseTree = null;
+        if (this.programDatabase != null) {
+            parseTree = this.programDatabase.getParseTree(canonicalFileName);
+            if (parseTree != null) {
+                return parseTree;
+            }
+        }
         try {
-            PhpLexer lexer = new PhpLexer(new FileReader(canonicalFileName));
-            lexer.setFileName(canonicalFileName);
-            PhpParser parser = new PhpParser(lexer);
-            ParseNode rootNode = (ParseNode) parser.parse().value;
-            parseTree = new ParseTree(rootNode);
-        } catch (FileNotFoundException e) {
+            if (this.prefetchedParseTrees != null) {
+                parseTree = this.prefetchedParseTrees.remove(canonicalFileName);
+            }
+            if (parseTree == null) {
+                parseTree = parseFile(canonicalFileName);
+            }
+        } catch (FileNotFoundException | NoSuchFileException e) {
             Utils.bail("File not found: " + canonicalFileName);
         } catch (Exception e) {
             if (!MyOptions.optionW) {
@@ -469,12 +752,92 @@ public class ProgramConverter {
             this.numberOfLines += this.countLines(canonicalFileName);
         }
 
+        if (this.programDatabase != null) {
+            parseTree = this.programDatabase.addParseTree(canonicalFileName, parseTree);
+        }
+
         return parseTree;
     }
 
+    // parses the given file (without any error handling); used concurrently
+    private static ParseTree parseFile(String canonicalFileName) throws Exception {
+        if (MyOptions.parseTreeCache != null) {
+            return MyOptions.parseTreeCache.parse(canonicalFileName);
+        }
+        PhpLexer lexer = new PhpLexer(new FileReader(canonicalFileName));
+        lexer.setFileName(canonicalFileName);
+        PhpParser parser = new PhpParser(lexer);
+        ParseNode rootNode = (ParseNode) parser.parse().value;
+        return new ParseTree(rootNode);
+    }
+
+    // parses the files of the given literal include nodes concurrently, so that parse() finds
+    // their parse trees ready; conversion and inclusion can't run concurrently, since they modify
+    // the superglobals symbol table and have to number the converted files in a fixed order;
+    // files that can't be parsed are left to parse(), which reports the error if the file
+    // is actually included
+    private void prefetchParseTrees(List<Include> includeNodes) {
+        if (MyOptions.numberOfParserThreads < 2) {
+            return;
+        }
+
+        // files that will have to be parsed, in the order of the include nodes
+        Set<String> fileNames = new LinkedHashSet<>();
+        for (Include includeNode : includeNodes) {
+            if (this.skipUs.contains(includeNode) || !includeNode.isLiteral()) {
+                continue;
+            }
+            File includedFile = this.makeFile(includeNode.getIncludeMe().toString(), includeNode.getFile());
+            if (includedFile == null) {
+                continue;
+            }
+            String canonicalFileName = this.createUniqueFileName(includedFile.getPath());
+            if (this.prefetchedParseTrees.containsKey(canonicalFileName)
+                || (this.programDatabase != null && this.programDatabase.getParseTree(canonicalFileName) != null)) {
+                continue;
+            }
+            String key = this.getTemplateKey(canonicalFileName);
+            if (key != null && this.templates.containsKey(key)) {
+                // will be copied
+                continue;
+            }
+            fileNames.add(canonicalFileName);
+        }
+        if (fileNames.size() < 2) {
+            return;
+        }
+
+        if (this.parserPool == null) {
+            this.parserPool = Executors.newFixedThreadPool(MyOptions.numberOfParserThreads, new ThreadFactory() {
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "parser");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        Map<String, Future<ParseTree>> futures = new LinkedHashMap<>();
+        for (final String fileName : fileNames) {
+            futures.put(fileName, this.parserPool.submit(new Callable<ParseTree>() {
+                public ParseTree call() throws Exception {
+                    return parseFile(fileName);
+                }
+            }));
+        }
+        for (Map.Entry<String, Future<ParseTree>> entry : futures.entrySet()) {
+            try {
+                this.prefetchedParseTrees.put(entry.getKey(), entry.getValue().get());
+            } catch (ExecutionException e) {
+                // see above
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
     private String createUniqueFileName(String fileName) {
         try {
-            fileName = (new File(fileName)).getCanonicalPath();
+            fileName = this.fileIndex.getCanonicalFile(new File(fileName)).getPath();
         } catch (IOException e) {
             throw new RuntimeException(e.getMessage());
         }
@@ -484,10 +847,30 @@ public class ProgramConverter {
     // turns the name of a file to be included into a File object;
     // returns null if there is no such file
     private File makeFile(String fileName, File includingFile) {
+        // the files below the working directory are looked up in the index
+        this.fileIndex.addDirectory(this.workingDirectoryFile);
+
+        List<String> key = Arrays.asList(fileName, this.workingDirectoryFile.getAbsolutePath(),
+            includingFile.getAbsoluteFile().getParent(), MyOptions.includePaths.toString());
+        File file = this.resolutionCache.get(key);
+        if (file != null) {
+            return (file == IncludeResolutionCache.NOT_FOUND) ? null : file;
+        }
+
+        // results that needed the disk are cached as well: the index notices
+        // when the directories that were looked at change, and the cache is
+        // cleared together with it
+        file = this.resolveFile(fileName, includingFile);
+        this.resolutionCache.put(key, file);
+        return file;
+    }
+
+    // helper function for makeFile()
+    private File resolveFile(String fileName, File includingFile) {
         // first check whether the given file name is absolute
         File findMe = new File(fileName);
         if (findMe.isAbsolute()) {
-            if (findMe.isFile()) {
+            if (this.fileIndex.isFile(findMe)) {
                 // found it!
                 return findMe;
             }
@@ -505,7 +888,7 @@ public class ProgramConverter {
             }
 
             findMe = new File(searchIn, fileName);
-            if (findMe.isFile()) {
+            if (this.fileIndex.isFile(findMe)) {
                 // found it!
                 return findMe;
             }
@@ -524,10 +907,10 @@ public class ProgramConverter {
 
                 try {
                     File searchIn = new File(
-                        includingFile.getCanonicalFile().getParentFile(),
+                        this.fileIndex.getCanonicalFile(includingFile).getParentFile(),
                         includePath.getPath());
                     findMe = new File(searchIn, fileName);
-                    if (findMe.isFile()) {
+                    if (this.fileIndex.isFile(findMe)) {
                         // found it!
                         return findMe;
                     }
@@ -552,7 +935,7 @@ public class ProgramConverter {
             return InclusionStatus.NOT_FOUND;
         }
         try {
-            this.allFiles.add(includedFile.getCanonicalFile());
+            this.allFiles.add(this.fileIndex.getCanonicalFile(includedFile));
         } catch (IOException e) {
             throw new RuntimeException(e.getMessage());
         }
@@ -564,20 +947,36 @@ public class ProgramConverter {
         // get canonical path of included file
         String includedFilePath = null;
         try {
-            includedFilePath = includedFile.getCanonicalPath();
+            includedFilePath = this.fileIndex.getCanonicalFile(includedFile).getPath();
         } catch (IOException e) {
             throw new RuntimeException(e.getMessage());
         }
 
         if (acyclic) {
+            // an include_once of a file that has already been inlined on every path
+            // leading to it does nothing
+            if (includeNode.isOnce() && this.isAlwaysIncludedBefore(includedFilePath, includeNode, function)
+                && this.baseTac.removeInclude(includeNode)) {
+
+                this.numberOfRedundantIncludes++;
+                this.numberOfEliminatedNodes += this.mainCfgSizes.get(includedFilePath);
+                return InclusionStatus.REDUNDANT;
+            }
+
             if (!MyOptions.optionB) {
                 System.out.print(".");
             }
-            ParseTree parseTree = this.parse(includedFilePath);
-            TacConverter tac = new TacConverter(
-                parseTree, this.specialNodes, this.numberOfConvertedFiles++, includedFile, this);
-            tac.convert();
-            this.baseTac.include(tac, includeNode, function);
+            TacConverter tac = this.convertIncludedFile(includedFilePath, includedFile);
+            this.mainCfgSizes.put(includedFilePath, countNodes(tac.getMainFunction().getControlFlowGraph()));
+            IncludeEnd includeEnd = this.baseTac.include(tac, includeNode, function);
+            if (includeEnd != null) {
+                List<IncludeEnd> includeEnds = this.inlinedFiles.get(includedFilePath);
+                if (includeEnds == null) {
+                    includeEnds = new LinkedList<>();
+                    this.inlinedFiles.put(includedFilePath, includeEnds);
+                }
+                includeEnds.add(includeEnd);
+            }
             includeNodes.addAll(tac.getIncludeNodes());
             return InclusionStatus.INCLUDED;
         } else {
@@ -585,6 +984,97 @@ public class ProgramConverter {
         }
     }
 
+    // is the given file inlined on every path from the entry of the given function to the given
+    // include node? (i.e., is the include node unreachable if the ends of all inlined copies of
+    // the file are removed?); conservative, since inlined copies in other functions are ignored
+    private boolean isAlwaysIncludedBefore(String canonicalFileName, Include includeNode, TacFunction function) {
+        List<IncludeEnd> includeEnds = this.inlinedFiles.get(canonicalFileName);
+        if (includeEnds == null) {
+            return false;
+        }
+
+        // iterative, since the cfg of a long file is deep
+        Set<AbstractCfgNode> visited = new HashSet<>(includeEnds);
+        Deque<AbstractCfgNode> stack = new ArrayDeque<>();
+        AbstractCfgNode head = function.getControlFlowGraph().getHead();
+        if (visited.add(head)) {
+            stack.push(head);
+        }
+        while (!stack.isEmpty()) {
+            AbstractCfgNode node = stack.pop();
+            if (node == includeNode) {
+                return false;
+            }
+            for (CfgEdge outEdge : node.getOutEdges()) {
+                if (outEdge != null && visited.add(outEdge.getDestination())) {
+                    stack.push(outEdge.getDestination());
+                }
+            }
+        }
+        return true;
+    }
+
+    // number of nodes of the given cfg (ControlFlowGraph.size() is recursive)
+    private static int countNodes(ControlFlowGraph controlFlowGraph) {
+        Set<AbstractCfgNode> visited = new HashSet<>();
+        Deque<AbstractCfgNode> stack = new ArrayDeque<>();
+        visited.add(controlFlowGraph.getHead());
+        stack.push(controlFlowGraph.getHead());
+        while (!stack.isEmpty()) {
+            for (CfgEdge outEdge : stack.pop().getOutEdges()) {
+                if (outEdge != null && visited.add(outEdge.getDestination())) {
+                    stack.push(outEdge.getDestination());
+                }
+            }
+        }
+        return visited.size();
+    }
+
+    // converts the given file for an inclusion (or copies its main function from its template)
+    private TacConverter convertIncludedFile(String canonicalFileName, File includedFile) {
+        String key = this.getTemplateKey(canonicalFileName);
+        TacConverter template = (key == null) ? null : this.templates.get(key);
+
+        // with __FILE__, the converted file depends on the path under which it is included
+        if (template != null
+            && (!template.usesFileConstant() || template.getFile().getPath().equals(includedFile.getPath()))) {
+
+            this.numberOfCopies++;
+            if (this.countLines) {
+                this.numberOfLines += this.countLines(canonicalFileName);
+            }
+            return template.copyMainFunction(this.numberOfConvertedFiles++, includedFile);
+        }
+
+        ParseTree parseTree = this.parse(canonicalFileName);
+        TacConverter tac = new TacConverter(
+            parseTree, this.specialNodes, this.numberOfConvertedFiles, includedFile, this);
+        tac.convert();
+        if (template == null && key != null) {
+            // the inclusion modifies the converted main function
+            this.templates.put(key, tac.copyMainFunction(this.numberOfConvertedFiles, includedFile));
+        }
+        this.numberOfConvertedFiles++;
+        return tac;
+    }
+
+    // canonical file name and hash of the file's content; null if the file can't be read;
+    // the file is only read once, since its content doesn't change during the conversion
+    private String getTemplateKey(String canonicalFileName) {
+        if (this.templateKeys.containsKey(canonicalFileName)) {
+            return this.templateKeys.get(canonicalFileName);
+        }
+        String key;
+        try {
+            byte[] content = Files.readAllBytes(new File(canonicalFileName).toPath());
+            key = canonicalFileName + "\0" + ResultCache.sha256(content);
+        } catch (IOException e) {
+            key = null;
+        }
+        this.templateKeys.put(canonicalFileName, key);
+        return key;
+    }
+
 //  countLines *********************************************************************
 
     private int countLines(String fileName) {
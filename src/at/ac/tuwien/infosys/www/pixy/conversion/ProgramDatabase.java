@@ -0,0 +1,174 @@
+package at.ac.tuwien.infosys.www.pixy.conversion;
+
+import at.ac.tuwien.infosys.www.phpparser.ParseTree;
+import at.ac.tuwien.infosys.www.pixy.conversion.includes.IncludeResolutionCache;
+import at.ac.tuwien.infosys.www.pixy.conversion.includes.ProjectFileIndex;
+
+import java.io.File;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Program database that is shared between the ProgramConverters of several entry files (project mode).
+ *
+ * Every distinct PHP file is parsed only once and its parse tree is kept here, so that an include file that is
+ * shared by many entry points does not have to be lexed and parsed again for each of them.
+ *
+ * Note that the database stores parse trees and not converted TAC: TacConverter.include splices the CFG of an
+ * included file into the including program, so a converted file cannot be reused by a second program.
+ *
+ * The database can be shared by converters that run concurrently (parse trees are only read during conversion).
+ * A long-running user (the daemon) can request that files are checked for modifications; a changed file is
+ * then parsed again.
+ *
+ * The database also provides the index of the project's files and the cache of resolved include strings that are
+ * used for resolving includes, so that the project's directories are only walked once. Users that run for a long
+ * time call refreshFiles() before a conversion, so that created and deleted files are noticed.
+ */
+public class ProgramDatabase {
+    // canonical file name -> parse tree
+    private ConcurrentMap<String, ParseTree> parseTrees;
+
+    // canonical file name -> modification time of the file when it was parsed;
+    // only maintained if checkModifications is true
+    private ConcurrentMap<String, Long> modificationTimes;
+
+    // compare the modification time of a file with that of its parse tree
+    // before returning the parse tree?
+    private boolean checkModifications;
+
+    // index of the files below the searched directories
+    private ProjectFileIndex fileIndex;
+
+    // results of ProgramConverter.makeFile()
+    private IncludeResolutionCache resolutionCache;
+
+    // number of parse trees that were requested, but had to be created first
+    private AtomicInteger numberOfParsedFiles = new AtomicInteger();
+
+    // number of parse trees that could be taken from the database
+    private AtomicInteger numberOfReusedFiles = new AtomicInteger();
+
+    // number of parse trees that were dropped because their file was modified
+    private AtomicInteger numberOfOutdatedFiles = new AtomicInteger();
+
+    // number of times that the file index and the resolution cache were cleared because
+    // a file was created or deleted
+    private int numberOfFileRefreshes = 0;
+
+//  ********************************************************************************
+//  CONSTRUCTOR ********************************************************************
+//  ********************************************************************************
+
+    public ProgramDatabase() {
+        this(false);
+    }
+
+    public ProgramDatabase(boolean checkModifications) {
+        this.parseTrees = new ConcurrentHashMap<>();
+        this.modificationTimes = new ConcurrentHashMap<>();
+        this.checkModifications = checkModifications;
+        this.fileIndex = new ProjectFileIndex();
+        this.resolutionCache = new IncludeResolutionCache();
+    }
+
+//  ********************************************************************************
+//  GET ****************************************************************************
+//  ********************************************************************************
+
+    // returns the parse tree for the given canonical file name, or null if
+    // this file has not been parsed yet
+    ParseTree getParseTree(String canonicalFileName) {
+        ParseTree parseTree = this.parseTrees.get(canonicalFileName);
+        if (parseTree != null && this.checkModifications) {
+            Long modificationTime = this.modificationTimes.get(canonicalFileName);
+            if (modificationTime == null || modificationTime != new File(canonicalFileName).lastModified()) {
+                this.parseTrees.remove(canonicalFileName, parseTree);
+                this.numberOfOutdatedFiles.incrementAndGet();
+                return null;
+            }
+        }
+        if (parseTree != null) {
+            this.numberOfReusedFiles.incrementAndGet();
+        }
+        return parseTree;
+    }
+
+    public int size() {
+        return this.parseTrees.size();
+    }
+
+    ProjectFileIndex getFileIndex() {
+        return this.fileIndex;
+    }
+
+    IncludeResolutionCache getResolutionCache() {
+        return this.resolutionCache;
+    }
+
+    public int getNumberOfReusedResolutions() {
+        return this.resolutionCache.getNumberOfHits();
+    }
+
+    // number of file lookups that had to go to disk (the files below indexed
+    // directories are looked up in the index)
+    public int getNumberOfDiskLookups() {
+        return this.fileIndex.getNumberOfDiskLookups();
+    }
+
+    public int getNumberOfFileRefreshes() {
+        return this.numberOfFileRefreshes;
+    }
+
+    public int getNumberOfParsedFiles() {
+        return this.numberOfParsedFiles.get();
+    }
+
+    public int getNumberOfReusedFiles() {
+        return this.numberOfReusedFiles.get();
+    }
+
+    public int getNumberOfOutdatedFiles() {
+        return this.numberOfOutdatedFiles.get();
+    }
+
+//  ********************************************************************************
+//  SET ****************************************************************************
+//  ********************************************************************************
+
+    // drops the file index and the resolved include strings if a file was created or deleted
+    // below an indexed directory; must not be called while converters are running
+    public void refreshFiles() {
+        if (this.fileIndex.isOutdated()) {
+            this.fileIndex.clear();
+            this.resolutionCache.clear();
+            this.numberOfFileRefreshes++;
+        }
+    }
+
+    // drops all parse trees, but keeps the file index and the resolved include strings; used
+    // by callers that convert many entry files one after another and must not keep the parse
+    // trees of all of them; must not be called while converters are running
+    public void releaseParseTrees() {
+        this.parseTrees.clear();
+        this.modificationTimes.clear();
+    }
+
+    // if another converter has added a parse tree for the same file in the
+    // meantime, that one is kept and returned (and counted as reused)
+    ParseTree addParseTree(String canonicalFileName, ParseTree parseTree) {
+        if (this.checkModifications) {
+            // note: the time is taken after parsing, so a modification during
+            // parsing might go unnoticed until the next modification
+            this.modificationTimes.put(canonicalFileName, new File(canonicalFileName).lastModified());
+        }
+        ParseTree existing = this.parseTrees.putIfAbsent(canonicalFileName, parseTree);
+        if (existing != null) {
+            this.numberOfReusedFiles.incrementAndGet();
+            return existing;
+        }
+        this.numberOfParsedFiles.incrementAndGet();
+        return parseTree;
+    }
+}
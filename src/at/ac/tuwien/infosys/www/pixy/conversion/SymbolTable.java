@@ -47,6 +47,32 @@ public class SymbolTable {
         this.formals2FShadows = new HashMap<>();
     }
 
+    // returns a copy of this table containing copies of its variables,
+    // for a copy of a converted file
+    SymbolTable copy(TacCopy copy) {
+        SymbolTable table = new SymbolTable(this.name, this.isSuperSymTab);
+        table.isMain = this.isMain;
+        copy.addSymbolTable(this, table);
+        for (Variable variable : this.variables.values()) {
+            table.add(copy.copyVariable(variable));
+        }
+        if (this.globals2GShadows != null) {
+            table.globals2GShadows = copyShadows(this.globals2GShadows, copy);
+        }
+        if (this.formals2FShadows != null) {
+            table.formals2FShadows = copyShadows(this.formals2FShadows, copy);
+        }
+        return table;
+    }
+
+    private static Map<Variable, Variable> copyShadows(Map<Variable, Variable> shadows, TacCopy copy) {
+        Map<Variable, Variable> copiedShadows = new HashMap<>();
+        for (Map.Entry<Variable, Variable> entry : shadows.entrySet()) {
+            copiedShadows.put(copy.copyVariable(entry.getKey()), copy.copyVariable(entry.getValue()));
+        }
+        return copiedShadows;
+    }
+
 // *********************************************************************************
 // GET *****************************************************************************
 // *********************************************************************************
@@ -108,6 +134,12 @@ public class SymbolTable {
         this.variables.put(newVar, newVar);
     }
 
+    // removes the given variable (used for temporaries that are no longer needed,
+    // see TacOptimizer)
+    void remove(Variable var) {
+        this.variables.remove(var);
+    }
+
     // creates and adds a g-shadow for the given global variable
     void addGShadow(Variable global) {
         Variable gShadow = new Variable(
@@ -16,6 +16,11 @@ public class TacActualParameter {
         this.isReference = isReference;
     }
 
+    // returns a copy of this parameter for a copy of a converted file
+    TacActualParameter copy(TacCopy copy) {
+        return new TacActualParameter(copy.copyPlace(this.place), this.isReference);
+    }
+
 // *********************************************************************************
 // GET *****************************************************************************
 // *********************************************************************************
@@ -11,8 +11,9 @@ import java.util.Map;
  * @author Nenad Jovanovic <enji@seclab.tuwien.ac.at>
  */
 public class TacClass {
-    // node where the class definition starts
-    private ParseNode parseNode;
+    // location of the node where the class definition starts
+    private String fileName;
+    private int lineNumber;
 
     // the name of the class
     private String name;
@@ -27,7 +28,8 @@ public class TacClass {
         this.name = name;
         this.methods = new HashMap<>();
         this.members = new HashMap<>();
-        this.parseNode = parseNode;
+        this.fileName = parseNode.getFileName();
+        this.lineNumber = parseNode.getLinenoLeft();
     }
 
     // if this class already contains a method with the given name,
@@ -46,14 +48,14 @@ public class TacClass {
     }
 
     public String getFileName() {
-        return this.parseNode.getFileName();
+        return this.fileName;
     }
 
     public String getLoc() {
         if (!MyOptions.optionB) {
-            return this.parseNode.getFileName() + ":" + this.parseNode.getLinenoLeft();
+            return this.fileName + ":" + this.lineNumber;
         } else {
-            return Utils.basename(this.parseNode.getFileName()) + ":" + this.parseNode.getLinenoLeft();
+            return Utils.basename(this.fileName) + ":" + this.lineNumber;
         }
     }
 
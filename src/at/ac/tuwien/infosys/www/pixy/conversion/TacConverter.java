@@ -3,6 +3,7 @@ package at.ac.tuwien.infosys.www.pixy.conversion;
 import at.ac.tuwien.infosys.www.phpparser.ParseNode;
 import at.ac.tuwien.infosys.www.phpparser.ParseTree;
 import at.ac.tuwien.infosys.www.phpparser.PhpSymbols;
+import at.ac.tuwien.infosys.www.pixy.AnalysisSession;
 import at.ac.tuwien.infosys.www.pixy.MyOptions;
 import at.ac.tuwien.infosys.www.pixy.Utils;
 import at.ac.tuwien.infosys.www.pixy.analysis.interprocedural.CallGraph;
@@ -26,6 +27,9 @@ import java.util.*;
  * @author Nenad Jovanovic <enji@seclab.tuwien.ac.at>
  */
 public class TacConverter {
+    /** the analysis run to which this converter belongs */
+    private AnalysisSession session;
+
     /** the file from which the parse tree was constructed */
     private File file;
 
@@ -39,6 +43,9 @@ public class TacConverter {
     /** ID for this converter; necessary to prevent name clash of temporaries between different converters (converted files) */
     private int id;
 
+    // does the file use __FILE__? (then its conversion depends on the path of the file)
+    private boolean usesFileConstant = false;
+
     /* various stacks */
     private LinkedList<AbstractCfgNode> breakTargetStack = new LinkedList<>();
     private LinkedList<AbstractCfgNode> continueTargetStack = new LinkedList<>();
@@ -103,6 +110,15 @@ public class TacConverter {
     /** class name -> class */
     private Map<String, TacClass> userClasses = new HashMap<>();
 
+    /**
+     * User-defined functions whose bodies have not been converted yet, since no call to them has been found to be
+     * reachable from the main function (see convertReachableFunctions()); function name -> function
+     */
+    private Map<String, TacFunction> unconvertedFunctions = new HashMap<>();
+
+    /** like unconvertedFunctions, for methods; method name -> class name -> method */
+    private Map<String, Map<String, TacFunction>> unconvertedMethods = new HashMap<>();
+
     /** shortcut to the main function */
     private TacFunction mainFunction = null;
 
@@ -117,6 +133,24 @@ public class TacConverter {
      */
     private Map<TacFunction, List<CallPreparation>> methodCalls = new HashMap<>();
 
+    /**
+     * The calls (from the two maps above) that have already been resolved by backpatch();
+     * they are not looked at again, except for the final pass.
+     */
+    private Set<CallPreparation> backpatchedCalls = new HashSet<>();
+
+    /**
+     * The functions and included sections (represented by their IncludeEnd nodes and mapped
+     * to the including function) whose cfg nodes haven't been assigned their enclosing
+     * function yet (see assignFunctionsToNewControlFlowGraphNodes()); null as long as the
+     * functions have never been assigned.
+     */
+    private Set<TacFunction> unassignedFunctions = null;
+    private Map<IncludeEnd, TacFunction> unassignedSections = null;
+
+    /** the compact representation of the cfgs for the analyses (see freeze()); null if there is none yet */
+    private FrozenProgram frozenProgram = null;
+
     /** switch indicating whether special node markers (~_) should be considered */
     private boolean specialNodeMarkersShouldBeConsidered;
 
@@ -133,6 +167,7 @@ public class TacConverter {
     public TacConverter(
         ParseTree phpParseTree, boolean specialNodeMarkersShouldBeConsidered, int id, File file, ProgramConverter programConverter
     ) {
+        this.session = programConverter.getSession();
         this.id = id;
         this.file = file;
 
@@ -181,6 +216,84 @@ public class TacConverter {
         this.specialNodeMarkersShouldBeConsidered = specialNodeMarkersShouldBeConsidered;
     }
 
+    // copy of the main function of the given converted file, see copyMainFunction()
+    private TacConverter(TacConverter template, int id, File file) {
+        this.session = template.session;
+        this.id = id;
+        this.file = file;
+        this.tempId = template.tempId;
+        this.maximumTemporaryId = template.maximumTemporaryId;
+        this.usesFileConstant = template.usesFileConstant;
+
+        TacCopy copy = new TacCopy(template.id, id, template.file, file, template.superglobalsSymbolTable);
+        this.voidPlace = template.voidPlace;
+        this.specialVariablesSymbolTable = template.specialVariablesSymbolTable.copy(copy);
+        this.emptyOffsetPlace = copy.copyPlace(template.emptyOffsetPlace);
+        this.objectPlace = copy.copyVariable(template.objectPlace);
+        this.memberPlace = copy.copyVariable(template.memberPlace);
+        this.superglobalsSymbolTable = template.superglobalsSymbolTable;
+
+        // constants are not modified after the conversion
+        this.constantsTable = template.constantsTable;
+        this.lineCPlace = template.lineCPlace;
+        this.functionCPlace = template.functionCPlace;
+        this.classCPlace = template.classCPlace;
+
+        this.mainFunction = template.mainFunction.copyMain(copy);
+        this.mainFunctionSymbolTable = this.mainFunction.getSymbolTable();
+        this.userFunctions.put(InternalStrings.mainFunctionName, this.mainFunction);
+
+        List<CallPreparation> functionCalls = template.functionCalls.get(template.mainFunction);
+        if (functionCalls != null) {
+            this.functionCalls.put(this.mainFunction, copyCalls(functionCalls, copy));
+        }
+        List<CallPreparation> methodCalls = template.methodCalls.get(template.mainFunction);
+        if (methodCalls != null) {
+            this.methodCalls.put(this.mainFunction, copyCalls(methodCalls, copy));
+        }
+
+        // the include nodes and hotspots of the main function
+        for (Include includeNode : template.includeNodes) {
+            Include includeNodeCopy = (Include) copy.getCopiedNode(includeNode);
+            if (includeNodeCopy != null) {
+                this.includeNodes.add(includeNodeCopy);
+            }
+        }
+        for (Hotspot hotspot : template.hotspots.values()) {
+            Hotspot hotspotCopy = (Hotspot) copy.getCopiedNode(hotspot);
+            if (hotspotCopy != null) {
+                this.addHotspot(hotspotCopy);
+            }
+        }
+        this.specialNodeMarkersShouldBeConsidered = template.specialNodeMarkersShouldBeConsidered;
+
+        copy.finish();
+    }
+
+    private static List<CallPreparation> copyCalls(List<CallPreparation> calls, TacCopy copy) {
+        List<CallPreparation> copies = new LinkedList<>();
+        for (CallPreparation call : calls) {
+            copies.add((CallPreparation) copy.copyNode(call));
+        }
+        return copies;
+    }
+
+    // returns a converter with a copy of the main function of this converted file (which must
+    // not have been included anywhere yet), just as if the given file had been converted with
+    // the given id; since the other functions, methods and classes of a file only have to be
+    // added to the program once, this is all that a further inclusion of the file needs
+    // (see ProgramConverter.convertIncludedFile())
+    TacConverter copyMainFunction(int id, File file) {
+        return new TacConverter(this, id, file);
+    }
+
+    // returns the compact representation of the cfgs in their current state, which is used by
+    // the analyses; call this again after the cfgs have been modified
+    public FrozenProgram freeze() {
+        this.frozenProgram = FrozenProgram.freeze(this.getAllFunctions(), this.frozenProgram);
+        return this.frozenProgram;
+    }
+
     public void assignFunctionsToControlFlowGraphNodes() {
         for (TacFunction function : this.userFunctions.values()) {
             assignFunctionToControlFlowGraphNode(function);
@@ -190,6 +303,105 @@ public class TacConverter {
         for (TacFunction function : this.getMethods()) {
             assignFunctionToControlFlowGraphNode(function);
         }
+
+        this.unassignedFunctions = new LinkedHashSet<>();
+        this.unassignedSections = new LinkedHashMap<>();
+    }
+
+    // like assignFunctionsToControlFlowGraphNodes(), but only for the functions and included
+    // sections that have been added since the last call
+    public void assignFunctionsToNewControlFlowGraphNodes() {
+        if (this.unassignedFunctions == null) {
+            this.assignFunctionsToControlFlowGraphNodes();
+            return;
+        }
+
+        for (TacFunction function : this.unassignedFunctions) {
+            if (function.isConverted()) {
+                assignFunctionToControlFlowGraphNode(function);
+            }
+        }
+        for (Map.Entry<IncludeEnd, TacFunction> entry : this.unassignedSections.entrySet()) {
+            this.assignFunctionToIncludedSection(entry.getKey(), entry.getValue());
+        }
+
+        this.unassignedFunctions = new LinkedHashSet<>();
+        this.unassignedSections = new LinkedHashMap<>();
+    }
+
+    // assigns the given function to the nodes between the peer of the given include end and
+    // the include end itself
+    private void assignFunctionToIncludedSection(IncludeEnd includeEnd, TacFunction function) {
+        IncludeStart includeStart = includeEnd.getPeer();
+        includeEnd.setEnclosingFunction(function);
+
+        Set<AbstractCfgNode> visited = new HashSet<>();
+        LinkedList<AbstractCfgNode> workList = new LinkedList<>();
+        visited.add(includeEnd);
+        visited.add(includeStart);
+        workList.add(includeStart);
+        while (!workList.isEmpty()) {
+            AbstractCfgNode node = workList.removeLast();
+            node.setEnclosingFunction(function);
+            for (AbstractCfgNode successor : node.getSuccessors()) {
+                if (visited.add(successor)) {
+                    workList.add(successor);
+                }
+            }
+        }
+    }
+
+    // marks the given function for assignFunctionsToNewControlFlowGraphNodes()
+    private void addUnassignedFunction(TacFunction function) {
+        if (this.unassignedFunctions != null) {
+            this.unassignedFunctions.add(function);
+        }
+    }
+
+    // checks whether assignFunctionsToNewControlFlowGraphNodes() has the same result as
+    // assignFunctionsToControlFlowGraphNodes() (see option -C)
+    public void checkFunctionAssignment() {
+        for (TacFunction function : this.getAllFunctions()) {
+            List<AbstractCfgNode> nodes = new LinkedList<>(function.getControlFlowGraph().dfPreOrder());
+            for (TacFormalParameter parameter : function.getParams()) {
+                if (parameter.hasDefault()) {
+                    nodes.addAll(parameter.getDefaultControlFlowGraph().dfPreOrder());
+                }
+            }
+            for (AbstractCfgNode node : nodes) {
+                if (!node.hasEnclosingFunction() || node.getEnclosingFunction() != function) {
+                    throw new RuntimeException("SNH: node " + node + " (" + node.getLoc() +
+                        ") hasn't been assigned to function " + function.getName());
+                }
+            }
+        }
+    }
+
+    // checks whether the preliminary backpatch() has resolved all calls that a complete
+    // pass would resolve (see option -C)
+    public void checkBackpatching() {
+        for (List<CallPreparation> callList : this.functionCalls.values()) {
+            for (CallPreparation prepNode : callList) {
+                TacFunction callee = this.userFunctions.get(prepNode.getFunctionNamePlace().toString());
+                this.checkBackpatchedCall(prepNode, callee);
+            }
+        }
+        for (List<CallPreparation> callList : this.methodCalls.values()) {
+            for (CallPreparation prepNode : callList) {
+                String className = prepNode.getCallNode().getCalleeClassName();
+                Map<String, TacFunction> class2Method = this.userMethods.get(prepNode.getFunctionNamePlace().toString());
+                if (className != null && class2Method != null) {
+                    this.checkBackpatchedCall(prepNode, class2Method.get(className));
+                }
+            }
+        }
+    }
+
+    private void checkBackpatchedCall(CallPreparation prepNode, TacFunction callee) {
+        if (callee != null && prepNode.getCallNode().getCallee() != callee) {
+            throw new RuntimeException("SNH: call to " + prepNode.getFunctionNamePlace() + " (" +
+                prepNode.getLoc() + ") hasn't been backpatched");
+        }
     }
 
     private void assignFunctionToControlFlowGraphNode(TacFunction function) {
@@ -224,6 +436,37 @@ public class TacConverter {
         }
     }
 
+    // drops everything that is only needed while the program is converted (i.e., up to the
+    // final backpatching), above all the parse trees: afterwards, cfg nodes, functions and
+    // classes only know the file names and line numbers of their parse nodes
+    public void releaseConversionData() {
+        this.phpParseTree = null;
+
+        // unreachable functions still hold the parse trees of their bodies (and their converters)
+        this.unconvertedFunctions = new HashMap<>();
+        this.unconvertedMethods = new HashMap<>();
+
+        this.functionCalls = new HashMap<>();
+        this.methodCalls = new HashMap<>();
+        this.backpatchedCalls = new HashSet<>();
+        this.includeNodes = new LinkedList<>();
+
+        // unresolved include nodes
+        for (TacFunction function : this.getAllFunctions()) {
+            for (AbstractCfgNode node : function.getControlFlowGraph().dfPreOrder()) {
+                if (node instanceof Include) {
+                    ((Include) node).releaseParseNode();
+                } else if (node instanceof BasicBlock) {
+                    for (AbstractCfgNode contained : ((BasicBlock) node).getContainedNodes()) {
+                        if (contained instanceof Include) {
+                            ((Include) contained).releaseParseNode();
+                        }
+                    }
+                }
+            }
+        }
+    }
+
     // note: for function default cfgs (for default parameters), no basic blocks
     // are created (because it would be useless); don't change this behavior, or
     // you will get into trouble in other places
@@ -348,8 +591,9 @@ public class TacConverter {
     }
 
     // includes the given converter at the specified include node;
-    // includingFunction: the one that contains the include node
-    public void include(TacConverter includedTac, Include includeNode, TacFunction includingFunction) {
+    // includingFunction: the one that contains the include node;
+    // returns the end of the inlined main cfg (null if it was empty)
+    public IncludeEnd include(TacConverter includedTac, Include includeNode, TacFunction includingFunction) {
         // INLINE MAIN CFG *************************************
 
         // functions inside the included file
@@ -358,7 +602,10 @@ public class TacConverter {
         // retrieve main cfg that is to be included
         TacFunction includedMainFunc = includedUserFunctions.get(InternalStrings.mainFunctionName);
 
-        this.inlineMainCfg(includedMainFunc, includeNode);
+        IncludeEnd includeEnd = this.inlineMainCfg(includedMainFunc, includeNode);
+        if (includeEnd != null && this.unassignedSections != null) {
+            this.unassignedSections.put(includeEnd, includingFunction);
+        }
 
         // add function and method calls inside the included main function (for backpatching)
         this.addFunctionCalls(this.mainFunction, includedTac.getFunctionCalls(includedMainFunc));
@@ -378,7 +625,9 @@ public class TacConverter {
 
         // ADD FUNCTIONS ********************************************
 
-        for (TacFunction includedFunc : includedUserFunctions.values()) {
+        List<TacFunction> includedFunctions = new LinkedList<>(includedUserFunctions.values());
+        includedFunctions.addAll(includedTac.unconvertedFunctions.values());
+        for (TacFunction includedFunc : includedFunctions) {
             if (includedFunc.isMain()) {
                 // we have already dealt with the main function above
                 continue;
@@ -387,7 +636,7 @@ public class TacConverter {
             String includedFuncName = includedFunc.getName();
 
             // does this function already exist here?
-            TacFunction existingFunction = this.userFunctions.get(includedFuncName);
+            TacFunction existingFunction = this.getFunction(includedFuncName);
             if (existingFunction != null) {
                 // only issue a warning if they are not from the same file
                 if (!existingFunction.getFileName().equals(includedFunc.getFileName())) {
@@ -398,7 +647,12 @@ public class TacConverter {
                 continue;
             }
 
-            this.userFunctions.put(includedFuncName, includedFunc);
+            if (includedFunc.isConverted()) {
+                this.userFunctions.put(includedFuncName, includedFunc);
+                this.addUnassignedFunction(includedFunc);
+            } else {
+                this.unconvertedFunctions.put(includedFuncName, includedFunc);
+            }
 
             // add method and function calls inside this function (for backpatching)
             this.addFunctionCalls(includedFunc, includedTac.getFunctionCalls(includedFunc));
@@ -415,40 +669,40 @@ public class TacConverter {
         // ADD CLASSES / METHODS ************************************
 
         // methods inside the included file
-        Map<String, Map<String, TacFunction>> includedUserMethods = includedTac.getUserMethods();
-
-        for (Map.Entry<String, Map<String, TacFunction>> entry1 : includedUserMethods.entrySet()) {
-            String includedMethodName = entry1.getKey();
-
-            for (Map.Entry<String, TacFunction> entry2 : entry1.getValue().entrySet()) {
-                String className = entry2.getKey();
-                TacFunction includedMethod = entry2.getValue();
-
-                // try to add this method
-                TacFunction existingMethod = this.addMethod(includedMethodName, className, includedMethod);
-
-                // if there already exists such a method...
-                if (existingMethod != null) {
-
-                    // only issue a warning if they are not from the same file;
-                    // reason: if they are from the same file, it probably means that
-                    // this file was included more than once;
-                    // another possibility is that there is a real duplicate method definition
-                    // in the one file, but then, a warning for this was already issued
-                    // during the conversion of this file
-                    if (!existingMethod.getFileName().equals(includedMethod.getFileName())) {
-                        System.out.println("\nWarning: Duplicate method definition due to include: " + includedMethodName);
-                        System.out.println("- found: " + includedMethod.getLoc());
-                        System.out.println("- using: " + existingMethod.getLoc());
-                    }
-
-                    continue;
+        List<TacFunction> includedMethods = new LinkedList<>(includedTac.getMethods());
+        for (Map<String, TacFunction> class2Method : includedTac.unconvertedMethods.values()) {
+            includedMethods.addAll(class2Method.values());
+        }
+
+        for (TacFunction includedMethod : includedMethods) {
+            String includedMethodName = includedMethod.getName();
+            String className = includedMethod.getClassName();
+
+            // try to add this method
+            TacFunction existingMethod = this.addMethod(includedMethodName, className, includedMethod);
+
+            // if there already exists such a method...
+            if (existingMethod != null) {
+
+                // only issue a warning if they are not from the same file;
+                // reason: if they are from the same file, it probably means that
+                // this file was included more than once;
+                // another possibility is that there is a real duplicate method definition
+                // in the one file, but then, a warning for this was already issued
+                // during the conversion of this file
+                if (!existingMethod.getFileName().equals(includedMethod.getFileName())) {
+                    System.out.println("\nWarning: Duplicate method definition due to include: " + includedMethodName);
+                    System.out.println("- found: " + includedMethod.getLoc());
+                    System.out.println("- using: " + existingMethod.getLoc());
                 }
 
-                // add method and function calls inside this method (for backpatching)
-                this.addFunctionCalls(includedMethod, includedTac.getFunctionCalls(includedMethod));
-                this.addMethodCalls(includedMethod, includedTac.getMethodCalls(includedMethod));
+                continue;
             }
+            this.addUnassignedFunction(includedMethod);
+
+            // add method and function calls inside this method (for backpatching)
+            this.addFunctionCalls(includedMethod, includedTac.getFunctionCalls(includedMethod));
+            this.addMethodCalls(includedMethod, includedTac.getMethodCalls(includedMethod));
         }
 
         // add class info
@@ -488,10 +742,40 @@ public class TacConverter {
         if (this.specialNodeMarkersShouldBeConsidered) {
             this.hotspots.putAll(includedTac.hotspots);
         }
+
+        // the function bodies that are converted later by the included converter
+        // belong to this program from now on
+        includedTac.shareTables(this, includingSymTab);
+
+        return includeEnd;
     }
 
-    // helper function for "include": inlines the main CFG
-    private void inlineMainCfg(TacFunction includedMainFunc, Include includeNode) {
+    // makes this converter put everything that it creates from now on (i.e., while converting
+    // function bodies) into the tables of the given converter, which has included this one;
+    // global variables end up in the given symbol table, just as the globals of the included
+    // main function
+    private void shareTables(TacConverter includingTac, SymbolTable includingSymTab) {
+        this.mainFunctionSymbolTable = includingSymTab;
+        this.constantsTable = includingTac.constantsTable;
+        this.userFunctions = includingTac.userFunctions;
+        this.unconvertedFunctions = includingTac.unconvertedFunctions;
+        this.userMethods = includingTac.userMethods;
+        this.unconvertedMethods = includingTac.unconvertedMethods;
+        this.userClasses = includingTac.userClasses;
+        this.functionCalls = includingTac.functionCalls;
+        this.methodCalls = includingTac.methodCalls;
+        this.hotspots = includingTac.hotspots;
+    }
+
+    // removes an include node without including anything (for a redundant
+    // include_once); returns false if the node can't be removed
+    public boolean removeInclude(Include includeNode) {
+        return this.removeCfgNode(includeNode) != null;
+    }
+
+    // helper function for "include": inlines the main CFG;
+    // returns the new IncludeEnd node (null if the main cfg was empty)
+    private IncludeEnd inlineMainCfg(TacFunction includedMainFunc, Include includeNode) {
         ControlFlowGraph includedMainControlFlowGraph = includedMainFunc.getControlFlowGraph();
 
         // entry and exit nodes of the included file's main cfg
@@ -505,8 +789,9 @@ public class TacConverter {
         // simply remove the include node
         if (afterEntry instanceof CfgExit) {
             this.removeCfgNode(includeNode);
+            return null;
         } else {
-            IncludeStart includeStart = new IncludeStart(includeNode.getFile(), includeNode.getParseNode());
+            IncludeStart includeStart = new IncludeStart(includeNode.getFile(), includeNode);
             IncludeEnd includeEnd = new IncludeEnd(includeStart);
 
             // edges entering the exit
@@ -547,6 +832,7 @@ public class TacConverter {
 
             // connect includeEnd with the node following the include node
             connect(includeEnd, afterInclude);
+            return includeEnd;
         }
     }
 
@@ -616,6 +902,10 @@ public class TacConverter {
         return this.userMethods;
     }
 
+    public AnalysisSession getSession() {
+        return this.session;
+    }
+
     public boolean hasEmptyMain() {
         return this.mainFunction.isEmpty();
     }
@@ -632,6 +922,18 @@ public class TacConverter {
         return this.maximumTemporaryId;
     }
 
+    int getId() {
+        return this.id;
+    }
+
+    File getFile() {
+        return this.file;
+    }
+
+    boolean usesFileConstant() {
+        return this.usesFileConstant;
+    }
+
     // returns a list containing all variables and constants
     public List<AbstractTacPlace> getPlacesList() {
         List<AbstractTacPlace> placesList = new LinkedList<>();
@@ -1062,33 +1364,45 @@ public class TacConverter {
         connect(source, secondControlFlowGraph, CfgEdge.NORMAL_EDGE);
     }
 
-    // adds a method to this.userMethods; if a method with this methodName and
-    // className already exists, it returns the already existing method;
-    // otherwise, it adds the method and returns null
+    // adds a method to this.userMethods (or this.unconvertedMethods, if its body hasn't been
+    // converted yet); if a method with this methodName and className already exists, it
+    // returns the already existing method; otherwise, it adds the method and returns null
     private TacFunction addMethod(String methodName, String className, TacFunction method) {
-        Map<String, TacFunction> class2Method = this.userMethods.get(methodName);
-        if (class2Method == null) {
-            class2Method = new HashMap<>();
-            this.userMethods.put(methodName, class2Method);
-        }
-        TacFunction existingMethod = class2Method.get(className);
+        TacFunction existingMethod = this.getMethod(methodName, className);
         if (existingMethod != null) {
             return existingMethod;
-        } else {
-            class2Method.put(className, method);
-            return null;
         }
+        Map<String, Map<String, TacFunction>> methods = method.isConverted() ? this.userMethods : this.unconvertedMethods;
+        Map<String, TacFunction> class2Method = methods.get(methodName);
+        if (class2Method == null) {
+            class2Method = new HashMap<>();
+            methods.put(methodName, class2Method);
+        }
+        class2Method.put(className, method);
+        return null;
     }
 
-    // returns the method with the given name in the given class; null if
-    // there is no such method
+    // returns the method with the given name in the given class (converted or not);
+    // null if there is no such method
     private TacFunction getMethod(String methodName, String className) {
-        Map<String, TacFunction> class2Method = this.userMethods.get(methodName);
-        if (class2Method == null) {
-            // no such method name
-            return null;
+        for (Map<String, Map<String, TacFunction>> methods : Arrays.asList(this.userMethods, this.unconvertedMethods)) {
+            Map<String, TacFunction> class2Method = methods.get(methodName);
+            if (class2Method != null && class2Method.containsKey(className)) {
+                return class2Method.get(className);
+            }
         }
-        return class2Method.get(className);
+        // no such method
+        return null;
+    }
+
+    // returns the function with the given name (converted or not); null if there
+    // is no such function
+    private TacFunction getFunction(String functionName) {
+        TacFunction function = this.userFunctions.get(functionName);
+        if (function == null) {
+            function = this.unconvertedFunctions.get(functionName);
+        }
+        return function;
     }
 
 // *********************************************************************************
@@ -1301,7 +1615,7 @@ public class TacConverter {
         String functionName = node.getChild(2).getLexeme().toLowerCase();
         boolean isReference = (node.getChild(1).getChild(0).getSymbol() == PhpSymbols.T_EPSILON);
 
-        TacFunction existingFunction = this.userFunctions.get(functionName);
+        TacFunction existingFunction = this.getFunction(functionName);
         if (existingFunction != null) {
 
             // either a bug or a conditional function declaration
@@ -1328,7 +1642,7 @@ public class TacConverter {
             this.makeReturnPlace(functionName),
             isReference,
             node, "");
-        this.userFunctions.put(functionName, function);
+        this.unconvertedFunctions.put(functionName, function);
 
         // push the function's name onto the function stack
         this.functionStack.add(function);
@@ -1351,12 +1665,9 @@ public class TacConverter {
         // set function parameters
         function.setParams(attsParamList.getFormalParamList());
 
-        // construct inner ControlFlowGraph
-        TacAttributes attsStat = this.inner_statement_list(node.getChild(statNum));
-
-        // embed inner ControlFlowGraph into function's frame ControlFlowGraph
-        connect(entryNode, attsStat.getControlFlowGraph());
-        connect(attsStat.getControlFlowGraph(), exitNode);
+        // the inner ControlFlowGraph is constructed as soon as the function
+        // turns out to be reachable
+        function.setUnconvertedBody(node.getChild(statNum), this);
 
         // return empty ControlFlowGraph (we don't put function Cfgs inside one another)
         AbstractCfgNode emptyNode = new Empty();
@@ -1364,9 +1675,6 @@ public class TacConverter {
 
         // pop function stack
         this.functionStack.removeLast();
-
-        // optimize function's ControlFlowGraph
-        this.removeEmptyNodesFromCfg(controlFlowGraph);
     }
 
     TacFunction methodHelper(ParseNode node, int paramListNum, int statNum, String functionName) {
@@ -1408,20 +1716,128 @@ public class TacConverter {
         // set function parameters
         function.setParams(attsParamList.getFormalParamList());
 
+        // the inner ControlFlowGraph is constructed as soon as the method
+        // turns out to be reachable
+        function.setUnconvertedBody(node.getChild(statNum), this);
+
+        // pop function stack
+        this.functionStack.removeLast();
+
+        return function;
+    }
+
+    // converts the body of the given function or method, which has been left for later
+    // by functionHelper() or methodHelper(); returns the include nodes inside the body
+    private List<Include> convertBody(TacFunction function) {
+        int includeCount = this.includeNodes.size();
+        int logId = this.tempId;
+
+        this.functionStack.add(function);
+        boolean isMethod = !function.getClassName().isEmpty();
+        if (isMethod) {
+            this.classStack.add(this.userClasses.get(function.getClassName()));
+        }
+
         // construct inner ControlFlowGraph
-        TacAttributes attsStat = this.inner_statement_list(node.getChild(statNum));
+        TacAttributes attsStat = this.inner_statement_list(function.getUnconvertedBody());
 
         // embed inner ControlFlowGraph into function's frame ControlFlowGraph
-        connect(entryNode, attsStat.getControlFlowGraph());
-        connect(attsStat.getControlFlowGraph(), exitNode);
+        ControlFlowGraph controlFlowGraph = function.getControlFlowGraph();
+        connect(controlFlowGraph.getHead(), attsStat.getControlFlowGraph());
+        connect(attsStat.getControlFlowGraph(), controlFlowGraph.getTail());
 
-        // pop function stack
+        if (isMethod) {
+            this.classStack.removeLast();
+        }
         this.functionStack.removeLast();
+        this.resetId(logId);
+        function.setConverted();
 
         // optimize function's ControlFlowGraph
         this.removeEmptyNodesFromCfg(controlFlowGraph);
+        this.transformGlobals(controlFlowGraph);
+
+        return new LinkedList<>(this.includeNodes.subList(includeCount, this.includeNodes.size()));
+    }
+
+    // converts the bodies of all functions and methods that are called (directly or
+    // indirectly) by the main function and haven't been converted yet; calls to methods
+    // of unknown classes reach all methods with this name; returns the include nodes
+    // inside the converted bodies
+    public List<Include> convertReachableFunctions() {
+        List<Include> newIncludeNodes = new LinkedList<>();
+
+        Set<TacFunction> visited = new HashSet<>();
+        LinkedList<TacFunction> workList = new LinkedList<>();
+        visited.add(this.mainFunction);
+        workList.add(this.mainFunction);
+
+        while (!workList.isEmpty()) {
+            TacFunction function = workList.removeFirst();
+            List<TacFunction> callees = new LinkedList<>();
+
+            for (CallPreparation prepNode : this.getFunctionCalls(function)) {
+                String functionName = prepNode.getFunctionNamePlace().toString();
+                TacFunction callee = this.unconvertedFunctions.remove(functionName);
+                if (callee != null) {
+                    newIncludeNodes.addAll(callee.getConverter().convertBody(callee));
+                    this.userFunctions.put(functionName, callee);
+                    this.addUnassignedFunction(callee);
+                } else {
+                    callee = this.userFunctions.get(functionName);
+                }
+                if (callee != null) {
+                    callees.add(callee);
+                }
+            }
 
-        return function;
+            for (CallPreparation prepNode : this.getMethodCalls(function)) {
+                String methodName = prepNode.getFunctionNamePlace().toString();
+                String className = prepNode.getCallNode().getCalleeClassName();
+
+                Map<String, TacFunction> class2Method = this.unconvertedMethods.get(methodName);
+                if (class2Method != null) {
+                    List<TacFunction> convertUs = new LinkedList<>();
+                    if (className == null) {
+                        convertUs.addAll(class2Method.values());
+                        class2Method.clear();
+                    } else if (class2Method.containsKey(className)) {
+                        convertUs.add(class2Method.remove(className));
+                    }
+                    for (TacFunction callee : convertUs) {
+                        newIncludeNodes.addAll(callee.getConverter().convertBody(callee));
+                        this.addMethod(methodName, callee.getClassName(), callee);
+                        this.addUnassignedFunction(callee);
+                    }
+                }
+
+                class2Method = this.userMethods.get(methodName);
+                if (class2Method != null) {
+                    if (className == null) {
+                        callees.addAll(class2Method.values());
+                    } else if (class2Method.containsKey(className)) {
+                        callees.add(class2Method.get(className));
+                    }
+                }
+            }
+
+            for (TacFunction callee : callees) {
+                if (visited.add(callee)) {
+                    workList.add(callee);
+                }
+            }
+        }
+
+        return newIncludeNodes;
+    }
+
+    // number of functions and methods whose bodies haven't been converted (yet)
+    public int getNumberOfUnconvertedFunctions() {
+        int count = this.unconvertedFunctions.size();
+        for (Map<String, TacFunction> class2Method : this.unconvertedMethods.values()) {
+            count += class2Method.size();
+        }
+        return count;
     }
 
     // creates an empty constructor for the given class name
@@ -1916,10 +2332,16 @@ public class TacConverter {
     // - finalPass: issues warnings for unresolved calls, and performs some
     //   source code replacements
     // - typeAnalysis: can also be null
+    // calls that have been resolved by an earlier pass are skipped (except for the final pass),
+    // so that repeated passes only have to deal with the calls added by new inclusions
     public void backpatch(boolean riskMethods, boolean finalPass, TypeAnalysis typeAnalysis, CallGraph callGraph) {
         // method backpatching
         for (List<CallPreparation> callList : this.methodCalls.values()) {
             for (CallPreparation prepNode : callList) {
+                boolean backpatched = this.backpatchedCalls.contains(prepNode);
+                if (backpatched && !finalPass) {
+                    continue;
+                }
 
                 Call callNode = prepNode.getCallNode();
                 CallReturn retNode = prepNode.getCallRetNode();
@@ -2054,14 +2476,21 @@ public class TacConverter {
                     }
                 }
 
-                callNode.setCallee(callee);
-                retNode.setRetVar(callee.getRetVar());
+                if (!backpatched) {
+                    callNode.setCallee(callee);
+                    retNode.setRetVar(callee.getRetVar());
+                    this.backpatchedCalls.add(prepNode);
+                }
             }
         }
 
         // function backpatching
         for (List<CallPreparation> callList : this.functionCalls.values()) {
             for (CallPreparation prepNode : callList) {
+                boolean backpatched = this.backpatchedCalls.contains(prepNode);
+                if (backpatched && !finalPass) {
+                    continue;
+                }
 
                 Call callNode = prepNode.getCallNode();
                 CallReturn retNode = (CallReturn) callNode.getOutEdge(0).getDestination();
@@ -2144,8 +2573,11 @@ public class TacConverter {
                     }
                 }
 
-                callNode.setCallee(callee);
-                retNode.setRetVar(callee.getRetVar());
+                if (!backpatched) {
+                    callNode.setCallee(callee);
+                    retNode.setRetVar(callee.getRetVar());
+                    this.backpatchedCalls.add(prepNode);
+                }
             }
         }
     }
@@ -2158,7 +2590,7 @@ public class TacConverter {
             functionName,
             prepNode.getParamList(),
             callRet.getTempVar(),
-            prepNode.getParseNode(),
+            prepNode,
             isMethod);
 
         // update predecessors:
@@ -4373,7 +4805,7 @@ public class TacConverter {
                 AbstractTacPlace tempPlace = this.newTemp();
                 TacAttributes attsExpr = this.expr(node.getChild(1));
                 Include cfgNode = new Include(tempPlace, attsExpr.getPlace(),
-                    this.file, this.functionStack.getLast(), node);
+                    this.file, this.functionStack.getLast(), false, node);
                 this.includeNodes.add(cfgNode);
                 connect(attsExpr.getControlFlowGraph(), cfgNode);
                 myAtts.setControlFlowGraph(new ControlFlowGraph(
@@ -4388,7 +4820,7 @@ public class TacConverter {
                 AbstractTacPlace tempPlace = this.newTemp();
                 TacAttributes attsExpr = this.expr(node.getChild(1));
                 Include cfgNode = new Include(tempPlace, attsExpr.getPlace(),
-                    this.file, this.functionStack.getLast(), node);
+                    this.file, this.functionStack.getLast(), true, node);
                 this.includeNodes.add(cfgNode);
                 connect(attsExpr.getControlFlowGraph(), cfgNode);
                 myAtts.setControlFlowGraph(new ControlFlowGraph(
@@ -4417,7 +4849,7 @@ public class TacConverter {
                 AbstractTacPlace tempPlace = this.newTemp();
                 TacAttributes attsExpr = this.expr(node.getChild(1));
                 Include cfgNode = new Include(tempPlace, attsExpr.getPlace(),
-                    this.file, this.functionStack.getLast(), node);
+                    this.file, this.functionStack.getLast(), false, node);
                 this.includeNodes.add(cfgNode);
                 connect(attsExpr.getControlFlowGraph(), cfgNode);
                 myAtts.setControlFlowGraph(new ControlFlowGraph(
@@ -4432,7 +4864,7 @@ public class TacConverter {
                 AbstractTacPlace tempPlace = this.newTemp();
                 TacAttributes attsExpr = this.expr(node.getChild(1));
                 Include cfgNode = new Include(tempPlace, attsExpr.getPlace(),
-                    this.file, this.functionStack.getLast(), node);
+                    this.file, this.functionStack.getLast(), true, node);
                 this.includeNodes.add(cfgNode);
                 connect(attsExpr.getControlFlowGraph(), cfgNode);
                 myAtts.setControlFlowGraph(new ControlFlowGraph(
@@ -5664,6 +6096,7 @@ public class TacConverter {
                 AbstractCfgNode emptyNode = new Empty();
                 myAtts.setControlFlowGraph(new ControlFlowGraph(emptyNode, emptyNode));
                 myAtts.setPlace(new Literal(this.file.getPath()));
+                this.usesFileConstant = true;
                 //myAtts.setPlace(this.fileCPlace);
                 break;
             }
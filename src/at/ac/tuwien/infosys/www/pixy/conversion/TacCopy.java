@@ -0,0 +1,212 @@
+package at.ac.tuwien.infosys.www.pixy.conversion;
+
+import at.ac.tuwien.infosys.www.pixy.conversion.cfgnodes.AbstractCfgNode;
+
+import java.io.File;
+import java.util.*;
+
+/**
+ * Keeps track of the copies that are made while a converted file is copied for a further inclusion (see
+ * TacConverter.copyMainFunction()), and gives the copy methods of the conversion classes the copies of the objects
+ * that they refer to.
+ *
+ * Symbol tables, variables and cfg nodes of the copied function are copied; constants, literals, other functions and
+ * the superglobals are shared with the original. Temporaries get the names that they would have got from a converter
+ * with the id of the copy, and so do array elements and variable variables whose names contain renamed variables;
+ * such superglobal array elements are copied and added to the superglobals symbol table.
+ */
+public final class TacCopy {
+    private final int oldId;
+    private final int newId;
+    private final File oldFile;
+    private final File newFile;
+    private final SymbolTable superglobalsSymbolTable;
+
+    // original -> copy
+    private final Map<SymbolTable, SymbolTable> symbolTables = new IdentityHashMap<>();
+    private final Map<TacFunction, TacFunction> functions = new IdentityHashMap<>();
+    private final Map<Variable, Variable> variables = new IdentityHashMap<>();
+    private final Map<AbstractCfgNode, AbstractCfgNode> nodes = new IdentityHashMap<>();
+
+    // original variables whose copies don't refer to other places yet
+    private final Deque<Variable> unfinishedVariables = new ArrayDeque<>();
+
+    // original superglobal array elements whose copies have to be added to the superglobals symbol table
+    private final List<Variable> newSuperglobals = new LinkedList<>();
+
+//  ********************************************************************************
+//  CONSTRUCTORS *******************************************************************
+//  ********************************************************************************
+
+    TacCopy(int oldId, int newId, File oldFile, File newFile, SymbolTable superglobalsSymbolTable) {
+        this.oldId = oldId;
+        this.newId = newId;
+        this.oldFile = oldFile;
+        this.newFile = newFile;
+        this.superglobalsSymbolTable = superglobalsSymbolTable;
+    }
+
+//  ********************************************************************************
+//  GET ****************************************************************************
+//  ********************************************************************************
+
+    public Variable copyVariable(Variable original) {
+        if (original == null) {
+            return null;
+        }
+        Variable copy = this.variables.get(original);
+        if (copy != null) {
+            return copy;
+        }
+
+        String name = this.getNewName(original);
+        SymbolTable symbolTable = this.symbolTables.get(original.getSymbolTable());
+        if (symbolTable == null) {
+            if (original.getSymbolTable() != this.superglobalsSymbolTable) {
+                // variables of functions that aren't copied
+                this.variables.put(original, original);
+                return original;
+            }
+            symbolTable = this.superglobalsSymbolTable;
+            if (!name.equals(original.getName())) {
+                this.newSuperglobals.add(original);
+            } else if (this.oldId != this.newId || !this.refersToCopies(original)) {
+                // the superglobal that a conversion with the new id would use
+                copy = this.superglobalsSymbolTable.getVariable(name);
+                if (copy == null) {
+                    copy = original;
+                }
+                this.variables.put(original, copy);
+                return copy;
+            }
+            // else: the template (which has the id of the original, see
+            // ProgramConverter.convertIncludedFile()) gets its own array element
+            // that refers to its own variables, so that they are renamed in the
+            // copies of the template; it isn't added to the symbol table
+        }
+
+        copy = original.copy(name, symbolTable);
+        this.variables.put(original, copy);
+        this.unfinishedVariables.push(original);
+        return copy;
+    }
+
+    // constants and literals are shared
+    public AbstractTacPlace copyPlace(AbstractTacPlace original) {
+        if (original instanceof Variable) {
+            return this.copyVariable((Variable) original);
+        }
+        return original;
+    }
+
+    public List<TacActualParameter> copyParams(List<TacActualParameter> originals) {
+        List<TacActualParameter> copies = new LinkedList<>();
+        for (TacActualParameter original : originals) {
+            copies.add(original.copy(this));
+        }
+        return copies;
+    }
+
+    public TacFunction copyFunction(TacFunction original) {
+        TacFunction copy = this.functions.get(original);
+        return (copy == null) ? original : copy;
+    }
+
+    public AbstractCfgNode copyNode(AbstractCfgNode original) {
+        if (original == null) {
+            return null;
+        }
+        AbstractCfgNode copy = this.nodes.get(original);
+        if (copy == null) {
+            copy = original.copy(this);
+            this.nodes.put(original, copy);
+        }
+        return copy;
+    }
+
+    // the file of a copied node is the file of the copy
+    public File copyFile(File original) {
+        return this.oldFile.equals(original) ? this.newFile : original;
+    }
+
+    // returns the copy of the given node, or null if it hasn't been copied
+    AbstractCfgNode getCopiedNode(AbstractCfgNode original) {
+        return this.nodes.get(original);
+    }
+
+    // does the given array element refer to copied variables?
+    private boolean refersToCopies(Variable original) {
+        return original.isArrayElement()
+            && (this.copyVariable(original.getEnclosingArray()) != original.getEnclosingArray()
+            || this.copyPlace(original.getIndex()) != original.getIndex());
+    }
+
+    // the name that the given variable would have got from a converter with the new id
+    private String getNewName(Variable original) {
+        String name = original.getName();
+        if (this.oldId == this.newId) {
+            return name;
+        }
+
+        // see TacConverter.makeArrayElementPlace()
+        if (original.isArrayElement()) {
+            Variable enclosingArray = original.getEnclosingArray();
+            AbstractTacPlace index = original.getIndex();
+            if (name.equals(enclosingArray.getName() + "[" + index.toString() + "]")) {
+                return this.copyVariable(enclosingArray).getName() + "[" + this.copyPlace(index).toString() + "]";
+            }
+            return name;
+        }
+
+        // see TacConverter.newTemp()
+        String oldSuffix = "_" + this.oldId;
+        if (original.isTemp() && name.startsWith("_t") && name.endsWith(oldSuffix)) {
+            return name.substring(0, name.length() - oldSuffix.length()) + "_" + this.newId;
+        }
+
+        // see TacConverter.makePlace() for variable variables
+        if (original.getDependsOn() instanceof Variable) {
+            Variable dependsOn = (Variable) original.getDependsOn();
+            if (name.equals("${" + dependsOn.getName() + "}")) {
+                return "${" + this.copyVariable(dependsOn).getName() + "}";
+            }
+            if (name.equals("${" + dependsOn.toString() + "}")) {
+                return "${" + this.copyVariable(dependsOn).toString() + "}";
+            }
+        }
+
+        return name;
+    }
+
+//  ********************************************************************************
+//  SET ****************************************************************************
+//  ********************************************************************************
+
+    // must be called before the variables of the given table are copied
+    void addSymbolTable(SymbolTable original, SymbolTable copy) {
+        this.symbolTables.put(original, copy);
+    }
+
+    // must be called before the cfg of the given function is copied
+    void addFunction(TacFunction original, TacFunction copy) {
+        this.functions.put(original, copy);
+    }
+
+    // makes the copied variables refer to the copies of the places that the originals refer to,
+    // and registers the copied superglobals (as TacConverter.makeArrayElementPlace() does)
+    void finish() {
+        while (!this.unfinishedVariables.isEmpty()) {
+            Variable original = this.unfinishedVariables.pop();
+            this.variables.get(original).copyReferences(original, this);
+        }
+
+        for (Variable original : this.newSuperglobals) {
+            Variable copy = this.variables.get(original);
+            this.superglobalsSymbolTable.add(copy);
+            Variable enclosingArray = copy.getEnclosingArray();
+            if (enclosingArray == original.getEnclosingArray()) {
+                enclosingArray.addElement(copy);
+            }
+        }
+    }
+}
@@ -32,7 +32,15 @@ public class TacFunction {
     // is this the constructor of the above class?
     private boolean isConstructor;
 
-    private ParseNode parseNode;
+    // location of the function's parse node (the parse node itself is not kept)
+    private String fileName;
+    private String loc;
+
+    // the parse node of the body (inner_statement_list) as long as the body has not
+    // been converted, and the converter that converts it (see TacConverter.convertReachableFunctions());
+    // null afterwards
+    private ParseNode unconvertedBody;
+    private TacConverter converter;
 
 // *********************************************************************************
 // CONSTRUCTORS ********************************************************************
@@ -46,7 +54,8 @@ public class TacFunction {
         this.controlFlowGraph = controlFlowGraph;
         this.retVar = retVar;
         this.isReference = isReference;
-        this.parseNode = parseNode;
+        this.fileName = parseNode.getFileName();
+        this.loc = parseNode.getLoc();
         this.className = className;
         this.isConstructor = false;
         if (!className.isEmpty()) {
@@ -71,6 +80,33 @@ public class TacFunction {
         this.controlFlowGraph.getTail().setEnclosingFunction(this);
     }
 
+    // copy of the given main function for a copy of a converted file (see TacConverter.copyMainFunction())
+    private TacFunction(TacFunction main, TacCopy copy) {
+        this.name = main.name;
+        this.isReference = main.isReference;
+        this.params = Collections.emptyList();
+        this.retVar = copy.copyVariable(main.retVar);
+        this.calledFrom = new LinkedList<>();
+        this.isMain = true;
+        this.className = main.className;
+        this.isConstructor = false;
+        this.fileName = main.fileName;
+        this.loc = main.loc;
+
+        copy.addFunction(main, this);
+        this.symbolTable = main.symbolTable.copy(copy);
+        this.controlFlowGraph = main.controlFlowGraph.copy(copy);
+    }
+
+    // returns a copy of this main function (with copies of its symbol table and cfg)
+    // for a copy of a converted file
+    TacFunction copyMain(TacCopy copy) {
+        if (!this.isMain) {
+            throw new RuntimeException("SNH");
+        }
+        return new TacFunction(this, copy);
+    }
+
 // *********************************************************************************
 // GET *****************************************************************************
 // *********************************************************************************
@@ -140,17 +176,31 @@ public class TacFunction {
     }
 
     public String getFileName() {
-        return this.parseNode.getFileName();
+        return this.fileName;
     }
 
     public String getLoc() {
-        return this.parseNode.getLoc();
+        return this.loc;
     }
 
     public String getClassName() {
         return this.className;
     }
 
+    // has the body of this function been converted? (otherwise, its cfg only consists of
+    // the unconnected entry and exit nodes)
+    public boolean isConverted() {
+        return this.unconvertedBody == null;
+    }
+
+    ParseNode getUnconvertedBody() {
+        return this.unconvertedBody;
+    }
+
+    TacConverter getConverter() {
+        return this.converter;
+    }
+
 // *********************************************************************************
 // SET *****************************************************************************
 // *********************************************************************************
@@ -164,6 +214,17 @@ public class TacFunction {
         this.isMain = isMain;
     }
 
+    // the body is converted later by the given converter
+    void setUnconvertedBody(ParseNode unconvertedBody, TacConverter converter) {
+        this.unconvertedBody = unconvertedBody;
+        this.converter = converter;
+    }
+
+    void setConverted() {
+        this.unconvertedBody = null;
+        this.converter = null;
+    }
+
     public void addCalledFrom(Call callNode) {
         this.calledFrom.add(callNode);
     }
@@ -0,0 +1,306 @@
+package at.ac.tuwien.infosys.www.pixy.conversion;
+
+import at.ac.tuwien.infosys.www.pixy.conversion.cfgnodes.*;
+
+import java.util.*;
+
+/**
+ * Optional optimization of the converted program (-O), performed after the final backpatching and before basic blocks
+ * are created:
+ *
+ * - copy propagation: "t = a . b; v = t" becomes "v = a . b" if the temporary t is dead afterwards and both
+ *   assignments have the same location (i.e., unless the statement spans several lines)
+ * - dead temporaries: assignments to temporaries that are never used are removed
+ * - temporaries that don't occur in any cfg node any more are removed from the symbol tables, so that the analyses
+ *   don't have to track them
+ *
+ * The converter already coalesces the temporaries of different statements (see TacConverter.resetId()), which is why
+ * there is no renaming of temporaries with disjoint lifetimes here. Only pure assignments (simple, unary and binary)
+ * are modified; the remaining assignment keeps its location, which is also that of the removed copy, so that reports
+ * and dependency graphs still refer to the same lines. The detected vulnerabilities stay the same, but dependency
+ * graphs contain fewer temporaries.
+ */
+final class TacOptimizer {
+    private int numberOfPropagatedCopies = 0;
+    private int numberOfRemovedAssignments = 0;
+    private int numberOfRemovedTemporaries = 0;
+
+//  ********************************************************************************
+//  OTHERS *************************************************************************
+//  ********************************************************************************
+
+    static TacOptimizer optimize(TacConverter tac) {
+        TacOptimizer optimizer = new TacOptimizer();
+        List<TacFunction> functions = tac.getAllFunctions();
+        for (TacFunction function : functions) {
+            // removing an assignment can make other temporaries dead
+            boolean changed = true;
+            while (changed) {
+                changed = optimizer.optimize(function.getControlFlowGraph());
+            }
+        }
+        optimizer.removeTemporaries(functions);
+        return optimizer;
+    }
+
+    // performs one round of copy propagation and dead code elimination on the given cfg;
+    // returns true if something was changed
+    private boolean optimize(ControlFlowGraph controlFlowGraph) {
+        List<AbstractCfgNode> nodes = controlFlowGraph.dfPreOrder();
+        Map<AbstractCfgNode, Set<Variable>> liveOut = computeLiveTemporaries(nodes);
+
+        boolean changed = false;
+        Set<AbstractCfgNode> removed = new HashSet<>();
+        for (AbstractCfgNode node : nodes) {
+            Variable temporary = getDefinedTemporary(node);
+            if (temporary == null || removed.contains(node)) {
+                continue;
+            }
+
+            AbstractCfgNode successor = node.getSuccessor(0);
+            if (liveOut.get(node).contains(temporary)) {
+                // the temporary is used later; perhaps it is only copied into some variable
+                // by the successor, which can then be assigned directly
+                if (successor instanceof AssignSimple && successor.getInEdges().size() == 1
+                    && !liveOut.get(successor).contains(temporary)) {
+
+                    AssignSimple copy = (AssignSimple) successor;
+                    if (temporary.equals(copy.getRight()) && isPlainVariable(copy.getLeft())
+                        && !copy.getLeft().equals(temporary) && hasSameLocation(node, copy)) {
+
+                        node.replaceVariable(0, copy.getLeft());
+                        removeNode(copy);
+                        removed.add(copy);
+                        this.numberOfPropagatedCopies++;
+                        changed = true;
+                    }
+                }
+            } else if (successor != null && !node.getInEdges().isEmpty()) {
+                removeNode(node);
+                removed.add(node);
+                this.numberOfRemovedAssignments++;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    // computes the temporaries that are live after each of the given nodes
+    private static Map<AbstractCfgNode, Set<Variable>> computeLiveTemporaries(List<AbstractCfgNode> nodes) {
+        Map<AbstractCfgNode, Set<Variable>> liveIn = new HashMap<>();
+        Map<AbstractCfgNode, Set<Variable>> liveOut = new HashMap<>();
+        for (AbstractCfgNode node : nodes) {
+            Set<Variable> used = new HashSet<>();
+            addUsedTemporaries(node, used);
+            liveIn.put(node, used);
+            liveOut.put(node, new HashSet<Variable>());
+        }
+
+        // backwards, until nothing changes any more
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (ListIterator<AbstractCfgNode> iterator = nodes.listIterator(nodes.size()); iterator.hasPrevious(); ) {
+                AbstractCfgNode node = iterator.previous();
+                Set<Variable> out = liveOut.get(node);
+                for (AbstractCfgNode successor : node.getSuccessors()) {
+                    Set<Variable> successorIn = liveIn.get(successor);
+                    if (successorIn != null && out.addAll(successorIn)) {
+                        changed = true;
+                    }
+                }
+                Set<Variable> in = liveIn.get(node);
+                Variable defined = getDefinedTemporary(node);
+                if (defined == null) {
+                    defined = getResultTemporary(node);
+                }
+                for (Variable temporary : out) {
+                    if (!temporary.equals(defined) && in.add(temporary)) {
+                        changed = true;
+                    }
+                }
+            }
+        }
+        return liveOut;
+    }
+
+    // returns the temporary that is assigned by the given node if it is an assignment that
+    // can be modified or removed; null otherwise
+    private static Variable getDefinedTemporary(AbstractCfgNode node) {
+        Variable left;
+        if (node instanceof AssignSimple) {
+            left = ((AssignSimple) node).getLeft();
+        } else if (node instanceof AssignBinary) {
+            left = ((AssignBinary) node).getLeft();
+        } else if (node instanceof AssignUnary) {
+            left = ((AssignUnary) node).getLeft();
+        } else {
+            return null;
+        }
+        if (left.isTemp() && isPlainVariable(left) && left.getIndexFor().isEmpty()) {
+            return left;
+        }
+        return null;
+    }
+
+    // not an array, an array element, a member, a superglobal, a return variable or a variable variable
+    private static boolean isPlainVariable(Variable variable) {
+        return !variable.isArray() && !variable.isArrayElement() && !variable.isMember()
+            && !variable.isSuperGlobal() && !variable.isReturnVariable() && !variable.isVariableVariable();
+    }
+
+    // returns the temporary that receives the result of the given call node (if it is
+    // a plain temporary); null otherwise
+    private static Variable getResultTemporary(AbstractCfgNode node) {
+        Variable tempVar;
+        if (node instanceof CallReturn) {
+            tempVar = ((CallReturn) node).getTempVar();
+        } else if (node instanceof CallBuiltinFunction) {
+            tempVar = ((CallBuiltinFunction) node).getTempVar();
+        } else if (node instanceof CallUnknownFunction) {
+            tempVar = ((CallUnknownFunction) node).getTempVar();
+        } else {
+            return null;
+        }
+        if (tempVar.isTemp() && isPlainVariable(tempVar) && tempVar.getIndexFor().isEmpty()) {
+            return tempVar;
+        }
+        return null;
+    }
+
+    // adds the temporaries that are used by the given node to the given set
+    private static void addUsedTemporaries(AbstractCfgNode node, Set<Variable> used) {
+        Set<Variable> variables = new HashSet<>();
+        for (AbstractTacPlace place : getUsedPlaces(node)) {
+            addVariables(place, variables);
+        }
+        for (Variable variable : variables) {
+            if (variable.isTemp()) {
+                used.add(variable);
+            }
+        }
+    }
+
+    // returns the places that are read by the given node; apart from the left side of
+    // assignments and the result temporaries of calls, every occurrence counts as use
+    private static List<AbstractTacPlace> getUsedPlaces(AbstractCfgNode node) {
+        List<AbstractTacPlace> places = new LinkedList<AbstractTacPlace>(node.getVariables());
+        if (getDefinedTemporary(node) != null) {
+            // the left side comes first
+            places.remove(0);
+        }
+
+        // getVariables() doesn't return everything for these nodes
+        if (node instanceof Call) {
+            // the temporary of a call is only assigned by the corresponding call-return node
+            Call call = (Call) node;
+            places.add(call.getFunctionNamePlace());
+            places.add(call.getRetVar());
+            places.add(call.getObject());
+            for (List<Variable> cbrParams : call.getCbrParams()) {
+                places.addAll(cbrParams);
+            }
+        } else if (node instanceof CallReturn) {
+            places.add(((CallReturn) node).getRetVar());
+        } else if (node instanceof If) {
+            places.add(((If) node).getRightOperand());
+        }
+        return places;
+    }
+
+    // adds the variables that occur in the given node (including the indices of
+    // array elements) to the given set
+    private static void addVariables(AbstractCfgNode node, Set<Variable> variables) {
+        List<AbstractTacPlace> places = getUsedPlaces(node);
+        places.add(getDefinedTemporary(node));
+        if (node instanceof Call) {
+            places.add(((Call) node).getTempVar());
+        } else if (node instanceof CallReturn) {
+            places.add(((CallReturn) node).getTempVar());
+        } else if (node instanceof CallBuiltinFunction) {
+            places.add(((CallBuiltinFunction) node).getTempVar());
+        } else if (node instanceof CallUnknownFunction) {
+            places.add(((CallUnknownFunction) node).getTempVar());
+        }
+
+        for (AbstractTacPlace place : places) {
+            addVariables(place, variables);
+        }
+    }
+
+    private static void addVariables(AbstractTacPlace place, Set<Variable> variables) {
+        if (!(place instanceof Variable) || !variables.add((Variable) place)) {
+            return;
+        }
+        Variable variable = (Variable) place;
+        if (variable.isArrayElement()) {
+            for (AbstractTacPlace index : variable.getIndices()) {
+                addVariables(index, variables);
+            }
+        }
+        addVariables(variable.getDependsOn(), variables);
+    }
+
+    // removes the given node, which has exactly one successor, from its cfg
+    // the remaining node of a propagated copy keeps its location, which must therefore
+    // also be that of the copy (not the case for statements that span several lines)
+    private static boolean hasSameLocation(AbstractCfgNode node1, AbstractCfgNode node2) {
+        return node1.getOriginalLineNumber() == node2.getOriginalLineNumber()
+            && Objects.equals(node1.getFileName(), node2.getFileName());
+    }
+
+    private static void removeNode(AbstractCfgNode node) {
+        AbstractCfgNode successor = node.getSuccessor(0);
+        successor.removeInEdge(node);
+        for (CfgEdge inEdge : node.getInEdges()) {
+            inEdge.setDestination(successor);
+            successor.addInEdge(inEdge);
+        }
+    }
+
+    // removes the temporaries that don't occur in the given functions any more from
+    // their symbol tables
+    private void removeTemporaries(List<TacFunction> functions) {
+        Set<Variable> occurring = new HashSet<>();
+        for (TacFunction function : functions) {
+            for (AbstractCfgNode node : function.getControlFlowGraph().dfPreOrder()) {
+                addVariables(node, occurring);
+            }
+            for (TacFormalParameter parameter : function.getParams()) {
+                if (parameter.hasDefault()) {
+                    for (AbstractCfgNode node : parameter.getDefaultControlFlowGraph().dfPreOrder()) {
+                        addVariables(node, occurring);
+                    }
+                }
+            }
+        }
+
+        for (TacFunction function : functions) {
+            SymbolTable symbolTable = function.getSymbolTable();
+            for (Variable variable : new ArrayList<>(symbolTable.getVariablesColl())) {
+                if (variable.isTemp() && isPlainVariable(variable) && variable.getIndexFor().isEmpty()
+                    && !occurring.contains(variable)) {
+
+                    symbolTable.remove(variable);
+                    this.numberOfRemovedTemporaries++;
+                }
+            }
+        }
+    }
+
+//  ********************************************************************************
+//  GET ****************************************************************************
+//  ********************************************************************************
+
+    int getNumberOfPropagatedCopies() {
+        return this.numberOfPropagatedCopies;
+    }
+
+    int getNumberOfRemovedAssignments() {
+        return this.numberOfRemovedAssignments;
+    }
+
+    int getNumberOfRemovedTemporaries() {
+        return this.numberOfRemovedTemporaries;
+    }
+}
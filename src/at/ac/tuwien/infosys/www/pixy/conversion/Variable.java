@@ -72,6 +72,23 @@ public class Variable extends AbstractTacPlace {
         }
     }
 
+    // returns a copy of this variable with the given name in the given symbol table,
+    // for a copy of a converted file; the places that the copy refers to are set
+    // by copyReferences() once all variables have been created
+    Variable copy(String name, SymbolTable symbolTable) {
+        Variable copy = new Variable(name, symbolTable);
+        copy.isSuperGlobal = this.isSuperGlobal;
+        copy.isLocal = this.isLocal;
+        copy.isGlobal = this.isGlobal;
+        copy.isArray = this.isArray;
+        copy.isArrayElement = this.isArrayElement;
+        copy.hasNonLiteralIndices = this.hasNonLiteralIndices;
+        copy.isTemp = this.isTemp;
+        copy.isMember = this.isMember;
+        copy.isReturnVariable = this.isReturnVariable;
+        return copy;
+    }
+
 // *********************************************************************************
 // GET *****************************************************************************
 // *********************************************************************************
@@ -275,6 +292,36 @@ public class Variable extends AbstractTacPlace {
         this.dependsOn = dependsOn;
     }
 
+    // makes this copy of the given variable refer to the copies of the
+    // places that the original refers to (see copy())
+    void copyReferences(Variable original, TacCopy copy) {
+        if (original.elements != null) {
+            this.elements = new LinkedHashMap<>();
+            for (Map.Entry<AbstractTacPlace, Variable> entry : original.elements.entrySet()) {
+                this.elements.put(copy.copyPlace(entry.getKey()), copy.copyVariable(entry.getValue()));
+            }
+        }
+        if (original.literalElements != null) {
+            this.literalElements = new LinkedList<>();
+            for (Variable element : original.literalElements) {
+                this.literalElements.add(copy.copyVariable(element));
+            }
+        }
+        this.enclosingArray = copy.copyVariable(original.enclosingArray);
+        this.topEnclosingArray = copy.copyVariable(original.topEnclosingArray);
+        this.index = copy.copyPlace(original.index);
+        if (original.indices != null) {
+            this.indices = new LinkedList<>();
+            for (AbstractTacPlace index : original.indices) {
+                this.indices.add(copy.copyPlace(index));
+            }
+        }
+        this.dependsOn = copy.copyPlace(original.dependsOn);
+        for (Variable element : original.indexFor) {
+            this.indexFor.add(copy.copyVariable(element));
+        }
+    }
+
     void setSymbolTable(SymbolTable symbolTable) {
         this.symbolTable = symbolTable;
     }
@@ -5,6 +5,7 @@ import at.ac.tuwien.infosys.www.pixy.Dumper;
 import at.ac.tuwien.infosys.www.pixy.MyOptions;
 import at.ac.tuwien.infosys.www.pixy.Utils;
 import at.ac.tuwien.infosys.www.pixy.conversion.CfgEdge;
+import at.ac.tuwien.infosys.www.pixy.conversion.TacCopy;
 import at.ac.tuwien.infosys.www.pixy.conversion.TacFunction;
 import at.ac.tuwien.infosys.www.pixy.conversion.Variable;
 
@@ -21,8 +22,12 @@ import java.util.List;
  * @author Nenad Jovanovic <enji@seclab.tuwien.ac.at>
  */
 public abstract class AbstractCfgNode {
-    /** the parse node (from the parse tree) to which this node refers */
-    protected final ParseNode parseNode;
+    /**
+     * File name and line number of the parse node (from the parse tree) to which this node refers. The parse node
+     * itself is not kept, so that the parse trees can be garbage-collected after the conversion.
+     */
+    private final String fileName;
+    private final int lineNumber;
 
     protected List<CfgEdge> inEdges = new ArrayList<>();
     // index 0: for false edge (or normal edge)
@@ -33,6 +38,10 @@ public abstract class AbstractCfgNode {
     // if used by the worklist); -1 if uninitialized
     private int reversePostOrder = -1;
 
+    // dense number of this cfg node in the program (see FrozenProgram);
+    // -1 if uninitialized
+    private int id = -1;
+
     // this can be one of the following:
     // - the enclosing basic block, if there is one (BasicBlock)
     // - a function's CfgEntry, if this cfg node is member of one of this
@@ -46,11 +55,25 @@ public abstract class AbstractCfgNode {
     private TacFunction enclosingFunction = null;
 
     AbstractCfgNode() {
-        this(null);
+        this((ParseNode) null);
     }
 
     AbstractCfgNode(ParseNode parseNode) {
-        this.parseNode = parseNode;
+        if (parseNode != null) {
+            this.fileName = parseNode.getFileName();
+            this.lineNumber = parseNode.getLinenoLeft();
+        } else {
+            this.fileName = null;
+            this.lineNumber = -1;
+        }
+        this.outEdges[0] = null;
+        this.outEdges[1] = null;
+    }
+
+    // for nodes that refer to the same location as the given node
+    AbstractCfgNode(AbstractCfgNode locationNode) {
+        this.fileName = locationNode.fileName;
+        this.lineNumber = locationNode.lineNumber;
         this.outEdges[0] = null;
         this.outEdges[1] = null;
     }
@@ -75,11 +98,6 @@ public abstract class AbstractCfgNode {
         return this;
     }
 
-    // can return null!
-    public ParseNode getParseNode() {
-        return this.parseNode;
-    }
-
     public List<CfgEdge> getInEdges() {
         return this.inEdges;
     }
@@ -135,16 +153,12 @@ public abstract class AbstractCfgNode {
         // it returns "-2" (i.e., the line number of the epsilon node), especially
         // for constructs such as $x = "hello $world";
         // PhpParser needs to be improved to overcome this problem
-        if (this.parseNode != null) {
-            return this.parseNode.getLinenoLeft();
-        } else {
-            return -1;
-        }
+        return this.lineNumber;
     }
 
     public String getFileName() {
-        if (this.parseNode != null) {
-            return this.parseNode.getFileName();
+        if (this.fileName != null) {
+            return this.fileName;
         } else {
             return "<file name unknown>";
         }
@@ -158,6 +172,12 @@ public abstract class AbstractCfgNode {
         }
     }
 
+    // false for nodes that can't be reached from the head of any function (such as the
+    // nodes after an "exit")
+    public boolean hasEnclosingFunction() {
+        return this.enclosingFunction != null;
+    }
+
     public TacFunction getEnclosingFunction() {
         if (this.enclosingFunction == null) {
             System.out.println(this.getFileName());
@@ -179,6 +199,10 @@ public abstract class AbstractCfgNode {
         return this.reversePostOrder;
     }
 
+    public int getId() {
+        return this.id;
+    }
+
     // returns either null or the enclosing basic block
     public BasicBlock getEnclosingBasicBlock() {
         if (this.enclosingNode == null) {
@@ -212,6 +236,16 @@ public abstract class AbstractCfgNode {
      */
     public abstract void replaceVariable(int index, Variable replacement);
 
+    /**
+     * Returns a copy of this node for a copy of a converted file, which refers to the copies of the places, functions
+     * and nodes that this node refers to (see TacCopy). The edges are copied by ControlFlowGraph.copy().
+     *
+     * @param copy
+     *
+     * @return the copy
+     */
+    public abstract AbstractCfgNode copy(TacCopy copy);
+
     public void setOutEdge(int index, CfgEdge edge) {
         this.outEdges[index] = edge;
     }
@@ -223,6 +257,10 @@ public abstract class AbstractCfgNode {
         this.reversePostOrder = i;
     }
 
+    public void setId(int id) {
+        this.id = id;
+    }
+
     public void setEnclosingBasicBlock(BasicBlock basicBlock) {
         this.enclosingNode = basicBlock;
     }
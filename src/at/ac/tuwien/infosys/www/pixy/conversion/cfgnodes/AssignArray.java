@@ -1,6 +1,7 @@
 package at.ac.tuwien.infosys.www.pixy.conversion.cfgnodes;
 
 import at.ac.tuwien.infosys.www.phpparser.ParseNode;
+import at.ac.tuwien.infosys.www.pixy.conversion.TacCopy;
 import at.ac.tuwien.infosys.www.pixy.conversion.Variable;
 
 import java.util.LinkedList;
@@ -19,6 +20,11 @@ public class AssignArray extends AbstractCfgNode {
         this.left = left;
     }
 
+    private AssignArray(AssignArray original, TacCopy copy) {
+        super(original);
+        this.left = copy.copyVariable(original.left);
+    }
+
     public Variable getLeft() {
         return this.left;
     }
@@ -38,4 +44,8 @@ public class AssignArray extends AbstractCfgNode {
                 throw new RuntimeException("SNH");
         }
     }
+
+    public AbstractCfgNode copy(TacCopy copy) {
+        return new AssignArray(this, copy);
+    }
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ package at.ac.tuwien.infosys.www.pixy.conversion.cfgnodes;
 
 import at.ac.tuwien.infosys.www.phpparser.ParseNode;
 import at.ac.tuwien.infosys.www.pixy.conversion.AbstractTacPlace;
+import at.ac.tuwien.infosys.www.pixy.conversion.TacCopy;
 import at.ac.tuwien.infosys.www.pixy.conversion.Variable;
 
 import java.util.LinkedList;
@@ -35,6 +36,14 @@ public class AssignBinary extends AbstractCfgNode {
         this.op = op;
     }
 
+    private AssignBinary(AssignBinary original, TacCopy copy) {
+        super(original);
+        this.left = copy.copyVariable(original.left);
+        this.leftOperand = copy.copyPlace(original.leftOperand);
+        this.rightOperand = copy.copyPlace(original.rightOperand);
+        this.op = original.op;
+    }
+
     public Variable getLeft() {
         return this.left;
     }
@@ -82,4 +91,8 @@ public class AssignBinary extends AbstractCfgNode {
                 throw new RuntimeException("SNH");
         }
     }
+
+    public AbstractCfgNode copy(TacCopy copy) {
+        return new AssignBinary(this, copy);
+    }
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ package at.ac.tuwien.infosys.www.pixy.conversion.cfgnodes;
 
 import at.ac.tuwien.infosys.www.phpparser.ParseNode;
 import at.ac.tuwien.infosys.www.pixy.conversion.AbstractTacPlace;
+import at.ac.tuwien.infosys.www.pixy.conversion.TacCopy;
 import at.ac.tuwien.infosys.www.pixy.conversion.Variable;
 
 import java.util.LinkedList;
@@ -22,6 +23,12 @@ public class AssignReference extends AbstractCfgNode {
         this.right = right;
     }
 
+    private AssignReference(AssignReference original, TacCopy copy) {
+        super(original);
+        this.left = copy.copyVariable(original.left);
+        this.right = copy.copyVariable(original.right);
+    }
+
     public Variable getLeft() {
         return this.left;
     }
@@ -49,4 +56,8 @@ public class AssignReference extends AbstractCfgNode {
                 throw new RuntimeException("SNH");
         }
     }
+
+    public AbstractCfgNode copy(TacCopy copy) {
+        return new AssignReference(this, copy);
+    }
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ package at.ac.tuwien.infosys.www.pixy.conversion.cfgnodes;
 
 import at.ac.tuwien.infosys.www.phpparser.ParseNode;
 import at.ac.tuwien.infosys.www.pixy.conversion.AbstractTacPlace;
+import at.ac.tuwien.infosys.www.pixy.conversion.TacCopy;
 import at.ac.tuwien.infosys.www.pixy.conversion.Variable;
 
 import java.util.LinkedList;
@@ -24,6 +25,12 @@ public class AssignSimple extends AbstractCfgNode {
         this.right = right;
     }
 
+    private AssignSimple(AssignSimple original, TacCopy copy) {
+        super(original);
+        this.left = copy.copyVariable(original.left);
+        this.right = copy.copyPlace(original.right);
+    }
+
 //  GET ****************************************************************************
 
     public Variable getLeft() {
@@ -59,4 +66,8 @@ public class AssignSimple extends AbstractCfgNode {
                 throw new RuntimeException("SNH");
         }
     }
+
+    public AbstractCfgNode copy(TacCopy copy) {
+        return new AssignSimple(this, copy);
+    }
 }
\ No newline at end of file
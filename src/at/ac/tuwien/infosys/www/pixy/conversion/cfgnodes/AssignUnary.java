@@ -2,6 +2,7 @@ package at.ac.tuwien.infosys.www.pixy.conversion.cfgnodes;
 
 import at.ac.tuwien.infosys.www.phpparser.ParseNode;
 import at.ac.tuwien.infosys.www.pixy.conversion.AbstractTacPlace;
+import at.ac.tuwien.infosys.www.pixy.conversion.TacCopy;
 import at.ac.tuwien.infosys.www.pixy.conversion.Variable;
 
 import java.util.LinkedList;
@@ -27,6 +28,13 @@ public class AssignUnary extends AbstractCfgNode {
         this.op = op;
     }
 
+    private AssignUnary(AssignUnary original, TacCopy copy) {
+        super(original);
+        this.left = copy.copyVariable(original.left);
+        this.right = copy.copyPlace(original.right);
+        this.op = original.op;
+    }
+
     public Variable getLeft() {
         return this.left;
     }
@@ -62,4 +70,8 @@ public class AssignUnary extends AbstractCfgNode {
                 throw new RuntimeException("SNH");
         }
     }
+
+    public AbstractCfgNode copy(TacCopy copy) {
+        return new AssignUnary(this, copy);
+    }
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package at.ac.tuwien.infosys.www.pixy.conversion.cfgnodes;
 
+import at.ac.tuwien.infosys.www.pixy.conversion.TacCopy;
 import at.ac.tuwien.infosys.www.pixy.conversion.Variable;
 
 import java.util.LinkedList;
@@ -13,14 +14,22 @@ import java.util.List;
 public class BasicBlock extends AbstractCfgNode {
     List<AbstractCfgNode> containedNodes;
 
-    // associate parse node of the basic block's initial node
+    // associate the location of the basic block's initial node
     // with this basic block node (important for line number)
     public BasicBlock(AbstractCfgNode initialNode) {
-        super(initialNode.getParseNode());
+        super(initialNode);
         this.containedNodes = new LinkedList<>();
         this.containedNodes.add(initialNode);
     }
 
+    private BasicBlock(BasicBlock original, TacCopy copy) {
+        super(original);
+        this.containedNodes = new LinkedList<>();
+        for (AbstractCfgNode node : original.containedNodes) {
+            this.containedNodes.add(copy.copyNode(node));
+        }
+    }
+
     // informs enclosed nodes that they are inside a basic block
     public void informEnclosedNodes() {
         for (AbstractCfgNode cfgNode : this.containedNodes) {
@@ -73,4 +82,8 @@ public class BasicBlock extends AbstractCfgNode {
             return super.getOriginalLineNumber();
         }
     }
+
+    public AbstractCfgNode copy(TacCopy copy) {
+        return new BasicBlock(this, copy);
+    }
 }
\ No newline at end of file
@@ -67,6 +67,21 @@ public class Call extends AbstractCfgNode {
         this.object = object;
     }
 
+    private Call(Call original, TacCopy copy) {
+        super(original);
+        this.functionNamePlace = copy.copyPlace(original.functionNamePlace);
+        this.callee = copy.copyFunction(original.callee);
+        if (this.callee != null) {
+            this.callee.addCalledFrom(this);
+        }
+        this.retVar = copy.copyVariable(original.retVar);
+        this.tempVar = copy.copyVariable(original.tempVar);
+        this.paramList = copy.copyParams(original.paramList);
+        this.cbrParamList = null;
+        this.calleeClassName = original.calleeClassName;
+        this.object = copy.copyVariable(original.object);
+    }
+
     public TacFunction getCallee() {
         return this.callee;
     }
@@ -175,4 +190,8 @@ public class Call extends AbstractCfgNode {
     public void setCalleeClassName(String s) {
         this.calleeClassName = s;
     }
+
+    public AbstractCfgNode copy(TacCopy copy) {
+        return new Call(this, copy);
+    }
 }
\ No newline at end of file
@@ -3,6 +3,7 @@ package at.ac.tuwien.infosys.www.pixy.conversion.cfgnodes;
 import at.ac.tuwien.infosys.www.phpparser.ParseNode;
 import at.ac.tuwien.infosys.www.pixy.conversion.AbstractTacPlace;
 import at.ac.tuwien.infosys.www.pixy.conversion.TacActualParameter;
+import at.ac.tuwien.infosys.www.pixy.conversion.TacCopy;
 import at.ac.tuwien.infosys.www.pixy.conversion.Variable;
 
 import java.util.LinkedList;
@@ -34,6 +35,13 @@ public class CallBuiltinFunction extends AbstractCfgNode {
         this.tempVar = (Variable) tempPlace;
     }
 
+    private CallBuiltinFunction(CallBuiltinFunction original, TacCopy copy) {
+        super(original);
+        this.functionName = original.functionName;
+        this.paramList = copy.copyParams(original.paramList);
+        this.tempVar = copy.copyVariable(original.tempVar);
+    }
+
 // GET *****************************************************************************
 
     public String getFunctionName() {
@@ -67,4 +75,8 @@ public class CallBuiltinFunction extends AbstractCfgNode {
         TacActualParameter param = this.paramList.get(index);
         param.setPlace(replacement);
     }
+
+    public AbstractCfgNode copy(TacCopy copy) {
+        return new CallBuiltinFunction(this, copy);
+    }
 }
\ No newline at end of file
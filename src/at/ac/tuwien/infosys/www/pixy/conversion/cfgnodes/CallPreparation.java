@@ -3,6 +3,7 @@ package at.ac.tuwien.infosys.www.pixy.conversion.cfgnodes;
 import at.ac.tuwien.infosys.www.phpparser.ParseNode;
 import at.ac.tuwien.infosys.www.pixy.conversion.AbstractTacPlace;
 import at.ac.tuwien.infosys.www.pixy.conversion.TacActualParameter;
+import at.ac.tuwien.infosys.www.pixy.conversion.TacCopy;
 import at.ac.tuwien.infosys.www.pixy.conversion.TacFunction;
 import at.ac.tuwien.infosys.www.pixy.conversion.Variable;
 
@@ -23,6 +24,10 @@ public class CallPreparation extends AbstractCfgNode {
         super(node);
     }
 
+    private CallPreparation(CallPreparation original, TacCopy copy) {
+        super(original);
+    }
+
     public TacFunction getCallee() {
         return this.getCallNode().getCallee();
     }
@@ -60,4 +65,8 @@ public class CallPreparation extends AbstractCfgNode {
     public void replaceVariable(int index, Variable replacement) {
         // do nothing
     }
+
+    public AbstractCfgNode copy(TacCopy copy) {
+        return new CallPreparation(this, copy);
+    }
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package at.ac.tuwien.infosys.www.pixy.conversion.cfgnodes;
 
 import at.ac.tuwien.infosys.www.phpparser.ParseNode;
+import at.ac.tuwien.infosys.www.pixy.conversion.TacCopy;
 import at.ac.tuwien.infosys.www.pixy.conversion.Variable;
 
 import java.util.Collections;
@@ -19,6 +20,10 @@ public class CallReturn extends AbstractCfgNode {
         super(parseNode);
     }
 
+    private CallReturn(CallReturn original, TacCopy copy) {
+        super(original);
+    }
+
     public Variable getRetVar() {
         return this.getCallNode().getRetVar();
     }
@@ -47,4 +52,8 @@ public class CallReturn extends AbstractCfgNode {
     public void setRetVar(Variable retVar) {
         this.getCallNode().setRetVar(retVar);
     }
+
+    public AbstractCfgNode copy(TacCopy copy) {
+        return new CallReturn(this, copy);
+    }
 }
\ No newline at end of file
@@ -3,6 +3,7 @@ package at.ac.tuwien.infosys.www.pixy.conversion.cfgnodes;
 import at.ac.tuwien.infosys.www.phpparser.ParseNode;
 import at.ac.tuwien.infosys.www.pixy.conversion.AbstractTacPlace;
 import at.ac.tuwien.infosys.www.pixy.conversion.TacActualParameter;
+import at.ac.tuwien.infosys.www.pixy.conversion.TacCopy;
 import at.ac.tuwien.infosys.www.pixy.conversion.Variable;
 
 import java.util.LinkedList;
@@ -36,6 +37,25 @@ public class CallUnknownFunction extends AbstractCfgNode {
         this.isMethod = isMethod;
     }
 
+    // replacement for a call whose callee is unknown (located at the given node)
+    public CallUnknownFunction(String functionName, List<TacActualParameter> paramList,
+                               AbstractTacPlace tempPlace, AbstractCfgNode locationNode, boolean isMethod) {
+
+        super(locationNode);
+        this.functionName = functionName.toLowerCase();
+        this.paramList = paramList;
+        this.tempVar = (Variable) tempPlace;
+        this.isMethod = isMethod;
+    }
+
+    private CallUnknownFunction(CallUnknownFunction original, TacCopy copy) {
+        super(original);
+        this.functionName = original.functionName;
+        this.paramList = copy.copyParams(original.paramList);
+        this.tempVar = copy.copyVariable(original.tempVar);
+        this.isMethod = original.isMethod;
+    }
+
     public String getFunctionName() {
         return this.functionName;
     }
@@ -69,4 +89,8 @@ public class CallUnknownFunction extends AbstractCfgNode {
         TacActualParameter param = this.paramList.get(index);
         param.setPlace(replacement);
     }
+
+    public AbstractCfgNode copy(TacCopy copy) {
+        return new CallUnknownFunction(this, copy);
+    }
 }
\ No newline at end of file
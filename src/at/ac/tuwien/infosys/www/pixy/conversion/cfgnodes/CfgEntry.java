@@ -1,6 +1,7 @@
 package at.ac.tuwien.infosys.www.pixy.conversion.cfgnodes;
 
 import at.ac.tuwien.infosys.www.phpparser.ParseNode;
+import at.ac.tuwien.infosys.www.pixy.conversion.TacCopy;
 import at.ac.tuwien.infosys.www.pixy.conversion.Variable;
 
 import java.util.Collections;
@@ -16,6 +17,10 @@ public class CfgEntry extends AbstractCfgNode {
         super(node);
     }
 
+    private CfgEntry(CfgEntry original, TacCopy copy) {
+        super(original);
+    }
+
     public List<Variable> getVariables() {
         return Collections.emptyList();
     }
@@ -23,4 +28,8 @@ public class CfgEntry extends AbstractCfgNode {
     public void replaceVariable(int index, Variable replacement) {
         // do nothing
     }
+
+    public AbstractCfgNode copy(TacCopy copy) {
+        return new CfgEntry(this, copy);
+    }
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package at.ac.tuwien.infosys.www.pixy.conversion.cfgnodes;
 
 import at.ac.tuwien.infosys.www.phpparser.ParseNode;
+import at.ac.tuwien.infosys.www.pixy.conversion.TacCopy;
 import at.ac.tuwien.infosys.www.pixy.conversion.Variable;
 
 import java.util.Collections;
@@ -18,6 +19,10 @@ public class CfgExit extends AbstractCfgNode {
         super(node);
     }
 
+    private CfgExit(CfgExit original, TacCopy copy) {
+        super(original);
+    }
+
 // SET *****************************************************************************
 
 // GET *****************************************************************************
@@ -31,4 +36,8 @@ public class CfgExit extends AbstractCfgNode {
     public void replaceVariable(int index, Variable replacement) {
         // do nothing
     }
+
+    public AbstractCfgNode copy(TacCopy copy) {
+        return new CfgExit(this, copy);
+    }
 }
\ No newline at end of file
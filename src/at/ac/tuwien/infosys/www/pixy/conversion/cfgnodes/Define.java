@@ -2,6 +2,7 @@ package at.ac.tuwien.infosys.www.pixy.conversion.cfgnodes;
 
 import at.ac.tuwien.infosys.www.phpparser.ParseNode;
 import at.ac.tuwien.infosys.www.pixy.conversion.AbstractTacPlace;
+import at.ac.tuwien.infosys.www.pixy.conversion.TacCopy;
 import at.ac.tuwien.infosys.www.pixy.conversion.Variable;
 
 import java.util.LinkedList;
@@ -33,6 +34,13 @@ public class Define extends AbstractCfgNode {
         this.caseInsensitive = caseInsensitive;
     }
 
+    private Define(Define original, TacCopy copy) {
+        super(original);
+        this.setMe = copy.copyPlace(original.setMe);
+        this.setTo = copy.copyPlace(original.setTo);
+        this.caseInsensitive = copy.copyPlace(original.caseInsensitive);
+    }
+
 // GET *****************************************************************************
 
     public AbstractTacPlace getSetMe() {
@@ -85,4 +93,8 @@ public class Define extends AbstractCfgNode {
                 throw new RuntimeException("SNH");
         }
     }
+
+    public AbstractCfgNode copy(TacCopy copy) {
+        return new Define(this, copy);
+    }
 }
\ No newline at end of file
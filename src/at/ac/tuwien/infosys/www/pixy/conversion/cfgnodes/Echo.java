@@ -2,6 +2,7 @@ package at.ac.tuwien.infosys.www.pixy.conversion.cfgnodes;
 
 import at.ac.tuwien.infosys.www.phpparser.ParseNode;
 import at.ac.tuwien.infosys.www.pixy.conversion.AbstractTacPlace;
+import at.ac.tuwien.infosys.www.pixy.conversion.TacCopy;
 import at.ac.tuwien.infosys.www.pixy.conversion.Variable;
 
 import java.util.Collections;
@@ -21,6 +22,11 @@ public class Echo extends AbstractCfgNode {
         this.place = place;
     }
 
+    private Echo(Echo original, TacCopy copy) {
+        super(original);
+        this.place = copy.copyPlace(original.place);
+    }
+
     public AbstractTacPlace getPlace() {
         return this.place;
     }
@@ -44,4 +50,8 @@ public class Echo extends AbstractCfgNode {
                 throw new RuntimeException("SNH");
         }
     }
+
+    public AbstractCfgNode copy(TacCopy copy) {
+        return new Echo(this, copy);
+    }
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package at.ac.tuwien.infosys.www.pixy.conversion.cfgnodes;
 
+import at.ac.tuwien.infosys.www.pixy.conversion.TacCopy;
 import at.ac.tuwien.infosys.www.pixy.conversion.Variable;
 
 import java.util.Collections;
@@ -20,10 +21,18 @@ public class Empty extends AbstractCfgNode {
         // all CFGs
     }
 
+    private Empty(Empty original, TacCopy copy) {
+        super(original);
+    }
+
     public List<Variable> getVariables() {
         return Collections.emptyList();
     }
 
     public void replaceVariable(int index, Variable replacement) {
     }
+
+    public AbstractCfgNode copy(TacCopy copy) {
+        return new Empty(this, copy);
+    }
 }
\ No newline at end of file
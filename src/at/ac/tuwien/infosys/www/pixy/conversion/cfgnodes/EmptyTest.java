@@ -2,6 +2,7 @@ package at.ac.tuwien.infosys.www.pixy.conversion.cfgnodes;
 
 import at.ac.tuwien.infosys.www.phpparser.ParseNode;
 import at.ac.tuwien.infosys.www.pixy.conversion.AbstractTacPlace;
+import at.ac.tuwien.infosys.www.pixy.conversion.TacCopy;
 import at.ac.tuwien.infosys.www.pixy.conversion.Variable;
 
 import java.util.LinkedList;
@@ -20,6 +21,12 @@ public class EmptyTest extends AbstractCfgNode {
         this.right = right;
     }
 
+    private EmptyTest(EmptyTest original, TacCopy copy) {
+        super(original);
+        this.left = copy.copyPlace(original.left);
+        this.right = copy.copyPlace(original.right);
+    }
+
     public AbstractTacPlace getLeft() {
         return this.left;
     }
@@ -55,4 +62,8 @@ public class EmptyTest extends AbstractCfgNode {
                 throw new RuntimeException("SNH");
         }
     }
+
+    public AbstractCfgNode copy(TacCopy copy) {
+        return new EmptyTest(this, copy);
+    }
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ package at.ac.tuwien.infosys.www.pixy.conversion.cfgnodes;
 
 import at.ac.tuwien.infosys.www.phpparser.ParseNode;
 import at.ac.tuwien.infosys.www.pixy.conversion.AbstractTacPlace;
+import at.ac.tuwien.infosys.www.pixy.conversion.TacCopy;
 import at.ac.tuwien.infosys.www.pixy.conversion.Variable;
 
 import java.util.LinkedList;
@@ -20,6 +21,11 @@ public class Global extends AbstractCfgNode {
         this.operand = (Variable) operand;  // must be a variable
     }
 
+    private Global(Global original, TacCopy copy) {
+        super(original);
+        this.operand = copy.copyVariable(original.operand);
+    }
+
     public Variable getOperand() {
         return this.operand;
     }
@@ -43,4 +49,8 @@ public class Global extends AbstractCfgNode {
                 throw new RuntimeException("SNH");
         }
     }
+
+    public AbstractCfgNode copy(TacCopy copy) {
+        return new Global(this, copy);
+    }
 }
\ No newline at end of file
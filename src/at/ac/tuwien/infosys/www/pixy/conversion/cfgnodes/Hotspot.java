@@ -1,5 +1,6 @@
 package at.ac.tuwien.infosys.www.pixy.conversion.cfgnodes;
 
+import at.ac.tuwien.infosys.www.pixy.conversion.TacCopy;
 import at.ac.tuwien.infosys.www.pixy.conversion.Variable;
 
 import java.util.Collections;
@@ -18,6 +19,11 @@ public class Hotspot extends AbstractCfgNode {
         this.hotspotId = hotspotId;
     }
 
+    private Hotspot(Hotspot original, TacCopy copy) {
+        super(original);
+        this.hotspotId = original.hotspotId;
+    }
+
     public Integer getHotspotId() {
         return this.hotspotId;
     }
@@ -29,4 +35,8 @@ public class Hotspot extends AbstractCfgNode {
     public void replaceVariable(int index, Variable replacement) {
         // do nothing
     }
+
+    public AbstractCfgNode copy(TacCopy copy) {
+        return new Hotspot(this, copy);
+    }
 }
\ No newline at end of file
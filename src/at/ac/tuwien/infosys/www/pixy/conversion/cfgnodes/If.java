@@ -3,6 +3,7 @@ package at.ac.tuwien.infosys.www.pixy.conversion.cfgnodes;
 import at.ac.tuwien.infosys.www.phpparser.ParseNode;
 import at.ac.tuwien.infosys.www.pixy.conversion.AbstractTacPlace;
 import at.ac.tuwien.infosys.www.pixy.conversion.Constant;
+import at.ac.tuwien.infosys.www.pixy.conversion.TacCopy;
 import at.ac.tuwien.infosys.www.pixy.conversion.Variable;
 
 import java.util.LinkedList;
@@ -29,6 +30,13 @@ public class If extends AbstractCfgNode {
         this.op = op;
     }
 
+    private If(If original, TacCopy copy) {
+        super(original);
+        this.leftOperand = copy.copyPlace(original.leftOperand);
+        this.rightOperand = copy.copyPlace(original.rightOperand);
+        this.op = original.op;
+    }
+
     public AbstractTacPlace getLeftOperand() {
         return this.leftOperand;
     }
@@ -60,4 +68,8 @@ public class If extends AbstractCfgNode {
                 throw new RuntimeException("SNH");
         }
     }
+
+    public AbstractCfgNode copy(TacCopy copy) {
+        return new If(this, copy);
+    }
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ package at.ac.tuwien.infosys.www.pixy.conversion.cfgnodes;
 
 import at.ac.tuwien.infosys.www.phpparser.ParseNode;
 import at.ac.tuwien.infosys.www.pixy.conversion.AbstractTacPlace;
+import at.ac.tuwien.infosys.www.pixy.conversion.TacCopy;
 import at.ac.tuwien.infosys.www.pixy.conversion.TacFunction;
 import at.ac.tuwien.infosys.www.pixy.conversion.Variable;
 
@@ -12,6 +13,9 @@ import java.util.List;
 /**
  * "temp = include <place>" (can also be require or *_once).
  *
+ * An include_once / require_once that is reached only after the same file has been inlined is eliminated during
+ * include resolution (see ProgramConverter.include()).
+ *
  * @author Nenad Jovanovic <enji@seclab.tuwien.ac.at>
  */
 public class Include extends AbstractCfgNode implements Comparable<Include> {
@@ -19,16 +23,33 @@ public class Include extends AbstractCfgNode implements Comparable<Include> {
     private AbstractTacPlace includeMe;
     private File file;  // file in which this node occurs
     private TacFunction includeFunction; // function in which this node occurs
+    private boolean once;  // include_once or require_once?
+
+    // the parse node of the include expression, for heuristic include resolution
+    // (see ParseNodeHeuristics); null after the conversion
+    private ParseNode parseNode;
 
 //  CONSTRUCTORS *******************************************************************
 
     public Include(AbstractTacPlace temp, AbstractTacPlace includeMe,
-                   File file, TacFunction includeFunction, ParseNode parseNode) {
+                   File file, TacFunction includeFunction, boolean once, ParseNode parseNode) {
         super(parseNode);
         this.temp = (Variable) temp;
         this.includeMe = includeMe;
         this.file = file;
         this.includeFunction = includeFunction;
+        this.once = once;
+        this.parseNode = parseNode;
+    }
+
+    private Include(Include original, TacCopy copy) {
+        super(original);
+        this.temp = copy.copyVariable(original.temp);
+        this.includeMe = copy.copyPlace(original.includeMe);
+        this.file = copy.copyFile(original.file);
+        this.includeFunction = copy.copyFunction(original.includeFunction);
+        this.once = original.once;
+        this.parseNode = original.parseNode;
     }
 
 //  GET ****************************************************************************
@@ -49,6 +70,15 @@ public class Include extends AbstractCfgNode implements Comparable<Include> {
         return this.includeFunction;
     }
 
+    public boolean isOnce() {
+        return this.once;
+    }
+
+    // can return null!
+    public ParseNode getParseNode() {
+        return this.parseNode;
+    }
+
     // is the file to be included given by a simple literal?
     public boolean isLiteral() {
         return this.includeMe.isLiteral();
@@ -73,6 +103,11 @@ public class Include extends AbstractCfgNode implements Comparable<Include> {
         this.includeFunction = function;
     }
 
+    // releases the parse tree of the file in which this node occurs
+    public void releaseParseNode() {
+        this.parseNode = null;
+    }
+
     public void replaceVariable(int index, Variable replacement) {
         switch (index) {
             case 0:
@@ -98,4 +133,8 @@ public class Include extends AbstractCfgNode implements Comparable<Include> {
             return new Integer(this.getOriginalLineNumber()).compareTo(comp.getOriginalLineNumber());
         }
     }
+
+    public AbstractCfgNode copy(TacCopy copy) {
+        return new Include(this, copy);
+    }
 }
\ No newline at end of file
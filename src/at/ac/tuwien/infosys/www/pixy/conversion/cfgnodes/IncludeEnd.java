@@ -1,5 +1,6 @@
 package at.ac.tuwien.infosys.www.pixy.conversion.cfgnodes;
 
+import at.ac.tuwien.infosys.www.pixy.conversion.TacCopy;
 import at.ac.tuwien.infosys.www.pixy.conversion.Variable;
 
 import java.io.File;
@@ -19,20 +20,34 @@ public class IncludeEnd extends AbstractCfgNode {
     // - instantiate IncludeEnd with the following constructor
     // this way, you don't have to call setPeer yourself
     public IncludeEnd(IncludeStart start) {
-        super(start.getParseNode());
+        super(start);
         start.setPeer(this);
         this.file = start.getContainingFile();
         this.peer = start;
     }
 
+    // also connects this copy with the copy of the peer
+    private IncludeEnd(IncludeEnd original, TacCopy copy) {
+        this((IncludeStart) copy.copyNode(original.peer));
+        this.file = copy.copyFile(original.file);
+    }
+
     public List<Variable> getVariables() {
         return Collections.emptyList();
     }
 
+    public IncludeStart getPeer() {
+        return this.peer;
+    }
+
     public boolean isPeer(AbstractCfgNode node) {
         return node == this.peer;
     }
 
     public void replaceVariable(int index, Variable replacement) {
     }
+
+    public AbstractCfgNode copy(TacCopy copy) {
+        return new IncludeEnd(this, copy);
+    }
 }
\ No newline at end of file
@@ -1,6 +1,6 @@
 package at.ac.tuwien.infosys.www.pixy.conversion.cfgnodes;
 
-import at.ac.tuwien.infosys.www.phpparser.ParseNode;
+import at.ac.tuwien.infosys.www.pixy.conversion.TacCopy;
 import at.ac.tuwien.infosys.www.pixy.conversion.Variable;
 
 import java.io.File;
@@ -16,12 +16,20 @@ public class IncludeStart extends AbstractCfgNode {
     private File containingFile;  // file in which this node occurs
     private IncludeEnd peer;
 
-    public IncludeStart(File file, ParseNode parseNode) {
-        super(parseNode);
+    // includeNode: the include node that is replaced by the included section
+    public IncludeStart(File file, Include includeNode) {
+        super(includeNode);
         this.containingFile = file;
         this.peer = null;
     }
 
+    private IncludeStart(IncludeStart original, TacCopy copy) {
+        super(original);
+        this.containingFile = copy.copyFile(original.containingFile);
+        // set by the copy of the peer
+        this.peer = null;
+    }
+
     public File getContainingFile() {
         return this.containingFile;
     }
@@ -36,4 +44,8 @@ public class IncludeStart extends AbstractCfgNode {
     public void setPeer(IncludeEnd peer) {
         this.peer = peer;
     }
+
+    public AbstractCfgNode copy(TacCopy copy) {
+        return new IncludeStart(this, copy);
+    }
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ package at.ac.tuwien.infosys.www.pixy.conversion.cfgnodes;
 
 import at.ac.tuwien.infosys.www.phpparser.ParseNode;
 import at.ac.tuwien.infosys.www.pixy.conversion.AbstractTacPlace;
+import at.ac.tuwien.infosys.www.pixy.conversion.TacCopy;
 import at.ac.tuwien.infosys.www.pixy.conversion.Variable;
 
 import java.util.LinkedList;
@@ -29,6 +30,13 @@ public class Static extends AbstractCfgNode {
         this.initialPlace = initialPlace;
     }
 
+    private Static(Static original, TacCopy copy) {
+        super(original);
+        this.operand = copy.copyPlace(original.operand);
+        this.initialPlace = copy.copyPlace(original.initialPlace);
+        this.hasInitialPlace = original.hasInitialPlace;
+    }
+
     public boolean hasInitialPlace() {
         return this.hasInitialPlace;
     }
@@ -68,4 +76,8 @@ public class Static extends AbstractCfgNode {
                 throw new RuntimeException("SNH");
         }
     }
+
+    public AbstractCfgNode copy(TacCopy copy) {
+        return new Static(this, copy);
+    }
 }
\ No newline at end of file
@@ -1,8 +1,10 @@
 package at.ac.tuwien.infosys.www.pixy.conversion.cfgnodes;
 
+import at.ac.tuwien.infosys.www.pixy.conversion.TacCopy;
 import at.ac.tuwien.infosys.www.pixy.conversion.Variable;
 
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
@@ -28,6 +30,12 @@ public class Tester extends AbstractCfgNode {
         this.paramNumbers = paramNumbers;
     }
 
+    private Tester(Tester original, TacCopy copy) {
+        super(original);
+        this.whatToTest = original.whatToTest;
+        this.paramNumbers = new HashSet<>(original.paramNumbers);
+    }
+
     public List<Variable> getVariables() {
         return Collections.emptyList();
     }
@@ -44,4 +52,8 @@ public class Tester extends AbstractCfgNode {
         // should not be necessary for this node
         throw new RuntimeException("SNH");
     }
+
+    public AbstractCfgNode copy(TacCopy copy) {
+        return new Tester(this, copy);
+    }
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ package at.ac.tuwien.infosys.www.pixy.conversion.cfgnodes;
 
 import at.ac.tuwien.infosys.www.phpparser.ParseNode;
 import at.ac.tuwien.infosys.www.pixy.conversion.AbstractTacPlace;
+import at.ac.tuwien.infosys.www.pixy.conversion.TacCopy;
 import at.ac.tuwien.infosys.www.pixy.conversion.Variable;
 
 import java.util.LinkedList;
@@ -21,6 +22,11 @@ public class Unset extends AbstractCfgNode {
         this.operand = (Variable) operand;
     }
 
+    private Unset(Unset original, TacCopy copy) {
+        super(original);
+        this.operand = copy.copyVariable(original.operand);
+    }
+
     public Variable getOperand() {
         return this.operand;
     }
@@ -44,4 +50,8 @@ public class Unset extends AbstractCfgNode {
                 throw new RuntimeException("SNH");
         }
     }
+
+    public AbstractCfgNode copy(TacCopy copy) {
+        return new Unset(this, copy);
+    }
 }
\ No newline at end of file
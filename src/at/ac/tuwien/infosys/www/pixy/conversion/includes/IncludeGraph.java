@@ -1,16 +1,18 @@
 package at.ac.tuwien.infosys.www.pixy.conversion.includes;
 
 import java.io.File;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
+import java.util.*;
 
 /**
  * An include graph consists of vertices corresponding to files and directed edges corresponding to include relationships.
  *
  * It has exactly one root (the entry file) and must be acyclic.
  *
+ * To decide quickly whether a new edge would close a cycle, a topological order of the nodes is maintained
+ * incrementally (Pearce and Kelly, "A Dynamic Topological Sort Algorithm for Directed Acyclic Graphs"): an edge
+ * that agrees with the order is simply added, and otherwise only the nodes between its two ends in the order are
+ * searched (and reordered).
+ *
  * @author Nenad Jovanovic <enji@seclab.tuwien.ac.at>
  */
 public class IncludeGraph {
@@ -24,6 +26,16 @@ public class IncludeGraph {
     // IncludeNode -> Integer
     private HashMap<IncludeNode, Integer> inDegrees;
 
+    // IncludeNode -> Set of IncludeNodes (predecessors)
+    private HashMap<IncludeNode, Set<IncludeNode>> predSets;
+
+    // IncludeNode -> position in the topological order (for each edge, the position of
+    // the source is smaller than that of the target); positions are not contiguous
+    private HashMap<IncludeNode, Integer> order;
+
+    // position for the next new node (at the end of the order)
+    private int nextPosition;
+
 //  ********************************************************************************
 //  CONSTRUCTORS *******************************************************************
 //  ********************************************************************************
@@ -39,8 +51,16 @@ public class IncludeGraph {
 
         this.inDegrees = new HashMap<>();
         this.inDegrees.put(root, 0);
+
+        this.predSets = new HashMap<>();
+        this.predSets.put(root, new HashSet<IncludeNode>());
+
+        this.order = new HashMap<>();
+        this.order.put(root, 0);
+        this.nextPosition = 1;
     }
 
+    // for isCyclic() only (which doesn't need the predecessors and the order)
     private IncludeGraph(IncludeGraph cloneMe) {
         this.root = cloneMe.root;
         this.nodes = new HashSet<>(cloneMe.nodes);
@@ -99,18 +119,95 @@ public class IncludeGraph {
             return true;
         }
 
-        this.addNode(to);
-        this.addEdge(from, to);
-
-        if (isCyclic()) {
-            // if this made the graph cyclic: undo
-            this.removeEdge(from, to);
+        // since the graph is acyclic, the edge closes a cycle iff "from" is
+        // reachable from "to"
+        if (!this.reorder(from, to)) {
             this.clean(from);
             this.clean(to);
             return false;
-        } else {
+        }
+        this.addEdge(from, to);
+        return true;
+    }
+
+//  reorder ************************************************************************
+
+    // adapts the topological order to the new edge (which is not added yet);
+    // returns false (leaving the order unchanged) if the edge would close a cycle
+    private boolean reorder(IncludeNode from, IncludeNode to) {
+        int lowerBound = this.order.get(to);
+        int upperBound = this.order.get(from);
+        if (lowerBound > upperBound) {
+            // the edge agrees with the order
             return true;
         }
+        if (lowerBound == upperBound) {
+            // an edge from a node to itself
+            return false;
+        }
+
+        // the nodes that are reachable from "to" and lie before "from" in the order;
+        // if "from" is reachable, the edge would close a cycle
+        List<IncludeNode> forward = new ArrayList<>();
+        Set<IncludeNode> visited = new HashSet<>();
+        Deque<IncludeNode> stack = new ArrayDeque<>();
+        visited.add(to);
+        stack.push(to);
+        while (!stack.isEmpty()) {
+            IncludeNode node = stack.pop();
+            forward.add(node);
+            for (IncludeNode successor : this.adjSets.get(node)) {
+                int position = this.order.get(successor);
+                if (position == upperBound) {
+                    return false;
+                }
+                if (position < upperBound && visited.add(successor)) {
+                    stack.push(successor);
+                }
+            }
+        }
+
+        // the nodes that reach "from" and lie behind "to" in the order
+        // (none of them is reachable from "to", since there is no cycle)
+        List<IncludeNode> backward = new ArrayList<>();
+        visited.clear();
+        visited.add(from);
+        stack.push(from);
+        while (!stack.isEmpty()) {
+            IncludeNode node = stack.pop();
+            backward.add(node);
+            for (IncludeNode predecessor : this.predSets.get(node)) {
+                if (this.order.get(predecessor) > lowerBound && visited.add(predecessor)) {
+                    stack.push(predecessor);
+                }
+            }
+        }
+
+        // the backward nodes are moved in front of the forward nodes, using the positions
+        // that these nodes already occupy (the relative order inside both groups is kept)
+        Comparator<IncludeNode> byPosition = new Comparator<IncludeNode>() {
+            public int compare(IncludeNode node1, IncludeNode node2) {
+                return Integer.compare(order.get(node1), order.get(node2));
+            }
+        };
+        Collections.sort(backward, byPosition);
+        Collections.sort(forward, byPosition);
+        List<Integer> positions = new ArrayList<>();
+        for (IncludeNode node : backward) {
+            positions.add(this.order.get(node));
+        }
+        for (IncludeNode node : forward) {
+            positions.add(this.order.get(node));
+        }
+        Collections.sort(positions);
+        Iterator<Integer> positionIterator = positions.iterator();
+        for (IncludeNode node : backward) {
+            this.order.put(node, positionIterator.next());
+        }
+        for (IncludeNode node : forward) {
+            this.order.put(node, positionIterator.next());
+        }
+        return true;
     }
 
 //  edgeExists *********************************************************************
@@ -128,14 +225,7 @@ public class IncludeGraph {
         Set<IncludeNode> adjSet = this.adjSets.get(from);
         adjSet.add(to);
         this.increaseInDegree(to);
-    }
-
-//  removeEdge *********************************************************************
-
-    private void removeEdge(IncludeNode from, IncludeNode to) {
-        this.decreaseInDegree(to);
-        Set<IncludeNode> adjSet = this.adjSets.get(from);
-        adjSet.remove(to);
+        this.predSets.get(to).add(from);
     }
 
 //  increaseInDegree ***************************************************************
@@ -166,12 +256,18 @@ public class IncludeGraph {
         if (inDegree == null) {
             this.inDegrees.put(node, 0);
         }
+
+        if (!this.predSets.containsKey(node)) {
+            this.predSets.put(node, new HashSet<IncludeNode>());
+            this.order.put(node, this.nextPosition++);
+        }
     }
 
 //  isCyclic ***********************************************************************
 
-    // tests whether this graph is actually cyclic
-    private boolean isCyclic() {
+    // tests whether this graph is actually cyclic (by a traversal of the whole graph;
+    // not needed by addAcyclicEdge() any more, but useful for checking it)
+    public boolean isCyclic() {
         // - clone this graph
         // - continue = true
         // - while "continue"
@@ -251,6 +347,8 @@ public class IncludeGraph {
             this.nodes.remove(node);
             this.adjSets.remove(node);
             this.inDegrees.remove(node);
+            this.predSets.remove(node);
+            this.order.remove(node);
         }
     }
 }
\ No newline at end of file
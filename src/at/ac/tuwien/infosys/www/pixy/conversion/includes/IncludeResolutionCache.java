@@ -0,0 +1,70 @@
+package at.ac.tuwien.infosys.www.pixy.conversion.includes;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Results of ProgramConverter.makeFile(), so that an include string that is resolved again from the same directory
+ * (such as "lib/db.php" or "../config.php") doesn't have to be looked up again. A key consists of the include
+ * string, the working directory, the directory of the including file and the include paths. Negative results
+ * (include strings that could not be resolved) are cached as well.
+ *
+ * The results are determined through a ProjectFileIndex, which also records the directories that were consulted on
+ * disk (e.g., absolute include paths outside the project), so the cache stays valid as long as the index does; both
+ * are cleared together (see ProgramDatabase.refreshFiles()).
+ */
+public final class IncludeResolutionCache {
+    // the value for include strings that could not be resolved
+    public static final File NOT_FOUND = new File("");
+
+    // key -> resolved file (or NOT_FOUND)
+    private Map<List<String>, File> resolutions;
+
+    // number of lookups that found a result
+    private int numberOfHits = 0;
+
+//  ********************************************************************************
+//  CONSTRUCTOR ********************************************************************
+//  ********************************************************************************
+
+    public IncludeResolutionCache() {
+        this.resolutions = new HashMap<>();
+    }
+
+//  ********************************************************************************
+//  GET ****************************************************************************
+//  ********************************************************************************
+
+    // the result for the given key: null if there is none, NOT_FOUND if the include
+    // string could not be resolved
+    public synchronized File get(List<String> key) {
+        File file = this.resolutions.get(key);
+        if (file != null) {
+            this.numberOfHits++;
+        }
+        return file;
+    }
+
+    public synchronized int size() {
+        return this.resolutions.size();
+    }
+
+    public synchronized int getNumberOfHits() {
+        return this.numberOfHits;
+    }
+
+//  ********************************************************************************
+//  SET ****************************************************************************
+//  ********************************************************************************
+
+    // file: null if the include string could not be resolved
+    public synchronized void put(List<String> key, File file) {
+        this.resolutions.put(key, (file == null) ? NOT_FOUND : file);
+    }
+
+    public synchronized void clear() {
+        this.resolutions.clear();
+    }
+}
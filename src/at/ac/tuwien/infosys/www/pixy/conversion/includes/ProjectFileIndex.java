@@ -0,0 +1,291 @@
+package at.ac.tuwien.infosys.www.pixy.conversion.includes;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Index of the files below some directories, so that include resolution (ProgramConverter.makeFile() and the
+ * ParseNodeHeuristics) doesn't have to ask the file system again and again.
+ *
+ * A directory is walked once, when a file below it is looked up for the first time. The index consists of a
+ * directory map (directory -> names of the files in it), a basename map (file name -> files with that name) and
+ * the reversed basenames in sorted order, so that the files whose name ends with a given suffix form a range that
+ * is found by binary search. Files outside the indexed directories are looked up on disk.
+ *
+ * All paths in the index are absolute and normalized, but not canonical (just like the paths that are looked up,
+ * whose ".." segments are thus resolved without following links); the canonical file is stored for each file, as
+ * determined during the walk.
+ *
+ * The index doesn't notice files that are created or deleted after their directory was walked; a long-running user
+ * can ask whether this has happened (isOutdated(), based on the modification times of the walked directories) and
+ * start over with an empty index (clear()). The same holds for the directories in which files outside the indexed
+ * directories were looked up on disk (such as absolute include paths), so that the answers of these lookups can be
+ * cached as well.
+ */
+public final class ProjectFileIndex {
+    // the walked directories (normalized absolute paths)
+    private Set<String> roots;
+
+    // directory -> names of the regular files in it (only for walked directories)
+    private Map<String, Set<String>> filesByDirectory;
+
+    // walked directory -> its modification time when it was walked
+    private Map<String, Long> modificationTimes;
+
+    // directory outside the walked ones in which a file was looked up on disk -> its modification
+    // time at the first lookup
+    private Map<String, Long> lookupModificationTimes;
+
+    // normalized absolute path -> canonical file
+    private Map<String, File> canonicalFiles;
+
+    // basename (of the canonical file) -> normalized absolute paths of the files with that name
+    private Map<String, List<String>> pathsByName;
+
+    // all basenames reversed, in sorted order; null if it has to be computed again
+    private String[] reversedNames;
+
+    // number of lookups that could be answered from the index, and that had to go to disk
+    private int numberOfIndexLookups = 0;
+    private int numberOfDiskLookups = 0;
+
+//  ********************************************************************************
+//  CONSTRUCTOR ********************************************************************
+//  ********************************************************************************
+
+    public ProjectFileIndex() {
+        this.roots = new HashSet<>();
+        this.filesByDirectory = new HashMap<>();
+        this.modificationTimes = new HashMap<>();
+        this.lookupModificationTimes = new HashMap<>();
+        this.canonicalFiles = new HashMap<>();
+        this.pathsByName = new HashMap<>();
+        this.reversedNames = null;
+    }
+
+//  ********************************************************************************
+//  GET ****************************************************************************
+//  ********************************************************************************
+
+    // is the given file an existing regular file? (see File.isFile());
+    // answered from the index if the file is below an indexed directory
+    public synchronized boolean isFile(File file) {
+        String path = normalize(file);
+        if (!this.isIndexed(path)) {
+            this.numberOfDiskLookups++;
+            this.addLookupDirectory(new File(path).getParentFile());
+            return file.isFile();
+        }
+        this.numberOfIndexLookups++;
+        Set<String> names = this.filesByDirectory.get(new File(path).getParent());
+        return names != null && names.contains(new File(path).getName());
+    }
+
+    // returns the canonical file for the given file; for files below an indexed directory,
+    // the canonical file is taken from the index
+    public synchronized File getCanonicalFile(File file) throws IOException {
+        String path = normalize(file);
+        File canonicalFile = this.canonicalFiles.get(path);
+        if (canonicalFile != null) {
+            this.numberOfIndexLookups++;
+            return canonicalFile;
+        }
+        this.numberOfDiskLookups++;
+        return file.getCanonicalFile();
+    }
+
+    // returns the (canonical) files below the given directory whose canonical path ends with the given
+    // suffix; the directory is walked first if it is not indexed yet
+    public synchronized List<File> findBySuffix(File directory, String suffix) {
+        String directoryPath = normalize(directory);
+        if (!this.isIndexed(directoryPath)) {
+            this.addDirectory(directoryPath);
+        }
+        String directoryPrefix = directoryPath.endsWith(File.separator) ? directoryPath : directoryPath + File.separator;
+
+        // candidate paths: those with a matching basename
+        Collection<String> candidatePaths;
+        int separatorIndex = suffix.lastIndexOf(File.separatorChar);
+        if (separatorIndex >= 0) {
+            // the suffix contains the complete basename
+            candidatePaths = this.pathsByName.get(suffix.substring(separatorIndex + 1));
+            if (candidatePaths == null) {
+                candidatePaths = Collections.emptyList();
+            }
+        } else {
+            candidatePaths = new LinkedList<>();
+            for (String name : this.getNamesBySuffix(suffix)) {
+                candidatePaths.addAll(this.pathsByName.get(name));
+            }
+        }
+
+        List<File> files = new LinkedList<>();
+        for (String path : candidatePaths) {
+            File canonicalFile = this.canonicalFiles.get(path);
+            if (path.startsWith(directoryPrefix) && canonicalFile.getPath().endsWith(suffix)) {
+                files.add(canonicalFile);
+            }
+        }
+        return files;
+    }
+
+    public synchronized int size() {
+        return this.canonicalFiles.size();
+    }
+
+    // has a file been created or deleted below an indexed directory since it was walked, or in a
+    // directory in which a file was looked up on disk? (as far as the resolution of the directories'
+    // modification times allows to tell)
+    public synchronized boolean isOutdated() {
+        return isOutdated(this.modificationTimes) || isOutdated(this.lookupModificationTimes);
+    }
+
+    private static boolean isOutdated(Map<String, Long> modificationTimes) {
+        for (Map.Entry<String, Long> entry : modificationTimes.entrySet()) {
+            // 0 if the directory doesn't exist any more
+            if (new File(entry.getKey()).lastModified() != entry.getValue()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public synchronized int getNumberOfIndexLookups() {
+        return this.numberOfIndexLookups;
+    }
+
+    public synchronized int getNumberOfDiskLookups() {
+        return this.numberOfDiskLookups;
+    }
+
+    // is the given path (normalized) below an indexed directory?
+    private boolean isIndexed(String path) {
+        for (File file = new File(path); file != null; file = file.getParentFile()) {
+            if (this.roots.contains(file.getPath())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // basenames that end with the given suffix (a range of the sorted reversed names)
+    private List<String> getNamesBySuffix(String suffix) {
+        if (this.reversedNames == null) {
+            this.reversedNames = new String[this.pathsByName.size()];
+            int i = 0;
+            for (String name : this.pathsByName.keySet()) {
+                this.reversedNames[i++] = reverse(name);
+            }
+            Arrays.sort(this.reversedNames);
+        }
+
+        String reversedSuffix = reverse(suffix);
+        int index = Arrays.binarySearch(this.reversedNames, reversedSuffix);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        List<String> names = new LinkedList<>();
+        while (index < this.reversedNames.length && this.reversedNames[index].startsWith(reversedSuffix)) {
+            names.add(reverse(this.reversedNames[index]));
+            index++;
+        }
+        return names;
+    }
+
+//  ********************************************************************************
+//  SET ****************************************************************************
+//  ********************************************************************************
+
+    // adds the files below the given directory to the index (if it is not indexed yet)
+    public synchronized void addDirectory(File directory) {
+        String directoryPath = normalize(directory);
+        if (!this.isIndexed(directoryPath)) {
+            this.addDirectory(directoryPath);
+        }
+    }
+
+    // remembers the modification time of the given directory (the parent of a file that is looked up on disk);
+    // if it doesn't exist, that of its closest existing ancestor, which changes when the directory is created
+    private void addLookupDirectory(File directory) {
+        while (directory != null && !directory.isDirectory()) {
+            directory = directory.getParentFile();
+        }
+        if (directory != null && !this.lookupModificationTimes.containsKey(directory.getPath())) {
+            this.lookupModificationTimes.put(directory.getPath(), directory.lastModified());
+        }
+    }
+
+    // walks the given directory (iteratively, and without following cyclic links)
+    private void addDirectory(String directoryPath) {
+        Set<File> visitedDirectories = new HashSet<>();
+        Deque<File> directories = new ArrayDeque<>();
+        directories.push(new File(directoryPath));
+        while (!directories.isEmpty()) {
+            File directory = directories.pop();
+
+            // the subtree might have been walked before as a root of its own
+            if (this.filesByDirectory.containsKey(directory.getPath())) {
+                continue;
+            }
+            // taken before listing the entries, so that a later modification is noticed
+            long modificationTime = directory.lastModified();
+            File[] entries = directory.listFiles();
+            if (entries == null) {
+                continue;
+            }
+            try {
+                if (!visitedDirectories.add(directory.getCanonicalFile())) {
+                    continue;
+                }
+                Set<String> names = new HashSet<>();
+                this.filesByDirectory.put(directory.getPath(), names);
+                this.modificationTimes.put(directory.getPath(), modificationTime);
+                for (File entry : entries) {
+                    if (entry.isFile()) {
+                        // the heuristics match canonical paths, so the basename of a link
+                        // is that of its target
+                        File canonicalFile = entry.getCanonicalFile();
+                        names.add(entry.getName());
+                        this.canonicalFiles.put(entry.getPath(), canonicalFile);
+                        List<String> paths = this.pathsByName.get(canonicalFile.getName());
+                        if (paths == null) {
+                            paths = new LinkedList<>();
+                            this.pathsByName.put(canonicalFile.getName(), paths);
+                        }
+                        paths.add(entry.getPath());
+                    } else if (entry.isDirectory()) {
+                        directories.push(entry);
+                    }
+                }
+            } catch (IOException e) {
+                throw new RuntimeException(e.getMessage());
+            }
+        }
+        this.roots.add(directoryPath);
+        this.reversedNames = null;
+    }
+
+    // forgets all walked directories and the directories of the disk lookups
+    public synchronized void clear() {
+        this.roots.clear();
+        this.filesByDirectory.clear();
+        this.modificationTimes.clear();
+        this.lookupModificationTimes.clear();
+        this.canonicalFiles.clear();
+        this.pathsByName.clear();
+        this.reversedNames = null;
+    }
+
+//  ********************************************************************************
+//  OTHERS *************************************************************************
+//  ********************************************************************************
+
+    private static String normalize(File file) {
+        return file.getAbsoluteFile().toPath().normalize().toString();
+    }
+
+    private static String reverse(String string) {
+        return new StringBuilder(string).reverse().toString();
+    }
+}
@@ -0,0 +1,115 @@
+package at.ac.tuwien.infosys.www.pixy;
+
+import at.ac.tuwien.infosys.www.pixy.conversion.ProgramConverter;
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Checks that the include expressions evaluated by the DemandDrivenLiteralAnalysis during include resolution yield
+ * the same include graph as an analysis of the whole program (literal query budget 0), both if the queries are
+ * answered on demand and if they fall back to the analysis of the whole program.
+ */
+public class DemandDrivenLiteralAnalysisTestCase extends TestCase {
+    private String path;    // complete path to the testfile directory (with trailing slash)
+
+    private static final int DEFAULT_BUDGET = 10000;
+
+//  ********************************************************************************
+//  SETUP **************************************************************************
+//  ********************************************************************************
+
+    // called automatically
+    protected void setUp() {
+        this.path = MyOptions.pixyHome + "/testfiles/demandliteral/";
+        MyOptions.graphPath = MyOptions.pixyHome + "/graphs";
+        MyOptions.option_C = true;    // check the incremental include resolution
+        Checker.readConfiguration();
+        Checker.readModels();
+    }
+
+    // called automatically
+    protected void tearDown() {
+        MyOptions.option_C = false;
+    }
+
+    // converts the given testfile, evaluating the include expressions with the given budget
+    private ProgramConverter convert(String testFile, int budget) {
+        Checker checker = new Checker(this.path + testFile);
+        MyOptions.option_A = false;   // don't perform alias analysis
+        ProgramConverter programConverter = new ProgramConverter(checker.getSession(), true, false);
+        programConverter.setLiteralQueryBudget(budget);
+        programConverter.convert();
+        return programConverter;
+    }
+
+    // the edges of the include graph of the given converter (including file -> included files)
+    private static Map<String, Set<String>> getIncludeEdges(ProgramConverter programConverter) {
+        Map<String, Set<String>> edges = new HashMap<>();
+        Set<String> tos = null;
+        for (String line : programConverter.getIncludeGraph().dump().split("\n")) {
+            if (line.startsWith("- ")) {
+                tos.add(line.substring(2));
+            } else {
+                tos = new HashSet<>();
+                edges.put(line, tos);
+            }
+        }
+        return edges;
+    }
+
+    private String getCanonicalPath(String fileName) throws IOException {
+        return new File(this.path + fileName).getCanonicalPath();
+    }
+
+//  ********************************************************************************
+//  TESTS **************************************************************************
+//  ********************************************************************************
+
+    // all include expressions are evaluated on demand
+    public void testOnDemand() throws IOException {
+        ProgramConverter onDemand = this.convert("dynamic.php", DEFAULT_BUDGET);
+        Assert.assertTrue(onDemand.getNumberOfLiteralQueries() >= 3);
+        Assert.assertEquals(0, onDemand.getNumberOfLiteralFallbacks());
+
+        ProgramConverter complete = this.convert("dynamic.php", 0);
+        Assert.assertEquals(complete.getNumberOfLiteralQueries(), complete.getNumberOfLiteralFallbacks());
+
+        Map<String, Set<String>> edges = getIncludeEdges(onDemand);
+        Assert.assertEquals(getIncludeEdges(complete), edges);
+        Set<String> expected = new HashSet<>();
+        expected.add(this.getCanonicalPath("lib/config.php"));
+        expected.add(this.getCanonicalPath("lib/db.php"));
+        expected.add(this.getCanonicalPath("lib/module.php"));
+        Assert.assertEquals(expected, edges.get(this.getCanonicalPath("dynamic.php")));
+    }
+
+    // the include expressions depend on an array, which is not supported on demand
+    public void testUnsupportedConstruct() throws IOException {
+        ProgramConverter onDemand = this.convert("fallback.php", DEFAULT_BUDGET);
+        Assert.assertTrue(onDemand.getNumberOfLiteralFallbacks() > 0);
+
+        ProgramConverter complete = this.convert("fallback.php", 0);
+        Map<String, Set<String>> edges = getIncludeEdges(onDemand);
+        Assert.assertEquals(getIncludeEdges(complete), edges);
+        Set<String> expected = new HashSet<>();
+        expected.add(this.getCanonicalPath("lib/config.php"));
+        expected.add(this.getCanonicalPath("lib/module.php"));
+        Assert.assertEquals(expected, edges.get(this.getCanonicalPath("fallback.php")));
+    }
+
+    // a budget that is exceeded in the middle of the first query (which then
+    // falls back to the analysis of the whole program, as do all later ones)
+    public void testBudgetExceeded() {
+        ProgramConverter onDemand = this.convert("dynamic.php", DEFAULT_BUDGET);
+        ProgramConverter exceeded = this.convert("dynamic.php", 5);
+        Assert.assertTrue(exceeded.getNumberOfLiteralFallbacks() > 0);
+        Assert.assertEquals(getIncludeEdges(onDemand), getIncludeEdges(exceeded));
+    }
+}
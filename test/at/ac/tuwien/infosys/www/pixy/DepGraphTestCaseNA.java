@@ -556,7 +556,7 @@ public class DepGraphTestCaseNA extends TestCase {
 
     public void test052() {
         String testNumber = "052";
-        int expectedNumberOfSinks = 1;
+        int expectedNumberOfSinks = 0;    // foo() is never called, so its body is not converted
         int expectedNumberOfGraphs = 0;
         int expectedNumberOfVulnerabilities = 0;
         this.performTestWithCallStringAnalysis(testNumber, expectedNumberOfSinks, expectedNumberOfGraphs, false, expectedNumberOfVulnerabilities);
@@ -732,7 +732,7 @@ public class DepGraphTestCaseNA extends TestCase {
 
     public void test074() {
         String testNumber = "074";
-        int expectedNumberOfSinks = 1;
+        int expectedNumberOfSinks = 0;    // foo() is never called, so its body is not converted
         int expectedNumberOfGraphs = 0;
         int expectedNumberOfVulnerabilities = 0;
         this.performTestWithCallStringAnalysis(testNumber, expectedNumberOfSinks, expectedNumberOfGraphs, false, expectedNumberOfVulnerabilities);
@@ -1044,7 +1044,7 @@ public class DepGraphTestCaseNA extends TestCase {
 
     public void test113() {
         String testNumber = "113";
-        int expectedNumberOfSinks = 3;
+        int expectedNumberOfSinks = 1;    // MyClass::send() is never called, so its body is not converted
         int expectedNumberOfGraphs = 1;
         int expectedNumberOfVulnerabilities = 1;
         this.performTestWithCallStringAnalysis(testNumber, expectedNumberOfSinks, expectedNumberOfGraphs, false, expectedNumberOfVulnerabilities);
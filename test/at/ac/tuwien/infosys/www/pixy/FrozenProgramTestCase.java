@@ -0,0 +1,82 @@
+package at.ac.tuwien.infosys.www.pixy;
+
+import at.ac.tuwien.infosys.www.pixy.conversion.FrozenProgram;
+import at.ac.tuwien.infosys.www.pixy.conversion.TacConverter;
+import at.ac.tuwien.infosys.www.pixy.conversion.TacFunction;
+import at.ac.tuwien.infosys.www.pixy.conversion.cfgnodes.AbstractCfgNode;
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checks the compact representation of the cfgs against the cfg nodes.
+ */
+public class FrozenProgramTestCase extends TestCase {
+
+//  ********************************************************************************
+//  SETUP **************************************************************************
+//  ********************************************************************************
+
+    // called automatically
+    protected void setUp() {
+        MyOptions.graphPath = MyOptions.pixyHome + "/graphs";
+    }
+
+    private TacConverter convert(String testFile) {
+        Checker checker = new Checker(MyOptions.pixyHome + "/testfiles/" + testFile);
+        MyOptions.option_A = false;   // don't perform alias analysis
+        MyOptions.setAnalyses("xss");
+        return checker.initialize().getTac();
+    }
+
+    private void performTest(String testFile) {
+        TacConverter tac = this.convert(testFile);
+        FrozenProgram frozenProgram = tac.freeze();
+
+        int numberOfNodes = 0;
+        for (TacFunction function : tac.getAllFunctions()) {
+            for (AbstractCfgNode node : function.getControlFlowGraph().dfPreOrder()) {
+                numberOfNodes++;
+                int id = frozenProgram.getId(node);
+                Assert.assertTrue(id >= 0);
+                Assert.assertSame(node, frozenProgram.getNode(id));
+
+                List<AbstractCfgNode> successors = new ArrayList<>();
+                for (int i = 0; i < frozenProgram.getNumberOfSuccessors(id); i++) {
+                    successors.add(frozenProgram.getNode(frozenProgram.getSuccessor(id, i)));
+                }
+                Assert.assertEquals(node.getSuccessors(), successors);
+            }
+        }
+        Assert.assertTrue(numberOfNodes <= frozenProgram.size());
+
+        // freezing the unmodified program again keeps the ids
+        FrozenProgram refrozenProgram = tac.freeze();
+        Assert.assertEquals(frozenProgram.size(), refrozenProgram.size());
+        for (int id = 0; id < frozenProgram.size(); id++) {
+            Assert.assertSame(frozenProgram.getNode(id), refrozenProgram.getNode(id));
+        }
+    }
+
+//  ********************************************************************************
+//  TESTS **************************************************************************
+//  ********************************************************************************
+
+    public void testXss01() {
+        this.performTest("xss/test01.php");
+    }
+
+    public void testXss04() {
+        this.performTest("xss/test04.php");
+    }
+
+    public void testDepGraph050() {
+        this.performTest("depgraph/test050.php");
+    }
+
+    public void testDepGraph110() {
+        this.performTest("depgraph/test110.php");
+    }
+}
@@ -0,0 +1,85 @@
+package at.ac.tuwien.infosys.www.pixy;
+
+import at.ac.tuwien.infosys.www.pixy.conversion.includes.IncludeGraph;
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.util.*;
+
+public class IncludeGraphTestCase extends TestCase {
+    private static final int NUMBER_OF_FILES = 30;
+    private static final int NUMBER_OF_EDGES = 2000;
+
+    // the files don't have to exist
+    private File[] files;
+
+//  ********************************************************************************
+//  SETUP **************************************************************************
+//  ********************************************************************************
+
+    protected void setUp() {
+        this.files = new File[NUMBER_OF_FILES];
+        for (int i = 0; i < NUMBER_OF_FILES; i++) {
+            this.files[i] = new File(MyOptions.pixyHome, "includegraph/file" + i + ".php");
+        }
+    }
+
+    // is "to" reachable from "from" via the given edges?
+    private static boolean isReachable(Map<File, Set<File>> edges, File from, File to) {
+        Set<File> visited = new HashSet<>();
+        Deque<File> stack = new ArrayDeque<>();
+        stack.push(from);
+        while (!stack.isEmpty()) {
+            File file = stack.pop();
+            if (file.equals(to)) {
+                return true;
+            }
+            if (visited.add(file) && edges.containsKey(file)) {
+                stack.addAll(edges.get(file));
+            }
+        }
+        return false;
+    }
+
+//  ********************************************************************************
+//  TESTS **************************************************************************
+//  ********************************************************************************
+
+    // adds random edges; an edge must be rejected iff it would close a cycle, and the
+    // graph must never become cyclic (as checked by a traversal of the whole graph)
+    public void testRandomEdges() {
+        for (long seed = 0; seed < 5; seed++) {
+            Random random = new Random(seed);
+            IncludeGraph graph = new IncludeGraph(this.files[0]);
+
+            // the accepted edges, and the files that are part of the graph
+            Map<File, Set<File>> edges = new HashMap<>();
+            List<File> nodes = new ArrayList<>();
+            nodes.add(this.files[0]);
+
+            int numberOfRejectedEdges = 0;
+            for (int i = 0; i < NUMBER_OF_EDGES; i++) {
+                File from = nodes.get(random.nextInt(nodes.size()));
+                File to = this.files[random.nextInt(NUMBER_OF_FILES)];
+
+                boolean closesCycle = isReachable(edges, to, from);
+                Assert.assertEquals(!closesCycle, graph.addAcyclicEdge(from, to));
+                Assert.assertFalse(graph.isCyclic());
+
+                if (closesCycle) {
+                    numberOfRejectedEdges++;
+                    continue;
+                }
+                if (!edges.containsKey(from)) {
+                    edges.put(from, new HashSet<File>());
+                }
+                edges.get(from).add(to);
+                if (!nodes.contains(to)) {
+                    nodes.add(to);
+                }
+            }
+            Assert.assertTrue(numberOfRejectedEdges > 0);
+        }
+    }
+}
@@ -33,6 +33,12 @@ public class IncludeTestCase extends TestCase {
     protected void setUp() {
         this.path = MyOptions.pixyHome + "/testfiles/includes/";
         MyOptions.graphPath = MyOptions.pixyHome + "/graphs";
+        MyOptions.option_C = true;    // check the incremental include resolution
+    }
+
+    // called automatically
+    protected void tearDown() {
+        MyOptions.option_C = false;
     }
 
     // call this at the beginning of each test; optionally uses
@@ -227,6 +233,27 @@ public class IncludeTestCase extends TestCase {
         this.performTest(testNum, sinkNum, graphNum, false);
     }
 
+    public void test16() {
+        String testNum = "16";
+        int sinkNum = 2;
+        int graphNum = 2;
+        this.performTest(testNum, sinkNum, graphNum, false);
+    }
+
+    public void test17() {
+        String testNum = "17";
+        int sinkNum = 1;
+        int graphNum = 1;
+        this.performTest(testNum, sinkNum, graphNum, false);
+    }
+
+    public void test18() {
+        String testNum = "18";
+        int sinkNum = 1;
+        int graphNum = 1;
+        this.performTest(testNum, sinkNum, graphNum, false);
+    }
+
     /*
      * HOW TO ADD NEW TESTS
      *
@@ -0,0 +1,75 @@
+package at.ac.tuwien.infosys.www.pixy;
+
+import at.ac.tuwien.infosys.www.pixy.conversion.ParseTreeCache;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Compares the time for parsing the PHP files of the test corpus with the time for loading their parse trees from a
+ * ParseTreeCache (run with "ant benchmark-parsecache").
+ */
+public class ParseTreeCacheBenchmark {
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws Exception {
+        File cacheDirectory = Files.createTempDirectory("parsecache").toFile();
+        try {
+            run(cacheDirectory);
+        } finally {
+            for (File file : cacheDirectory.listFiles()) {
+                file.delete();
+            }
+            cacheDirectory.delete();
+        }
+    }
+
+    private static void run(File cacheDirectory) throws Exception {
+        List<File> files = ParseTreeCacheTestCase.collectTestFiles();
+
+        // fill the cache (and warm up the JVM); files that can't be parsed are skipped
+        ParseTreeCache cache = new ParseTreeCache(cacheDirectory);
+        for (Iterator<File> iterator = files.iterator(); iterator.hasNext(); ) {
+            File file = iterator.next();
+            try {
+                cache.parse(file.getPath());
+            } catch (Exception e) {
+                iterator.remove();
+            }
+        }
+
+        long parseTime = Long.MAX_VALUE;
+        long loadTime = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long startTime = System.nanoTime();
+            for (File file : files) {
+                ParseTreeCache.parse(file.getPath(), Files.readAllBytes(file.toPath()));
+            }
+            parseTime = Math.min(parseTime, System.nanoTime() - startTime);
+
+            startTime = System.nanoTime();
+            for (File file : files) {
+                cache.parse(file.getPath());
+            }
+            loadTime = Math.min(loadTime, System.nanoTime() - startTime);
+        }
+
+        long sourceSize = 0;
+        for (File file : files) {
+            sourceSize += file.length();
+        }
+        long cacheSize = 0;
+        for (File file : cacheDirectory.listFiles()) {
+            cacheSize += file.length();
+        }
+
+        System.out.println("files:                           " + files.size());
+        System.out.println("source size:                     " + sourceSize / 1024 + " KB");
+        System.out.println("cache size:                      " + cacheSize / 1024 + " KB");
+        System.out.println("parse time (best of " + ROUNDS + "):          " + parseTime / 1000000 + " ms");
+        System.out.println("cached load time (best of " + ROUNDS + "):    " + loadTime / 1000000 + " ms");
+        System.out.println("cache hits:                      " + cache.getNumberOfHits());
+    }
+}
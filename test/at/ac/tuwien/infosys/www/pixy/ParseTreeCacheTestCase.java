@@ -0,0 +1,117 @@
+package at.ac.tuwien.infosys.www.pixy;
+
+import at.ac.tuwien.infosys.www.phpparser.ParseNode;
+import at.ac.tuwien.infosys.www.phpparser.ParseTree;
+import at.ac.tuwien.infosys.www.pixy.conversion.ParseTreeCache;
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedList;
+import java.util.List;
+
+public class ParseTreeCacheTestCase extends TestCase {
+    private File cacheDirectory;
+
+//  ********************************************************************************
+//  SETUP **************************************************************************
+//  ********************************************************************************
+
+    protected void setUp() throws IOException {
+        this.cacheDirectory = Files.createTempDirectory("parsecache").toFile();
+    }
+
+    protected void tearDown() {
+        for (File file : this.cacheDirectory.listFiles()) {
+            file.delete();
+        }
+        this.cacheDirectory.delete();
+    }
+
+    // the PHP files of the test corpus (canonical)
+    static List<File> collectTestFiles() {
+        List<File> files = new LinkedList<>();
+        for (File file : Utils.fileListFromDir(MyOptions.pixyHome + "/testfiles")) {
+            if (file.getName().endsWith(".php")) {
+                files.add(file);
+            }
+        }
+        return files;
+    }
+
+    // fails if the given trees differ in any node
+    private void assertEqualTrees(ParseTree expected, ParseTree actual) {
+        Deque<ParseNode> expectedNodes = new ArrayDeque<>();
+        Deque<ParseNode> actualNodes = new ArrayDeque<>();
+        expectedNodes.push(expected.getRoot());
+        actualNodes.push(actual.getRoot());
+        while (!expectedNodes.isEmpty()) {
+            ParseNode expectedNode = expectedNodes.pop();
+            ParseNode actualNode = actualNodes.pop();
+            Assert.assertEquals(expectedNode.isToken(), actualNode.isToken());
+            Assert.assertEquals(expectedNode.getSymbol(), actualNode.getSymbol());
+            Assert.assertEquals(expectedNode.getName(), actualNode.getName());
+            Assert.assertEquals(expectedNode.getFileName(), actualNode.getFileName());
+            if (expectedNode.isToken()) {
+                Assert.assertEquals(expectedNode.getLexeme(), actualNode.getLexeme());
+                Assert.assertEquals(expectedNode.getLineno(), actualNode.getLineno());
+                continue;
+            }
+            Assert.assertEquals(expectedNode.getNumChildren(), actualNode.getNumChildren());
+            for (ParseNode child : actualNode.getChildren()) {
+                Assert.assertSame(actualNode, child.getParent());
+            }
+            for (int i = 0; i < expectedNode.getNumChildren(); i++) {
+                expectedNodes.push(expectedNode.getChild(i));
+                actualNodes.push(actualNode.getChild(i));
+            }
+        }
+    }
+
+//  ********************************************************************************
+//  TESTS **************************************************************************
+//  ********************************************************************************
+
+    public void testRoundTrip() throws Exception {
+        int numberOfTrees = 0;
+        for (File file : collectTestFiles()) {
+            ParseTree parseTree;
+            try {
+                parseTree = ParseTreeCache.parse(file.getPath(), Files.readAllBytes(file.toPath()));
+            } catch (Exception e) {
+                // not every test file is valid PHP
+                continue;
+            }
+
+            assertEqualTrees(parseTree, ParseTreeCache.deserialize(ParseTreeCache.serialize(parseTree)));
+            numberOfTrees++;
+        }
+        Assert.assertTrue(numberOfTrees > 0);
+    }
+
+    public void testHitAndDamagedFile() throws Exception {
+        File file = new File(MyOptions.pixyHome + "/testfiles/taint/test39.php").getCanonicalFile();
+        ParseTree parsed = ParseTreeCache.parse(file.getPath(), Files.readAllBytes(file.toPath()));
+
+        ParseTreeCache cache = new ParseTreeCache(this.cacheDirectory);
+        assertEqualTrees(parsed, cache.parse(file.getPath()));
+        assertEqualTrees(parsed, cache.parse(file.getPath()));
+        Assert.assertEquals(1, cache.getNumberOfMisses());
+        Assert.assertEquals(1, cache.getNumberOfHits());
+
+        // a truncated cache file is parsed again and replaced
+        File[] cacheFiles = this.cacheDirectory.listFiles();
+        Assert.assertEquals(1, cacheFiles.length);
+        byte[] content = Files.readAllBytes(cacheFiles[0].toPath());
+        try (OutputStream out = new FileOutputStream(cacheFiles[0])) {
+            out.write(content, 0, content.length / 2);
+        }
+        assertEqualTrees(parsed, cache.parse(file.getPath()));
+        Assert.assertEquals(2, cache.getNumberOfMisses());
+        assertEqualTrees(parsed, cache.parse(file.getPath()));
+        Assert.assertEquals(2, cache.getNumberOfHits());
+    }
+}
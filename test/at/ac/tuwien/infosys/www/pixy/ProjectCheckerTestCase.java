@@ -0,0 +1,83 @@
+package at.ac.tuwien.infosys.www.pixy;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+public class ProjectCheckerTestCase extends TestCase {
+    private File directory;
+
+//  ********************************************************************************
+//  SETUP **************************************************************************
+//  ********************************************************************************
+
+    protected void setUp() throws IOException {
+        this.directory = Files.createTempDirectory("projectchecker").toFile().getCanonicalFile();
+        MyOptions.graphPath = MyOptions.pixyHome + "/graphs";
+        MyOptions.option_A = false;   // don't perform alias analysis
+        MyOptions.setAnalyses("xss");
+        this.writeFile("a.php", "<?php\necho $_GET['a'];\n");
+        this.writeFile("b.php", "<?php\n$b = ;\n");
+        this.writeFile("c.php", "<?php\necho $_GET['c'];\n");
+    }
+
+    protected void tearDown() {
+        Deque<File> files = new ArrayDeque<>();
+        files.push(this.directory);
+        while (!files.isEmpty()) {
+            File file = files.peek();
+            File[] children = file.listFiles();
+            if (children != null && children.length > 0) {
+                for (File child : children) {
+                    files.push(child);
+                }
+            } else {
+                file.delete();
+                files.pop();
+            }
+        }
+    }
+
+    private void writeFile(String name, String content) throws IOException {
+        Files.write(new File(this.directory, name).toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private List<ProjectChecker.EntryResult> check(int numberOfThreads) {
+        ProjectChecker projectChecker = new ProjectChecker(
+            ProjectChecker.collectEntryFiles(this.directory.getPath()), numberOfThreads);
+        projectChecker.run();
+        return projectChecker.getResults();
+    }
+
+    private void checkResults(List<ProjectChecker.EntryResult> results) {
+        Assert.assertEquals(3, results.size());
+        Assert.assertNull(results.get(0).failure);
+        Assert.assertEquals(1, results.get(0).numberOfVulnerabilities);
+        Assert.assertNotNull(results.get(1).failure);
+        Assert.assertNull(results.get(2).failure);
+        Assert.assertEquals(1, results.get(2).numberOfVulnerabilities);
+    }
+
+//  ********************************************************************************
+//  TESTS **************************************************************************
+//  ********************************************************************************
+
+    // an entry file that can't be parsed only fails itself, both if the entry files
+    // are analyzed one after another (the default) and concurrently (-n)
+    public void testUnparsableEntryFile() {
+        this.checkResults(this.check(1));
+        Assert.assertTrue(Utils.isExitOnBail());
+    }
+
+    public void testUnparsableEntryFileConcurrently() {
+        this.checkResults(this.check(2));
+        Assert.assertTrue(Utils.isExitOnBail());
+    }
+}
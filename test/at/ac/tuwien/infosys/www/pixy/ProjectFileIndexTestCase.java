@@ -0,0 +1,144 @@
+package at.ac.tuwien.infosys.www.pixy;
+
+import at.ac.tuwien.infosys.www.pixy.conversion.includes.ProjectFileIndex;
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+
+public class ProjectFileIndexTestCase extends TestCase {
+    private File directory;
+
+//  ********************************************************************************
+//  SETUP **************************************************************************
+//  ********************************************************************************
+
+    protected void setUp() throws IOException {
+        this.directory = Files.createTempDirectory("fileindex").toFile().getCanonicalFile();
+        this.createFile("index.php");
+        this.createFile("lib/db.php");
+        this.createFile("lib/sub/db.php");
+        this.createFile("other/config.inc.php");
+    }
+
+    protected void tearDown() {
+        Deque<File> files = new ArrayDeque<>();
+        files.push(this.directory);
+        while (!files.isEmpty()) {
+            File file = files.peek();
+            File[] children = file.listFiles();
+            if (children != null && children.length > 0) {
+                for (File child : children) {
+                    files.push(child);
+                }
+            } else {
+                file.delete();
+                files.pop();
+            }
+        }
+    }
+
+    private File createFile(String name) throws IOException {
+        File file = new File(this.directory, name);
+        file.getParentFile().mkdirs();
+        file.createNewFile();
+        return file;
+    }
+
+//  ********************************************************************************
+//  TESTS **************************************************************************
+//  ********************************************************************************
+
+    public void testIsFile() throws IOException {
+        ProjectFileIndex index = new ProjectFileIndex();
+        index.addDirectory(this.directory);
+        Assert.assertEquals(4, index.size());
+
+        Assert.assertTrue(index.isFile(new File(this.directory, "lib/db.php")));
+        Assert.assertTrue(index.isFile(new File(this.directory, "lib/sub/../db.php")));
+        Assert.assertFalse(index.isFile(new File(this.directory, "lib/missing.php")));
+        Assert.assertFalse(index.isFile(new File(this.directory, "lib")));
+        Assert.assertEquals(4, index.getNumberOfIndexLookups());
+        Assert.assertEquals(0, index.getNumberOfDiskLookups());
+
+        // files that are created later are not noticed
+        File newFile = this.createFile("lib/new.php");
+        Assert.assertFalse(index.isFile(newFile));
+
+        // files outside of the indexed directories are looked up on disk
+        Assert.assertFalse(index.isFile(new File(this.directory.getParentFile(), "missing.php")));
+        Assert.assertEquals(1, index.getNumberOfDiskLookups());
+
+        Assert.assertEquals(new File(this.directory, "lib/db.php"),
+            index.getCanonicalFile(new File(this.directory, "lib/./db.php")));
+    }
+
+    public void testFindBySuffix() {
+        ProjectFileIndex index = new ProjectFileIndex();
+        Assert.assertEquals(2, index.findBySuffix(this.directory, "db.php").size());
+        Assert.assertEquals(1, index.findBySuffix(new File(this.directory, "lib/sub"), "db.php").size());
+        Assert.assertEquals(1, index.findBySuffix(this.directory, "/lib/db.php").size());
+        Assert.assertEquals(2, index.findBySuffix(this.directory, "b/db.php").size());
+        Assert.assertEquals(1, index.findBySuffix(this.directory, ".inc.php").size());
+        Assert.assertEquals(0, index.findBySuffix(this.directory, "y.php").size());
+        Assert.assertEquals(4, index.findBySuffix(this.directory, "").size());
+    }
+
+    public void testOutdated() throws Exception {
+        ProjectFileIndex index = new ProjectFileIndex();
+        index.addDirectory(this.directory);
+        Assert.assertFalse(index.isOutdated());
+
+        // make sure that the modification time of the directory changes
+        Thread.sleep(1000);
+        File newFile = this.createFile("lib/sub/new.php");
+        Assert.assertTrue(index.isOutdated());
+
+        index.clear();
+        Assert.assertEquals(0, index.size());
+        Assert.assertTrue(index.isFile(newFile));
+        Assert.assertEquals(1, index.getNumberOfDiskLookups());
+        index.addDirectory(this.directory);
+        Assert.assertFalse(index.isOutdated());
+        Assert.assertEquals(5, index.size());
+    }
+
+    // directories outside the index in which files were looked up on disk are watched as well
+    public void testOutdatedLookup() throws Exception {
+        ProjectFileIndex index = new ProjectFileIndex();
+        index.addDirectory(new File(this.directory, "lib"));
+        File missingFile = new File(this.directory, "other/missing.php");
+        File missingDirectoryFile = new File(this.directory, "missing/missing.php");
+        Assert.assertFalse(index.isFile(missingFile));
+        Assert.assertFalse(index.isFile(missingDirectoryFile));
+        Assert.assertEquals(2, index.getNumberOfDiskLookups());
+        Assert.assertFalse(index.isOutdated());
+
+        // make sure that the modification time of the directory changes
+        Thread.sleep(1000);
+        this.createFile("other/missing.php");
+        Assert.assertTrue(index.isOutdated());
+        index.clear();
+        Assert.assertTrue(index.isFile(missingFile));
+        Assert.assertFalse(index.isFile(missingDirectoryFile));
+        Assert.assertFalse(index.isOutdated());
+
+        // a directory that didn't exist is noticed through its parent
+        Thread.sleep(1000);
+        this.createFile("missing/missing.php");
+        Assert.assertTrue(index.isOutdated());
+    }
+
+    // the index knows the same files as a walk of the directory
+    public void testTestFiles() {
+        String testFiles = MyOptions.pixyHome + "/testfiles";
+        List<File> files = new ProjectFileIndex().findBySuffix(new File(testFiles), "");
+        Assert.assertEquals(new HashSet<>(Utils.fileListFromDir(testFiles)), new HashSet<>(files));
+    }
+}
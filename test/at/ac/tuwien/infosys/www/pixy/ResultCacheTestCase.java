@@ -0,0 +1,119 @@
+package at.ac.tuwien.infosys.www.pixy;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+
+public class ResultCacheTestCase extends TestCase {
+    private File directory;
+    private File cacheDirectory;
+    private File entryFile;
+    private File includedFile;
+    private Set<File> closure;
+    private List<Integer> vulnerabilities;
+
+//  ********************************************************************************
+//  SETUP **************************************************************************
+//  ********************************************************************************
+
+    protected void setUp() throws IOException {
+        this.directory = Files.createTempDirectory("resultcache").toFile().getCanonicalFile();
+        this.cacheDirectory = new File(this.directory, "cache");
+        this.entryFile = this.writeFile("index.php", "<?php\ninclude 'lib/config.php';\necho $x;\n");
+        this.includedFile = this.writeFile("lib/config.php", "<?php\n$x = $_GET['x'];\n");
+        this.closure = new HashSet<>(Arrays.asList(this.entryFile, this.includedFile));
+        this.vulnerabilities = new LinkedList<>(Arrays.asList(3));
+    }
+
+    protected void tearDown() {
+        MyOptions.optionA = false;
+        MyOptions.optionS = null;
+
+        Deque<File> files = new ArrayDeque<>();
+        files.push(this.directory);
+        while (!files.isEmpty()) {
+            File file = files.peek();
+            File[] children = file.listFiles();
+            if (children != null && children.length > 0) {
+                for (File child : children) {
+                    files.push(child);
+                }
+            } else {
+                file.delete();
+                files.pop();
+            }
+        }
+    }
+
+    private File writeFile(String name, String content) throws IOException {
+        File file = new File(this.directory, name);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+//  ********************************************************************************
+//  TESTS **************************************************************************
+//  ********************************************************************************
+
+    public void testHit() {
+        new ResultCache(this.cacheDirectory).store(this.entryFile, this.closure, this.vulnerabilities, "report\n");
+
+        // a new cache (i.e., a later run) finds the stored result
+        ResultCache.CachedResult cachedResult = new ResultCache(this.cacheDirectory).lookup(this.entryFile);
+        Assert.assertNotNull(cachedResult);
+        Assert.assertEquals(this.closure, cachedResult.getFiles());
+        Assert.assertEquals(this.vulnerabilities, cachedResult.vulnerabilities);
+        Assert.assertEquals("report\n", cachedResult.report);
+
+        // the result of another entry file is not returned
+        Assert.assertNull(new ResultCache(this.cacheDirectory).lookup(this.includedFile));
+    }
+
+    public void testIncludedFileChanged() throws IOException {
+        new ResultCache(this.cacheDirectory).store(this.entryFile, this.closure, this.vulnerabilities, "report\n");
+        Assert.assertNotNull(new ResultCache(this.cacheDirectory).lookup(this.entryFile));
+
+        this.writeFile("lib/config.php", "<?php\n$x = htmlspecialchars($_GET['x']);\n");
+        Assert.assertNull(new ResultCache(this.cacheDirectory).lookup(this.entryFile));
+    }
+
+    public void testOptionChanged() {
+        new ResultCache(this.cacheDirectory).store(this.entryFile, this.closure, this.vulnerabilities, "report\n");
+        Assert.assertNotNull(new ResultCache(this.cacheDirectory).lookup(this.entryFile));
+
+        // -a is part of the fingerprint of the cache entries
+        MyOptions.optionA = !MyOptions.optionA;
+        Assert.assertNull(new ResultCache(this.cacheDirectory).lookup(this.entryFile));
+
+        // the stored result is found again with the old options
+        MyOptions.optionA = !MyOptions.optionA;
+        Assert.assertNotNull(new ResultCache(this.cacheDirectory).lookup(this.entryFile));
+    }
+
+    // the fingerprint doesn't depend on the order in which the configuration files are listed
+    public void testConfigurationFileOrder() throws IOException {
+        File sinks1 = this.writeFile("sinks/sinks_a.txt", "a = 0\n");
+        File sinks2 = this.writeFile("sinks/sinks_b.txt", "b = 0\n");
+        MyOptions.optionS = sinks1.getPath() + ":" + sinks2.getPath();
+        new ResultCache(this.cacheDirectory).store(this.entryFile, this.closure, this.vulnerabilities, "report\n");
+
+        MyOptions.optionS = sinks2.getPath() + ":" + sinks1.getPath();
+        Assert.assertNotNull(new ResultCache(this.cacheDirectory).lookup(this.entryFile));
+
+        // but it depends on their contents
+        this.writeFile("sinks/sinks_b.txt", "b = 1\n");
+        Assert.assertNull(new ResultCache(this.cacheDirectory).lookup(this.entryFile));
+    }
+}
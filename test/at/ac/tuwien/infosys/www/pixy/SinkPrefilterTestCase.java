@@ -0,0 +1,67 @@
+package at.ac.tuwien.infosys.www.pixy;
+
+import at.ac.tuwien.infosys.www.pixy.conversion.TacConverter;
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+/**
+ * Checks that SinkPrefilter finds the sinks of a program in its include closure, and only those of the selected
+ * analyses.
+ */
+public class SinkPrefilterTestCase extends TestCase {
+    private String path;    // complete path to the testfile directory (with trailing slash)
+
+//  ********************************************************************************
+//  SETUP **************************************************************************
+//  ********************************************************************************
+
+    // called automatically
+    protected void setUp() {
+        this.path = MyOptions.pixyHome + "/testfiles/prefilter/";
+        MyOptions.graphPath = MyOptions.pixyHome + "/graphs";
+    }
+
+    // called automatically
+    protected void tearDown() {
+        this.clearAnalyses();
+    }
+
+    // setAnalyses() only adds analyses
+    private void clearAnalyses() {
+        for (VulnerabilityAnalysisInformation analysis : MyOptions.getVulnerabilityAnalyses()) {
+            analysis.setPerformMe(false);
+        }
+    }
+
+    // converts the given testfile and checks it for sinks of the given analyses
+    private boolean hasSinks(String testFile, String analyses) {
+        Checker checker = new Checker(this.path + testFile);
+        MyOptions.option_A = false;   // don't perform alias analysis
+        this.clearAnalyses();
+        MyOptions.setAnalyses(analyses);
+
+        TacConverter tac = checker.initialize().getTac();
+        return SinkPrefilter.hasSinks(tac);
+    }
+
+//  ********************************************************************************
+//  TESTS **************************************************************************
+//  ********************************************************************************
+
+    public void testNoSinks() {
+        Assert.assertFalse(this.hasSinks("nosinks.php", "xss"));
+        Assert.assertFalse(this.hasSinks("nosinks.php", "sql"));
+    }
+
+    // the only sink is a builtin function that is called in an included file
+    public void testBuiltinFunctionInInclude() {
+        Assert.assertTrue(this.hasSinks("builtin.php", "sql"));
+        Assert.assertFalse(this.hasSinks("builtin.php", "xss"));
+    }
+
+    // the only sink is a builtin function that is called by a method of an included class
+    public void testMethodInInclude() {
+        Assert.assertTrue(this.hasSinks("method.php", "xss"));
+        Assert.assertFalse(this.hasSinks("method.php", "sql"));
+    }
+}
@@ -0,0 +1,148 @@
+package at.ac.tuwien.infosys.www.pixy;
+
+import at.ac.tuwien.infosys.www.pixy.analysis.dependency.Sink;
+import at.ac.tuwien.infosys.www.pixy.analysis.dependency.graph.AbstractNode;
+import at.ac.tuwien.infosys.www.pixy.analysis.dependency.graph.DependencyGraph;
+import at.ac.tuwien.infosys.www.pixy.analysis.dependency.graph.NormalNode;
+import at.ac.tuwien.infosys.www.pixy.conversion.ProgramConverter;
+import at.ac.tuwien.infosys.www.pixy.conversion.TacConverter;
+import at.ac.tuwien.infosys.www.pixy.conversion.Variable;
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Checks that the optimization of the converted program (-O) doesn't change the reported vulnerabilities and the
+ * lines of the (non-temporary) variables in their dependency graphs, and that it actually optimizes.
+ */
+public class TacOptimizerTestCase extends TestCase {
+    // the converter of the most recently analyzed testfile
+    private ProgramConverter programConverter;
+
+    // the sink lines and the variables (with their lines) in the dependency graphs of
+    // the most recently analyzed testfile
+    private List<Integer> sinkLines;
+    private Set<String> graphVariables;
+
+//  ********************************************************************************
+//  SETUP **************************************************************************
+//  ********************************************************************************
+
+    // called automatically
+    protected void setUp() {
+        MyOptions.graphPath = MyOptions.pixyHome + "/graphs";
+    }
+
+    // called automatically
+    protected void tearDown() {
+        MyOptions.option_O = false;
+    }
+
+    // analyzes the given testfile and returns the line numbers of the vulnerabilities
+    private List<Integer> analyze(String testFile, boolean optimize) {
+        Checker checker = new Checker(MyOptions.pixyHome + "/testfiles/" + testFile);
+        MyOptions.option_A = false;   // don't perform alias analysis
+        MyOptions.option_O = optimize;
+        MyOptions.setAnalyses("xss");
+
+        // initialize & analyze
+        this.programConverter = checker.initialize();
+        TacConverter tac = this.programConverter.getTac();
+        checker.analyzeTaint(tac, false);
+
+        // collect the sinks and the variables in their dependency graphs
+        XssAnalysis xssAnalysis = (XssAnalysis) checker.gta.getAbstractVulnerabilityAnalyses().get(0);
+        this.sinkLines = new ArrayList<>();
+        this.graphVariables = new TreeSet<>();
+        List<Sink> sinks = xssAnalysis.collectSinks();
+        Collections.sort(sinks);
+        for (Sink sink : sinks) {
+            this.sinkLines.add(sink.getLineNumber());
+            for (DependencyGraph dependencyGraph : checker.gta.dependencyAnalysis.getDependencyGraphsForSink(sink)) {
+                for (AbstractNode node : dependencyGraph.getNodes()) {
+                    if (!(node instanceof NormalNode)) {
+                        continue;
+                    }
+                    NormalNode normalNode = (NormalNode) node;
+                    if (normalNode.getPlace() instanceof Variable && !((Variable) normalNode.getPlace()).isTemp()) {
+                        this.graphVariables.add(normalNode.getPlace() + ":" + normalNode.getLine());
+                    }
+                }
+            }
+        }
+
+        return checker.gta.detectVulnerabilities();
+    }
+
+    private void performTest(String testFile) {
+        List<Integer> exp = this.analyze(testFile, false);
+        List<Integer> expectedSinkLines = this.sinkLines;
+        Set<String> expectedGraphVariables = this.graphVariables;
+
+        Assert.assertEquals(exp, this.analyze(testFile, true));
+        Assert.assertEquals(expectedSinkLines, this.sinkLines);
+        Assert.assertEquals(expectedGraphVariables, this.graphVariables);
+    }
+
+//  ********************************************************************************
+//  TESTS **************************************************************************
+//  ********************************************************************************
+
+    public void testOptimizer01() {
+        this.performTest("optimizer/test01.php");
+        Assert.assertEquals(2, this.programConverter.getNumberOfPropagatedCopies());
+        Assert.assertEquals(2, this.programConverter.getNumberOfRemovedAssignments());
+    }
+
+    // the copy into $v spans two lines and is not propagated, unlike the one into $w
+    public void testOptimizer02() {
+        this.performTest("optimizer/test02.php");
+        Assert.assertEquals(Arrays.asList(7, 8), this.sinkLines);
+        Assert.assertEquals(1, this.programConverter.getNumberOfPropagatedCopies());
+    }
+
+    // without -O, nothing is optimized
+    public void testOptimizer01Unoptimized() {
+        this.analyze("optimizer/test01.php", false);
+        Assert.assertEquals(0, this.programConverter.getNumberOfPropagatedCopies());
+        Assert.assertEquals(0, this.programConverter.getNumberOfRemovedAssignments());
+    }
+
+    public void testXss01() {
+        this.performTest("xss/test01.php");
+    }
+
+    public void testXss02() {
+        this.performTest("xss/test02.php");
+    }
+
+    public void testXss03() {
+        this.performTest("xss/test03.php");
+    }
+
+    public void testDepGraph001() {
+        this.performTest("depgraph/test001.php");
+    }
+
+    public void testDepGraph010() {
+        this.performTest("depgraph/test010.php");
+    }
+
+    public void testDepGraph050() {
+        this.performTest("depgraph/test050.php");
+    }
+
+    public void testDepGraph100() {
+        this.performTest("depgraph/test100.php");
+    }
+
+    public void testDepGraph110() {
+        this.performTest("depgraph/test110.php");
+    }
+}
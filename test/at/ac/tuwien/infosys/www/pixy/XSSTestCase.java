@@ -48,6 +48,16 @@ public class XSSTestCase extends TestCase {
         Assert.assertEquals(exp, this.vulnList);
     }
 
+    // like performTest, but with real literal analysis
+    private void performLiteralTest(String testNum, List<Integer> exp) {
+        MyOptions.option_L = true;
+        try {
+            this.performTest(testNum, exp);
+        } finally {
+            MyOptions.option_L = false;
+        }
+    }
+
 //  ********************************************************************************
 //  TESTS **************************************************************************
 //  ********************************************************************************
@@ -78,6 +88,13 @@ public class XSSTestCase extends TestCase {
         this.performTest(testNum, exp);
     }
 
+    public void test04() {
+        String testNum = "04";
+        List<Integer> exp = new LinkedList<>();
+        exp.add(14);
+        this.performLiteralTest(testNum, exp);
+    }
+
     /*
      * HOW TO ADD NEW TESTS
      *
@@ -0,0 +1,14 @@
+<?php
+// dynamic includes that the demand-driven literal analysis resolves on its own
+define('LIB_DIR', 'lib/');
+$ext = '.php';
+
+function load($name, $ext) {
+    include LIB_DIR . $name . $ext;
+}
+
+include LIB_DIR . 'config' . $ext;    // sets $module
+load('db', $ext);
+include './lib/' . $module . $ext;    // only resolvable after config.php was included
+echo $x;
+?>
@@ -0,0 +1,8 @@
+<?php
+// dynamic includes that require an analysis of the whole program (arrays)
+$files = array();
+$files['config'] = 'lib/config.php';
+include $files['config'];    // sets $module
+include './lib/' . $module . '.php';
+echo $x;
+?>
@@ -0,0 +1,3 @@
+<?php
+$module = 'module';
+?>
@@ -0,0 +1,18 @@
+<?
+
+// file that is included more than once (the later inclusions are
+// copies of the converted file)
+
+include('test16a.php');
+
+function f() {
+    include('test16a.php');
+    echo $x;
+}
+
+f();
+include('test16a.php');
+echo $x . $y;
+
+
+?>
@@ -0,0 +1,10 @@
+<?
+
+$x = $_GET['a' . $z] . 'b';
+$y = foo($x);
+
+function foo($p) {
+    return $p . 'c';
+}
+
+?>
@@ -0,0 +1,14 @@
+<?
+
+// include_once of a file that has already been included on every path
+// leading to it (only the last require_once is removed)
+
+if ($c) {
+    include_once('test17a.php');
+}
+require_once('test17a.php');
+require_once('test17a.php');
+echo $x;
+
+
+?>
@@ -0,0 +1,5 @@
+<?
+
+$x = $_GET['a'];
+
+?>
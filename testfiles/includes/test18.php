@@ -0,0 +1,18 @@
+<?
+
+// non-literal includes that are resolved in several iterations, each
+// one depending on a file included in the previous iteration: through
+// a function call, and through a "global" statement
+
+$root_path = './';
+
+function show() {
+    global $last;
+    include('./test18' . $last . '.php');   // test18c.php, third iteration
+}
+
+include($root_path . 'test18a.php');        // defines name(), sets $part
+include($root_path . name($part));          // test18b.php, second iteration
+show();
+
+?>
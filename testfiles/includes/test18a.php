@@ -0,0 +1,9 @@
+<?
+
+$part = 'b';
+
+function name($p) {
+    return 'test18' . $p . '.php';
+}
+
+?>
@@ -0,0 +1,6 @@
+<?
+
+$last = 'c';
+$x = $_GET['x'];
+
+?>
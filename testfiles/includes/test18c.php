@@ -0,0 +1,5 @@
+<?
+
+echo $x . $_GET['y'];
+
+?>
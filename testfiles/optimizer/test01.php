@@ -0,0 +1,9 @@
+<?php
+// copies of temporaries into variables, and temporaries that are never used
+$a = $_GET['a'];
+$b = $a . 'x';      // copy propagation
+$c = $b . $a . 'y'; // copy propagation (with a nested temporary)
+$a . 'z';           // dead temporary
+-$a;                // dead temporary
+echo $c;
+?>
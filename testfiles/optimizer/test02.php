@@ -0,0 +1,9 @@
+<?php
+// an assignment that spans several lines keeps its line with -O
+$a = $_GET['a'];
+$v =
+    $a . 'x';
+$w = $a . 'y';
+echo $v;
+echo $w;
+?>
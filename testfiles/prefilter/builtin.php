@@ -0,0 +1,6 @@
+<?php
+
+include "builtin_inc.php";
+
+$name = $_GET['name'];
+lookup($name);
@@ -0,0 +1,5 @@
+<?php
+
+function lookup($name) {
+    mysql_query("SELECT * FROM users WHERE name = '$name'");
+}
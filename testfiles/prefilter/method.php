@@ -0,0 +1,6 @@
+<?php
+
+include "method_inc.php";
+
+$logger = new Logger();
+$logger->write($_GET['message']);
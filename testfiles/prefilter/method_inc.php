@@ -0,0 +1,7 @@
+<?php
+
+class Logger {
+    function write($message) {
+        printf($message);
+    }
+}
@@ -0,0 +1,7 @@
+<?php
+
+include "nosinks_inc.php";
+
+$a = $_GET['a'];
+$b = compute($a);
+$c = strlen($b);
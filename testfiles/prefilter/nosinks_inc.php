@@ -0,0 +1,5 @@
+<?php
+
+function compute($x) {
+    return $x . "suffix";
+}
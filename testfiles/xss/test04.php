@@ -0,0 +1,16 @@
+<? //
+
+// branches with constant conditions are removed before the taint analysis
+// if literal analysis is used
+
+define('DEBUG', false);
+if (DEBUG) {
+    echo $_GET['debug'];    // not reachable
+}
+$mode = 'live';
+if ($mode == 'install') {
+    echo $_GET['install'];  // not reachable
+} else {
+    echo $_GET['live'];     // vuln
+}
+?>